@@ -0,0 +1,122 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Base class for cache invalidation transports that handles the configuration parameters
+ * and passes received events to the cache invalidation bus.<p>
+ *
+ * @since 10.0.0
+ */
+public abstract class A_CmsCacheInvalidationTransport implements I_CmsCacheInvalidationTransport {
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(A_CmsCacheInvalidationTransport.class);
+
+    /** The bus that handles the received events. */
+    private CmsCacheInvalidationBus m_bus;
+
+    /** The configuration parameters. */
+    private CmsParameterConfiguration m_configuration;
+
+    /**
+     * Default constructor.<p>
+     */
+    protected A_CmsCacheInvalidationTransport() {
+
+        m_configuration = new CmsParameterConfiguration();
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#addConfigurationParameter(java.lang.String, java.lang.String)
+     */
+    public void addConfigurationParameter(String paramName, String paramValue) {
+
+        m_configuration.put(paramName, paramValue);
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#getConfiguration()
+     */
+    public CmsParameterConfiguration getConfiguration() {
+
+        return m_configuration;
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#initConfiguration()
+     */
+    public void initConfiguration() {
+
+        m_configuration = CmsParameterConfiguration.unmodifiableVersion(m_configuration);
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsCacheInvalidationTransport#start(org.opencms.cache.CmsCacheInvalidationBus)
+     */
+    public void start(CmsCacheInvalidationBus bus) throws CmsException {
+
+        m_bus = bus;
+    }
+
+    /**
+     * Returns the bus that handles the received events.<p>
+     *
+     * @return the bus that handles the received events, or <code>null</code> if the transport has not been started
+     */
+    protected CmsCacheInvalidationBus getBus() {
+
+        return m_bus;
+    }
+
+    /**
+     * Passes an event received from another cluster node to the cache invalidation bus.<p>
+     *
+     * Errors are logged, so that a failing event handler does not stop the transport.<p>
+     *
+     * @param event the received event
+     */
+    protected void receive(CmsCacheInvalidationEvent event) {
+
+        CmsCacheInvalidationBus bus = m_bus;
+        if (bus == null) {
+            return;
+        }
+        try {
+            bus.receive(event);
+        } catch (Throwable t) {
+            LOG.error(Messages.get().getBundle().key(Messages.ERR_CACHE_INVALIDATION_RECEIVE_1, event), t);
+        }
+    }
+}
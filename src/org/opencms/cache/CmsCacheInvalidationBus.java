@@ -0,0 +1,190 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.opencms.main.CmsEvent;
+import org.opencms.main.CmsEventManager;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.util.CmsUUID;
+
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Keeps the caches of several OpenCms instances that share one database coherent.<p>
+ *
+ * The bus listens to the publish and cache flush events of the local instance and sends them
+ * in a compact form with the configured {@link I_CmsCacheInvalidationTransport} to the other nodes.
+ * Events received from other nodes are fired with the local event manager. Received events carry the id of the
+ * originating node as {@link I_CmsEventListener#KEY_CLUSTER_NODE} and are not sent again.<p>
+ *
+ * A received publish event is fired as {@link I_CmsEventListener#EVENT_REMOTE_PUBLISH_PROJECT}, which is only
+ * handled by caches like the memory monitor, the flex cache, the XML content caches and the ADE configuration cache.
+ * Export points, the static export and the search indexes have already been updated by the publishing node.
+ * The event only carries the publish history id, the receiving nodes read the published resources
+ * from the shared database.<p>
+ *
+ * @since 10.0.0
+ */
+public class CmsCacheInvalidationBus implements I_CmsEventListener {
+
+    /** The event types that are sent to the other cluster nodes. */
+    public static final int[] EVENT_TYPES = {
+        I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+        I_CmsEventListener.EVENT_CLEAR_CACHES,
+        I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES,
+        I_CmsEventListener.EVENT_CLEAR_OFFLINE_CACHES,
+        I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR,
+        I_CmsEventListener.EVENT_FLEX_PURGE_JSP_REPOSITORY};
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsCacheInvalidationBus.class);
+
+    /** The event manager used to register the bus and to fire received events. */
+    private CmsEventManager m_eventManager;
+
+    /** The id of this cluster node. */
+    private String m_nodeId;
+
+    /** The transport used to exchange the events. */
+    private I_CmsCacheInvalidationTransport m_transport;
+
+    /**
+     * Creates a new cache invalidation bus.<p>
+     *
+     * @param transport the transport used to exchange the events
+     * @param eventManager the event manager used to register the bus and to fire received events
+     */
+    public CmsCacheInvalidationBus(I_CmsCacheInvalidationTransport transport, CmsEventManager eventManager) {
+
+        m_transport = transport;
+        m_eventManager = eventManager;
+        // the server name is not necessarily unique in a cluster, so every instance uses its own id
+        m_nodeId = new CmsUUID().toString();
+    }
+
+    /**
+     * Sends local publish and cache flush events to the other cluster nodes.<p>
+     *
+     * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+     */
+    public void cmsEvent(CmsEvent event) {
+
+        Map<String, Object> data = event.getData();
+        if ((data != null) && data.containsKey(I_CmsEventListener.KEY_CLUSTER_NODE)) {
+            // the event has been received from another node
+            return;
+        }
+        CmsCacheInvalidationEvent invalidationEvent = CmsCacheInvalidationEvent.fromCmsEvent(m_nodeId, event);
+        try {
+            m_transport.send(invalidationEvent);
+        } catch (CmsException e) {
+            LOG.error(Messages.get().getBundle().key(Messages.ERR_CACHE_INVALIDATION_SEND_1, invalidationEvent), e);
+        }
+    }
+
+    /**
+     * Returns the id of this cluster node.<p>
+     *
+     * @return the id of this cluster node
+     */
+    public String getNodeId() {
+
+        return m_nodeId;
+    }
+
+    /**
+     * Returns the transport used to exchange the events.<p>
+     *
+     * @return the transport used to exchange the events
+     */
+    public I_CmsCacheInvalidationTransport getTransport() {
+
+        return m_transport;
+    }
+
+    /**
+     * Starts the transport and registers the bus for the local events.<p>
+     *
+     * @throws CmsException if the transport could not be started
+     */
+    public void initialize() throws CmsException {
+
+        m_transport.start(this);
+        m_eventManager.addCmsEventListener(this, EVENT_TYPES);
+        if (CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(
+                Messages.get().getBundle().key(
+                    Messages.INIT_CACHE_INVALIDATION_BUS_2,
+                    m_transport.getClass().getName(),
+                    m_nodeId));
+        }
+    }
+
+    /**
+     * Fires an event received from another cluster node with the local event manager.<p>
+     *
+     * Publish events are fired as {@link I_CmsEventListener#EVENT_REMOTE_PUBLISH_PROJECT}.
+     * Events sent by this node are ignored.<p>
+     *
+     * @param event the received event
+     */
+    public void receive(CmsCacheInvalidationEvent event) {
+
+        if (m_nodeId.equals(event.getNodeId())) {
+            return;
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(
+                Messages.get().getBundle().key(
+                    Messages.LOG_CACHE_INVALIDATION_RECEIVED_2,
+                    new Integer(event.getType()),
+                    event.getNodeId()));
+        }
+        Map<String, Object> data = event.getEventData();
+        data.put(I_CmsEventListener.KEY_CLUSTER_NODE, event.getNodeId());
+        int type = event.getType();
+        if (type == I_CmsEventListener.EVENT_PUBLISH_PROJECT) {
+            // only the caches have to be updated, not the export points, the static export or the search indexes
+            type = I_CmsEventListener.EVENT_REMOTE_PUBLISH_PROJECT;
+        }
+        m_eventManager.fireEvent(new CmsEvent(type, data));
+    }
+
+    /**
+     * Unregisters the bus and shuts down the transport.<p>
+     */
+    public void shutDown() {
+
+        m_eventManager.removeCmsEventListener(this);
+        m_transport.shutDown();
+    }
+}
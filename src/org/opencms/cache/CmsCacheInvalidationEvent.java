@@ -0,0 +1,280 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.opencms.i18n.CmsEncoder;
+import org.opencms.main.CmsEvent;
+import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A compact, serializable form of an OpenCms event that is exchanged between the nodes of a cluster.<p>
+ *
+ * Only the simple values of the event data are kept, i.e. strings, UUIDs, integers, longs and booleans.
+ * Values like the database context or the report of a publish event are node local and are dropped.<p>
+ *
+ * The event data is encoded as <code>key=t:value|key=t:value</code>, where <code>t</code>
+ * is a single character for the value type and the value is URL encoded.<p>
+ *
+ * @since 10.0.0
+ */
+public final class CmsCacheInvalidationEvent {
+
+    /** Separator between the entries of the encoded event data. */
+    private static final String SEPARATOR_ENTRY = "|";
+
+    /** Separator between key and value of an entry of the encoded event data. */
+    private static final String SEPARATOR_KEY = "=";
+
+    /** Separator between the type and the value of an encoded value. */
+    private static final char SEPARATOR_TYPE = ':';
+
+    /** Type prefix for boolean values. */
+    private static final char TYPE_BOOLEAN = 'b';
+
+    /** Type prefix for integer values. */
+    private static final char TYPE_INTEGER = 'i';
+
+    /** Type prefix for long values. */
+    private static final char TYPE_LONG = 'l';
+
+    /** Type prefix for string values. */
+    private static final char TYPE_STRING = 's';
+
+    /** Type prefix for UUID values. */
+    private static final char TYPE_UUID = 'u';
+
+    /** The encoded event data. */
+    private String m_data;
+
+    /** The creation time of the event. */
+    private long m_dateCreated;
+
+    /** The id of the event. */
+    private CmsUUID m_id;
+
+    /** The id of the cluster node the event originates from. */
+    private String m_nodeId;
+
+    /** The OpenCms event type. */
+    private int m_type;
+
+    /**
+     * Creates a new cache invalidation event.<p>
+     *
+     * @param id the id of the event
+     * @param nodeId the id of the cluster node the event originates from
+     * @param type the OpenCms event type
+     * @param data the encoded event data
+     * @param dateCreated the creation time of the event
+     */
+    public CmsCacheInvalidationEvent(CmsUUID id, String nodeId, int type, String data, long dateCreated) {
+
+        m_id = id;
+        m_nodeId = nodeId;
+        m_type = type;
+        m_data = (data == null) ? "" : data;
+        m_dateCreated = dateCreated;
+    }
+
+    /**
+     * Creates a cache invalidation event for the given OpenCms event.<p>
+     *
+     * @param nodeId the id of the cluster node the event originates from
+     * @param event the OpenCms event
+     *
+     * @return the cache invalidation event
+     */
+    public static CmsCacheInvalidationEvent fromCmsEvent(String nodeId, CmsEvent event) {
+
+        StringBuffer data = new StringBuffer();
+        if (event.getData() != null) {
+            for (Map.Entry<String, Object> entry : event.getData().entrySet()) {
+                String value = encodeValue(entry.getValue());
+                if (value == null) {
+                    // not a simple value
+                    continue;
+                }
+                if (data.length() > 0) {
+                    data.append(SEPARATOR_ENTRY);
+                }
+                data.append(entry.getKey()).append(SEPARATOR_KEY).append(value);
+            }
+        }
+        return new CmsCacheInvalidationEvent(
+            new CmsUUID(),
+            nodeId,
+            event.getType(),
+            data.toString(),
+            System.currentTimeMillis());
+    }
+
+    /**
+     * Decodes an encoded value.<p>
+     *
+     * @param value the encoded value
+     *
+     * @return the decoded value, or <code>null</code> if the value can not be decoded
+     */
+    private static Object decodeValue(String value) {
+
+        if ((value == null) || (value.length() < 2) || (value.charAt(1) != SEPARATOR_TYPE)) {
+            return null;
+        }
+        String text = CmsEncoder.decode(value.substring(2), CmsEncoder.ENCODING_UTF_8);
+        try {
+            switch (value.charAt(0)) {
+                case TYPE_BOOLEAN:
+                    return Boolean.valueOf(text);
+                case TYPE_INTEGER:
+                    return Integer.valueOf(text);
+                case TYPE_LONG:
+                    return Long.valueOf(text);
+                case TYPE_STRING:
+                    return text;
+                case TYPE_UUID:
+                    return new CmsUUID(text);
+                default:
+                    return null;
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Encodes a simple value.<p>
+     *
+     * @param value the value to encode
+     *
+     * @return the encoded value, or <code>null</code> if the value is not a simple value
+     */
+    private static String encodeValue(Object value) {
+
+        char type;
+        if (value instanceof String) {
+            type = TYPE_STRING;
+        } else if (value instanceof CmsUUID) {
+            type = TYPE_UUID;
+        } else if (value instanceof Integer) {
+            type = TYPE_INTEGER;
+        } else if (value instanceof Long) {
+            type = TYPE_LONG;
+        } else if (value instanceof Boolean) {
+            type = TYPE_BOOLEAN;
+        } else {
+            return null;
+        }
+        return "" + type + SEPARATOR_TYPE + CmsEncoder.encode(value.toString(), CmsEncoder.ENCODING_UTF_8);
+    }
+
+    /**
+     * Returns the encoded event data.<p>
+     *
+     * @return the encoded event data
+     */
+    public String getData() {
+
+        return m_data;
+    }
+
+    /**
+     * Returns the creation time of the event.<p>
+     *
+     * @return the creation time of the event
+     */
+    public long getDateCreated() {
+
+        return m_dateCreated;
+    }
+
+    /**
+     * Returns the decoded event data, which can be used to fire the event on the receiving node.<p>
+     *
+     * @return the decoded event data
+     */
+    public Map<String, Object> getEventData() {
+
+        Map<String, Object> result = new HashMap<String, Object>();
+        if (CmsStringUtil.isEmpty(m_data)) {
+            return result;
+        }
+        Map<String, String> entries = CmsStringUtil.splitAsMap(m_data, SEPARATOR_ENTRY, SEPARATOR_KEY);
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            Object value = decodeValue(entry.getValue());
+            if (value != null) {
+                result.put(entry.getKey(), value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the id of the event.<p>
+     *
+     * @return the id of the event
+     */
+    public CmsUUID getId() {
+
+        return m_id;
+    }
+
+    /**
+     * Returns the id of the cluster node the event originates from.<p>
+     *
+     * @return the id of the cluster node the event originates from
+     */
+    public String getNodeId() {
+
+        return m_nodeId;
+    }
+
+    /**
+     * Returns the OpenCms event type.<p>
+     *
+     * @return the OpenCms event type
+     *
+     * @see org.opencms.main.I_CmsEventListener
+     */
+    public int getType() {
+
+        return m_type;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return "[" + m_id + ", node=" + m_nodeId + ", type=" + m_type + ", data=" + m_data + "]";
+    }
+}
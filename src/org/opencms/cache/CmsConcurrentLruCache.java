@@ -0,0 +1,585 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.opencms.main.CmsLog;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Implements a concurrent LRU (last recently used) cache.<p>
+ *
+ * This cache uses the same cost based eviction policy as the {@link CmsLruCache}:
+ * if the sum of the costs of all cached objects exceeds the max. cache costs, the last recently used
+ * objects are removed until the costs are below the average cache costs again.<p>
+ *
+ * Unlike the {@link CmsLruCache}, touching an object does not acquire a lock.
+ * Touched objects are recorded in a set of striped ring buffers instead, and the recorded
+ * accesses are replayed against the LRU list in batches by whichever thread manages to acquire the lock.
+ * If a buffer overflows before it is drained, some accesses are dropped, which only slightly
+ * reduces the accuracy of the LRU order. Structural changes (adding and removing objects)
+ * still take a lock, but membership tests are lock free.<p>
+ *
+ * The linked list of all cached objects is maintained with the pointers provided by
+ * the {@link I_CmsLruCacheObject} interface, exactly like in the {@link CmsLruCache}.<p>
+ *
+ * @see org.opencms.cache.I_CmsLruCacheObject
+ *
+ * @since 10.0.0
+ */
+public class CmsConcurrentLruCache implements I_CmsLruCache {
+
+    /** The number of pending accesses in a read buffer that triggers a drain of the read buffers. */
+    private static final int DRAIN_THRESHOLD = 16;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsConcurrentLruCache.class);
+
+    /** The number of slots of a read buffer, must be a power of 2. */
+    private static final int READ_BUFFER_SIZE = 64;
+
+    /** Mask to calculate the read buffer slot from the number of recorded accesses. */
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+
+    /** The average sum of costs the cached objects. */
+    private final long m_avgCacheCosts;
+
+    /** The head of the list of double linked LRU cache objects, guarded by the lock. */
+    private I_CmsLruCacheObject m_listHead;
+
+    /** The tail of the list of double linked LRU cache objects, guarded by the lock. */
+    private I_CmsLruCacheObject m_listTail;
+
+    /** The lock guarding the linked list and the cache statistics. */
+    private final ReentrantLock m_lock;
+
+    /** The maximum sum of costs the cached objects might reach. */
+    private final long m_maxCacheCosts;
+
+    /** The maximum costs of cacheable objects. */
+    private final int m_maxObjectCosts;
+
+    /** The cached objects, used for lock free membership tests. */
+    private final Map<I_CmsLruCacheObject, Boolean> m_members;
+
+    /** The costs of all cached objects. */
+    private volatile int m_objectCosts;
+
+    /** The sum of all cached objects. */
+    private volatile int m_objectCount;
+
+    /** The striped ring buffers of recorded accesses. */
+    private final AtomicReferenceArray<I_CmsLruCacheObject>[] m_readBuffers;
+
+    /** The number of accesses already replayed from each read buffer. */
+    private final AtomicLong[] m_readBufferDrainCounts;
+
+    /** The number of accesses recorded in each read buffer. */
+    private final AtomicLong[] m_readBufferWriteCounts;
+
+    /** Mask to calculate the read buffer index from a thread id. */
+    private final int m_stripeMask;
+
+    /**
+     * The constructor with all options.<p>
+     *
+     * @param theMaxCacheCosts the maximum cache costs of all cached objects
+     * @param theAvgCacheCosts the average cache costs of all cached objects
+     * @param theMaxObjectCosts the maximum allowed cache costs per object. Set theMaxObjectCosts to -1 if you don't want to limit the max. allowed cache costs per object
+     */
+    @SuppressWarnings("unchecked")
+    public CmsConcurrentLruCache(long theMaxCacheCosts, long theAvgCacheCosts, int theMaxObjectCosts) {
+
+        m_maxCacheCosts = theMaxCacheCosts;
+        m_avgCacheCosts = theAvgCacheCosts;
+        m_maxObjectCosts = theMaxObjectCosts;
+
+        m_lock = new ReentrantLock();
+        m_members = new ConcurrentHashMap<I_CmsLruCacheObject, Boolean>();
+
+        // use one read buffer per processor, rounded up to the next power of 2
+        int stripes = 1;
+        while (stripes < Runtime.getRuntime().availableProcessors()) {
+            stripes <<= 1;
+        }
+        m_stripeMask = stripes - 1;
+        m_readBuffers = new AtomicReferenceArray[stripes];
+        m_readBufferDrainCounts = new AtomicLong[stripes];
+        m_readBufferWriteCounts = new AtomicLong[stripes];
+        for (int i = 0; i < stripes; i++) {
+            m_readBuffers[i] = new AtomicReferenceArray<I_CmsLruCacheObject>(READ_BUFFER_SIZE);
+            m_readBufferDrainCounts[i] = new AtomicLong();
+            m_readBufferWriteCounts[i] = new AtomicLong();
+        }
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCache#add(org.opencms.cache.I_CmsLruCacheObject)
+     */
+    public boolean add(I_CmsLruCacheObject theCacheObject) {
+
+        if (theCacheObject == null) {
+            // null can't be added or touched in the cache
+            return false;
+        }
+
+        // only objects with cache costs < the max. allowed object cache costs can be cached!
+        if (exceedsMaxObjectCosts(theCacheObject)) {
+            return false;
+        }
+
+        if (isCached(theCacheObject)) {
+            // the object is already cached, just record the access
+            recordAccess(theCacheObject);
+            return true;
+        }
+
+        m_lock.lock();
+        try {
+            drainReadBuffers();
+            if (m_members.put(theCacheObject, Boolean.TRUE) == null) {
+                linkHead(theCacheObject);
+                increaseCache(theCacheObject);
+            } else {
+                // the object has been added concurrently
+                moveToHead(theCacheObject);
+            }
+
+            // check if the cache has to trash the last-recently-used objects
+            if (m_objectCosts > m_maxCacheCosts) {
+                gc();
+            }
+        } finally {
+            m_lock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCache#clear()
+     */
+    public void clear() {
+
+        m_lock.lock();
+        try {
+            discardReadBuffers();
+
+            // remove all objects from the linked list from the tail to the head
+            while (m_listTail != null) {
+                removeTail();
+            }
+
+            // reset the data structure
+            m_members.clear();
+            m_objectCosts = 0;
+            m_objectCount = 0;
+            m_listHead = null;
+            m_listTail = null;
+        } finally {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCache#getAvgCacheCosts()
+     */
+    public long getAvgCacheCosts() {
+
+        return m_avgCacheCosts;
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCache#getMaxCacheCosts()
+     */
+    public long getMaxCacheCosts() {
+
+        return m_maxCacheCosts;
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCache#getMaxObjectCosts()
+     */
+    public int getMaxObjectCosts() {
+
+        return m_maxObjectCosts;
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCache#getObjectCosts()
+     */
+    public int getObjectCosts() {
+
+        return m_objectCosts;
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCache#remove(org.opencms.cache.I_CmsLruCacheObject)
+     */
+    public I_CmsLruCacheObject remove(I_CmsLruCacheObject theCacheObject) {
+
+        if (!isCached(theCacheObject)) {
+            // theCacheObject is null or not inside the cache
+            return null;
+        }
+
+        m_lock.lock();
+        try {
+            if (m_members.remove(theCacheObject) == null) {
+                // the object has been removed concurrently
+                return null;
+            }
+            unlink(theCacheObject);
+            decreaseCache(theCacheObject);
+        } finally {
+            m_lock.unlock();
+        }
+        return theCacheObject;
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCache#size()
+     */
+    public int size() {
+
+        return m_objectCount;
+    }
+
+    /**
+     * Returns a string representing the current state of the cache.<p>
+     *
+     * @return a string representing the current state of the cache
+     */
+    @Override
+    public String toString() {
+
+        StringBuffer buf = new StringBuffer();
+        buf.append("max. costs: " + m_maxCacheCosts).append(", ");
+        buf.append("avg. costs: " + m_avgCacheCosts).append(", ");
+        buf.append("max. costs/object: " + m_maxObjectCosts).append(", ");
+        buf.append("costs: " + m_objectCosts).append(", ");
+        buf.append("count: " + m_objectCount);
+        return buf.toString();
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCache#touch(org.opencms.cache.I_CmsLruCacheObject)
+     */
+    public boolean touch(I_CmsLruCacheObject theCacheObject) {
+
+        if (!isCached(theCacheObject)) {
+            return false;
+        }
+
+        // only objects with cache costs < the max. allowed object cache costs can be cached!
+        if (exceedsMaxObjectCosts(theCacheObject)) {
+            remove(theCacheObject);
+            return false;
+        }
+
+        recordAccess(theCacheObject);
+        return true;
+    }
+
+    /**
+     * Claims the next slot of a read buffer for recording an access.<p>
+     *
+     * @param stripe the index of the read buffer
+     *
+     * @return the number of the claimed slot
+     */
+    long claimReadBufferSlot(int stripe) {
+
+        return m_readBufferWriteCounts[stripe].getAndIncrement();
+    }
+
+    /**
+     * Returns the number of recorded accesses in a read buffer that have not been replayed yet.<p>
+     *
+     * @param stripe the index of the read buffer
+     *
+     * @return the number of pending accesses
+     */
+    long getPendingAccesses(int stripe) {
+
+        return m_readBufferWriteCounts[stripe].get() - m_readBufferDrainCounts[stripe].get();
+    }
+
+    /**
+     * Records an access to a cached object in a previously claimed read buffer slot.<p>
+     *
+     * If enough accesses are pending, the read buffers are drained in case the lock is available.<p>
+     *
+     * @param stripe the index of the read buffer
+     * @param count the number of the claimed slot
+     * @param theCacheObject the accessed object
+     */
+    void recordAccess(int stripe, long count, I_CmsLruCacheObject theCacheObject) {
+
+        m_readBuffers[stripe].lazySet((int)(count & READ_BUFFER_MASK), theCacheObject);
+
+        if (((count + 1) - m_readBufferDrainCounts[stripe].get()) >= DRAIN_THRESHOLD) {
+            // don't wait for the lock, another thread will drain the buffers anyway
+            if (m_lock.tryLock()) {
+                try {
+                    drainReadBuffers();
+                } finally {
+                    m_lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Decrease this caches statistics
+     * and notify the cached object that it was removed from this cache.<p>
+     *
+     * The lock must be held by the calling thread.<p>
+     *
+     * @param theCacheObject the object being notified that it was removed from the cache
+     */
+    private void decreaseCache(I_CmsLruCacheObject theCacheObject) {
+
+        // notify the object that it was now removed from the cache
+        theCacheObject.removeFromLruCache();
+
+        // update the cache stats.
+        m_objectCosts -= theCacheObject.getLruCacheCosts();
+        m_objectCount--;
+    }
+
+    /**
+     * Discards all accesses recorded in the read buffers.<p>
+     *
+     * The lock must be held by the calling thread.<p>
+     */
+    private void discardReadBuffers() {
+
+        for (int i = 0; i < m_readBuffers.length; i++) {
+            AtomicReferenceArray<I_CmsLruCacheObject> buffer = m_readBuffers[i];
+            for (int j = 0; j < READ_BUFFER_SIZE; j++) {
+                buffer.lazySet(j, null);
+            }
+            m_readBufferDrainCounts[i].lazySet(m_readBufferWriteCounts[i].get());
+        }
+    }
+
+    /**
+     * Replays the accesses recorded in the read buffers against the LRU list.<p>
+     *
+     * Every replayed slot is cleared, so the buffers do not keep evicted objects reachable.
+     * Replaying a buffer stops at the first slot that has been claimed by a recording thread, but not yet written.
+     * This slot and all later ones are replayed with the next drain.<p>
+     *
+     * The lock must be held by the calling thread.<p>
+     */
+    private void drainReadBuffers() {
+
+        for (int i = 0; i < m_readBuffers.length; i++) {
+            AtomicReferenceArray<I_CmsLruCacheObject> buffer = m_readBuffers[i];
+            long drained = m_readBufferDrainCounts[i].get();
+            long written = m_readBufferWriteCounts[i].get();
+            if ((written - drained) > READ_BUFFER_SIZE) {
+                // the buffer has overflown, the oldest accesses are lost
+                drained = written - READ_BUFFER_SIZE;
+            }
+            for (; drained < written; drained++) {
+                int slot = (int)(drained & READ_BUFFER_MASK);
+                I_CmsLruCacheObject cacheObject = buffer.getAndSet(slot, null);
+                if (cacheObject == null) {
+                    // the recording thread has not written the slot yet, continue here with the next drain
+                    break;
+                }
+                if (m_members.containsKey(cacheObject)) {
+                    moveToHead(cacheObject);
+                }
+            }
+            m_readBufferDrainCounts[i].lazySet(drained);
+        }
+    }
+
+    /**
+     * Checks if the costs of the given object exceed the max. allowed costs per object.<p>
+     *
+     * @param theCacheObject the object to check
+     *
+     * @return true if the object is too expensive to be cached
+     */
+    private boolean exceedsMaxObjectCosts(I_CmsLruCacheObject theCacheObject) {
+
+        if ((m_maxObjectCosts != -1) && (theCacheObject.getLruCacheCosts() > m_maxObjectCosts)) {
+            if (LOG.isInfoEnabled()) {
+                LOG.info(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_CACHE_COSTS_TOO_HIGH_2,
+                        new Integer(theCacheObject.getLruCacheCosts()),
+                        new Integer(m_maxObjectCosts)));
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes the last recently used objects from the list of all cached objects as long
+     * as the costs of all cached objects are higher than the allowed avg. costs of the cache.<p>
+     *
+     * The lock must be held by the calling thread.<p>
+     */
+    private void gc() {
+
+        while ((m_listTail != null) && (m_objectCosts >= m_avgCacheCosts)) {
+            removeTail();
+        }
+    }
+
+    /**
+     * Increase this caches statistics
+     * and notify the cached object that it was added to this cache.<p>
+     *
+     * The lock must be held by the calling thread.<p>
+     *
+     * @param theCacheObject the object being notified that it was added to the cache
+     */
+    private void increaseCache(I_CmsLruCacheObject theCacheObject) {
+
+        // notify the object that it was now added to the cache
+        theCacheObject.addToLruCache();
+
+        // update the cache stats.
+        m_objectCosts += theCacheObject.getLruCacheCosts();
+        m_objectCount++;
+    }
+
+    /**
+     * Test if a given object resides inside the cache.<p>
+     *
+     * @param theCacheObject the object to test
+     *
+     * @return true if the object is inside the cache, false otherwise
+     */
+    private boolean isCached(I_CmsLruCacheObject theCacheObject) {
+
+        return (theCacheObject != null) && m_members.containsKey(theCacheObject);
+    }
+
+    /**
+     * Adds a cache object as the new head to the list of all cached objects in this cache.<p>
+     *
+     * The lock must be held by the calling thread.<p>
+     *
+     * @param theCacheObject the object being added as the new head
+     */
+    private void linkHead(I_CmsLruCacheObject theCacheObject) {
+
+        I_CmsLruCacheObject oldHead = m_listHead;
+        theCacheObject.setNextLruObject(null);
+        theCacheObject.setPreviousLruObject(oldHead);
+        if (oldHead != null) {
+            oldHead.setNextLruObject(theCacheObject);
+        } else {
+            // it is the first object to be added to the list
+            m_listTail = theCacheObject;
+        }
+        m_listHead = theCacheObject;
+    }
+
+    /**
+     * Moves a cached object to the head of the list of all cached objects.<p>
+     *
+     * The lock must be held by the calling thread.<p>
+     *
+     * @param theCacheObject the object to move
+     */
+    private void moveToHead(I_CmsLruCacheObject theCacheObject) {
+
+        if (m_listHead == theCacheObject) {
+            // the object is already at the head pos.
+            return;
+        }
+        unlink(theCacheObject);
+        linkHead(theCacheObject);
+    }
+
+    /**
+     * Records an access to a cached object in the read buffer of the current thread.<p>
+     *
+     * @param theCacheObject the accessed object
+     */
+    private void recordAccess(I_CmsLruCacheObject theCacheObject) {
+
+        long threadId = Thread.currentThread().getId();
+        int stripe = (int)(threadId ^ (threadId >>> 16)) & m_stripeMask;
+        recordAccess(stripe, claimReadBufferSlot(stripe), theCacheObject);
+    }
+
+    /**
+     * Removes the tailing object from the list of all cached objects.<p>
+     *
+     * The lock must be held by the calling thread.<p>
+     */
+    private void removeTail() {
+
+        I_CmsLruCacheObject oldTail = m_listTail;
+        if (oldTail != null) {
+            m_members.remove(oldTail);
+            unlink(oldTail);
+            decreaseCache(oldTail);
+        }
+    }
+
+    /**
+     * Removes a cached object from the list of all cached objects.<p>
+     *
+     * The lock must be held by the calling thread.<p>
+     *
+     * @param theCacheObject the object to remove from the list
+     */
+    private void unlink(I_CmsLruCacheObject theCacheObject) {
+
+        I_CmsLruCacheObject prevObj = theCacheObject.getPreviousLruObject();
+        I_CmsLruCacheObject nextObj = theCacheObject.getNextLruObject();
+        if (prevObj != null) {
+            prevObj.setNextLruObject(nextObj);
+        } else {
+            m_listTail = nextObj;
+        }
+        if (nextObj != null) {
+            nextObj.setPreviousLruObject(prevObj);
+        } else {
+            m_listHead = prevObj;
+        }
+        theCacheObject.setNextLruObject(null);
+        theCacheObject.setPreviousLruObject(null);
+    }
+}
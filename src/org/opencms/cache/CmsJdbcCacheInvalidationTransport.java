@@ -0,0 +1,380 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.opencms.db.CmsDbPool;
+import org.opencms.db.CmsDbSqlException;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Cache invalidation transport that exchanges events through the <code>CMS_CACHE_EVENTS</code> table
+ * of the database shared by all cluster nodes.<p>
+ *
+ * Sent events are inserted into the table, and every node polls the table for events of the other nodes
+ * in a background thread. To tolerate clock differences between the nodes and transactions that commit late,
+ * each poll reads the events of a short period before the previous poll again, events that have already been
+ * received are skipped. Events older than the retention time are deleted.<p>
+ *
+ * If the table does not exist, for example after updating an existing installation, it is created when
+ * the transport is started. Like all other SQL statements, the statements used by this transport are read
+ * from the query properties of the configured database driver.<p>
+ *
+ * The following configuration parameters are supported:
+ * <ul>
+ * <li><code>pool</code>: the name of the database pool, default is the OpenCms default pool</li>
+ * <li><code>poll-interval</code>: the number of seconds between two polls, default is 5</li>
+ * <li><code>clock-tolerance</code>: the number of seconds the previous poll period is read again, default is 10</li>
+ * <li><code>retention</code>: the number of seconds events are kept in the database, default is 3600</li>
+ * </ul><p>
+ *
+ * @since 10.0.0
+ */
+public class CmsJdbcCacheInvalidationTransport extends A_CmsCacheInvalidationTransport {
+
+    /** Parameter name for the clock tolerance in seconds. */
+    public static final String PARAM_CLOCK_TOLERANCE = "clock-tolerance";
+
+    /** Parameter name for the poll interval in seconds. */
+    public static final String PARAM_POLL_INTERVAL = "poll-interval";
+
+    /** Parameter name for the database pool. */
+    public static final String PARAM_POOL = "pool";
+
+    /** Parameter name for the retention time in seconds. */
+    public static final String PARAM_RETENTION = "retention";
+
+    /** The default clock tolerance in seconds. */
+    private static final int DEFAULT_CLOCK_TOLERANCE = 10;
+
+    /** The default poll interval in seconds. */
+    private static final int DEFAULT_POLL_INTERVAL = 5;
+
+    /** The default retention time in seconds. */
+    private static final int DEFAULT_RETENTION = 3600;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsJdbcCacheInvalidationTransport.class);
+
+    /** The name of the event table. */
+    private static final String TABLE_NAME = "CMS_CACHE_EVENTS";
+
+    /** The clock tolerance in milliseconds. */
+    private long m_clockTolerance;
+
+    /** The executor that runs the polls. */
+    private ScheduledExecutorService m_executor;
+
+    /** The time of the last deletion of expired events. */
+    private long m_lastCleanup;
+
+    /** The start time of the last poll. */
+    private long m_lastPoll;
+
+    /** The name of the database pool. */
+    private String m_poolName;
+
+    /** The creation times of the events already received, by event id. */
+    private Map<String, Long> m_receivedEvents;
+
+    /** The retention time in milliseconds. */
+    private long m_retention;
+
+    /**
+     * @see org.opencms.cache.A_CmsCacheInvalidationTransport#initConfiguration()
+     */
+    @Override
+    public void initConfiguration() {
+
+        super.initConfiguration();
+        m_poolName = getConfiguration().getString(PARAM_POOL, CmsDbPool.getDefaultDbPoolName());
+        m_clockTolerance = getConfiguration().getInteger(PARAM_CLOCK_TOLERANCE, DEFAULT_CLOCK_TOLERANCE) * 1000L;
+        m_retention = getConfiguration().getInteger(PARAM_RETENTION, DEFAULT_RETENTION) * 1000L;
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsCacheInvalidationTransport#send(org.opencms.cache.CmsCacheInvalidationEvent)
+     */
+    public void send(CmsCacheInvalidationEvent event) throws CmsException {
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = OpenCms.getSqlManager().getConnection(getPoolName());
+            stmt = conn.prepareStatement(OpenCms.getSqlManager().getQuery("C_CACHE_EVENTS_INSERT_5"));
+            stmt.setString(1, event.getId().toString());
+            stmt.setString(2, event.getNodeId());
+            stmt.setInt(3, event.getType());
+            // some databases store empty strings as null
+            stmt.setString(4, CmsStringUtil.isEmpty(event.getData()) ? null : event.getData());
+            stmt.setLong(5, event.getDateCreated());
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_CACHE_INVALIDATION_SEND_1, event),
+                e);
+        } finally {
+            close(conn, stmt, null);
+        }
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsCacheInvalidationTransport#shutDown()
+     */
+    public void shutDown() {
+
+        if (m_executor != null) {
+            m_executor.shutdownNow();
+            m_executor = null;
+        }
+    }
+
+    /**
+     * @see org.opencms.cache.A_CmsCacheInvalidationTransport#start(org.opencms.cache.CmsCacheInvalidationBus)
+     */
+    @Override
+    public void start(CmsCacheInvalidationBus bus) throws CmsException {
+
+        super.start(bus);
+        if (m_poolName == null) {
+            // the configuration has not been initialized
+            initConfiguration();
+        }
+        ensureTable();
+        m_receivedEvents = new HashMap<String, Long>();
+        // only events created after the start are of interest
+        m_lastPoll = System.currentTimeMillis();
+        m_lastCleanup = m_lastPoll;
+        int pollInterval = Math.max(1, getConfiguration().getInteger(PARAM_POLL_INTERVAL, DEFAULT_POLL_INTERVAL));
+        m_executor = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("OpenCms: cache invalidation poll").build());
+        m_executor.scheduleWithFixedDelay(new Runnable() {
+
+            public void run() {
+
+                poll();
+            }
+        }, pollInterval, pollInterval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Returns the name of the database pool.<p>
+     *
+     * @return the name of the database pool
+     */
+    protected String getPoolName() {
+
+        return m_poolName;
+    }
+
+    /**
+     * Reads the new events of the other nodes and passes them to the bus, and deletes expired events.<p>
+     */
+    protected void poll() {
+
+        long pollStart = System.currentTimeMillis();
+        long from = m_lastPoll - m_clockTolerance;
+        try {
+            for (CmsCacheInvalidationEvent event : readEvents(from)) {
+                String id = event.getId().toString();
+                if (!m_receivedEvents.containsKey(id)) {
+                    m_receivedEvents.put(id, new Long(event.getDateCreated()));
+                    receive(event);
+                }
+            }
+            m_lastPoll = pollStart;
+        } catch (SQLException e) {
+            LOG.error(Messages.get().getBundle().key(Messages.ERR_CACHE_INVALIDATION_POLL_0), e);
+        }
+        // events before the next read period will not be read again
+        long nextFrom = m_lastPoll - m_clockTolerance;
+        Iterator<Long> it = m_receivedEvents.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().longValue() <= nextFrom) {
+                it.remove();
+            }
+        }
+        if ((pollStart - m_lastCleanup) > Math.max(m_retention / 10, m_clockTolerance)) {
+            m_lastCleanup = pollStart;
+            try {
+                deleteEvents(pollStart - m_retention);
+            } catch (SQLException e) {
+                LOG.error(Messages.get().getBundle().key(Messages.ERR_CACHE_INVALIDATION_CLEANUP_0), e);
+            }
+        }
+    }
+
+    /**
+     * Closes the given database resources.<p>
+     *
+     * @param conn the connection, may be <code>null</code>
+     * @param stmt the statement, may be <code>null</code>
+     * @param res the result set, may be <code>null</code>
+     */
+    private void close(Connection conn, PreparedStatement stmt, ResultSet res) {
+
+        try {
+            if (res != null) {
+                res.close();
+            }
+        } catch (SQLException e) {
+            LOG.debug(e.getLocalizedMessage(), e);
+        }
+        try {
+            if (stmt != null) {
+                stmt.close();
+            }
+        } catch (SQLException e) {
+            LOG.debug(e.getLocalizedMessage(), e);
+        }
+        try {
+            if (conn != null) {
+                conn.close();
+            }
+        } catch (SQLException e) {
+            LOG.debug(e.getLocalizedMessage(), e);
+        }
+    }
+
+    /**
+     * Deletes the events created before the given time.<p>
+     *
+     * @param before the time before which events are deleted
+     *
+     * @throws SQLException if something goes wrong
+     */
+    private void deleteEvents(long before) throws SQLException {
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = OpenCms.getSqlManager().getConnection(getPoolName());
+            stmt = conn.prepareStatement(OpenCms.getSqlManager().getQuery("C_CACHE_EVENTS_DELETE_1"));
+            stmt.setLong(1, before);
+            stmt.executeUpdate();
+        } finally {
+            close(conn, stmt, null);
+        }
+    }
+
+    /**
+     * Creates the event table and its index if the table does not exist yet.<p>
+     *
+     * @throws CmsException if the table does not exist and could not be created
+     */
+    private void ensureTable() throws CmsException {
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        try {
+            conn = OpenCms.getSqlManager().getConnection(getPoolName());
+            DatabaseMetaData metaData = conn.getMetaData();
+            // databases store unquoted table names in upper or in lower case
+            for (String tableName : new String[] {TABLE_NAME, TABLE_NAME.toLowerCase()}) {
+                res = metaData.getTables(null, null, tableName, null);
+                boolean exists = res.next();
+                res.close();
+                res = null;
+                if (exists) {
+                    return;
+                }
+            }
+            stmt = conn.prepareStatement(OpenCms.getSqlManager().getQuery("C_CACHE_EVENTS_CREATE_TABLE"));
+            stmt.executeUpdate();
+            stmt.close();
+            stmt = conn.prepareStatement(OpenCms.getSqlManager().getQuery("C_CACHE_EVENTS_CREATE_INDEX"));
+            stmt.executeUpdate();
+            LOG.info(Messages.get().getBundle().key(Messages.LOG_CACHE_INVALIDATION_TABLE_CREATED_1, getPoolName()));
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_CACHE_INVALIDATION_CREATE_TABLE_1, getPoolName()),
+                e);
+        } finally {
+            close(conn, stmt, res);
+        }
+    }
+
+    /**
+     * Reads the events of the other nodes created after the given time.<p>
+     *
+     * @param from the time after which the events have been created
+     *
+     * @return the events ordered by their creation time
+     *
+     * @throws SQLException if something goes wrong
+     */
+    private List<CmsCacheInvalidationEvent> readEvents(long from) throws SQLException {
+
+        List<CmsCacheInvalidationEvent> result = new ArrayList<CmsCacheInvalidationEvent>();
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        try {
+            conn = OpenCms.getSqlManager().getConnection(getPoolName());
+            stmt = conn.prepareStatement(OpenCms.getSqlManager().getQuery("C_CACHE_EVENTS_READ_2"));
+            stmt.setLong(1, from);
+            stmt.setString(2, getBus().getNodeId());
+            res = stmt.executeQuery();
+            while (res.next()) {
+                String data = res.getString(4);
+                result.add(
+                    new CmsCacheInvalidationEvent(
+                        new CmsUUID(res.getString(1)),
+                        res.getString(2),
+                        res.getInt(3),
+                        data == null ? "" : data,
+                        res.getLong(5)));
+            }
+        } finally {
+            close(conn, stmt, res);
+        }
+        return result;
+    }
+}
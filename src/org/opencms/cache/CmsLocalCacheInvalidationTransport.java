@@ -0,0 +1,131 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.opencms.main.CmsException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache invalidation transport that delivers events to the other transports of the same channel
+ * within the current Java VM.<p>
+ *
+ * This transport is intended for tests and for running several OpenCms instances in one container.
+ * Events are delivered synchronously in the thread that sends them.<p>
+ *
+ * The following configuration parameter is supported:
+ * <ul>
+ * <li><code>channel</code>: the name of the channel, transports only exchange events with transports
+ *     of the same channel, default is <code>default</code></li>
+ * </ul><p>
+ *
+ * @since 10.0.0
+ */
+public class CmsLocalCacheInvalidationTransport extends A_CmsCacheInvalidationTransport {
+
+    /** Parameter name for the channel. */
+    public static final String PARAM_CHANNEL = "channel";
+
+    /** The started transports, by channel name. */
+    private static final Map<String, List<CmsLocalCacheInvalidationTransport>> CHANNELS;
+
+    /** The default channel name. */
+    private static final String DEFAULT_CHANNEL = "default";
+
+    static {
+        CHANNELS = new HashMap<String, List<CmsLocalCacheInvalidationTransport>>();
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsCacheInvalidationTransport#send(org.opencms.cache.CmsCacheInvalidationEvent)
+     */
+    public void send(CmsCacheInvalidationEvent event) {
+
+        List<CmsLocalCacheInvalidationTransport> transports;
+        synchronized (CHANNELS) {
+            List<CmsLocalCacheInvalidationTransport> channel = CHANNELS.get(getChannel());
+            if (channel == null) {
+                return;
+            }
+            transports = new ArrayList<CmsLocalCacheInvalidationTransport>(channel);
+        }
+        for (CmsLocalCacheInvalidationTransport transport : transports) {
+            if (transport != this) {
+                transport.receive(event);
+            }
+        }
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsCacheInvalidationTransport#shutDown()
+     */
+    public void shutDown() {
+
+        synchronized (CHANNELS) {
+            List<CmsLocalCacheInvalidationTransport> channel = CHANNELS.get(getChannel());
+            if (channel != null) {
+                channel.remove(this);
+                if (channel.isEmpty()) {
+                    CHANNELS.remove(getChannel());
+                }
+            }
+        }
+    }
+
+    /**
+     * @see org.opencms.cache.A_CmsCacheInvalidationTransport#start(org.opencms.cache.CmsCacheInvalidationBus)
+     */
+    @Override
+    public void start(CmsCacheInvalidationBus bus) throws CmsException {
+
+        super.start(bus);
+        synchronized (CHANNELS) {
+            List<CmsLocalCacheInvalidationTransport> channel = CHANNELS.get(getChannel());
+            if (channel == null) {
+                channel = new ArrayList<CmsLocalCacheInvalidationTransport>();
+                CHANNELS.put(getChannel(), channel);
+            }
+            if (!channel.contains(this)) {
+                channel.add(this);
+            }
+        }
+    }
+
+    /**
+     * Returns the name of the channel of this transport.<p>
+     *
+     * @return the name of the channel of this transport
+     */
+    protected String getChannel() {
+
+        return getConfiguration().getString(PARAM_CHANNEL, DEFAULT_CHANNEL);
+    }
+}
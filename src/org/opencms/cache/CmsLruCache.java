@@ -28,6 +28,9 @@
 package org.opencms.cache;
 
 import org.opencms.main.CmsLog;
+import org.opencms.util.CmsStringUtil;
+
+import java.lang.reflect.InvocationTargetException;
 
 import org.apache.commons.logging.Log;
 
@@ -49,10 +52,11 @@ import org.apache.commons.logging.Log;
  * are added/removed from the CmsFlexLruCache.<p>
  *
  * @see org.opencms.cache.I_CmsLruCacheObject
+ * @see org.opencms.cache.CmsConcurrentLruCache
  *
  * @since 6.0.0
  */
-public class CmsLruCache extends java.lang.Object {
+public class CmsLruCache extends java.lang.Object implements I_CmsLruCache {
 
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsLruCache.class);
@@ -92,6 +96,43 @@ public class CmsLruCache extends java.lang.Object {
         m_maxObjectCosts = theMaxObjectCosts;
     }
 
+    /**
+     * Creates a new LRU cache using the given cache engine class.<p>
+     *
+     * The cache engine class must implement {@link I_CmsLruCache} and provide a public constructor
+     * with the same arguments as the constructor of this class. If the class name is empty or
+     * the class can not be instantiated, a new instance of this class is returned.<p>
+     *
+     * @param engineClass the name of the cache engine class
+     * @param theMaxCacheCosts the maximum cache costs of all cached objects
+     * @param theAvgCacheCosts the average cache costs of all cached objects
+     * @param theMaxObjectCosts the maximum allowed cache costs per object, or -1 for no limit
+     *
+     * @return the new LRU cache
+     */
+    public static I_CmsLruCache createCache(
+        String engineClass,
+        long theMaxCacheCosts,
+        long theAvgCacheCosts,
+        int theMaxObjectCosts) {
+
+        if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(engineClass)
+            && !CmsLruCache.class.getName().equals(engineClass.trim())) {
+            try {
+                Class<?> cacheClass = Class.forName(engineClass.trim());
+                return (I_CmsLruCache)cacheClass.getConstructor(Long.TYPE, Long.TYPE, Integer.TYPE).newInstance(
+                    new Long(theMaxCacheCosts),
+                    new Long(theAvgCacheCosts),
+                    new Integer(theMaxObjectCosts));
+            } catch (ClassNotFoundException | ClassCastException | NoSuchMethodException | InstantiationException
+            | IllegalAccessException | InvocationTargetException e) {
+                // the configured engine is not usable, fall back to the default engine
+                LOG.error(Messages.get().getBundle().key(Messages.LOG_CACHE_ENGINE_INIT_FAILURE_1, engineClass), e);
+            }
+        }
+        return new CmsLruCache(theMaxCacheCosts, theAvgCacheCosts, theMaxObjectCosts);
+    }
+
     /**
      * Adds a new object to this cache.<p>
      *
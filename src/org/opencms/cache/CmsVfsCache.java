@@ -89,6 +89,7 @@ public abstract class CmsVfsCache implements I_CmsEventListener {
 
             case I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES:
             case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
+            case I_CmsEventListener.EVENT_REMOTE_PUBLISH_PROJECT:
                 flush(true);
                 break;
 
@@ -145,6 +146,7 @@ public abstract class CmsVfsCache implements I_CmsEventListener {
                 I_CmsEventListener.EVENT_RESOURCE_MOVED,
                 I_CmsEventListener.EVENT_RESOURCE_DELETED,
                 I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+                I_CmsEventListener.EVENT_REMOTE_PUBLISH_PROJECT,
                 I_CmsEventListener.EVENT_CLEAR_CACHES,
                 I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES,
                 I_CmsEventListener.EVENT_CLEAR_OFFLINE_CACHES});
@@ -98,6 +98,31 @@ public class CmsVfsNameBasedDiskCache {
         return null;
     }
 
+    /**
+     * Returns the requested file in the disk cache, or <code>null</code> if the
+     * file is not found in the cache.<p>
+     *
+     * Use this instead of {@link #getCacheContent(String)} to deliver the cached file
+     * directly from the RFS without reading it into memory first.<p>
+     *
+     * @param rfsName the file RFS name to look up in the cache
+     *
+     * @return the requested file in the disk cache, or <code>null</code>
+     */
+    public File getCacheFile(String rfsName) {
+
+        File f = new File(rfsName);
+        if (f.isFile()) {
+            long age = f.lastModified();
+            if ((System.currentTimeMillis() - age) > 3600000) {
+                // file has not been touched for 1 hour, touch the file with the current date
+                f.setLastModified(System.currentTimeMillis());
+            }
+            return f;
+        }
+        return null;
+    }
+
     /**
      * Returns the RFS name to use for caching the given VFS resource with parameters in the disk cache.<p>
      *
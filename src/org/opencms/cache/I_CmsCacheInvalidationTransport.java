@@ -0,0 +1,65 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.opencms.configuration.I_CmsConfigurationParameterHandler;
+import org.opencms.main.CmsException;
+
+/**
+ * Transport used by the {@link CmsCacheInvalidationBus} to exchange cache invalidation events
+ * between the OpenCms instances of a cluster.<p>
+ *
+ * @since 10.0.0
+ */
+public interface I_CmsCacheInvalidationTransport extends I_CmsConfigurationParameterHandler {
+
+    /**
+     * Sends a cache invalidation event to the other cluster nodes.<p>
+     *
+     * @param event the event to send
+     *
+     * @throws CmsException if the event could not be sent
+     */
+    void send(CmsCacheInvalidationEvent event) throws CmsException;
+
+    /**
+     * Stops receiving events and releases all resources of the transport.<p>
+     */
+    void shutDown();
+
+    /**
+     * Starts receiving events from the other cluster nodes.<p>
+     *
+     * Received events are passed to {@link CmsCacheInvalidationBus#receive(CmsCacheInvalidationEvent)}.<p>
+     *
+     * @param bus the bus that handles the received events
+     *
+     * @throws CmsException if the transport could not be started
+     */
+    void start(CmsCacheInvalidationBus bus) throws CmsException;
+}
@@ -0,0 +1,117 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+/**
+ * Describes a cache that organizes {@link I_CmsLruCacheObject} instances
+ * according to a last-recently-used policy weighted by the object costs.<p>
+ *
+ * Implementations must accept the same sizing parameters as the classic {@link CmsLruCache}:
+ * the maximum sum of costs of all cached objects, the average costs the cache is reduced to
+ * when the maximum is exceeded, and the maximum costs per single object.
+ * Implementations must also provide a public constructor with the signature
+ * <code>(long maxCacheCosts, long avgCacheCosts, int maxObjectCosts)</code>
+ * so that they can be selected in the configuration.<p>
+ *
+ * @see org.opencms.cache.CmsLruCache
+ * @see org.opencms.cache.CmsConcurrentLruCache
+ *
+ * @since 10.0.0
+ */
+public interface I_CmsLruCache {
+
+    /**
+     * Adds a new object to this cache.<p>
+     *
+     * If the same object is added more than once, the object is touched instead.<p>
+     *
+     * @param theCacheObject the object being added to the cache
+     *
+     * @return true if the object was added to the cache, false if the object was denied because its cache costs were higher than the allowed max. cache costs per object
+     */
+    boolean add(I_CmsLruCacheObject theCacheObject);
+
+    /**
+     * Removes all cached objects in this cache.<p>
+     */
+    void clear();
+
+    /**
+     * Returns the average costs of all cached objects.<p>
+     *
+     * @return the average costs of all cached objects
+     */
+    long getAvgCacheCosts();
+
+    /**
+     * Returns the max costs of all cached objects.<p>
+     *
+     * @return the max costs of all cached objects
+     */
+    long getMaxCacheCosts();
+
+    /**
+     * Returns the max allowed costs per cached object.<p>
+     *
+     * @return the max allowed costs per cached object
+     */
+    int getMaxObjectCosts();
+
+    /**
+     * Returns the current costs of all cached objects.<p>
+     *
+     * @return the current costs of all cached objects
+     */
+    int getObjectCosts();
+
+    /**
+     * Removes an object from this cache, no matter what position it has inside the LRU order.<p>
+     *
+     * @param theCacheObject the object being removed from the cache
+     *
+     * @return a reference to the object that was removed, or <code>null</code> if the object was not cached
+     */
+    I_CmsLruCacheObject remove(I_CmsLruCacheObject theCacheObject);
+
+    /**
+     * Returns the count of all cached objects.<p>
+     *
+     * @return the count of all cached objects
+     */
+    int size();
+
+    /**
+     * Touch an existing object in this cache, in the sense that it's "last-recently-used" state
+     * is updated.<p>
+     *
+     * @param theCacheObject the object being touched
+     *
+     * @return true if an object was found and touched
+     */
+    boolean touch(I_CmsLruCacheObject theCacheObject);
+}
@@ -37,9 +37,36 @@ import org.opencms.i18n.I_CmsMessageBundle;
  */
 public final class Messages extends A_CmsMessageBundle {
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_CACHE_INVALIDATION_CLEANUP_0 = "ERR_CACHE_INVALIDATION_CLEANUP_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_CACHE_INVALIDATION_CREATE_TABLE_1 = "ERR_CACHE_INVALIDATION_CREATE_TABLE_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_CACHE_INVALIDATION_POLL_0 = "ERR_CACHE_INVALIDATION_POLL_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_CACHE_INVALIDATION_RECEIVE_1 = "ERR_CACHE_INVALIDATION_RECEIVE_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_CACHE_INVALIDATION_SEND_1 = "ERR_CACHE_INVALIDATION_SEND_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_CACHE_INVALIDATION_BUS_2 = "INIT_CACHE_INVALIDATION_BUS_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_CACHE_COSTS_TOO_HIGH_2 = "LOG_CACHE_COSTS_TOO_HIGH_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CACHE_ENGINE_INIT_FAILURE_1 = "LOG_CACHE_ENGINE_INIT_FAILURE_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CACHE_INVALIDATION_RECEIVED_2 = "LOG_CACHE_INVALIDATION_RECEIVED_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CACHE_INVALIDATION_TABLE_CREATED_1 = "LOG_CACHE_INVALIDATION_TABLE_CREATED_1";
+
     /** Name of the used resource bundle. */
     private static final String BUNDLE_NAME = "org.opencms.cache.messages";
 
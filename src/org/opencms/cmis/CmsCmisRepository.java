@@ -124,6 +124,8 @@ import org.apache.chemistry.opencmis.commons.impl.dataobjects.PermissionMappingD
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.RepositoryCapabilitiesImpl;
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.RepositoryInfoImpl;
 import org.apache.chemistry.opencmis.commons.spi.Holder;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.commons.logging.Log;
 
 /**
@@ -678,24 +680,37 @@ public class CmsCmisRepository extends A_CmsCmisRepository {
         try {
             CmsObject cms = getCmsObject(context);
             CmsResource resource = cms.readResource(new CmsUUID(objectId));
-            byte[] contents = null;
+            InputStream stream = null;
+            long streamLength;
             if (streamId != null) {
                 I_CmsCmisRenditionProvider renditionProvider = m_renditionProviders.get(streamId);
                 if (renditionProvider == null) {
                     throw new CmisRuntimeException("Invalid stream id " + streamId);
                 }
-                contents = renditionProvider.getContent(cms, resource);
+                byte[] contents = extractRange(renditionProvider.getContent(cms, resource), offset, length);
+                stream = new ByteArrayInputStream(contents);
+                streamLength = contents.length;
             } else if (resource.isFolder()) {
                 throw new CmisStreamNotSupportedException("Not a file!");
             } else {
-                CmsFile file = cms.readFile(resource);
-                contents = file.getContents();
+                // stream the file content, so large files are not read into memory
+                long start = (offset == null) ? 0 : offset.longValue();
+                streamLength = Math.max(0, resource.getLength() - start);
+                if ((length != null) && (length.longValue() < streamLength)) {
+                    streamLength = length.longValue();
+                }
+                stream = cms.readContentStream(resource);
+                try {
+                    IOUtils.skipFully(stream, start);
+                } catch (IOException e) {
+                    IOUtils.closeQuietly(stream);
+                    throw new CmisRuntimeException(e.getLocalizedMessage(), e);
+                }
+                stream = new BoundedInputStream(stream, streamLength);
             }
-            contents = extractRange(contents, offset, length);
-            InputStream stream = new ByteArrayInputStream(contents);
             ContentStreamImpl result = new ContentStreamImpl();
             result.setFileName(resource.getName());
-            result.setLength(BigInteger.valueOf(contents.length));
+            result.setLength(BigInteger.valueOf(streamLength));
             result.setMimeType(OpenCms.getResourceManager().getMimeType(resource.getRootPath(), null, "text/plain"));
             result.setStream(stream);
 
@@ -158,6 +158,9 @@ public class CmsSearchConfiguration extends A_CmsXmlConfiguration {
     /** Node name constant. */
     public static final String N_INDEXES = "indexes";
 
+    /** Node name constant. */
+    public static final String N_INDEXING_THREADS = "indexingThreads";
+
     /** Node name constant. */
     public static final String N_INDEXSOURCE = "indexsource";
 
@@ -181,6 +184,9 @@ public class CmsSearchConfiguration extends A_CmsXmlConfiguration {
     /** Node name constant. */
     public static final String N_MIMETYPES = "mimetypes";
 
+    /** Node name constant. */
+    public static final String N_OFFLINE_UPDATE_DEBOUNCE = "offlineUpdateDebounce";
+
     /** Node name constant. */
     public static final String N_OFFLINE_UPDATE_FREQUENCY = "offlineUpdateFrequency";
 
@@ -248,6 +254,9 @@ public class CmsSearchConfiguration extends A_CmsXmlConfiguration {
         // offline update rule
         digester.addCallMethod(XPATH_SEARCH + "/" + N_OFFLINE_UPDATE_FREQUENCY, "setOfflineUpdateFrequency", 0);
 
+        // offline update debounce rule
+        digester.addCallMethod(XPATH_SEARCH + "/" + N_OFFLINE_UPDATE_DEBOUNCE, "setOfflineUpdateDebounce", 0);
+
         // forceunlock rule
         digester.addCallMethod(XPATH_SEARCH + "/" + N_FORCEUNLOCK, "setForceunlock", 0);
 
@@ -263,6 +272,9 @@ public class CmsSearchConfiguration extends A_CmsXmlConfiguration {
             "setMaxModificationsBeforeCommit",
             0);
 
+        // rule for the number of threads used to extract index documents
+        digester.addCallMethod(XPATH_SEARCH + "/" + N_INDEXING_THREADS, "setIndexingThreads", 0);
+
         // rule for the highlighter to highlight the search terms in the excerpt of the search result
         digester.addCallMethod(XPATH_SEARCH + "/" + N_HIGHLIGHTER, "setHighlighter", 0);
 
@@ -403,6 +415,11 @@ public class CmsSearchConfiguration extends A_CmsXmlConfiguration {
         //add <offlineUpdateFrequency> element
         searchElement.addElement(N_OFFLINE_UPDATE_FREQUENCY).addText(
             String.valueOf(m_searchManager.getOfflineUpdateFrequency()));
+        // add <offlineUpdateDebounce> element
+        if (m_searchManager.getOfflineUpdateDebounce() != CmsSearchManager.DEFAULT_OFFLINE_UPDATE_DEBOUNCE) {
+            searchElement.addElement(N_OFFLINE_UPDATE_DEBOUNCE).addText(
+                String.valueOf(m_searchManager.getOfflineUpdateDebounce()));
+        }
         // add <forceunlock> element
         if (m_searchManager.getForceunlock() != null) {
             searchElement.addElement(N_FORCEUNLOCK).addText(m_searchManager.getForceunlock().toString());
@@ -415,6 +432,11 @@ public class CmsSearchConfiguration extends A_CmsXmlConfiguration {
         // add <maxModificationsBeforeCommit> element
         searchElement.addElement(N_MAX_MODIFICATIONS_BEFORE_COMMIT).addText(
             String.valueOf(m_searchManager.getMaxModificationsBeforeCommit()));
+        // add <indexingThreads> element
+        if (m_searchManager.getIndexingThreads() != CmsSearchManager.DEFAULT_INDEXING_THREADS) {
+            searchElement.addElement(N_INDEXING_THREADS).addText(
+                String.valueOf(m_searchManager.getIndexingThreads()));
+        }
         // add <highlighter> element
         searchElement.addElement(N_HIGHLIGHTER).addText(m_searchManager.getHighlighter().getClass().getName());
 
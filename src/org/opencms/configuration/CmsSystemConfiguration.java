@@ -27,6 +27,7 @@
 
 package org.opencms.configuration;
 
+import org.opencms.cache.I_CmsCacheInvalidationTransport;
 import org.opencms.db.CmsCacheSettings;
 import org.opencms.db.CmsDefaultUsers;
 import org.opencms.db.CmsLoginManager;
@@ -48,6 +49,7 @@ import org.opencms.main.I_CmsResourceInit;
 import org.opencms.main.I_CmsSessionStorageProvider;
 import org.opencms.main.OpenCms;
 import org.opencms.monitor.CmsMemoryMonitorConfiguration;
+import org.opencms.monitor.I_CmsMemoryCacheBackend;
 import org.opencms.publish.CmsPublishManager;
 import org.opencms.scheduler.CmsScheduleManager;
 import org.opencms.scheduler.CmsScheduledJobInfo;
@@ -98,6 +100,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         standard
     }
 
+    /** The attribute name for the cache types of a cache backend. */
+    public static final String A_CACHE_TYPES = "cachetypes";
+
     /** The attribute name for the deleted node. */
     public static final String A_DELETED = "deleted";
 
@@ -170,9 +175,24 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the browser-based node. */
     public static final String N_BROWSER_BASED = "browser-based";
 
+    /** The node name for the bulk job size of the publish manager. */
+    public static final String N_BULKJOBSIZE = "bulk-job-size";
+
+    /** The node name for the cache-backend node. */
+    public static final String N_CACHE_BACKEND = "cache-backend";
+
+    /** The node name for the cache-backends node. */
+    public static final String N_CACHE_BACKENDS = "cache-backends";
+
     /** The node name for the cache-enabled node. */
     public static final String N_CACHE_ENABLED = "cache-enabled";
 
+    /** The node name for the cache-engine node. */
+    public static final String N_CACHE_ENGINE = "cache-engine";
+
+    /** The node name for the cache-invalidation node. */
+    public static final String N_CACHE_INVALIDATION = "cache-invalidation";
+
     /** The node name for the cache-offline node. */
     public static final String N_CACHE_OFFLINE = "cache-offline";
 
@@ -269,6 +289,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the internationalization node. */
     public static final String N_I18N = "internationalization";
 
+    /** The node name for the jmx-enabled node. */
+    public static final String N_JMX_ENABLED = "jmx-enabled";
+
     /** The node name for a job. */
     public static final String N_JOB = "job";
 
@@ -320,6 +343,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the maxkeys node. */
     public static final String N_MAXKEYS = "maxkeys";
 
+    /** The node name for the maxoffheapbytes node. */
+    public static final String N_MAXOFFHEAPBYTES = "maxoffheapbytes";
+
     /** The node name for the maxusagepercent node. */
     public static final String N_MAXUSAGE_PERCENT = "maxusagepercent";
 
@@ -329,6 +355,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the login message text. */
     public static final String N_MESSAGE = "message";
 
+    /** The node name for the minoffheapbytes node. */
+    public static final String N_MINOFFHEAPBYTES = "minoffheapbytes";
+
     /** The duration after which responsibles will be notified about out-dated content. */
     public static final String N_NOTIFICATION_PROJECT = "notification-project";
 
@@ -356,12 +385,18 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the context project name. */
     public static final String N_PROJECT = "project";
 
+    /** The node name for the publish-invalidation node. */
+    public static final String N_PUBLISH_INVALIDATION = "publish-invalidation";
+
     /** The node name for the publish list remove mode. */
     public static final String N_PUBLISH_LIST_REMOVE_MODE = "publish-list-remove-mode";
 
     /** The node name for the "publishhistory" section. */
     public static final String N_PUBLISHMANAGER = "publishmanager";
 
+    /** The node name for the number of publish threads of the publish manager. */
+    public static final String N_PUBLISHTHREADS = "publish-threads";
+
     /** The node name for the "publishhistory" section. */
     public static final String N_QUEUEPERSISTANCE = "queue-persistance";
 
@@ -485,6 +520,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The size of the memory monitor's cache for users. */
     public static final String N_SIZE_USERS = "size-users";
 
+    /** The node name for the storage-mode node. */
+    public static final String N_STORAGE_MODE = "storage-mode";
+
     /** The subscriptionmanager node name. */
     public static final String N_SUBSCRIPTIONMANAGER = "subscriptionmanager";
 
@@ -557,6 +595,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The authorization handler. */
     private String m_authorizationHandler;
 
+    /** The transport used to send cache invalidation events to the other cluster nodes. */
+    private I_CmsCacheInvalidationTransport m_cacheInvalidationTransport;
+
     /** The settings of the memory monitor. */
     private CmsCacheSettings m_cacheSettings;
 
@@ -1013,6 +1054,16 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             "addEmailReceiver",
             0);
 
+        digester.addCallMethod("*/" + N_SYSTEM + "/" + N_MEMORYMONITOR + "/" + N_JMX_ENABLED, "setJmxEnabled", 0);
+
+        // add the cache backend rules
+        String cacheBackendXpath = "*/" + N_SYSTEM + "/" + N_MEMORYMONITOR + "/" + N_CACHE_BACKENDS + "/" + N_CACHE_BACKEND;
+        digester.addObjectCreate(cacheBackendXpath, A_CLASS, CmsConfigurationException.class);
+        digester.addCallMethod(cacheBackendXpath, "setCacheTypes", 1);
+        digester.addCallParam(cacheBackendXpath, 0, A_CACHE_TYPES);
+        digester.addCallMethod(cacheBackendXpath, I_CmsConfigurationParameterHandler.INIT_CONFIGURATION_METHOD);
+        digester.addSetNext(cacheBackendXpath, "addCacheBackend");
+
         // set the MemoryMonitorConfiguration initialized once before
         digester.addSetNext("*/" + N_SYSTEM + "/" + N_MEMORYMONITOR, "setCmsMemoryMonitorConfiguration");
 
@@ -1025,6 +1076,28 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_AVGCACHEBYTES, 3);
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_MAXENTRYBYTES, 4);
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_MAXKEYS, 5);
+        // add flexcache LRU cache engine
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_CACHE_ENGINE,
+            "setCacheEngineConfiguration",
+            1);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_CACHE_ENGINE, 0, A_CLASS);
+        // add flexcache storage mode
+        digester.addCallMethod("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_STORAGE_MODE, "setStorageMode", 0);
+        // add flexcache publish invalidation mode
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_PUBLISH_INVALIDATION,
+            "setPublishInvalidation",
+            0);
+        // add flexcache off-heap storage
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_MAXOFFHEAPBYTES,
+            "setMaxOffHeapBytes",
+            0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_MINOFFHEAPBYTES,
+            "setMinOffHeapBytes",
+            0);
         // add flexcache device selector
         digester.addCallMethod(
             "*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_DEVICESELECTOR,
@@ -1126,6 +1199,11 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_QUEUESHUTDOWNTIME,
             "setPublishQueueShutdowntime",
             0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_PUBLISHTHREADS,
+            "setPublishThreads",
+            0);
+        digester.addCallMethod("*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_BULKJOBSIZE, "setBulkJobSize", 0);
         digester.addSetNext("*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER, "setPublishManager");
 
         // add rule for session storage provider
@@ -1207,6 +1285,12 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         digester.addCallMethod("*/" + N_SYSTEM + "/" + N_RESTRICT_DETAIL_CONTENTS, "setRestrictDetailContents", 1);
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_RESTRICT_DETAIL_CONTENTS, 0);
 
+        // add the cache invalidation transport rules
+        String cacheInvalidationPath = "*/" + N_SYSTEM + "/" + N_CACHE_INVALIDATION;
+        digester.addObjectCreate(cacheInvalidationPath, A_CLASS, CmsConfigurationException.class);
+        digester.addCallMethod(cacheInvalidationPath, I_CmsConfigurationParameterHandler.INIT_CONFIGURATION_METHOD);
+        digester.addSetNext(cacheInvalidationPath, "setCacheInvalidationTransport");
+
     }
 
     /**
@@ -1491,6 +1575,26 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
                     emailreceiverElement.addElement(N_RECEIVER).addText(iter.next());
                 }
             }
+            if (!m_cmsMemoryMonitorConfiguration.isJmxEnabled()) {
+                memorymonitorElement.addElement(N_JMX_ENABLED).addText(Boolean.FALSE.toString());
+            }
+            List<I_CmsMemoryCacheBackend> cacheBackends = m_cmsMemoryMonitorConfiguration.getCacheBackends();
+            if (!cacheBackends.isEmpty()) {
+                Element cacheBackendsElement = memorymonitorElement.addElement(N_CACHE_BACKENDS);
+                for (I_CmsMemoryCacheBackend backend : cacheBackends) {
+                    Element backendElement = cacheBackendsElement.addElement(N_CACHE_BACKEND);
+                    backendElement.addAttribute(A_CLASS, backend.getClass().getName());
+                    if (!backend.getCacheTypes().isEmpty()) {
+                        backendElement.addAttribute(
+                            A_CACHE_TYPES,
+                            CmsStringUtil.listAsString(backend.getCacheTypes(), ","));
+                    }
+                    CmsParameterConfiguration config = backend.getConfiguration();
+                    if (config != null) {
+                        config.appendToXml(backendElement);
+                    }
+                }
+            }
         }
 
         // create <flexcache> node
@@ -1506,6 +1610,26 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         flexcacheElement.addElement(N_MAXENTRYBYTES).addText(
             String.valueOf(m_cmsFlexCacheConfiguration.getMaxEntryBytes()));
         flexcacheElement.addElement(N_MAXKEYS).addText(String.valueOf(m_cmsFlexCacheConfiguration.getMaxKeys()));
+        if (m_cmsFlexCacheConfiguration.getCacheEngineConfiguration() != null) {
+            flexcacheElement.addElement(N_CACHE_ENGINE).addAttribute(
+                A_CLASS,
+                m_cmsFlexCacheConfiguration.getCacheEngineConfiguration());
+        }
+        if (m_cmsFlexCacheConfiguration.getStorageMode() != null) {
+            flexcacheElement.addElement(N_STORAGE_MODE).addText(m_cmsFlexCacheConfiguration.getStorageMode());
+        }
+        if (m_cmsFlexCacheConfiguration.getPublishInvalidation() != null) {
+            flexcacheElement.addElement(N_PUBLISH_INVALIDATION).addText(
+                m_cmsFlexCacheConfiguration.getPublishInvalidation());
+        }
+        if (m_cmsFlexCacheConfiguration.getMaxOffHeapBytes() > 0) {
+            flexcacheElement.addElement(N_MAXOFFHEAPBYTES).addText(
+                String.valueOf(m_cmsFlexCacheConfiguration.getMaxOffHeapBytes()));
+            if (m_cmsFlexCacheConfiguration.getMinOffHeapBytes() > 0) {
+                flexcacheElement.addElement(N_MINOFFHEAPBYTES).addText(
+                    String.valueOf(m_cmsFlexCacheConfiguration.getMinOffHeapBytes()));
+            }
+        }
         if (m_cmsFlexCacheConfiguration.getDeviceSelectorConfiguration() != null) {
             Element flexcacheDeviceSelectorElement = flexcacheElement.addElement(N_DEVICESELECTOR);
             flexcacheDeviceSelectorElement.addAttribute(
@@ -1578,6 +1702,14 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
                 String.valueOf(m_publishManager.isPublishQueuePersistanceEnabled()));
             pubHistElement.addElement(N_QUEUESHUTDOWNTIME).setText(
                 String.valueOf(m_publishManager.getPublishQueueShutdowntime()));
+            // optional nodes for concurrent publishing
+            if (m_publishManager.getPublishThreads() != CmsPublishManager.DEFAULT_PUBLISH_THREADS) {
+                pubHistElement.addElement(N_PUBLISHTHREADS).setText(
+                    String.valueOf(m_publishManager.getPublishThreads()));
+            }
+            if (m_publishManager.getBulkJobSize() != CmsPublishManager.DEFAULT_BULK_JOB_SIZE) {
+                pubHistElement.addElement(N_BULKJOBSIZE).setText(String.valueOf(m_publishManager.getBulkJobSize()));
+            }
         }
 
         // session storage provider
@@ -1682,6 +1814,15 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             restrictDetailContentsElem.addText(m_restrictDetailContents);
         }
 
+        if (m_cacheInvalidationTransport != null) {
+            Element cacheInvalidationElement = systemElement.addElement(N_CACHE_INVALIDATION);
+            cacheInvalidationElement.addAttribute(A_CLASS, m_cacheInvalidationTransport.getClass().getName());
+            CmsParameterConfiguration config = m_cacheInvalidationTransport.getConfiguration();
+            if (config != null) {
+                config.appendToXml(cacheInvalidationElement);
+            }
+        }
+
         // return the system node
         return systemElement;
     }
@@ -1747,6 +1888,16 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         }
     }
 
+    /**
+     * Returns the transport used to send cache invalidation events to the other cluster nodes.<p>
+     *
+     * @return the cache invalidation transport, or <code>null</code> if no transport is configured
+     */
+    public I_CmsCacheInvalidationTransport getCacheInvalidationTransport() {
+
+        return m_cacheInvalidationTransport;
+    }
+
     /**
      * Returns the settings of the memory monitor.<p>
      *
@@ -2241,6 +2392,16 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         m_authorizationHandler = authorizationHandlerClass;
     }
 
+    /**
+     * Sets the transport used to send cache invalidation events to the other cluster nodes.<p>
+     *
+     * @param transport the cache invalidation transport
+     */
+    public void setCacheInvalidationTransport(I_CmsCacheInvalidationTransport transport) {
+
+        m_cacheInvalidationTransport = transport;
+    }
+
     /**
      * Sets the settings of the memory monitor.<p>
      *
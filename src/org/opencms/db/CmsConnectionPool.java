@@ -0,0 +1,948 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.main.CmsLog;
+import org.opencms.util.CmsStringUtil;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Default JDBC connection pool of OpenCms.<p>
+ *
+ * Borrowing an idle connection does not take a pool wide lock. Every pooled connection carries an
+ * atomic state which a borrowing thread claims with a compare-and-set, starting with the connection
+ * the same thread used last. Only threads which find no idle connection take the pool lock and wait
+ * on a condition that is signaled whenever a connection is returned or removed.<p>
+ *
+ * The pool reads the same <code>db.pool.[name].*</code> keys as the DBCP based pool, plus
+ * <code>leakDetectionThreshold</code> (milliseconds a connection may be borrowed before a
+ * warning with the stack trace of the borrowing code is logged, 0 disables leak detection)
+ * and <code>maxLifetime</code> (milliseconds after which a connection is replaced, 0 for no limit).
+ * Statements are not pooled, use the statement cache of the JDBC driver instead. They are wrapped,
+ * so that they return the pooled connection and remember the query they have been prepared with.<p>
+ *
+ * @since 10.0.0
+ */
+public class CmsConnectionPool implements I_CmsDbPool {
+
+    /**
+     * A physical connection held by the pool.<p>
+     */
+    protected class CmsPoolEntry {
+
+        /** The borrow time in milliseconds. */
+        protected volatile long m_borrowedAt;
+
+        /** The stack trace of the borrowing code, only recorded when leak detection is enabled. */
+        protected volatile Throwable m_borrowTrace;
+
+        /** The name of the borrowing thread. */
+        protected volatile String m_borrowThread;
+
+        /** Set when the connection reported a fatal error and must not be reused. */
+        protected volatile boolean m_broken;
+
+        /** The physical connection. */
+        protected Connection m_connection;
+
+        /** The creation time in milliseconds. */
+        protected long m_createdAt;
+
+        /** The time in milliseconds the connection was last returned to the pool. */
+        protected volatile long m_lastAccess;
+
+        /** Set when a leak has already been reported for the current borrow. */
+        protected volatile boolean m_leakReported;
+
+        /** The state of the entry. */
+        protected AtomicInteger m_state = new AtomicInteger(STATE_IN_USE);
+
+        /**
+         * Creates a new pool entry for a physical connection.<p>
+         *
+         * @param connection the physical connection
+         */
+        protected CmsPoolEntry(Connection connection) {
+
+            m_connection = connection;
+            m_createdAt = System.currentTimeMillis();
+            m_lastAccess = m_createdAt;
+        }
+
+        /**
+         * Tries to claim this entry for a borrowing thread.<p>
+         *
+         * @return <code>true</code> if the entry was idle and is now in use
+         */
+        protected boolean tryAcquire() {
+
+            return m_state.compareAndSet(STATE_IDLE, STATE_IN_USE);
+        }
+    }
+
+    /**
+     * Invocation handler of the connection proxies handed out by the pool.<p>
+     */
+    protected class CmsPooledConnectionHandler implements InvocationHandler {
+
+        /** Set once the proxy has been closed. */
+        private boolean m_closed;
+
+        /** Set when the auto commit or read only flags of the connection have been changed. */
+        private boolean m_dirty;
+
+        /** The pool entry. */
+        private CmsPoolEntry m_entry;
+
+        /** The statements opened through the proxy. */
+        private List<Statement> m_statements = new ArrayList<Statement>();
+
+        /**
+         * Creates a new handler for the given pool entry.<p>
+         *
+         * @param entry the pool entry
+         */
+        protected CmsPooledConnectionHandler(CmsPoolEntry entry) {
+
+            m_entry = entry;
+        }
+
+        /**
+         * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+         */
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+            String name = method.getName();
+            if ("close".equals(name)) {
+                if (!m_closed) {
+                    m_closed = true;
+                    release(m_entry, m_statements, m_dirty);
+                }
+                return null;
+            } else if ("isClosed".equals(name)) {
+                return Boolean.valueOf(m_closed || m_entry.m_connection.isClosed());
+            } else if ("equals".equals(name)) {
+                return Boolean.valueOf(proxy == args[0]);
+            } else if ("hashCode".equals(name)) {
+                return Integer.valueOf(System.identityHashCode(proxy));
+            } else if ("toString".equals(name)) {
+                return "Pooled connection of " + m_poolUrl + ": " + m_entry.m_connection;
+            }
+            if (m_closed) {
+                throw new SQLException(Messages.get().getBundle().key(Messages.ERR_POOL_CLOSED_1, m_poolUrl));
+            }
+            if ("setAutoCommit".equals(name) || "setReadOnly".equals(name)) {
+                m_dirty = true;
+            }
+            try {
+                Object result = method.invoke(m_entry.m_connection, args);
+                if ((result instanceof Statement) && Statement.class.isAssignableFrom(method.getReturnType())) {
+                    m_statements.add((Statement)result);
+                    // the statements of most drivers do not show their query in toString()
+                    String query = ((args != null) && (args.length > 0) && (args[0] instanceof String))
+                    ? (String)args[0]
+                    : null;
+                    return Proxy.newProxyInstance(
+                        CmsConnectionPool.class.getClassLoader(),
+                        new Class<?>[] {method.getReturnType()},
+                        new CmsPooledStatementHandler(m_entry, (Statement)result, (Connection)proxy, query));
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw checkBroken(m_entry, e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Invocation handler of the statements opened through pooled connections.<p>
+     */
+    protected class CmsPooledStatementHandler implements InvocationHandler {
+
+        /** The pooled connection the statement has been opened with. */
+        private Connection m_connection;
+
+        /** The pool entry. */
+        private CmsPoolEntry m_entry;
+
+        /** The query the statement has been prepared with, <code>null</code> for plain statements. */
+        private String m_query;
+
+        /** The statement of the physical connection. */
+        private Statement m_statement;
+
+        /**
+         * Creates a new handler for a statement.<p>
+         *
+         * @param entry the pool entry
+         * @param statement the statement of the physical connection
+         * @param connection the pooled connection the statement has been opened with
+         * @param query the query the statement has been prepared with, <code>null</code> for plain statements
+         */
+        protected CmsPooledStatementHandler(
+            CmsPoolEntry entry,
+            Statement statement,
+            Connection connection,
+            String query) {
+
+            m_entry = entry;
+            m_statement = statement;
+            m_connection = connection;
+            m_query = query;
+        }
+
+        /**
+         * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+         */
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+            String name = method.getName();
+            if ("getConnection".equals(name)) {
+                // never expose the physical connection, closing it would bypass the pool
+                return m_connection;
+            } else if ("equals".equals(name)) {
+                return Boolean.valueOf(proxy == args[0]);
+            } else if ("hashCode".equals(name)) {
+                return Integer.valueOf(System.identityHashCode(proxy));
+            } else if ("toString".equals(name)) {
+                return m_query != null ? m_query : m_statement.toString();
+            }
+            try {
+                return method.invoke(m_statement, args);
+            } catch (InvocationTargetException e) {
+                throw checkBroken(m_entry, e.getCause());
+            }
+        }
+    }
+
+    /** The interval of the house keeping task in milliseconds. */
+    public static final long HOUSEKEEPING_INTERVAL = 30000;
+
+    /** Idle time in milliseconds before a connection is validated on borrow, if <code>testOnBorrow</code> is set. */
+    public static final long VALIDATION_BYPASS_WINDOW = 500;
+
+    /** Timeout in seconds for validating a connection without test query. */
+    public static final int VALIDATION_TIMEOUT = 5;
+
+    /** Class prefix of the SQL states signaling a broken connection. */
+    protected static final String SQL_STATE_CONNECTION_EXCEPTION = "08";
+
+    /** Entry state: idle. */
+    protected static final int STATE_IDLE = 0;
+
+    /** Entry state: borrowed or being validated. */
+    protected static final int STATE_IN_USE = 1;
+
+    /** Entry state: removed from the pool. */
+    protected static final int STATE_REMOVED = -1;
+
+    /** Exhausted action: wait for a connection. */
+    private static final int EXHAUSTED_BLOCK = 0;
+
+    /** Exhausted action: fail immediately. */
+    private static final int EXHAUSTED_FAIL = 1;
+
+    /** Exhausted action: create a new connection beyond the maximum. */
+    private static final int EXHAUSTED_GROW = 2;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsConnectionPool.class);
+
+    /** The number of successful borrows. */
+    private AtomicLong m_borrowCount = new AtomicLong();
+
+    /** Set when the pool has been closed. */
+    private volatile boolean m_closed;
+
+    /** The properties to open physical connections with. */
+    private Properties m_connectionProperties;
+
+    /** All connections of the pool. */
+    private CopyOnWriteArrayList<CmsPoolEntry> m_entries = new CopyOnWriteArrayList<CmsPoolEntry>();
+
+    /** The action to take when the pool is exhausted. */
+    private int m_exhaustedAction;
+
+    /** The house keeping executor. */
+    private ScheduledExecutorService m_housekeeper;
+
+    /** The minimum idle time in milliseconds before an idle connection above the minimum is closed. */
+    private long m_idleTimeout;
+
+    /** The JDBC URL of the database. */
+    private String m_jdbcUrl;
+
+    /** The connection last used by the current thread. */
+    private ThreadLocal<CmsPoolEntry> m_lastUsed = new ThreadLocal<CmsPoolEntry>();
+
+    /** The number of detected leaks. */
+    private AtomicLong m_leakCount = new AtomicLong();
+
+    /** The leak detection threshold in milliseconds, 0 to disable leak detection. */
+    private long m_leakDetectionThreshold;
+
+    /** The maximum number of connections. */
+    private int m_maxActive;
+
+    /** The maximum number of idle connections. */
+    private int m_maxIdle;
+
+    /** The maximum lifetime of a connection in milliseconds, 0 for no limit. */
+    private long m_maxLifetime;
+
+    /** The maximum time to wait for a connection in milliseconds. */
+    private long m_maxWait;
+
+    /** The longest time spent waiting for a connection in nanoseconds. */
+    private AtomicLong m_maxWaitNanos = new AtomicLong();
+
+    /** The minimum number of idle connections. */
+    private int m_minIdle;
+
+    /** The lock waiting threads hold while they check the release count and wait. */
+    private ReentrantLock m_poolLock = new ReentrantLock();
+
+    /** The pool URL. */
+    private String m_poolUrl;
+
+    /** The number of connections returned to or removed from the pool, used to detect missed signals. */
+    private AtomicLong m_releaseCount = new AtomicLong();
+
+    /** Condition signaled when a connection has been returned to or removed from the pool. */
+    private Condition m_released = m_poolLock.newCondition();
+
+    /** Flag to validate connections on borrow. */
+    private boolean m_testOnBorrow;
+
+    /** The query to validate connections, if <code>null</code> {@link Connection#isValid(int)} is used. */
+    private String m_testQuery;
+
+    /** Flag to validate idle connections in the house keeping task. */
+    private boolean m_testWhileIdle;
+
+    /** Idle time in milliseconds before idle connections are validated, if <code>testWhileIdle</code> is set. */
+    private long m_timeBetweenEvictionRuns;
+
+    /** The number of borrows which failed because the pool was exhausted. */
+    private AtomicLong m_timeoutCount = new AtomicLong();
+
+    /** The number of physical connections, including connections being opened. */
+    private AtomicInteger m_total = new AtomicInteger();
+
+    /** The accumulated time spent waiting for connections in nanoseconds. */
+    private AtomicLong m_totalWaitNanos = new AtomicLong();
+
+    /** The number of threads currently trying to borrow a connection. */
+    private AtomicInteger m_waiters = new AtomicInteger();
+
+    /**
+     * @see org.opencms.db.I_CmsDbPool#close()
+     */
+    public void close() {
+
+        m_closed = true;
+        if (m_housekeeper != null) {
+            m_housekeeper.shutdownNow();
+        }
+        for (CmsPoolEntry entry : m_entries) {
+            // connections still in use are closed as well, their borrowers will get an exception
+            entry.m_state.set(STATE_REMOVED);
+            closeEntry(entry);
+        }
+        m_releaseCount.incrementAndGet();
+        m_poolLock.lock();
+        try {
+            m_released.signalAll();
+        } finally {
+            m_poolLock.unlock();
+        }
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsDbPool#getConnection()
+     */
+    public Connection getConnection() throws SQLException {
+
+        if (m_closed) {
+            throw new SQLException(Messages.get().getBundle().key(Messages.ERR_POOL_CLOSED_1, m_poolUrl));
+        }
+        long start = System.nanoTime();
+        CmsPoolEntry entry = borrow(start);
+        long wait = System.nanoTime() - start;
+        m_borrowCount.incrementAndGet();
+        m_totalWaitNanos.addAndGet(wait);
+        long max = m_maxWaitNanos.get();
+        while ((wait > max) && !m_maxWaitNanos.compareAndSet(max, wait)) {
+            max = m_maxWaitNanos.get();
+        }
+
+        m_lastUsed.set(entry);
+        entry.m_borrowedAt = System.currentTimeMillis();
+        entry.m_leakReported = false;
+        if (m_leakDetectionThreshold > 0) {
+            entry.m_borrowThread = Thread.currentThread().getName();
+            entry.m_borrowTrace = new Exception(entry.m_borrowThread);
+        }
+        return (Connection)Proxy.newProxyInstance(
+            CmsConnectionPool.class.getClassLoader(),
+            new Class<?>[] {Connection.class},
+            new CmsPooledConnectionHandler(entry));
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsDbPool#getNumActive()
+     */
+    public int getNumActive() {
+
+        return count(STATE_IN_USE);
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsDbPool#getNumIdle()
+     */
+    public int getNumIdle() {
+
+        return count(STATE_IDLE);
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsDbPool#getPoolUrl()
+     */
+    public String getPoolUrl() {
+
+        return m_poolUrl;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsDbPool#getStatistics()
+     */
+    public CmsDbPoolStatistics getStatistics() {
+
+        return new CmsDbPoolStatistics(
+            m_poolUrl,
+            getNumActive(),
+            getNumIdle(),
+            m_waiters.get(),
+            m_borrowCount.get(),
+            m_timeoutCount.get(),
+            m_totalWaitNanos.get(),
+            m_maxWaitNanos.get(),
+            m_leakCount.get());
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsDbPool#initialize(org.opencms.configuration.CmsParameterConfiguration, java.lang.String)
+     */
+    public void initialize(CmsParameterConfiguration config, String key) throws Exception {
+
+        String prefix = CmsDbPool.KEY_DATABASE_POOL + '.' + key + '.';
+        String jdbcDriver = config.get(prefix + CmsDbPool.KEY_JDBC_DRIVER);
+        String jdbcUrl = config.get(prefix + CmsDbPool.KEY_JDBC_URL);
+        String jdbcUrlParams = config.get(prefix + CmsDbPool.KEY_JDBC_URL_PARAMS);
+        if (jdbcUrlParams != null) {
+            jdbcUrl += jdbcUrlParams;
+        }
+        String exhaustedAction = config.getString(prefix + CmsDbPool.KEY_WHEN_EXHAUSTED_ACTION, "block").trim();
+        if ("grow".equalsIgnoreCase(exhaustedAction)) {
+            m_exhaustedAction = EXHAUSTED_GROW;
+        } else if ("fail".equalsIgnoreCase(exhaustedAction)) {
+            m_exhaustedAction = EXHAUSTED_FAIL;
+        } else {
+            m_exhaustedAction = EXHAUSTED_BLOCK;
+        }
+        String testQuery = config.get(prefix + CmsDbPool.KEY_TEST_QUERY);
+        m_testQuery = CmsStringUtil.isEmptyOrWhitespaceOnly(testQuery) ? null : testQuery.trim();
+
+        init(
+            CmsDbPool.getDbPoolName(config, key),
+            jdbcUrl,
+            CmsDbPool.getConnectionProperties(config, key),
+            config.getInteger(prefix + CmsDbPool.KEY_MAX_ACTIVE, 10),
+            config.getInteger(prefix + CmsDbPool.KEY_MAX_IDLE, 5),
+            config.getInteger(prefix + CmsDbPool.KEY_MIN_IDLE, 0),
+            config.getInteger(prefix + CmsDbPool.KEY_MAX_WAIT, 2000));
+        m_idleTimeout = config.getInteger(prefix + CmsDbPool.KEY_MIN_EVICTABLE_IDLE_TIME, 1800000);
+        m_maxLifetime = config.getInteger(prefix + CmsDbPool.KEY_MAX_LIFETIME, 1800000);
+        m_leakDetectionThreshold = config.getInteger(prefix + CmsDbPool.KEY_LEAK_DETECTION_THRESHOLD, 0);
+        m_timeBetweenEvictionRuns = config.getInteger(prefix + CmsDbPool.KEY_TIME_BETWEEN_EVICTION_RUNS, 3600000);
+        m_testOnBorrow = Boolean.valueOf(
+            config.getString(prefix + CmsDbPool.KEY_TEST_ON_BORROW, "false").trim()).booleanValue();
+        m_testWhileIdle = Boolean.valueOf(
+            config.getString(prefix + CmsDbPool.KEY_TEST_WHILE_IDLE, "false").trim()).booleanValue();
+
+        // create an instance of the JDBC driver
+        Class.forName(jdbcDriver).newInstance();
+        CmsDbPool.waitForDatabase(config, key, m_poolUrl, m_jdbcUrl, m_connectionProperties);
+        start();
+
+        if (CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_JDBC_POOL_2, m_poolUrl, m_jdbcUrl));
+        }
+    }
+
+    /**
+     * Sets the leak detection threshold.<p>
+     *
+     * @param leakDetectionThreshold the time in milliseconds after which a borrowed connection is reported, 0 to disable
+     */
+    public void setLeakDetectionThreshold(long leakDetectionThreshold) {
+
+        m_leakDetectionThreshold = leakDetectionThreshold;
+    }
+
+    /**
+     * Borrows a pool entry.<p>
+     *
+     * @param start the start of the borrow in nanoseconds
+     *
+     * @return the borrowed entry
+     *
+     * @throws SQLException if no connection could be obtained
+     */
+    protected CmsPoolEntry borrow(long start) throws SQLException {
+
+        // fast path: the connection this thread used last
+        CmsPoolEntry entry = m_lastUsed.get();
+        if ((entry != null) && entry.tryAcquire() && checkOnBorrow(entry)) {
+            return entry;
+        }
+        long timeout = TimeUnit.MILLISECONDS.toNanos(m_maxWait);
+        m_waiters.incrementAndGet();
+        try {
+            while (true) {
+                // read the release count before scanning, so a release during the scan is not missed
+                long releases = m_releaseCount.get();
+                for (CmsPoolEntry candidate : m_entries) {
+                    if (candidate.tryAcquire() && checkOnBorrow(candidate)) {
+                        return candidate;
+                    }
+                }
+                entry = tryCreate();
+                if (entry != null) {
+                    return entry;
+                }
+                long remaining = timeout - (System.nanoTime() - start);
+                if ((m_exhaustedAction == EXHAUSTED_FAIL) || (remaining <= 0) || m_closed) {
+                    break;
+                }
+                m_poolLock.lock();
+                try {
+                    while ((m_releaseCount.get() == releases) && (remaining > 0) && !m_closed) {
+                        remaining = m_released.awaitNanos(remaining);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } finally {
+                    m_poolLock.unlock();
+                }
+            }
+        } finally {
+            m_waiters.decrementAndGet();
+        }
+        if (m_closed) {
+            throw new SQLException(Messages.get().getBundle().key(Messages.ERR_POOL_CLOSED_1, m_poolUrl));
+        }
+        m_timeoutCount.incrementAndGet();
+        throw new SQLException(
+            Messages.get().getBundle().key(
+                Messages.ERR_POOL_TIMEOUT_3,
+                m_poolUrl,
+                String.valueOf(m_maxWait),
+                String.valueOf(getNumActive())));
+    }
+
+    /**
+     * Opens a new physical connection.<p>
+     *
+     * @return the new connection
+     *
+     * @throws SQLException if the connection could not be opened
+     */
+    protected Connection createConnection() throws SQLException {
+
+        return DriverManager.getConnection(m_jdbcUrl, m_connectionProperties);
+    }
+
+    /**
+     * Runs the house keeping: reports leaks, closes expired or surplus idle connections,
+     * validates idle connections and opens connections up to the minimum idle count.<p>
+     */
+    protected void housekeeping() {
+
+        long now = System.currentTimeMillis();
+        int idle = getNumIdle();
+        for (CmsPoolEntry entry : m_entries) {
+            int state = entry.m_state.get();
+            if (state == STATE_IN_USE) {
+                if ((m_leakDetectionThreshold > 0)
+                    && !entry.m_leakReported
+                    && (entry.m_borrowTrace != null)
+                    && ((now - entry.m_borrowedAt) > m_leakDetectionThreshold)) {
+                    entry.m_leakReported = true;
+                    m_leakCount.incrementAndGet();
+                    LOG.warn(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_CONNECTION_LEAK_3,
+                            m_poolUrl,
+                            entry.m_borrowThread,
+                            String.valueOf(now - entry.m_borrowedAt)),
+                        entry.m_borrowTrace);
+                }
+            } else if (state == STATE_IDLE) {
+                boolean expired = (m_maxLifetime > 0) && ((now - entry.m_createdAt) > m_maxLifetime);
+                boolean surplus = (idle > m_maxIdle)
+                    || ((idle > m_minIdle) && (m_idleTimeout > 0) && ((now - entry.m_lastAccess) > m_idleTimeout));
+                if ((expired || surplus) && entry.m_state.compareAndSet(STATE_IDLE, STATE_REMOVED)) {
+                    remove(entry);
+                    idle--;
+                } else if (m_testWhileIdle
+                    && (m_timeBetweenEvictionRuns > 0)
+                    && ((now - entry.m_lastAccess) > m_timeBetweenEvictionRuns)
+                    && entry.tryAcquire()) {
+                    if (isValid(entry)) {
+                        entry.m_lastAccess = now;
+                        entry.m_state.set(STATE_IDLE);
+                    } else {
+                        entry.m_state.set(STATE_REMOVED);
+                        remove(entry);
+                        idle--;
+                    }
+                }
+            }
+        }
+        fillPool();
+    }
+
+    /**
+     * Initializes the pool without reading a configuration.<p>
+     *
+     * @param poolUrl the pool URL
+     * @param jdbcUrl the JDBC URL of the database
+     * @param connectionProperties the properties to open physical connections with
+     * @param maxActive the maximum number of connections
+     * @param maxIdle the maximum number of idle connections
+     * @param minIdle the minimum number of idle connections
+     * @param maxWait the maximum time to wait for a connection in milliseconds
+     */
+    protected void init(
+        String poolUrl,
+        String jdbcUrl,
+        Properties connectionProperties,
+        int maxActive,
+        int maxIdle,
+        int minIdle,
+        long maxWait) {
+
+        m_poolUrl = poolUrl;
+        m_jdbcUrl = jdbcUrl;
+        m_connectionProperties = connectionProperties;
+        m_maxActive = maxActive;
+        m_maxIdle = Math.max(maxIdle, minIdle);
+        m_minIdle = minIdle;
+        m_maxWait = maxWait;
+    }
+
+    /**
+     * Returns a connection to the pool.<p>
+     *
+     * @param entry the pool entry
+     * @param statements the statements opened on the connection
+     * @param dirty if the auto commit or read only flags of the connection have been changed
+     */
+    protected void release(CmsPoolEntry entry, List<Statement> statements, boolean dirty) {
+
+        Connection con = entry.m_connection;
+        entry.m_borrowTrace = null;
+        for (Statement stmt : statements) {
+            try {
+                stmt.close();
+            } catch (SQLException e) {
+                entry.m_broken = true;
+            }
+        }
+        if (dirty && !entry.m_broken) {
+            try {
+                if (!con.getAutoCommit()) {
+                    con.rollback();
+                    con.setAutoCommit(true);
+                }
+                con.setReadOnly(false);
+            } catch (SQLException e) {
+                entry.m_broken = true;
+            }
+        }
+        long now = System.currentTimeMillis();
+        boolean expired = (m_maxLifetime > 0) && ((now - entry.m_createdAt) > m_maxLifetime);
+        boolean overflow = (m_total.get() > m_maxActive) && (m_waiters.get() == 0);
+        if (entry.m_broken || expired || overflow || m_closed) {
+            if (entry.m_state.compareAndSet(STATE_IN_USE, STATE_REMOVED)) {
+                remove(entry);
+                if (!m_closed) {
+                    fillPool();
+                }
+                // a waiting thread may now open a new connection
+                signalRelease();
+            }
+            return;
+        }
+        entry.m_lastAccess = now;
+        entry.m_state.set(STATE_IDLE);
+        signalRelease();
+    }
+
+    /**
+     * Starts the house keeping and opens the minimum number of idle connections.<p>
+     */
+    protected void start() {
+
+        long interval = HOUSEKEEPING_INTERVAL;
+        if (m_leakDetectionThreshold > 0) {
+            interval = Math.max(1000, Math.min(interval, m_leakDetectionThreshold / 2));
+        }
+        m_housekeeper = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("OpenCms-DbPool-" + m_poolUrl).build());
+        m_housekeeper.scheduleWithFixedDelay(new Runnable() {
+
+            public void run() {
+
+                try {
+                    housekeeping();
+                } catch (Throwable t) {
+                    LOG.error(t.getLocalizedMessage(), t);
+                }
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+        fillPool();
+    }
+
+    /**
+     * Validates a just claimed entry if required and removes it from the pool if it is not valid.<p>
+     *
+     * @param entry the claimed entry
+     *
+     * @return <code>true</code> if the entry can be handed out
+     */
+    private boolean checkOnBorrow(CmsPoolEntry entry) {
+
+        if (m_testOnBorrow && ((System.currentTimeMillis() - entry.m_lastAccess) > VALIDATION_BYPASS_WINDOW)) {
+            if (!isValid(entry)) {
+                entry.m_state.set(STATE_REMOVED);
+                remove(entry);
+                // a waiting thread may now open a new connection
+                signalRelease();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Marks an entry as broken if the given exception signals a broken connection.<p>
+     *
+     * @param entry the entry
+     * @param cause the exception thrown by the physical connection or one of its statements
+     *
+     * @return the given exception
+     */
+    private Throwable checkBroken(CmsPoolEntry entry, Throwable cause) {
+
+        if (cause instanceof SQLException) {
+            String state = ((SQLException)cause).getSQLState();
+            if ((state != null) && state.startsWith(SQL_STATE_CONNECTION_EXCEPTION)) {
+                entry.m_broken = true;
+            }
+        }
+        return cause;
+    }
+
+    /**
+     * Closes the physical connection of an entry.<p>
+     *
+     * @param entry the entry
+     */
+    private void closeEntry(CmsPoolEntry entry) {
+
+        try {
+            entry.m_connection.close();
+        } catch (Throwable t) {
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_CLOSE_CONNECTION_ERROR_1, m_poolUrl), t);
+        }
+    }
+
+    /**
+     * Counts the entries in the given state.<p>
+     *
+     * @param state the state
+     *
+     * @return the number of entries in the given state
+     */
+    private int count(int state) {
+
+        int result = 0;
+        for (CmsPoolEntry entry : m_entries) {
+            if (entry.m_state.get() == state) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Opens connections until the minimum number of idle connections is reached.<p>
+     */
+    private void fillPool() {
+
+        while (!m_closed && (getNumIdle() < m_minIdle)) {
+            CmsPoolEntry entry;
+            try {
+                entry = tryCreate();
+            } catch (SQLException e) {
+                LOG.warn(e.getLocalizedMessage(), e);
+                return;
+            }
+            if (entry == null) {
+                return;
+            }
+            entry.m_state.set(STATE_IDLE);
+        }
+    }
+
+    /**
+     * Validates the connection of an entry.<p>
+     *
+     * @param entry the entry
+     *
+     * @return <code>true</code> if the connection is usable
+     */
+    private boolean isValid(CmsPoolEntry entry) {
+
+        try {
+            if (m_testQuery == null) {
+                return entry.m_connection.isValid(VALIDATION_TIMEOUT);
+            }
+            Statement stmt = entry.m_connection.createStatement();
+            try {
+                stmt.execute(m_testQuery);
+            } finally {
+                stmt.close();
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Removes an entry which has already been set to removed state and closes its connection.<p>
+     *
+     * @param entry the entry
+     */
+    private void remove(CmsPoolEntry entry) {
+
+        if (m_entries.remove(entry)) {
+            m_total.decrementAndGet();
+        }
+        closeEntry(entry);
+    }
+
+    /**
+     * Counts a release and wakes up one waiting thread, if there is one.<p>
+     *
+     * The release count is increased before the waiters are checked, and waiting threads register before
+     * they read the release count, so either the waiting thread sees the release or it is signaled.<p>
+     */
+    private void signalRelease() {
+
+        m_releaseCount.incrementAndGet();
+        if (m_waiters.get() > 0) {
+            m_poolLock.lock();
+            try {
+                m_released.signal();
+            } finally {
+                m_poolLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Opens a new connection in state in use, if the pool limits allow it.<p>
+     *
+     * @return the new entry, or <code>null</code> if the pool is at its maximum size
+     *
+     * @throws SQLException if the connection could not be opened
+     */
+    private CmsPoolEntry tryCreate() throws SQLException {
+
+        while (true) {
+            int total = m_total.get();
+            if ((total >= m_maxActive) && (m_exhaustedAction != EXHAUSTED_GROW)) {
+                return null;
+            }
+            if (m_total.compareAndSet(total, total + 1)) {
+                break;
+            }
+        }
+        CmsPoolEntry entry;
+        try {
+            entry = new CmsPoolEntry(createConnection());
+        } catch (SQLException e) {
+            m_total.decrementAndGet();
+            throw e;
+        } catch (RuntimeException e) {
+            m_total.decrementAndGet();
+            throw e;
+        }
+        m_entries.add(entry);
+        return entry;
+    }
+}
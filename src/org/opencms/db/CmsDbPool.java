@@ -34,9 +34,12 @@ import org.opencms.security.I_CmsCredentialsResolver;
 import org.opencms.util.CmsStringUtil;
 
 import java.sql.Connection;
+import java.sql.DriverManager;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.dbcp.ConnectionFactory;
 import org.apache.commons.dbcp.DriverManagerConnectionFactory;
@@ -47,7 +50,11 @@ import org.apache.commons.pool.impl.GenericKeyedObjectPoolFactory;
 import org.apache.commons.pool.impl.GenericObjectPool;
 
 /**
- * Various methods to create DBCP pools.<p>
+ * Various methods to create and look up the JDBC connection pools.<p>
+ *
+ * The pool implementation is selected per pool with the <code>db.pool.[name].provider</code> key,
+ * which holds the name of a class implementing {@link I_CmsDbPool}. The default is
+ * {@link CmsConnectionPool}, {@link CmsDbcpConnectionPool} provides the old DBCP based pool.<p>
  *
  * Only JDBC Driver based pools are supported currently. JNDI DataSource
  * based pools might be added probably later.<p>
@@ -96,12 +103,18 @@ public final class CmsDbPool {
     /** Key for jdbc url params. */
     public static final String KEY_JDBC_URL_PARAMS = KEY_JDBC_URL + ".params";
 
+    /** Key for the time in milliseconds after which a borrowed connection is reported as possible leak. */
+    public static final String KEY_LEAK_DETECTION_THRESHOLD = "leakDetectionThreshold";
+
     /** Key for maximum active connections. */
     public static final String KEY_MAX_ACTIVE = "maxActive";
 
     /** Key for maximum idle connections. */
     public static final String KEY_MAX_IDLE = "maxIdle";
 
+    /** Key for the maximum lifetime of a connection in milliseconds. */
+    public static final String KEY_MAX_LIFETIME = "maxLifetime";
+
     /** Key for maximum wait time. */
     public static final String KEY_MAX_WAIT = "maxWait";
 
@@ -132,6 +145,9 @@ public final class CmsDbPool {
     /** Key for pooling flag. */
     public static final String KEY_POOLING = "pooling";
 
+    /** Key for the class name of the pool implementation. */
+    public static final String KEY_PROVIDER = "provider";
+
     /** Key for test on borrow flag. */
     public static final String KEY_TEST_ON_BORROW = "testOnBorrow";
 
@@ -159,6 +175,9 @@ public final class CmsDbPool {
     /** The prefix used for opencms JDBC pools. */
     public static final String OPENCMS_URL_PREFIX = "opencms:";
 
+    /** The initialized pools by pool URL. */
+    private static final Map<String, I_CmsDbPool> POOLS = new ConcurrentHashMap<String, I_CmsDbPool>();
+
     /**
      * Default constructor.<p>
      *
@@ -169,6 +188,19 @@ public final class CmsDbPool {
         super();
     }
 
+    /**
+     * Closes the given pool and removes it from the pools available for {@link #getPool(String)}.<p>
+     *
+     * @param pool the pool to close
+     *
+     * @throws Exception if something goes wrong closing the pool
+     */
+    public static void closePool(I_CmsDbPool pool) throws Exception {
+
+        POOLS.remove(pool.getPoolUrl());
+        pool.close();
+    }
+
     /**
      * Creates a JDBC DriverManager based DBCP connection pool.<p>
      *
@@ -198,10 +230,6 @@ public final class CmsDbPool {
             KEY_DATABASE_POOL + '.' + key + '.' + KEY_TIME_BETWEEN_EVICTION_RUNS,
             3600000);
         String testQuery = config.get(KEY_DATABASE_POOL + '.' + key + '.' + KEY_TEST_QUERY);
-        String username = config.get(KEY_DATABASE_POOL + '.' + key + '.' + KEY_USERNAME);
-        username = OpenCms.getCredentialsResolver().resolveCredential(I_CmsCredentialsResolver.DB_USER, username);
-        String password = config.get(KEY_DATABASE_POOL + '.' + key + '.' + KEY_PASSWORD);
-        password = OpenCms.getCredentialsResolver().resolveCredential(I_CmsCredentialsResolver.DB_PASSWORD, password);
         String poolUrl = config.get(KEY_DATABASE_POOL + '.' + key + '.' + KEY_POOL_URL);
         String whenExhaustedActionValue = config.get(
             KEY_DATABASE_POOL + '.' + key + '.' + KEY_WHEN_EXHAUSTED_ACTION).trim();
@@ -225,14 +253,6 @@ public final class CmsDbPool {
             testQuery = null;
         }
 
-        if (username == null) {
-            username = "";
-        }
-
-        if (password == null) {
-            password = "";
-        }
-
         // read the values of the statement pool configuration specified by the given key
         boolean poolingStmts = Boolean.valueOf(
             config.getString(
@@ -253,9 +273,6 @@ public final class CmsDbPool {
             : GenericKeyedObjectPool.WHEN_EXHAUSTED_GROW;
         }
 
-        int connectionAttempts = config.getInteger(KEY_DATABASE_POOL + '.' + key + '.' + KEY_CONNECT_ATTEMTS, 10);
-        int connetionsWait = config.getInteger(KEY_DATABASE_POOL + '.' + key + '.' + KEY_CONNECT_WAITS, 5000);
-
         // create an instance of the JDBC driver
         Class.forName(jdbcDriver).newInstance();
 
@@ -297,10 +314,7 @@ public final class CmsDbPool {
             jdbcUrl += jdbcUrlParams;
         }
 
-        Properties connectionProperties = config.getPrefixedProperties(
-            KEY_DATABASE_POOL + '.' + key + '.' + KEY_CONNECTION_PROPERTIES);
-        connectionProperties.put(KEY_USERNAME, username);
-        connectionProperties.put(KEY_PASSWORD, password);
+        Properties connectionProperties = getConnectionProperties(config, key);
         ConnectionFactory connectionFactory = new DriverManagerConnectionFactory(jdbcUrl, connectionProperties);
 
         // Set up statement pool, if desired
@@ -321,39 +335,7 @@ public final class CmsDbPool {
         PoolingDriver driver = new PoolingDriver();
         driver.registerPool(poolUrl, connectionPool);
 
-        Connection con = null;
-        boolean connect = false;
-        int connectionTests = 0;
-
-        // try to connect once to the database to ensure it can be connected to at all
-        // if the conection cannot be established, multiple attempts will be done to connect
-        // just in cast the database was not fast enough to start before OpenCms was started
-
-        do {
-            try {
-                // try to connect
-                con = connectionFactory.createConnection();
-                connect = true;
-            } catch (Exception e) {
-                // connection failed, increase attempts, sleept for some seconds and log a message
-                connectionTests++;
-                if (CmsLog.INIT.isInfoEnabled()) {
-                    CmsLog.INIT.info(
-                        Messages.get().getBundle().key(
-                            Messages.INIT_WAIT_FOR_DB_4,
-                            new Object[] {
-                                poolUrl,
-                                jdbcUrl,
-                                new Integer(connectionTests),
-                                new Integer(connetionsWait)}));
-                }
-                Thread.sleep(connetionsWait);
-            } finally {
-                if (con != null) {
-                    con.close();
-                }
-            }
-        } while (!connect && (connectionTests < connectionAttempts));
+        waitForDatabase(config, key, poolUrl, jdbcUrl, connectionProperties);
 
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_JDBC_POOL_2, poolUrl, jdbcUrl));
@@ -361,6 +343,63 @@ public final class CmsDbPool {
         return driver;
     }
 
+    /**
+     * Creates and initializes the connection pool configured for the given key.<p>
+     *
+     * The implementation class is read from <code>db.pool.[key].provider</code>,
+     * if this is not set a {@link CmsConnectionPool} is created.<p>
+     *
+     * @param config the configuration (opencms.properties)
+     * @param key the key of the database pool in the configuration
+     *
+     * @return the initialized pool
+     *
+     * @throws Exception if the pool could not be initialized
+     */
+    public static I_CmsDbPool createPool(CmsParameterConfiguration config, String key) throws Exception {
+
+        String provider = config.getString(
+            KEY_DATABASE_POOL + '.' + key + '.' + KEY_PROVIDER,
+            CmsConnectionPool.class.getName()).trim();
+        I_CmsDbPool pool = (I_CmsDbPool)Class.forName(provider).newInstance();
+        pool.initialize(config, key);
+        POOLS.put(pool.getPoolUrl(), pool);
+        return pool;
+    }
+
+    /**
+     * Returns the properties used to open physical connections for the pool with the given key.<p>
+     *
+     * These are the <code>db.pool.[key].connectionProperties.*</code> values together with
+     * the resolved user name and password.<p>
+     *
+     * @param config the configuration (opencms.properties)
+     * @param key the key of the database pool in the configuration
+     *
+     * @return the connection properties
+     */
+    public static Properties getConnectionProperties(CmsParameterConfiguration config, String key) {
+
+        String username = config.get(KEY_DATABASE_POOL + '.' + key + '.' + KEY_USERNAME);
+        username = OpenCms.getCredentialsResolver().resolveCredential(I_CmsCredentialsResolver.DB_USER, username);
+        String password = config.get(KEY_DATABASE_POOL + '.' + key + '.' + KEY_PASSWORD);
+        password = OpenCms.getCredentialsResolver().resolveCredential(I_CmsCredentialsResolver.DB_PASSWORD, password);
+
+        if (username == null) {
+            username = "";
+        }
+
+        if (password == null) {
+            password = "";
+        }
+
+        Properties connectionProperties = config.getPrefixedProperties(
+            KEY_DATABASE_POOL + '.' + key + '.' + KEY_CONNECTION_PROPERTIES);
+        connectionProperties.put(KEY_USERNAME, username);
+        connectionProperties.put(KEY_PASSWORD, password);
+        return connectionProperties;
+    }
+
     /**
      * Returns the database pool name for a given configuration key.<p>
      *
@@ -400,4 +439,81 @@ public final class CmsDbPool {
 
         return OPENCMS_DEFAULT_POOL_NAME;
     }
+
+    /**
+     * Returns the initialized pool with the given URL.<p>
+     *
+     * The URL may be given with or without the {@link #DBCP_JDBC_URL_PREFIX}.<p>
+     *
+     * @param poolUrl the pool URL, for example <code>opencms:default</code>
+     *
+     * @return the pool, or <code>null</code> if no such pool has been initialized
+     */
+    public static I_CmsDbPool getPool(String poolUrl) {
+
+        if (poolUrl.startsWith(DBCP_JDBC_URL_PREFIX)) {
+            poolUrl = poolUrl.substring(DBCP_JDBC_URL_PREFIX.length());
+        }
+        return POOLS.get(poolUrl);
+    }
+
+    /**
+     * Tries to connect once to the database to ensure it can be connected to at all.<p>
+     *
+     * If the connection cannot be established, multiple attempts will be done to connect,
+     * just in case the database was not fast enough to start before OpenCms was started.<p>
+     *
+     * @param config the configuration (opencms.properties)
+     * @param key the key of the database pool in the configuration
+     * @param poolUrl the URL of the pool, used for logging
+     * @param jdbcUrl the JDBC URL of the database
+     * @param connectionProperties the properties to open the connection with
+     *
+     * @throws Exception if something goes wrong
+     */
+    public static void waitForDatabase(
+        CmsParameterConfiguration config,
+        String key,
+        String poolUrl,
+        String jdbcUrl,
+        Properties connectionProperties)
+    throws Exception {
+
+        int connectionAttempts = config.getInteger(KEY_DATABASE_POOL + '.' + key + '.' + KEY_CONNECT_ATTEMTS, 10);
+        int connetionsWait = config.getInteger(KEY_DATABASE_POOL + '.' + key + '.' + KEY_CONNECT_WAITS, 5000);
+
+        Connection con = null;
+        boolean connect = false;
+        int connectionTests = 0;
+
+        // try to connect once to the database to ensure it can be connected to at all
+        // if the conection cannot be established, multiple attempts will be done to connect
+        // just in cast the database was not fast enough to start before OpenCms was started
+
+        do {
+            try {
+                // try to connect
+                con = DriverManager.getConnection(jdbcUrl, connectionProperties);
+                connect = true;
+            } catch (Exception e) {
+                // connection failed, increase attempts, sleept for some seconds and log a message
+                connectionTests++;
+                if (CmsLog.INIT.isInfoEnabled()) {
+                    CmsLog.INIT.info(
+                        Messages.get().getBundle().key(
+                            Messages.INIT_WAIT_FOR_DB_4,
+                            new Object[] {
+                                poolUrl,
+                                jdbcUrl,
+                                new Integer(connectionTests),
+                                new Integer(connetionsWait)}));
+                }
+                Thread.sleep(connetionsWait);
+            } finally {
+                if (con != null) {
+                    con.close();
+                }
+            }
+        } while (!connect && (connectionTests < connectionAttempts));
+    }
 }
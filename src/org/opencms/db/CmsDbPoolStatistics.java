@@ -0,0 +1,210 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+/**
+ * Immutable snapshot of the usage statistics of a database connection pool.<p>
+ *
+ * @since 10.0.0
+ */
+public class CmsDbPoolStatistics {
+
+    /** The number of active connections. */
+    private int m_active;
+
+    /** The total number of successful borrows. */
+    private long m_borrowCount;
+
+    /** The number of idle connections. */
+    private int m_idle;
+
+    /** The number of detected connection leaks. */
+    private long m_leakCount;
+
+    /** The longest time a thread had to wait for a connection, in nanoseconds. */
+    private long m_maxWaitNanos;
+
+    /** The URL of the pool. */
+    private String m_poolUrl;
+
+    /** The number of borrows which timed out. */
+    private long m_timeoutCount;
+
+    /** The accumulated time threads had to wait for a connection, in nanoseconds. */
+    private long m_totalWaitNanos;
+
+    /** The number of threads currently waiting for a connection. */
+    private int m_waiting;
+
+    /**
+     * Creates a new statistics snapshot.<p>
+     *
+     * @param poolUrl the URL of the pool
+     * @param active the number of active connections
+     * @param idle the number of idle connections
+     * @param waiting the number of threads currently waiting for a connection
+     * @param borrowCount the total number of successful borrows
+     * @param timeoutCount the number of borrows which timed out
+     * @param totalWaitNanos the accumulated wait time in nanoseconds
+     * @param maxWaitNanos the longest wait time in nanoseconds
+     * @param leakCount the number of detected connection leaks
+     */
+    public CmsDbPoolStatistics(
+        String poolUrl,
+        int active,
+        int idle,
+        int waiting,
+        long borrowCount,
+        long timeoutCount,
+        long totalWaitNanos,
+        long maxWaitNanos,
+        long leakCount) {
+
+        m_poolUrl = poolUrl;
+        m_active = active;
+        m_idle = idle;
+        m_waiting = waiting;
+        m_borrowCount = borrowCount;
+        m_timeoutCount = timeoutCount;
+        m_totalWaitNanos = totalWaitNanos;
+        m_maxWaitNanos = maxWaitNanos;
+        m_leakCount = leakCount;
+    }
+
+    /**
+     * Returns the number of active connections.<p>
+     *
+     * @return the number of active connections
+     */
+    public int getActive() {
+
+        return m_active;
+    }
+
+    /**
+     * Returns the average time a borrow had to wait for a connection, in milliseconds.<p>
+     *
+     * @return the average wait time in milliseconds
+     */
+    public double getAverageWaitMillis() {
+
+        if (m_borrowCount == 0) {
+            return 0;
+        }
+        return (m_totalWaitNanos / (double)m_borrowCount) / 1000000.0;
+    }
+
+    /**
+     * Returns the total number of successful borrows.<p>
+     *
+     * @return the total number of successful borrows
+     */
+    public long getBorrowCount() {
+
+        return m_borrowCount;
+    }
+
+    /**
+     * Returns the number of idle connections.<p>
+     *
+     * @return the number of idle connections
+     */
+    public int getIdle() {
+
+        return m_idle;
+    }
+
+    /**
+     * Returns the number of detected connection leaks.<p>
+     *
+     * @return the number of detected connection leaks
+     */
+    public long getLeakCount() {
+
+        return m_leakCount;
+    }
+
+    /**
+     * Returns the longest time a thread had to wait for a connection, in milliseconds.<p>
+     *
+     * @return the longest wait time in milliseconds
+     */
+    public double getMaxWaitMillis() {
+
+        return m_maxWaitNanos / 1000000.0;
+    }
+
+    /**
+     * Returns the URL of the pool.<p>
+     *
+     * @return the URL of the pool
+     */
+    public String getPoolUrl() {
+
+        return m_poolUrl;
+    }
+
+    /**
+     * Returns the number of borrows which timed out.<p>
+     *
+     * @return the number of borrows which timed out
+     */
+    public long getTimeoutCount() {
+
+        return m_timeoutCount;
+    }
+
+    /**
+     * Returns the number of threads currently waiting for a connection.<p>
+     *
+     * @return the number of waiting threads
+     */
+    public int getWaiting() {
+
+        return m_waiting;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        StringBuffer result = new StringBuffer(128);
+        result.append(m_poolUrl);
+        result.append(": active=").append(m_active);
+        result.append(", idle=").append(m_idle);
+        result.append(", waiting=").append(m_waiting);
+        result.append(", borrows=").append(m_borrowCount);
+        result.append(", timeouts=").append(m_timeoutCount);
+        result.append(", avgWaitMs=").append(String.format("%.3f", Double.valueOf(getAverageWaitMillis())));
+        result.append(", maxWaitMs=").append(String.format("%.3f", Double.valueOf(getMaxWaitMillis())));
+        result.append(", leaks=").append(m_leakCount);
+        return result.toString();
+    }
+}
@@ -93,7 +93,7 @@ public class CmsDbSqlException extends CmsDbException {
                 s = ((DelegatingPreparedStatement)s).getInnermostDelegate();
             }
             if (s != null) {
-                // the query that crashed
+                // the query that crashed, the statements of the default pool return their query
                 return s.toString();
             }
         }
@@ -38,6 +38,9 @@ import java.util.List;
  */
 public final class CmsDbUtil {
 
+    /** The maximum number of parameters in one IN list, some databases do not allow more than 1000 entries. */
+    public static final int MAX_IN_LIST_SIZE = 500;
+
     /**
      * Private constructor for static utility class.<p>
      */
@@ -47,6 +50,26 @@ public final class CmsDbUtil {
 
     }
 
+    /**
+     * Creates a list of parameter place holders to be used with an IN condition.<p>
+     *
+     * @param count the number of parameters
+     *
+     * @return the parameter list, e.g. <code> (?, ?, ?) </code> for 3 parameters
+     */
+    public static String createInList(int count) {
+
+        StringBuffer result = new StringBuffer(I_CmsDriver.BEGIN_CONDITION);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                result.append(", ");
+            }
+            result.append('?');
+        }
+        result.append(I_CmsDriver.END_CONDITION);
+        return result.toString();
+    }
+
     /**
      * Fills a given prepared statement with parameters from a list of objects.<p>
      *
@@ -0,0 +1,162 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.configuration.CmsParameterConfiguration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.dbcp.PoolingDriver;
+import org.apache.commons.pool.ObjectPool;
+
+/**
+ * Connection pool based on commons-dbcp.<p>
+ *
+ * This is the pool implementation used by earlier OpenCms versions. Select it with
+ * <code>db.pool.[name].provider=org.opencms.db.CmsDbcpConnectionPool</code> to keep the
+ * DBCP statement pooling configured with the <code>db.statements.[name].*</code> keys.<p>
+ *
+ * @since 10.0.0
+ */
+public class CmsDbcpConnectionPool implements I_CmsDbPool {
+
+    /** The number of successful borrows. */
+    private AtomicLong m_borrowCount = new AtomicLong();
+
+    /** The DBCP pooling driver. */
+    private PoolingDriver m_driver;
+
+    /** The longest time spent waiting for a connection in nanoseconds. */
+    private AtomicLong m_maxWaitNanos = new AtomicLong();
+
+    /** The pool URL. */
+    private String m_poolUrl;
+
+    /** The number of failed borrows. */
+    private AtomicLong m_timeoutCount = new AtomicLong();
+
+    /** The accumulated time spent waiting for connections in nanoseconds. */
+    private AtomicLong m_totalWaitNanos = new AtomicLong();
+
+    /**
+     * @see org.opencms.db.I_CmsDbPool#close()
+     */
+    public void close() throws Exception {
+
+        m_driver.closePool(m_poolUrl);
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsDbPool#getConnection()
+     */
+    public Connection getConnection() throws SQLException {
+
+        long start = System.nanoTime();
+        Connection result;
+        try {
+            result = m_driver.connect(CmsDbPool.DBCP_JDBC_URL_PREFIX + m_poolUrl, null);
+        } catch (SQLException e) {
+            m_timeoutCount.incrementAndGet();
+            throw e;
+        }
+        long wait = System.nanoTime() - start;
+        m_borrowCount.incrementAndGet();
+        m_totalWaitNanos.addAndGet(wait);
+        long max = m_maxWaitNanos.get();
+        while ((wait > max) && !m_maxWaitNanos.compareAndSet(max, wait)) {
+            max = m_maxWaitNanos.get();
+        }
+        return result;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsDbPool#getNumActive()
+     */
+    public int getNumActive() {
+
+        return getObjectPool().getNumActive();
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsDbPool#getNumIdle()
+     */
+    public int getNumIdle() {
+
+        return getObjectPool().getNumIdle();
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsDbPool#getPoolUrl()
+     */
+    public String getPoolUrl() {
+
+        return m_poolUrl;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsDbPool#getStatistics()
+     */
+    public CmsDbPoolStatistics getStatistics() {
+
+        return new CmsDbPoolStatistics(
+            m_poolUrl,
+            getNumActive(),
+            getNumIdle(),
+            0,
+            m_borrowCount.get(),
+            m_timeoutCount.get(),
+            m_totalWaitNanos.get(),
+            m_maxWaitNanos.get(),
+            0);
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsDbPool#initialize(org.opencms.configuration.CmsParameterConfiguration, java.lang.String)
+     */
+    public void initialize(CmsParameterConfiguration config, String key) throws Exception {
+
+        m_poolUrl = CmsDbPool.getDbPoolName(config, key);
+        m_driver = CmsDbPool.createDriverManagerConnectionPool(config, key);
+    }
+
+    /**
+     * Returns the DBCP object pool holding the connections.<p>
+     *
+     * @return the DBCP object pool
+     */
+    private ObjectPool getObjectPool() {
+
+        try {
+            return m_driver.getConnectionPool(m_poolUrl);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -115,6 +115,8 @@ import org.opencms.util.CmsUUID;
 import org.opencms.util.PrintfFormat;
 import org.opencms.workplace.threads.A_CmsProgressThread;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -123,6 +125,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Locale;
@@ -133,9 +136,7 @@ import java.util.TreeSet;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
-import org.apache.commons.dbcp.PoolingDriver;
 import org.apache.commons.logging.Log;
-import org.apache.commons.pool.ObjectPool;
 
 import com.google.common.collect.ArrayListMultimap;
 
@@ -239,6 +240,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** DBC attribute key needed to fix publishing behavior involving siblings. */
     public static final String KEY_CHANGED_AND_DELETED = "changedAndDeleted";
 
+    /** DBC attribute key for the ids of the resources whose resource version a publish job has increased. */
+    public static final String KEY_RESOURCE_OPERATIONS = "resourceOperations";
+
     /** The vfs path of the loast and found folder. */
     public static final String LOST_AND_FOUND_FOLDER = "/system/lost-found";
 
@@ -327,7 +331,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
     private static final CmsReadChangedProjectResourceMode RCPRM_FOLDERS_ONLY_MODE = new CmsReadChangedProjectResourceMode();
 
     /** The list of initialized JDBC pools. */
-    private List<PoolingDriver> m_connectionPools;
+    private List<I_CmsDbPool> m_connectionPools;
 
     /** The history driver. */
     private I_CmsHistoryDriver m_historyDriver;
@@ -338,6 +342,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** The class used for cache key generation. */
     private I_CmsCacheKey m_keyGenerator;
 
+    /** The last publish tag handed out, used to keep publish tags unique for concurrently running publish jobs. */
+    private int m_lastPublishTag;
+
     /** The lock manager. */
     private CmsLockManager m_lockManager;
 
@@ -359,6 +366,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** Object used for synchronizing updates to the user publish list. */
     private Object m_publishListUpdateLock = new Object();
 
+    /** Object used for synchronizing the generation of publish tags. */
+    private Object m_publishTagLock = new Object();
+
     /** The security manager (for access checks). */
     private CmsSecurityManager m_securityManager;
 
@@ -439,7 +449,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         driverManager.m_securityManager = securityManager;
 
         // set connection pools
-        driverManager.m_connectionPools = new ArrayList<PoolingDriver>();
+        driverManager.m_connectionPools = new ArrayList<I_CmsDbPool>();
 
         // set the lock manager
         driverManager.m_lockManager = new CmsLockManager(driverManager);
@@ -537,7 +547,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
                 I_CmsEventListener.EVENT_CLEAR_CACHES,
                 I_CmsEventListener.EVENT_CLEAR_PRINCIPAL_CACHES,
                 I_CmsEventListener.EVENT_USER_MODIFIED,
-                I_CmsEventListener.EVENT_PUBLISH_PROJECT});
+                I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+                I_CmsEventListener.EVENT_REMOTE_PUBLISH_PROJECT});
 
         // return the configured driver manager
         return driverManager;
@@ -995,6 +1006,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
                 break;
 
             case I_CmsEventListener.EVENT_CLEAR_CACHES:
+            case I_CmsEventListener.EVENT_REMOTE_PUBLISH_PROJECT:
                 m_monitor.clearCache();
                 break;
             case I_CmsEventListener.EVENT_CLEAR_PRINCIPAL_CACHES:
@@ -3212,19 +3224,17 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
 
             if (m_connectionPools != null) {
-                for (int i = 0; i < m_connectionPools.size(); i++) {
-                    PoolingDriver driver = m_connectionPools.get(i);
-                    String[] pools = driver.getPoolNames();
-                    for (String pool : pools) {
-                        try {
-                            driver.closePool(pool);
-                            if (CmsLog.INIT.isDebugEnabled()) {
-                                CmsLog.INIT.debug(
-                                    Messages.get().getBundle().key(Messages.INIT_CLOSE_CONN_POOL_1, pool));
-                            }
-                        } catch (Throwable t) {
-                            LOG.error(Messages.get().getBundle().key(Messages.LOG_CLOSE_CONN_POOL_ERROR_1, pool), t);
+                for (I_CmsDbPool pool : m_connectionPools) {
+                    try {
+                        CmsDbPool.closePool(pool);
+                        if (CmsLog.INIT.isDebugEnabled()) {
+                            CmsLog.INIT.debug(
+                                Messages.get().getBundle().key(Messages.INIT_CLOSE_CONN_POOL_1, pool.getPoolUrl()));
                         }
+                    } catch (Throwable t) {
+                        LOG.error(
+                            Messages.get().getBundle().key(Messages.LOG_CLOSE_CONN_POOL_ERROR_1, pool.getPoolUrl()),
+                            t);
                     }
                 }
                 m_connectionPools = null;
@@ -3490,18 +3500,13 @@ public final class CmsDriverManager implements I_CmsEventListener {
      */
     public int getActiveConnections(String dbPoolUrl) throws CmsDbException {
 
+        I_CmsDbPool pool = getPool(dbPoolUrl);
         try {
-            for (PoolingDriver d : m_connectionPools) {
-                ObjectPool p = d.getConnectionPool(dbPoolUrl);
-                return p.getNumActive();
-            }
+            return pool.getNumActive();
         } catch (Exception exc) {
             CmsMessageContainer message = Messages.get().container(Messages.ERR_ACCESSING_POOL_1, dbPoolUrl);
             throw new CmsDbException(message, exc);
         }
-
-        CmsMessageContainer message = Messages.get().container(Messages.ERR_UNKNOWN_POOL_URL_1, dbPoolUrl);
-        throw new CmsDbException(message);
     }
 
     /**
@@ -4044,18 +4049,13 @@ public final class CmsDriverManager implements I_CmsEventListener {
      */
     public int getIdleConnections(String dbPoolUrl) throws CmsDbException {
 
+        I_CmsDbPool pool = getPool(dbPoolUrl);
         try {
-            for (PoolingDriver d : m_connectionPools) {
-                ObjectPool p = d.getConnectionPool(dbPoolUrl);
-                return p.getNumIdle();
-            }
+            return pool.getNumIdle();
         } catch (Exception exc) {
             CmsMessageContainer message = Messages.get().container(Messages.ERR_ACCESSING_POOL_1, dbPoolUrl);
             throw new CmsDbException(message, exc);
         }
-
-        CmsMessageContainer message = Messages.get().container(Messages.ERR_UNKNOWN_POOL_URL_1, dbPoolUrl);
-        throw new CmsDbException(message);
     }
 
     /**
@@ -4157,13 +4157,23 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /**
      * Returns the next publish tag for the published historical resources.<p>
      *
+     * Since several publish jobs may run concurrently, the publish tag read from the database
+     * is never lower than a publish tag already handed out before.<p>
+     *
      * @param dbc the current database context
      *
      * @return the next available publish tag
      */
     public int getNextPublishTag(CmsDbContext dbc) {
 
-        return getHistoryDriver(dbc).readNextPublishTag(dbc);
+        synchronized (m_publishTagLock) {
+            int publishTag = getHistoryDriver(dbc).readNextPublishTag(dbc);
+            if (publishTag <= m_lastPublishTag) {
+                publishTag = m_lastPublishTag + 1;
+            }
+            m_lastPublishTag = publishTag;
+            return publishTag;
+        }
     }
 
     /**
@@ -4253,6 +4263,24 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return parent;
     }
 
+    /**
+     * Returns the usage statistics of a pool.<p>
+     *
+     * @param dbPoolUrl the url of a pool
+     * @return the usage statistics of the pool
+     * @throws CmsDbException if something goes wrong
+     */
+    public CmsDbPoolStatistics getPoolStatistics(String dbPoolUrl) throws CmsDbException {
+
+        I_CmsDbPool pool = getPool(dbPoolUrl);
+        try {
+            return pool.getStatistics();
+        } catch (Exception exc) {
+            CmsMessageContainer message = Messages.get().container(Messages.ERR_ACCESSING_POOL_1, dbPoolUrl);
+            throw new CmsDbException(message, exc);
+        }
+    }
+
     /**
      * Returns the set of permissions of the current user for a given resource.<p>
      *
@@ -5981,10 +6009,10 @@ public final class CmsDriverManager implements I_CmsEventListener {
      */
     public void newPoolInstance(CmsParameterConfiguration configuration, String poolName) throws CmsInitException {
 
-        PoolingDriver driver;
+        I_CmsDbPool pool;
 
         try {
-            driver = CmsDbPool.createDriverManagerConnectionPool(configuration, poolName);
+            pool = CmsDbPool.createPool(configuration, poolName);
         } catch (Exception e) {
 
             CmsMessageContainer message = Messages.get().container(Messages.ERR_INIT_CONN_POOL_1, poolName);
@@ -5994,7 +6022,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             throw new CmsInitException(message, e);
         }
 
-        m_connectionPools.add(driver);
+        m_connectionPools.add(pool);
     }
 
     /**
@@ -6015,6 +6043,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             List<CmsResource> allResources = new ArrayList<CmsResource>(publishList.getFolderList());
             allResources.addAll(publishList.getDeletedFolderList());
             allResources.addAll(publishList.getFileList());
+            List<CmsResource> removedResources = new ArrayList<CmsResource>();
             Iterator<CmsResource> itResources = allResources.iterator();
             while (itResources.hasNext()) {
                 CmsResource resource = itResources.next();
@@ -6031,7 +6060,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
                                 Messages.RPT_PUBLISH_REMOVED_RESOURCE_1,
                                 dbc.removeSiteRoot(resource.getRootPath())));
                     }
-                    publishList.remove(resource);
+                    removedResources.add(resource);
                     unlockResource(dbc, resource, true, true);
                     continue;
                 }
@@ -6044,10 +6073,11 @@ public final class CmsDriverManager implements I_CmsEventListener {
                                 Messages.RPT_PUBLISH_REMOVED_RESOURCE_1,
                                 dbc.removeSiteRoot(resource.getRootPath())));
                     }
-                    publishList.remove(resource);
+                    removedResources.add(resource);
                     continue;
                 }
             }
+            publishList.removeAll(removedResources);
 
             CmsProject onlineProject = readProject(dbc, CmsProject.ONLINE_PROJECT_ID);
 
@@ -6541,10 +6571,50 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
         }
 
+        // the result depends on the contents of the folder
+        updateContextFolderDependency(dbc, resource.getRootPath());
         // we must always apply the result filter and update the context dates
         return updateContextDates(dbc, resourceList, filter);
     }
 
+    /**
+     * Opens a stream on the binary content of a file resource.<p>
+     *
+     * In contrast to {@link #readFile(CmsDbContext, CmsResource)} the content is not read into memory
+     * if the VFS driver supports streaming. The stream must always be closed by the caller.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the file resource (without content)
+     *
+     * @return a stream on the content of the file
+     *
+     * @throws CmsException if operation was not successful
+     */
+    public InputStream readContentStream(CmsDbContext dbc, CmsResource resource) throws CmsException {
+
+        if (resource.isFolder()) {
+            throw new CmsVfsResourceNotFoundException(
+                Messages.get().container(
+                    Messages.ERR_ACCESS_FOLDER_AS_FILE_1,
+                    dbc.removeSiteRoot(resource.getRootPath())));
+        }
+
+        if (resource instanceof I_CmsHistoryResource) {
+            return new ByteArrayInputStream(
+                getHistoryDriver(dbc).readContent(
+                    dbc,
+                    resource.getResourceId(),
+                    ((I_CmsHistoryResource)resource).getPublishTag()));
+        }
+        InputStream result = getVfsDriver(dbc).readContentStream(
+            dbc,
+            dbc.currentProject().getUuid(),
+            resource.getResourceId());
+        // the content may be read from a resource that has been passed around without reading it in this context
+        updateContextDependency(dbc, resource);
+        return result;
+    }
+
     /**
      * Returns the default file for the given folder.<p>
      *
@@ -6810,6 +6880,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
         } else {
             file = new CmsFile(resource);
             file.setContents(getVfsDriver(dbc).readContent(dbc, projectId, resource.getResourceId()));
+            // the content may be read from a resource that has been passed around without reading it in this context
+            updateContextDependency(dbc, resource);
         }
         return file;
     }
@@ -7390,6 +7462,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
     public List<CmsProperty> readPropertyObjects(CmsDbContext dbc, CmsResource resource, boolean search)
     throws CmsException {
 
+        // the properties of the resource are a dependency, inherited properties are covered by the parent folders
+        updateContextDependency(dbc, resource);
+
         // check if we have the result already cached
         CmsUUID projectId = getProjectIdForContext(dbc);
         String cacheKey = getCacheKey(CACHE_ALL_PROPERTIES, search, projectId, resource.getRootPath());
@@ -7446,6 +7521,83 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return new ArrayList<CmsProperty>(properties);
     }
 
+    /**
+     * Reads all property objects mapped to the given resources from the database.<p>
+     *
+     * The properties directly attached to the resources are read with as few queries as possible
+     * and are stored in the property list cache, so reading the properties of many resources
+     * (e.g. the elements of a container page) does not need a query per resource.<p>
+     *
+     * All properties in the result lists will be in frozen (read only) state, so you can't change the values.<p>
+     *
+     * @param dbc the current database context
+     * @param resources the resources where the properties are read from
+     * @param search true, if the properties should be searched on all parent folders  if not found on the resource
+     *
+     * @return a map from the structure ids of the given resources to the lists of their properties
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see CmsObject#readPropertyObjects(List, boolean)
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsDbContext dbc,
+        List<CmsResource> resources,
+        boolean search) throws CmsException {
+
+        CmsUUID projectId = getProjectIdForContext(dbc);
+        boolean useCache = dbc.getProjectId().isNullUUID();
+        Map<CmsUUID, List<CmsProperty>> result = new LinkedHashMap<CmsUUID, List<CmsProperty>>();
+
+        if (!search || useCache) {
+            // read the properties directly attached to the resources which are not cached yet with one query
+            List<CmsResource> missing = new ArrayList<CmsResource>();
+            for (CmsResource resource : resources) {
+                List<CmsProperty> properties = null;
+                if (useCache) {
+                    String cacheKey = getCacheKey(CACHE_ALL_PROPERTIES, false, projectId, resource.getRootPath());
+                    properties = m_monitor.getCachedPropertyList(cacheKey);
+                }
+                if (properties == null) {
+                    missing.add(resource);
+                } else {
+                    result.put(resource.getStructureId(), properties);
+                }
+            }
+            if (!missing.isEmpty()) {
+                Map<CmsUUID, List<CmsProperty>> read = getVfsDriver(dbc).readPropertyObjects(
+                    dbc,
+                    dbc.currentProject(),
+                    missing);
+                for (CmsResource resource : missing) {
+                    List<CmsProperty> properties = read.get(resource.getStructureId());
+                    // set all properties in the result list as frozen
+                    CmsProperty.setFrozen(properties);
+                    if (useCache) {
+                        // store the result in the cache
+                        String cacheKey = getCacheKey(CACHE_ALL_PROPERTIES, false, projectId, resource.getRootPath());
+                        m_monitor.cachePropertyList(cacheKey, properties);
+                    }
+                    result.put(resource.getStructureId(), properties);
+                }
+            }
+        }
+
+        for (CmsResource resource : resources) {
+            if (search) {
+                // the properties of the resource itself are cached now, the parent folders are
+                // shared by most of the resources and are cached after they have been read once
+                result.put(resource.getStructureId(), readPropertyObjects(dbc, resource, true));
+            } else {
+                // the properties of the resource are a dependency
+                updateContextDependency(dbc, resource);
+                List<CmsProperty> properties = result.get(resource.getStructureId());
+                result.put(resource.getStructureId(), new ArrayList<CmsProperty>(properties));
+            }
+        }
+        return result;
+    }
+
     /**
      * Reads the resources that were published in a publish task for a given publish history ID.<p>
      *
@@ -7605,6 +7757,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
     throws CmsDataAccessException {
 
         CmsUUID projectId = getProjectIdForContext(dbc);
+        // the path is a dependency even if the resource does not exist, since it may be created later
+        updateContextDependency(dbc, resourcePath);
         // please note: the filter will be applied in the security manager later
         CmsResource resource = getVfsDriver(dbc).readResource(dbc, projectId, resourcePath, filter.includeDeleted());
 
@@ -7675,6 +7829,50 @@ public final class CmsDriverManager implements I_CmsEventListener {
                 m_monitor.cacheResourceList(cacheKey, resourceList);
             }
         }
+        // the result depends on the contents of the folder
+        updateContextFolderDependency(dbc, parent.getRootPath());
+        // we must always apply the result filter and update the context dates
+        return updateContextDates(dbc, resourceList, filter);
+    }
+
+    /**
+     * Reads several resources from the VFS, using the specified resource filter.<p>
+     *
+     * The resources are read with as few queries as possible. Resources that do not exist,
+     * that do not match the filter or that can not be read by the current user are not
+     * contained in the result, the order of the result matches the order of the given IDs.
+     * The resources are stored in the resource cache, so they can be read by path afterwards
+     * without accessing the database.<p>
+     *
+     * @param dbc the current database context
+     * @param structureIds the structure ids of the resources to read
+     * @param filter the resource filter to use while reading
+     *
+     * @return the resources that were read
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see CmsObject#readResources(List, CmsResourceFilter)
+     */
+    public List<CmsResource> readResources(CmsDbContext dbc, List<CmsUUID> structureIds, CmsResourceFilter filter)
+    throws CmsException {
+
+        CmsUUID projectId = getProjectIdForContext(dbc);
+        List<CmsResource> resourceList = getVfsDriver(dbc).readResources(
+            dbc,
+            projectId,
+            structureIds,
+            filter.includeDeleted());
+        if (dbc.getProjectId().isNullUUID()) {
+            for (CmsResource resource : resourceList) {
+                // the resource cache is used when reading resources by path
+                if (!resource.getState().isDeleted()) {
+                    m_monitor.cacheResource(getCacheKey(null, false, projectId, resource.getRootPath()), resource);
+                }
+            }
+        }
+        // apply permission filter
+        resourceList = filterPermissions(dbc, resourceList, filter);
         // we must always apply the result filter and update the context dates
         return updateContextDates(dbc, resourceList, filter);
     }
@@ -7762,6 +7960,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
                 m_monitor.cacheResourceList(cacheKey, resourceList);
             }
         }
+        // the result depends on the contents of the folder
+        updateContextFolderDependency(dbc, folder.getRootPath());
         // we must always apply the result filter and update the context dates
         return updateContextDates(dbc, resourceList, filter);
     }
@@ -9212,6 +9412,25 @@ public final class CmsDriverManager implements I_CmsEventListener {
         getSubscriptionDriver().unsubscribeResourceForAll(dbc, poolName, resource);
     }
 
+    /**
+     * Adds the given resource to the dependencies of the current users context.<p>
+     *
+     * This is only required for reading operations that do not update the context dates,
+     * since {@link CmsFlexRequestContextInfo#updateFromResource(CmsResource)} also collects the resource.
+     * It is also used if the data of a resource is taken from a cache instead of reading it.
+     * The dependencies are used by the Flex cache to remove only the affected entries after publishing.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the resource that has been read
+     */
+    public void updateContextDependency(CmsDbContext dbc, CmsResource resource) {
+
+        CmsFlexRequestContextInfo info = dbc.getFlexRequestContextInfo();
+        if (info != null) {
+            info.addDependency(resource);
+        }
+    }
+
     /**
      * Update the export points.<p>
      *
@@ -10688,12 +10907,12 @@ public final class CmsDriverManager implements I_CmsEventListener {
      * Checks the parent of a resource during publishing.<p>
      *
      * @param dbc the current database context
-     * @param folderList a list of folders
+     * @param folderIds the structure ids of the folders that will get published
      * @param res a resource to check the parent for
      *
      * @return true if the resource should be published
      */
-    private boolean checkParentResource(CmsDbContext dbc, List<CmsResource> folderList, CmsResource res) {
+    private boolean checkParentResource(CmsDbContext dbc, Set<CmsUUID> folderIds, CmsResource res) {
 
         String parentPath = CmsResource.getParentFolder(res.getRootPath());
 
@@ -10715,15 +10934,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
             return true;
         }
 
-        for (int j = 0; j < folderList.size(); j++) {
-            if (folderList.get(j).getStructureId().equals(parent.getStructureId())) {
-                // parent is new, but it will get published
-                return true;
-            }
-        }
-
-        // parent is new, but it will not get published
-        return false;
+        // parent is new, check if it will get published
+        return folderIds.contains(parent.getStructureId());
     }
 
     /**
@@ -10816,10 +11028,12 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
         List<CmsResource> result = new ArrayList<CmsResource>();
 
-        // local folder list for adding new publishing subfolders
+        // local folder id set for adding new publishing subfolders
         // this solves the {@link org.opencms.file.TestPublishIssues#testPublishScenarioD} problem.
-        List<CmsResource> newFolderList = new ArrayList<CmsResource>(
-            publishList == null ? resourceList : publishList.getFolderList());
+        Set<CmsUUID> newFolderIds = new HashSet<CmsUUID>();
+        for (CmsResource folder : publishList == null ? resourceList : publishList.getFolderList()) {
+            newFolderIds.add(folder.getStructureId());
+        }
 
         for (int i = 0; i < resourceList.size(); i++) {
             CmsResource res = resourceList.get(i);
@@ -10842,7 +11056,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
                         continue;
                     }
                 }
-                if (!"/".equals(res.getRootPath()) && !checkParentResource(dbc, newFolderList, res)) {
+                if (!"/".equals(res.getRootPath()) && !checkParentResource(dbc, newFolderIds, res)) {
                     continue;
                 }
                 // check permissions
@@ -10858,7 +11072,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
                     continue;
                 }
                 if (res.isFolder()) {
-                    newFolderList.add(res);
+                    newFolderIds.add(res.getStructureId());
                 }
                 result.add(res);
             } catch (Exception e) {
@@ -10889,6 +11103,10 @@ public final class CmsDriverManager implements I_CmsEventListener {
         List<CmsResource> result = new ArrayList<CmsResource>();
 
         // removed internal extendible folder list, since iterated (sibling) resources are files in any case, never folders
+        Set<CmsUUID> folderIds = new HashSet<CmsUUID>();
+        for (CmsResource folder : publishList.getFolderList()) {
+            folderIds.add(folder.getStructureId());
+        }
 
         for (CmsResource res : resourceList) {
             try {
@@ -10910,7 +11128,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
                         continue;
                     }
                 }
-                if (!"/".equals(res.getRootPath()) && !checkParentResource(dbc, publishList.getFolderList(), res)) {
+                if (!"/".equals(res.getRootPath()) && !checkParentResource(dbc, folderIds, res)) {
                     // don't add resources that have no parent in the online project
                     continue;
                 }
@@ -11082,6 +11300,25 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return b.toString();
     }
 
+    /**
+     * Returns the initialized pool with the given url.<p>
+     *
+     * @param dbPoolUrl the url of a pool
+     *
+     * @return the pool
+     *
+     * @throws CmsDbException if there is no pool with the given url
+     */
+    private I_CmsDbPool getPool(String dbPoolUrl) throws CmsDbException {
+
+        I_CmsDbPool pool = CmsDbPool.getPool(dbPoolUrl);
+        if ((pool != null) && (m_connectionPools != null) && m_connectionPools.contains(pool)) {
+            return pool;
+        }
+        CmsMessageContainer message = Messages.get().container(Messages.ERR_UNKNOWN_POOL_URL_1, dbPoolUrl);
+        throw new CmsDbException(message);
+    }
+
     /**
      * Returns the correct project id.<p>
      *
@@ -11802,6 +12039,41 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return result;
     }
 
+    /**
+     * Adds the given root path to the dependencies of the current users context.<p>
+     *
+     * @param dbc the current database context
+     * @param rootPath the root path of the resource that is looked up
+     *
+     * @see #updateContextDependency(CmsDbContext, CmsResource)
+     */
+    private void updateContextDependency(CmsDbContext dbc, String rootPath) {
+
+        CmsFlexRequestContextInfo info = dbc.getFlexRequestContextInfo();
+        if (info != null) {
+            info.addDependency(rootPath);
+        }
+    }
+
+    /**
+     * Adds the given folder to the folder dependencies of the current users context.<p>
+     *
+     * This is required for operations that list the contents of a folder,
+     * since the result changes if a resource is published below the folder.<p>
+     *
+     * @param dbc the current database context
+     * @param folderRootPath the root path of the folder that has been listed
+     *
+     * @see #updateContextDependency(CmsDbContext, CmsResource)
+     */
+    private void updateContextFolderDependency(CmsDbContext dbc, String folderRootPath) {
+
+        CmsFlexRequestContextInfo info = dbc.getFlexRequestContextInfo();
+        if (info != null) {
+            info.addFolderDependency(folderRootPath);
+        }
+    }
+
     /**
      * Updates the state of a resource, depending on the <code>resourceState</code> parameter.<p>
      *
@@ -127,6 +127,9 @@ public class CmsPublishList implements Externalizable {
     /** Indicates if sub-resources in folders should be published (for direct publish only). */
     private boolean m_publishSubResources;
 
+    /** The structure ids of all resources in this publish list, used for fast lookups, built lazily. */
+    private Set<CmsUUID> m_structureIds;
+
     /**
      * Empty constructor.<p>
      */
@@ -425,6 +428,7 @@ public class CmsPublishList implements Externalizable {
             if (m_deletedFolderUUIDs != null) {
                 m_deletedFolderList = internalReadResourceList(cms, m_deletedFolderUUIDs);
             }
+            m_structureIds = null;
             m_needsRevive = false;
         }
     }
@@ -542,24 +546,19 @@ public class CmsPublishList implements Externalizable {
                     Messages.get().container(Messages.ERR_PUBLISH_UNCHANGED_RESOURCE_1, resource.getRootPath()));
             }
         }
+        if (!getStructureIds().add(resource.getStructureId())) {
+            // only add resources not already contained in the list
+            // this is required to make sure no siblings are duplicated
+            return;
+        }
         if (resource.isFolder()) {
             if (resource.getState().isDeleted()) {
-                if (!m_deletedFolderList.contains(resource)) {
-                    // only add files not already contained in the list
-                    m_deletedFolderList.add(resource);
-                }
+                m_deletedFolderList.add(resource);
             } else {
-                if (!m_folderList.contains(resource)) {
-                    // only add files not already contained in the list
-                    m_folderList.add(resource);
-                }
+                m_folderList.add(resource);
             }
         } else {
-            if (!m_fileList.contains(resource)) {
-                // only add files not already contained in the list
-                // this is required to make sure no siblings are duplicated
-                m_fileList.add(resource);
-            }
+            m_fileList.add(resource);
         }
     }
 
@@ -609,7 +608,7 @@ public class CmsPublishList implements Externalizable {
      */
     protected boolean containsResource(CmsResource res) {
 
-        return m_deletedFolderList.contains(res) || m_folderList.contains(res) || m_fileList.contains(res);
+        return getStructureIds().contains(res.getStructureId());
     }
 
     /**
@@ -753,12 +752,65 @@ public class CmsPublishList implements Externalizable {
     protected boolean remove(CmsResource resource) {
 
         // it is essential that this method is only visible within the db package!
+        if (!getStructureIds().remove(resource.getStructureId())) {
+            return false;
+        }
         boolean ret = m_fileList.remove(resource);
         ret |= m_folderList.remove(resource);
         ret |= m_deletedFolderList.remove(resource);
         return ret;
     }
 
+    /**
+     * Removes all given Cms resources from the publish list.<p>
+     *
+     * Other than calling {@link #remove(CmsResource)} for each resource, this needs
+     * only a single pass over the internal lists.<p>
+     *
+     * @param resources the Cms resources to remove
+     *
+     * @return true if this publish list contained one of the specified resources
+     */
+    protected boolean removeAll(Collection<CmsResource> resources) {
+
+        // it is essential that this method is only visible within the db package!
+        Set<CmsUUID> removedIds = new HashSet<CmsUUID>();
+        for (CmsResource resource : resources) {
+            if (getStructureIds().remove(resource.getStructureId())) {
+                removedIds.add(resource.getStructureId());
+            }
+        }
+        if (removedIds.isEmpty()) {
+            return false;
+        }
+        internalRemoveResources(m_fileList, removedIds);
+        internalRemoveResources(m_folderList, removedIds);
+        internalRemoveResources(m_deletedFolderList, removedIds);
+        return true;
+    }
+
+    /**
+     * Returns the structure ids of all resources in this publish list.<p>
+     *
+     * @return the structure ids of all resources in this publish list
+     */
+    private Set<CmsUUID> getStructureIds() {
+
+        if (m_structureIds == null) {
+            m_structureIds = new HashSet<CmsUUID>();
+            for (CmsResource resource : m_fileList) {
+                m_structureIds.add(resource.getStructureId());
+            }
+            for (CmsResource resource : m_folderList) {
+                m_structureIds.add(resource.getStructureId());
+            }
+            for (CmsResource resource : m_deletedFolderList) {
+                m_structureIds.add(resource.getStructureId());
+            }
+        }
+        return m_structureIds;
+    }
+
     /**
      * Builds a list of <code>CmsResource</code> instances from a list of resource structure IDs.<p>
      *
@@ -818,4 +870,23 @@ public class CmsPublishList implements Externalizable {
 
         return result;
     }
+    /**
+     * Removes all resources with the given structure ids from the given list.<p>
+     *
+     * @param resources the list to remove the resources from
+     * @param structureIds the structure ids of the resources to remove
+     */
+    private void internalRemoveResources(List<CmsResource> resources, Set<CmsUUID> structureIds) {
+
+        List<CmsResource> kept = new ArrayList<CmsResource>(resources.size());
+        for (CmsResource resource : resources) {
+            if (!structureIds.contains(resource.getStructureId())) {
+                kept.add(resource);
+            }
+        }
+        if (kept.size() < resources.size()) {
+            resources.clear();
+            resources.addAll(kept);
+        }
+    }
 }
\ No newline at end of file
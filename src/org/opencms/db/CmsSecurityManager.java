@@ -92,6 +92,7 @@ import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -4099,6 +4100,44 @@ public final class CmsSecurityManager {
         return result;
     }
 
+    /**
+     * Opens a stream on the binary content of a file resource.<p>
+     *
+     * The stream must always be closed by the caller.<p>
+     *
+     * @param context the current request context
+     * @param resource the resource to read the content for
+     *
+     * @return a stream on the content of the file
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see CmsDriverManager#readContentStream(CmsDbContext, CmsResource)
+     */
+    public InputStream readContentStream(CmsRequestContext context, CmsResource resource) throws CmsException {
+
+        InputStream result = null;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            result = m_driverManager.readContentStream(dbc, resource);
+        } catch (Exception e) {
+            if (resource instanceof I_CmsHistoryResource) {
+                dbc.report(
+                    null,
+                    Messages.get().container(
+                        Messages.ERR_READ_FILE_HISTORY_2,
+                        context.getSitePath(resource),
+                        new Integer(resource.getVersion())),
+                    e);
+            } else {
+                dbc.report(null, Messages.get().container(Messages.ERR_READ_FILE_1, context.getSitePath(resource)), e);
+            }
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Returns the default file for the given folder.<p>
      *
@@ -4829,6 +4868,41 @@ public final class CmsSecurityManager {
         return result;
     }
 
+    /**
+     * Reads all property objects of several resources at once.<p>
+     *
+     * The properties directly attached to the resources are read with as few queries as possible.<p>
+     *
+     * @param context the context of the current request
+     * @param resources the resources where the properties are mapped to
+     * @param search <code>true</code>, if the properties should be searched on all parent folders  if not found on the resource
+     *
+     * @return a map from the structure ids of the resources to the lists of their properties
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see CmsObject#readPropertyObjects(List, boolean)
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsRequestContext context,
+        List<CmsResource> resources,
+        boolean search) throws CmsException {
+
+        Map<CmsUUID, List<CmsProperty>> result = null;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            result = m_driverManager.readPropertyObjects(dbc, resources, search);
+        } catch (Exception e) {
+            dbc.report(
+                null,
+                Messages.get().container(Messages.ERR_READ_PROPS_FOR_RESOURCES_1, new Integer(resources.size())),
+                e);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Reads the resources that were published in a publish task for a given publish history ID.<p>
      *
@@ -5025,6 +5099,42 @@ public final class CmsSecurityManager {
         return result;
     }
 
+    /**
+     * Reads several resources specified by their structure IDs, using the specified resource filter.<p>
+     *
+     * Resources that do not exist, that do not match the filter or that can not be read by the
+     * current user are not contained in the result.<p>
+     *
+     * @param context the current request context
+     * @param structureIds the structure IDs of the resources to read
+     * @param filter the resource filter to use while reading
+     *
+     * @return the resources that were read
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see CmsObject#readResources(List, CmsResourceFilter)
+     */
+    public List<CmsResource> readResources(
+        CmsRequestContext context,
+        List<CmsUUID> structureIds,
+        CmsResourceFilter filter) throws CmsException {
+
+        List<CmsResource> result = null;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            result = m_driverManager.readResources(dbc, structureIds, filter);
+        } catch (Exception e) {
+            dbc.report(
+                null,
+                Messages.get().container(Messages.ERR_READ_RESOURCES_FOR_IDS_1, new Integer(structureIds.size())),
+                e);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Returns the resources that were visited by a user set in the filter.<p>
      *
@@ -6336,6 +6446,24 @@ public final class CmsSecurityManager {
         }
     }
 
+    /**
+     * Adds the given resource to the dependencies of the current users context.<p>
+     *
+     * @param context the current request context
+     * @param resource the resource whose data has been used
+     *
+     * @see CmsObject#updateContextDependency(CmsResource)
+     */
+    public void updateContextDependency(CmsRequestContext context, CmsResource resource) {
+
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            m_driverManager.updateContextDependency(dbc, resource);
+        } finally {
+            dbc.clear();
+        }
+    }
+
     /**
      * Updates the last login date on the given user to the current time.<p>
      *
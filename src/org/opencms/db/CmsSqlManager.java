@@ -27,6 +27,8 @@
 
 package org.opencms.db;
 
+import org.opencms.util.CmsUUID;
+
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
@@ -93,6 +95,10 @@ public class CmsSqlManager {
      */
     public Connection getConnectionByUrl(String dbPoolUrl) throws SQLException {
 
+        I_CmsDbPool pool = CmsDbPool.getPool(dbPoolUrl);
+        if (pool != null) {
+            return pool.getConnection();
+        }
         return DriverManager.getConnection(dbPoolUrl);
     }
 
@@ -127,4 +133,35 @@ public class CmsSqlManager {
 
         return m_driverManager.getIdleConnections(dbPoolUrl);
     }
+
+    /**
+     * Returns the usage statistics of a pool, like the time spent waiting for connections.<p>
+     *
+     * @param dbPoolUrl the url of a pool
+     * @return the usage statistics of the pool
+     * @throws CmsDbException if something goes wrong
+     */
+    public CmsDbPoolStatistics getPoolStatistics(String dbPoolUrl) throws CmsDbException {
+
+        return m_driverManager.getPoolStatistics(dbPoolUrl);
+    }
+
+    /**
+     * Returns a SQL query from the query properties of the configured database driver.<p>
+     *
+     * This allows components outside of the drivers to keep their SQL statements, including
+     * the database specific variants, in the query properties like the drivers do.<p>
+     *
+     * @param queryKey the key of the SQL query
+     * @return the SQL query
+     */
+    public String getQuery(String queryKey) {
+
+        CmsSqlManager sqlManager = m_driverManager.getProjectDriver().getSqlManager();
+        if (!(sqlManager instanceof org.opencms.db.generic.CmsSqlManager)) {
+            // the JPA driver uses JPQL queries, so use the generic SQL queries instead
+            sqlManager = new org.opencms.db.generic.CmsSqlManager();
+        }
+        return ((org.opencms.db.generic.CmsSqlManager)sqlManager).readQuery((CmsUUID)null, queryKey);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,101 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.configuration.CmsParameterConfiguration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Describes a JDBC connection pool used by the OpenCms database drivers.<p>
+ *
+ * The implementation used for a pool is selected with the <code>db.pool.[name].provider</code>
+ * key in <code>opencms.properties</code>. If no provider is configured, {@link CmsConnectionPool}
+ * is used.<p>
+ *
+ * @since 10.0.0
+ */
+public interface I_CmsDbPool {
+
+    /**
+     * Closes the pool and all physical connections currently held by it.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    void close() throws Exception;
+
+    /**
+     * Borrows a connection from the pool.<p>
+     *
+     * Closing the returned connection gives it back to the pool.<p>
+     *
+     * @return a pooled connection
+     *
+     * @throws SQLException if no connection could be obtained
+     */
+    Connection getConnection() throws SQLException;
+
+    /**
+     * Returns the number of connections currently borrowed from the pool.<p>
+     *
+     * @return the number of active connections
+     */
+    int getNumActive();
+
+    /**
+     * Returns the number of connections currently idle in the pool.<p>
+     *
+     * @return the number of idle connections
+     */
+    int getNumIdle();
+
+    /**
+     * Returns the URL of the pool, for example <code>opencms:default</code>.<p>
+     *
+     * @return the URL of the pool
+     */
+    String getPoolUrl();
+
+    /**
+     * Returns a snapshot of the usage statistics of the pool.<p>
+     *
+     * @return a snapshot of the usage statistics of the pool
+     */
+    CmsDbPoolStatistics getStatistics();
+
+    /**
+     * Initializes the pool from the <code>db.pool.[key].*</code> values of the configuration.<p>
+     *
+     * @param config the configuration (opencms.properties)
+     * @param key the key of the database pool in the configuration
+     *
+     * @throws Exception if the pool could not be initialized
+     */
+    void initialize(CmsParameterConfiguration config, String key) throws Exception;
+}
@@ -41,6 +41,7 @@ import org.opencms.relations.CmsRelationFilter;
 import org.opencms.security.CmsOrganizationalUnit;
 import org.opencms.util.CmsUUID;
 
+import java.io.InputStream;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Collection;
@@ -464,6 +465,23 @@ public interface I_CmsVfsDriver {
      */
     byte[] readContent(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId) throws CmsDataAccessException;
 
+    /**
+     * Opens a stream on the content of a file specified by it's resource ID.<p>
+     *
+     * The stream may keep database resources open until it is closed,
+     * so callers must always close it.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the ID of the current project
+     * @param resourceId the id of the resource
+     *
+     * @return a stream on the file content
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    InputStream readContentStream(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId)
+    throws CmsDataAccessException;
+
     /**
      * Reads a folder specified by it's structure ID.<p>
      *
@@ -570,6 +588,26 @@ public interface I_CmsVfsDriver {
     List<CmsProperty> readPropertyObjects(CmsDbContext dbc, CmsProject project, CmsResource resource)
     throws CmsDataAccessException;
 
+    /**
+     * Reads all property objects mapped to the given resources from the database.<p>
+     *
+     * The properties of all resources are read with as few queries as possible.
+     * The result contains an entry for every given resource, which is an empty list
+     * if no properties are found for the resource.<p>
+     *
+     * @param dbc the current database context
+     * @param project the current project
+     * @param resources the resources to read the properties for
+     *
+     * @return a map from the structure ids of the resources to the lists of their properties
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsDbContext dbc,
+        CmsProject project,
+        List<CmsResource> resources) throws CmsDataAccessException;
+
     /**
      * Reads all relations with the given filter for the given resource.<p>
      *
@@ -627,6 +665,27 @@ public interface I_CmsVfsDriver {
     List<CmsResource> readResources(CmsDbContext dbc, CmsUUID currentProject, CmsResourceState state, int mode)
     throws CmsDataAccessException;
 
+    /**
+     * Reads several resources specified by their structure IDs.<p>
+     *
+     * The resources are read with as few queries as possible. Resources that do not exist
+     * are not contained in the result, the order of the result matches the order of the given IDs.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the Id of the project
+     * @param structureIds the structure Ids of the resources to read
+     * @param includeDeleted true if already deleted files are included
+     *
+     * @return the resources that were read
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    List<CmsResource> readResources(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        List<CmsUUID> structureIds,
+        boolean includeDeleted) throws CmsDataAccessException;
+
     /**
      * Returns all resources associated to a given principal via an ACE.<p>
      *
@@ -411,6 +411,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_PERM_NOTLOCKED_2 = "ERR_PERM_NOTLOCKED_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_POOL_CLOSED_1 = "ERR_POOL_CLOSED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_POOL_TIMEOUT_3 = "ERR_POOL_TIMEOUT_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_PROCESS_DB_CONTEXT_0 = "ERR_PROCESS_DB_CONTEXT_0";
 
@@ -519,6 +525,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_READ_PROPS_FOR_RESOURCE_1 = "ERR_READ_PROPS_FOR_RESOURCE_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_READ_PROPS_FOR_RESOURCES_1 = "ERR_READ_PROPS_FOR_RESOURCES_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_READ_PUBLISHED_RESOURCES_FOR_ID_1 = "ERR_READ_PUBLISHED_RESOURCES_FOR_ID_1";
 
@@ -534,6 +543,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_READ_RESOURCES_1 = "ERR_READ_RESOURCES_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_READ_RESOURCES_FOR_IDS_1 = "ERR_READ_RESOURCES_FOR_IDS_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_READ_RESOURCES_FOR_PRINCIPAL_LOG_1 = "ERR_READ_RESOURCES_FOR_PRINCIPAL_LOG_1";
 
@@ -852,12 +864,18 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_CHECK_RESOURCE_INSIDE_CURRENT_PROJECT_2 = "LOG_CHECK_RESOURCE_INSIDE_CURRENT_PROJECT_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CLOSE_CONNECTION_ERROR_1 = "LOG_CLOSE_CONNECTION_ERROR_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_CLOSE_CONN_POOL_ERROR_1 = "LOG_CLOSE_CONN_POOL_ERROR_1";
 
     /** Message constant for key in the resource bundle. */
     public static final String LOG_CMS_EVENT_1 = "LOG_CMS_EVENT_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CONNECTION_LEAK_3 = "LOG_CONNECTION_LEAK_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_CREATE_FOLDER_FAILED_1 = "LOG_CREATE_FOLDER_FAILED_1";
 
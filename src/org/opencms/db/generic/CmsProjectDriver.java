@@ -87,20 +87,24 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.logging.Log;
 
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 /**
@@ -185,9 +189,20 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
     }
 
+    /**
+     * Attribute name for the publish history entries not yet written during publishing.<p>
+     *
+     * Only the publish history inserts are batched. The online structure, property, ACE and relation writes
+     * for a resource still run one by one, since publishing later resources reads the online state they write.<p>
+     */
+    public static final String DBC_ATTR_PUBLISH_HISTORY_BATCH = "DBC_ATTR_PUBLISH_HISTORY_BATCH";
+
     /** Attribute name for reading the project of a resource. */
     public static final String DBC_ATTR_READ_PROJECT_FOR_RESOURCE = "DBC_ATTR_READ_PROJECT_FOR_RESOURCE";
 
+    /** The number of publish history entries written with a single JDBC batch during publishing. */
+    public static final int PUBLISH_HISTORY_BATCH_SIZE = 500;
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(org.opencms.db.generic.CmsProjectDriver.class);
 
@@ -1645,6 +1660,14 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         int publishedFileCount = 0;
         Set<CmsUUID> publishedContentIds = new HashSet<CmsUUID>();
         Set<CmsUUID> publishedIds = new HashSet<CmsUUID>();
+        // collect the publish history entries and write them in batches,
+        // all other writes for a published resource are still executed immediately
+        boolean batchPublishHistory = getPublishHistoryBatch(dbc) == null;
+        if (batchPublishHistory) {
+            dbc.setAttribute(
+                DBC_ATTR_PUBLISH_HISTORY_BATCH,
+                new ArrayList<CmsPair<CmsUUID, CmsPublishedResource>>(PUBLISH_HISTORY_BATCH_SIZE));
+        }
 
         try {
 
@@ -1761,8 +1784,11 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                         Messages.get().container(Messages.ERR_ERROR_PUBLISHING_FOLDER_1, currentFolder.getRootPath()),
                         t);
                 }
+                internalFlushPublishHistory(dbc, report, PUBLISH_HISTORY_BATCH_SIZE);
             }
 
+            internalFlushPublishHistory(dbc, report, 1);
+
             if (foldersSize > 0) {
                 report.println(
                     Messages.get().container(Messages.RPT_PUBLISH_FOLDERS_END_0),
@@ -1840,8 +1866,11 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                         Messages.get().container(Messages.ERR_ERROR_PUBLISHING_FILE_1, currentResource.getRootPath()),
                         t);
                 }
+                internalFlushPublishHistory(dbc, report, PUBLISH_HISTORY_BATCH_SIZE);
             }
 
+            internalFlushPublishHistory(dbc, report, 1);
+
             if (filesSize > 0) {
                 report.println(Messages.get().container(Messages.RPT_PUBLISH_FILES_END_0), I_CmsReport.FORMAT_HEADLINE);
             }
@@ -1908,8 +1937,11 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                             currentFolder.getRootPath()),
                         t);
                 }
+                internalFlushPublishHistory(dbc, report, PUBLISH_HISTORY_BATCH_SIZE);
             }
 
+            internalFlushPublishHistory(dbc, report, 1);
+
             if (deletedFoldersSize > 0) {
                 report.println(
                     Messages.get().container(Messages.RPT_DELETE_FOLDERS_END_0),
@@ -1926,6 +1958,18 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             }
             throw new CmsDataAccessException(message, o);
         } finally {
+            if (batchPublishHistory) {
+                // write the remaining publish history entries, also if publishing was aborted
+                Map<CmsPublishedResource, CmsDataAccessException> failed = writePublishHistoryBatch(dbc);
+                for (Map.Entry<CmsPublishedResource, CmsDataAccessException> entry : failed.entrySet()) {
+                    LOG.error(
+                        Messages.get().getBundle().key(
+                            Messages.ERR_WRITING_PUBLISH_HISTORY_1,
+                            entry.getKey().getRootPath()),
+                        entry.getValue());
+                }
+                dbc.removeAttribute(DBC_ATTR_PUBLISH_HISTORY_BATCH);
+            }
             // reset vfs driver internal info after publishing
             m_driverManager.getVfsDriver(dbc).publishVersions(dbc, null, false);
             Object[] msgArgs = new Object[] {
@@ -2768,28 +2812,13 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
     public void writePublishHistory(CmsDbContext dbc, CmsUUID publishId, CmsPublishedResource resource)
     throws CmsDataAccessException {
 
-        Connection conn = null;
-        PreparedStatement stmt = null;
-
-        try {
-            conn = m_sqlManager.getConnection(dbc);
-            stmt = m_sqlManager.getPreparedStatement(conn, "C_RESOURCES_WRITE_PUBLISH_HISTORY");
-            stmt.setInt(1, resource.getPublishTag());
-            stmt.setString(2, resource.getStructureId().toString());
-            stmt.setString(3, resource.getResourceId().toString());
-            stmt.setString(4, resource.getRootPath());
-            stmt.setInt(5, resource.getMovedState().getState());
-            stmt.setInt(6, resource.getType());
-            stmt.setString(7, publishId.toString());
-            stmt.setInt(8, resource.getSiblingCount());
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-            throw new CmsDbSqlException(
-                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
-                e);
-        } finally {
-            m_sqlManager.closeAll(dbc, conn, stmt, null);
+        List<CmsPair<CmsUUID, CmsPublishedResource>> batch = getPublishHistoryBatch(dbc);
+        if (batch != null) {
+            // publishing, collect the entry and write it together with others after the current resource
+            batch.add(CmsPair.create(publishId, resource));
+            return;
         }
+        internalWritePublishHistory(dbc, publishId, resource);
     }
 
     /**
@@ -3053,6 +3082,19 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         return conditions.toString();
     }
 
+    /**
+     * Returns the publish history entries collected during publishing, which are not yet written.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @return the publish history entries not yet written, or <code>null</code> if not publishing
+     */
+    @SuppressWarnings("unchecked")
+    protected List<CmsPair<CmsUUID, CmsPublishedResource>> getPublishHistoryBatch(CmsDbContext dbc) {
+
+        return (List<CmsPair<CmsUUID, CmsPublishedResource>>)dbc.getAttribute(DBC_ATTR_PUBLISH_HISTORY_BATCH);
+    }
+
     /**
      * Implementation of reading the user publish list which uses the log table.<p>
      *
@@ -3139,6 +3181,35 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         return (CmsPublishList)oin.readObject();
     }
 
+    /**
+     * Writes the publish history entries collected so far during publishing,
+     * if at least the given number of entries has been collected.<p>
+     *
+     * This is called between the publishing of two resources, so errors are reported
+     * for the resources whose entries could not be written.<p>
+     *
+     * @param dbc the current database context
+     * @param report the report to write errors to
+     * @param minSize the minimum number of collected entries required to write them
+     *
+     * @throws CmsException if something goes wrong
+     */
+    protected void internalFlushPublishHistory(CmsDbContext dbc, I_CmsReport report, int minSize)
+    throws CmsException {
+
+        List<CmsPair<CmsUUID, CmsPublishedResource>> batch = getPublishHistoryBatch(dbc);
+        if ((batch == null) || batch.isEmpty() || (batch.size() < minSize)) {
+            return;
+        }
+        Map<CmsPublishedResource, CmsDataAccessException> failed = writePublishHistoryBatch(dbc);
+        for (Map.Entry<CmsPublishedResource, CmsDataAccessException> entry : failed.entrySet()) {
+            dbc.report(
+                report,
+                Messages.get().container(Messages.ERR_WRITING_PUBLISH_HISTORY_1, entry.getKey().getRootPath()),
+                entry.getValue());
+        }
+    }
+
     /**
      * Creates a new {@link CmsLogEntry} object from the given result set entry.<p>
      *
@@ -3252,6 +3323,35 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         }
     }
 
+    /**
+     * Writes a single publish history entry with its own statement.<p>
+     *
+     * @param dbc the current database context
+     * @param publishId the unique publish id
+     * @param resource the published resource
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected void internalWritePublishHistory(CmsDbContext dbc, CmsUUID publishId, CmsPublishedResource resource)
+    throws CmsDataAccessException {
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_RESOURCES_WRITE_PUBLISH_HISTORY");
+            setPublishHistoryParameters(stmt, publishId, resource);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, null);
+        }
+    }
+
     /**
      * Build the whole WHERE SQL statement part for the given log entry filter.<p>
      *
@@ -3833,4 +3933,90 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         m_driverManager.getVfsDriver(dbc).updateRelations(dbc, onlineProject, offlineResource);
     }
 
+    /**
+     * Sets the parameters of the statement writing a publish history entry.<p>
+     *
+     * @param stmt the prepared statement
+     * @param publishId the id of the publish job
+     * @param resource the published resource
+     *
+     * @throws SQLException if something goes wrong
+     */
+    protected void setPublishHistoryParameters(
+        PreparedStatement stmt,
+        CmsUUID publishId,
+        CmsPublishedResource resource) throws SQLException {
+
+        stmt.setInt(1, resource.getPublishTag());
+        stmt.setString(2, resource.getStructureId().toString());
+        stmt.setString(3, resource.getResourceId().toString());
+        stmt.setString(4, resource.getRootPath());
+        stmt.setInt(5, resource.getMovedState().getState());
+        stmt.setInt(6, resource.getType());
+        stmt.setString(7, publishId.toString());
+        stmt.setInt(8, resource.getSiblingCount());
+    }
+
+    /**
+     * Writes the publish history entries collected during publishing with a single JDBC batch.<p>
+     *
+     * This only covers the publish history table, see {@link #DBC_ATTR_PUBLISH_HISTORY_BATCH}.<p>
+     *
+     * If the batch fails, the entries that have not been written are written again one by one,
+     * so every entry that can not be written is returned with its own error. The collected entries
+     * are discarded afterwards.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @return the errors for the published resources whose entries could not be written
+     */
+    protected Map<CmsPublishedResource, CmsDataAccessException> writePublishHistoryBatch(CmsDbContext dbc) {
+
+        Map<CmsPublishedResource, CmsDataAccessException> failed = Maps.newLinkedHashMap();
+        List<CmsPair<CmsUUID, CmsPublishedResource>> batch = getPublishHistoryBatch(dbc);
+        if ((batch == null) || batch.isEmpty()) {
+            return failed;
+        }
+
+        List<CmsPair<CmsUUID, CmsPublishedResource>> unwritten = Collections.emptyList();
+        Connection conn = null;
+        PreparedStatement stmt = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_RESOURCES_WRITE_PUBLISH_HISTORY");
+            for (CmsPair<CmsUUID, CmsPublishedResource> entry : batch) {
+                setPublishHistoryParameters(stmt, entry.getFirst(), entry.getSecond());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        } catch (SQLException e) {
+            LOG.warn(
+                Messages.get().getBundle().key(
+                    Messages.LOG_PUBLISH_HISTORY_BATCH_FAILED_1,
+                    String.valueOf(batch.size())),
+                e);
+            // depending on the JDBC driver, processing stops at the first error or continues with the next entry
+            int[] counts = (e instanceof BatchUpdateException) ? ((BatchUpdateException)e).getUpdateCounts() : null;
+            unwritten = new ArrayList<CmsPair<CmsUUID, CmsPublishedResource>>();
+            for (int i = 0; i < batch.size(); i++) {
+                if ((counts == null) || (i >= counts.length) || (counts[i] == Statement.EXECUTE_FAILED)) {
+                    unwritten.add(batch.get(i));
+                }
+            }
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, null);
+        }
+
+        for (CmsPair<CmsUUID, CmsPublishedResource> entry : unwritten) {
+            try {
+                internalWritePublishHistory(dbc, entry.getFirst(), entry.getSecond());
+            } catch (CmsDataAccessException e) {
+                failed.put(entry.getSecond(), e);
+            }
+        }
+        batch.clear();
+        return failed;
+    }
+
 }
\ No newline at end of file
@@ -37,6 +37,7 @@ import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
 import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -186,6 +187,40 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
 
     }
 
+    /**
+     * Prepares a statement to stream its results instead of reading the complete result in memory.<p>
+     *
+     * This is used for statements which read large binary values with {@link #getBinaryStream(ResultSet, String)}.
+     * The default implementation does nothing, overwrite this method if the JDBC driver of a database
+     * server needs a special setup to stream result sets.<p>
+     *
+     * @param stmt the statement
+     *
+     * @throws SQLException if a database access error occurs
+     */
+    public void enableStreamingResults(PreparedStatement stmt) throws SQLException {
+
+        // noop
+    }
+
+    /**
+     * Retrieves the value of the designated column in the current row of this ResultSet object as
+     * a stream of uninterpreted bytes.<p>
+     *
+     * Overwrite this method if another database server requires a different handling of byte attributes in tables.<p>
+     *
+     * @param res the result set
+     * @param attributeName the name of the table attribute
+     *
+     * @return the column value as stream; if the value is SQL NULL, the value returned is null
+     *
+     * @throws SQLException if a database access error occurs
+     */
+    public InputStream getBinaryStream(ResultSet res, String attributeName) throws SQLException {
+
+        return res.getBinaryStream(attributeName);
+    }
+
     /**
      * Retrieves the value of the designated column in the current row of this ResultSet object as
      * a byte array in the Java programming language.<p>
@@ -80,6 +80,7 @@ import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
 import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -90,12 +91,17 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.logging.Log;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Multimap;
+
 /**
  * Generic (ANSI-SQL) database server implementation of the VFS driver methods.<p>
  *
@@ -115,13 +121,6 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     /** The driver manager. */
     protected CmsDriverManager m_driverManager;
 
-    /**
-     * This field is temporarily used to compute the versions during publishing.<p>
-     *
-     * @see #publishVersions(CmsDbContext, CmsResource, boolean)
-     */
-    protected List<CmsUUID> m_resOp = new ArrayList<CmsUUID>();
-
     /** The sql manager. */
     protected CmsSqlManager m_sqlManager;
 
@@ -1627,9 +1626,10 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         // if resource is null just flush the internal cache
         if (resource == null) {
-            m_resOp.clear();
+            dbc.removeAttribute(CmsDriverManager.KEY_RESOURCE_OPERATIONS);
             return;
         }
+        Set<CmsUUID> resourceOperations = getResourceOperations(dbc);
 
         if (!dbc.getProjectId().isNullUUID() || dbc.currentProject().isOnlineProject()) {
             // this method is supposed to be used only in the offline project
@@ -1638,7 +1638,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         if (firstSibling) {
             // reset the resource operation flag
-            m_resOp.remove(resource.getResourceId());
+            resourceOperations.remove(resource.getResourceId());
         }
 
         boolean resOp = false; // assume structure operation
@@ -1660,7 +1660,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             if (resOp) {
                 return;
             }
-            if (m_resOp.contains(resource.getResourceId())) {
+            if (resourceOperations.contains(resource.getResourceId())) {
                 return;
             }
         }
@@ -1676,7 +1676,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         if (resOp) {
             if (resource.getSiblingCount() > 1) {
-                m_resOp.add(resource.getResourceId());
+                resourceOperations.add(resource.getResourceId());
             }
             resVersion++;
         }
@@ -1861,6 +1861,57 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return byteRes;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readContentStream(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, org.opencms.util.CmsUUID)
+     */
+    public InputStream readContentStream(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId)
+    throws CmsDataAccessException {
+
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        Connection conn = null;
+        InputStream result = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            if (projectId.equals(CmsProject.ONLINE_PROJECT_ID)) {
+                stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_ONLINE_FILES_CONTENT");
+            } else {
+                stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_OFFLINE_FILES_CONTENT");
+            }
+            m_sqlManager.enableStreamingResults(stmt);
+            stmt.setString(1, resourceId.toString());
+            res = stmt.executeQuery();
+
+            if (res.next()) {
+                InputStream content = m_sqlManager.getBinaryStream(
+                    res,
+                    m_sqlManager.readQuery("C_RESOURCES_FILE_CONTENT"));
+                if (content == null) {
+                    result = new ByteArrayInputStream(new byte[0]);
+                } else {
+                    // the stream takes over the connection, it is closed together with the stream
+                    result = new CmsResultSetInputStream(content, m_sqlManager, dbc, conn, stmt, res);
+                }
+            } else {
+                throw new CmsVfsResourceNotFoundException(
+                    Messages.get().container(
+                        Messages.ERR_READ_CONTENT_WITH_RESOURCE_ID_2,
+                        resourceId,
+                        Boolean.valueOf(projectId.equals(CmsProject.ONLINE_PROJECT_ID))));
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            if (!(result instanceof CmsResultSetInputStream)) {
+                m_sqlManager.closeAll(dbc, conn, stmt, res);
+            }
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readFolder(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.util.CmsUUID)
      */
@@ -2186,6 +2237,102 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return new ArrayList<CmsProperty>(propertyMap.values());
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readPropertyObjects(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, java.util.List)
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsDbContext dbc,
+        CmsProject project,
+        List<CmsResource> resources) throws CmsDataAccessException {
+
+        CmsUUID projectId = ((dbc.getProjectId() == null) || dbc.getProjectId().isNullUUID())
+        ? project.getUuid()
+        : dbc.getProjectId();
+
+        // siblings share the resource record, so one mapping id may belong to several resources
+        Multimap<String, CmsResource> structureMappings = ArrayListMultimap.create();
+        Multimap<String, CmsResource> resourceMappings = ArrayListMultimap.create();
+        Map<CmsUUID, Map<String, CmsProperty>> propertyMaps = new LinkedHashMap<CmsUUID, Map<String, CmsProperty>>();
+        for (CmsResource resource : resources) {
+            structureMappings.put(resource.getStructureId().toString(), resource);
+            resourceMappings.put(resource.getResourceId().toString(), resource);
+            propertyMaps.put(resource.getStructureId(), new HashMap<String, CmsProperty>());
+        }
+        Set<String> mappingIdSet = new HashSet<String>(structureMappings.keySet());
+        mappingIdSet.addAll(resourceMappings.keySet());
+        List<String> mappingIds = new ArrayList<String>(mappingIdSet);
+
+        ResultSet res = null;
+        PreparedStatement stmt = null;
+        Connection conn = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            for (int i = 0; i < mappingIds.size(); i += CmsDbUtil.MAX_IN_LIST_SIZE) {
+                List<String> ids = mappingIds.subList(i, Math.min(i + CmsDbUtil.MAX_IN_LIST_SIZE, mappingIds.size()));
+                String query = m_sqlManager.readQuery(projectId, "C_PROPERTIES_READALL_MULTI")
+                    + CmsDbUtil.createInList(ids.size());
+                stmt = m_sqlManager.getPreparedStatementForSql(conn, query);
+                for (int j = 0; j < ids.size(); j++) {
+                    stmt.setString(j + 1, ids.get(j));
+                }
+                res = stmt.executeQuery();
+
+                while (res.next()) {
+                    String propertyKey = res.getString(1);
+                    String propertyValue = res.getString(2);
+                    int mappingType = res.getInt(3);
+                    String mappingId = res.getString(4);
+
+                    Collection<CmsResource> mappedResources;
+                    if (mappingType == CmsProperty.STRUCTURE_RECORD_MAPPING) {
+                        mappedResources = structureMappings.get(mappingId);
+                    } else if (mappingType == CmsProperty.RESOURCE_RECORD_MAPPING) {
+                        mappedResources = resourceMappings.get(mappingId);
+                    } else {
+                        throw new CmsDbConsistencyException(
+                            Messages.get().container(
+                                Messages.ERR_UNKNOWN_PROPERTY_VALUE_MAPPING_3,
+                                mappingId,
+                                new Integer(mappingType),
+                                propertyKey));
+                    }
+                    for (CmsResource resource : mappedResources) {
+                        Map<String, CmsProperty> propertyMap = propertyMaps.get(resource.getStructureId());
+                        CmsProperty property = propertyMap.get(propertyKey);
+                        if (property == null) {
+                            // there doesn't exist a property object for this key yet
+                            property = new CmsProperty();
+                            property.setName(propertyKey);
+                            property.setOrigin(resource.getRootPath());
+                            propertyMap.put(propertyKey, property);
+                        }
+                        if (mappingType == CmsProperty.STRUCTURE_RECORD_MAPPING) {
+                            // this property value is mapped to a structure record
+                            property.setStructureValue(propertyValue);
+                        } else {
+                            // this property value is mapped to a resource record
+                            property.setResourceValue(propertyValue);
+                        }
+                    }
+                }
+                m_sqlManager.closeAll(dbc, null, stmt, res);
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+
+        Map<CmsUUID, List<CmsProperty>> result = new LinkedHashMap<CmsUUID, List<CmsProperty>>();
+        for (Map.Entry<CmsUUID, Map<String, CmsProperty>> entry : propertyMaps.entrySet()) {
+            result.put(entry.getKey(), new ArrayList<CmsProperty>(entry.getValue().values()));
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readRelations(org.opencms.db.CmsDbContext, CmsUUID, CmsResource, org.opencms.relations.CmsRelationFilter)
      */
@@ -2425,6 +2572,59 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return result;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readResources(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.List, boolean)
+     */
+    public List<CmsResource> readResources(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        List<CmsUUID> structureIds,
+        boolean includeDeleted) throws CmsDataAccessException {
+
+        List<CmsUUID> ids = new ArrayList<CmsUUID>(new LinkedHashSet<CmsUUID>(structureIds));
+        Map<CmsUUID, CmsResource> resources = new HashMap<CmsUUID, CmsResource>();
+        ResultSet res = null;
+        PreparedStatement stmt = null;
+        Connection conn = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            for (int i = 0; i < ids.size(); i += CmsDbUtil.MAX_IN_LIST_SIZE) {
+                List<CmsUUID> chunk = ids.subList(i, Math.min(i + CmsDbUtil.MAX_IN_LIST_SIZE, ids.size()));
+                String query = m_sqlManager.readQuery(projectId, "C_RESOURCES_READBYIDS")
+                    + CmsDbUtil.createInList(chunk.size());
+                stmt = m_sqlManager.getPreparedStatementForSql(conn, query);
+                for (int j = 0; j < chunk.size(); j++) {
+                    stmt.setString(j + 1, chunk.get(j).toString());
+                }
+                res = stmt.executeQuery();
+                while (res.next()) {
+                    CmsResource resource = createResource(res, projectId);
+                    // check if this resource is marked as deleted and if we are allowed to return a deleted resource
+                    if (includeDeleted || !resource.getState().isDeleted()) {
+                        resources.put(resource.getStructureId(), resource);
+                    }
+                }
+                m_sqlManager.closeAll(dbc, null, stmt, res);
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+
+        List<CmsResource> result = new ArrayList<CmsResource>(resources.size());
+        for (CmsUUID id : ids) {
+            CmsResource resource = resources.get(id);
+            if (resource != null) {
+                result.add(resource);
+            }
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readResourcesForPrincipalACE(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.util.CmsUUID)
      */
@@ -3616,6 +3816,29 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * Returns the ids of the resources whose resource version has already been increased
+     * by the publish job of the given database context.<p>
+     *
+     * The ids are kept in the database context, so concurrent publish jobs do not share them.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @return the modifiable set of resource ids
+     *
+     * @see #publishVersions(CmsDbContext, CmsResource, boolean)
+     */
+    protected Set<CmsUUID> getResourceOperations(CmsDbContext dbc) {
+
+        @SuppressWarnings("unchecked")
+        Set<CmsUUID> result = (Set<CmsUUID>)dbc.getAttribute(CmsDriverManager.KEY_RESOURCE_OPERATIONS);
+        if (result == null) {
+            result = new HashSet<CmsUUID>();
+            dbc.setAttribute(CmsDriverManager.KEY_RESOURCE_OPERATIONS, result);
+        }
+        return result;
+    }
+
     /**
      * Returns the count of properties for a property definition.<p>
      *
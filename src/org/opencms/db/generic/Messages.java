@@ -241,6 +241,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_WRITING_HISTORY_OF_PROJECT_1 = "ERR_WRITING_HISTORY_OF_PROJECT_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_WRITING_PUBLISH_HISTORY_1 = "ERR_WRITING_PUBLISH_HISTORY_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_WRITING_TO_OUTPUT_STREAM_1 = "ERR_WRITING_TO_OUTPUT_STREAM_1";
 
@@ -388,6 +391,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_PUBLISHING_RESOURCE_1 = "LOG_PUBLISHING_RESOURCE_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_PUBLISH_HISTORY_BATCH_FAILED_1 = "LOG_PUBLISH_HISTORY_BATCH_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_QUERY_NOT_FOUND_1 = "LOG_QUERY_NOT_FOUND_1";
 
@@ -35,6 +35,7 @@ import org.opencms.db.CmsDbConsistencyException;
 import org.opencms.db.CmsDbContext;
 import org.opencms.db.CmsDbEntryNotFoundException;
 import org.opencms.db.CmsDbSqlException;
+import org.opencms.db.CmsDbUtil;
 import org.opencms.db.CmsDriverManager;
 import org.opencms.db.CmsResourceState;
 import org.opencms.db.CmsRewriteAlias;
@@ -103,6 +104,8 @@ import org.opencms.util.CmsPair;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -110,6 +113,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -120,6 +125,9 @@ import javax.persistence.Query;
 
 import org.apache.commons.logging.Log;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Multimap;
+
 /**
  * JPA database server implementation of the vfs driver methods.<p>
  *
@@ -178,6 +186,9 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     /** Query key. */
     private static final String C_PROPERTIES_READALL_COUNT = "C_PROPERTIES_READALL_COUNT";
 
+    /** Query key. */
+    private static final String C_PROPERTIES_READALL_MULTI = "C_PROPERTIES_READALL_MULTI";
+
     /** Query key. */
     private static final String C_PROPERTIES_UPDATE = "C_PROPERTIES_UPDATE";
 
@@ -292,6 +303,9 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     /** Query key. */
     private static final String C_RESOURCES_READBYID = "C_RESOURCES_READBYID";
 
+    /** Query key. */
+    private static final String C_RESOURCES_READBYIDS = "C_RESOURCES_READBYIDS";
+
     /** Query key. */
     private static final String C_RESOURCES_SELECT_BY_DATE_LASTMODIFIED_AFTER = "C_RESOURCES_SELECT_BY_DATE_LASTMODIFIED_AFTER";
 
@@ -400,13 +414,6 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     /** The driver manager. */
     protected CmsDriverManager m_driverManager;
 
-    /**
-     * This field is temporarily used to compute the versions during publishing.<p>
-     *
-     * @see #publishVersions(CmsDbContext, CmsResource, boolean)
-     */
-    protected List<CmsUUID> m_resOp = new ArrayList<CmsUUID>();
-
     /** The sql manager. */
     protected CmsSqlManager m_sqlManager;
 
@@ -1785,9 +1792,10 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         // if resource is null just flush the internal cache
         if (resource == null) {
-            m_resOp.clear();
+            dbc.removeAttribute(CmsDriverManager.KEY_RESOURCE_OPERATIONS);
             return;
         }
+        Set<CmsUUID> resourceOperations = getResourceOperations(dbc);
 
         if (!dbc.getProjectId().isNullUUID() || dbc.currentProject().isOnlineProject()) {
             // this method is supposed to be used only in the offline project
@@ -1796,7 +1804,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         if (firstSibling) {
             // reset the resource operation flag
-            m_resOp.remove(resource.getResourceId());
+            resourceOperations.remove(resource.getResourceId());
         }
 
         boolean resOp = false; // assume structure operation
@@ -1818,7 +1826,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             if (resOp) {
                 return;
             }
-            if (m_resOp.contains(resource.getResourceId())) {
+            if (resourceOperations.contains(resource.getResourceId())) {
                 return;
             }
         }
@@ -1834,7 +1842,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         if (resOp) {
             if (resource.getSiblingCount() > 1) {
-                m_resOp.add(resource.getResourceId());
+                resourceOperations.add(resource.getResourceId());
             }
             resVersion++;
         }
@@ -1996,6 +2004,16 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return byteRes == null ? EMPTY_BLOB : byteRes;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readContentStream(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, org.opencms.util.CmsUUID)
+     */
+    public InputStream readContentStream(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId)
+    throws CmsDataAccessException {
+
+        // the content entities always hold the complete content
+        return new ByteArrayInputStream(readContent(dbc, projectId, resourceId));
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readFolder(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.util.CmsUUID)
      */
@@ -2257,6 +2275,93 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return new ArrayList<CmsProperty>(propertyMap.values());
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readPropertyObjects(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, java.util.List)
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsDbContext dbc,
+        CmsProject project,
+        List<CmsResource> resources) throws CmsDataAccessException {
+
+        CmsUUID projectId = ((dbc.getProjectId() == null) || dbc.getProjectId().isNullUUID())
+        ? project.getUuid()
+        : dbc.getProjectId();
+
+        // siblings share the resource record, so one mapping id may belong to several resources
+        Multimap<String, CmsResource> structureMappings = ArrayListMultimap.create();
+        Multimap<String, CmsResource> resourceMappings = ArrayListMultimap.create();
+        Map<CmsUUID, Map<String, CmsProperty>> propertyMaps = new LinkedHashMap<CmsUUID, Map<String, CmsProperty>>();
+        for (CmsResource resource : resources) {
+            structureMappings.put(resource.getStructureId().toString(), resource);
+            resourceMappings.put(resource.getResourceId().toString(), resource);
+            propertyMaps.put(resource.getStructureId(), new HashMap<String, CmsProperty>());
+        }
+        Set<String> mappingIdSet = new HashSet<String>(structureMappings.keySet());
+        mappingIdSet.addAll(resourceMappings.keySet());
+        List<String> mappingIds = new ArrayList<String>(mappingIdSet);
+
+        try {
+            for (int i = 0; i < mappingIds.size(); i += CmsDbUtil.MAX_IN_LIST_SIZE) {
+                List<String> ids = mappingIds.subList(i, Math.min(i + CmsDbUtil.MAX_IN_LIST_SIZE, mappingIds.size()));
+                String query = m_sqlManager.readQuery(projectId, C_PROPERTIES_READALL_MULTI)
+                    + CmsDbUtil.createInList(ids.size());
+                Query q = m_sqlManager.createQueryFromJPQL(dbc, query);
+                for (int j = 0; j < ids.size(); j++) {
+                    q.setParameter(j + 1, ids.get(j));
+                }
+                @SuppressWarnings("unchecked")
+                List<Object[]> res = q.getResultList();
+
+                for (Object[] o : res) {
+                    String propertyKey = ((I_CmsDAOPropertyDef)o[0]).getPropertyDefName();
+                    String propertyValue = ((I_CmsDAOProperties)o[1]).getPropertyValue();
+                    int mappingType = ((I_CmsDAOProperties)o[1]).getPropertyMappingType();
+                    String mappingId = ((I_CmsDAOProperties)o[1]).getPropertyMappingId();
+
+                    Collection<CmsResource> mappedResources;
+                    if (mappingType == CmsProperty.STRUCTURE_RECORD_MAPPING) {
+                        mappedResources = structureMappings.get(mappingId);
+                    } else if (mappingType == CmsProperty.RESOURCE_RECORD_MAPPING) {
+                        mappedResources = resourceMappings.get(mappingId);
+                    } else {
+                        throw new CmsDbConsistencyException(
+                            Messages.get().container(
+                                Messages.ERR_UNKNOWN_PROPERTY_VALUE_MAPPING_3,
+                                mappingId,
+                                new Integer(mappingType),
+                                propertyKey));
+                    }
+                    for (CmsResource resource : mappedResources) {
+                        Map<String, CmsProperty> propertyMap = propertyMaps.get(resource.getStructureId());
+                        CmsProperty property = propertyMap.get(propertyKey);
+                        if (property == null) {
+                            // there doesn't exist a property object for this key yet
+                            property = new CmsProperty();
+                            property.setName(propertyKey);
+                            property.setOrigin(resource.getRootPath());
+                            propertyMap.put(propertyKey, property);
+                        }
+                        if (mappingType == CmsProperty.STRUCTURE_RECORD_MAPPING) {
+                            // this property value is mapped to a structure record
+                            property.setStructureValue(propertyValue);
+                        } else {
+                            // this property value is mapped to a resource record
+                            property.setResourceValue(propertyValue);
+                        }
+                    }
+                }
+            }
+        } catch (PersistenceException e) {
+            throw new CmsDataAccessException(Messages.get().container(Messages.ERR_JPA_PERSITENCE_1, e), e);
+        }
+
+        Map<CmsUUID, List<CmsProperty>> result = new LinkedHashMap<CmsUUID, List<CmsProperty>>();
+        for (Map.Entry<CmsUUID, Map<String, CmsProperty>> entry : propertyMaps.entrySet()) {
+            result.put(entry.getKey(), new ArrayList<CmsProperty>(entry.getValue().values()));
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readRelations(org.opencms.db.CmsDbContext, CmsUUID, CmsResource, org.opencms.relations.CmsRelationFilter)
      */
@@ -2440,6 +2545,50 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return result;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readResources(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.List, boolean)
+     */
+    public List<CmsResource> readResources(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        List<CmsUUID> structureIds,
+        boolean includeDeleted) throws CmsDataAccessException {
+
+        List<CmsUUID> ids = new ArrayList<CmsUUID>(new LinkedHashSet<CmsUUID>(structureIds));
+        Map<CmsUUID, CmsResource> resources = new HashMap<CmsUUID, CmsResource>();
+        try {
+            for (int i = 0; i < ids.size(); i += CmsDbUtil.MAX_IN_LIST_SIZE) {
+                List<CmsUUID> chunk = ids.subList(i, Math.min(i + CmsDbUtil.MAX_IN_LIST_SIZE, ids.size()));
+                String query = m_sqlManager.readQuery(projectId, C_RESOURCES_READBYIDS)
+                    + CmsDbUtil.createInList(chunk.size());
+                Query q = m_sqlManager.createQueryFromJPQL(dbc, query);
+                for (int j = 0; j < chunk.size(); j++) {
+                    q.setParameter(j + 1, chunk.get(j).toString());
+                }
+                @SuppressWarnings("unchecked")
+                List<Object[]> res = q.getResultList();
+                for (Object[] o : res) {
+                    CmsResource resource = createResource(o, projectId);
+                    // check if this resource is marked as deleted and if we are allowed to return a deleted resource
+                    if (includeDeleted || !resource.getState().isDeleted()) {
+                        resources.put(resource.getStructureId(), resource);
+                    }
+                }
+            }
+        } catch (PersistenceException e) {
+            throw new CmsDataAccessException(Messages.get().container(Messages.ERR_JPA_PERSITENCE_1, e), e);
+        }
+
+        List<CmsResource> result = new ArrayList<CmsResource>(resources.size());
+        for (CmsUUID id : ids) {
+            CmsResource resource = resources.get(id);
+            if (resource != null) {
+                result.add(resource);
+            }
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readResourcesForPrincipalACE(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.util.CmsUUID)
      */
@@ -3526,6 +3675,29 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * Returns the ids of the resources whose resource version has already been increased
+     * by the publish job of the given database context.<p>
+     *
+     * The ids are kept in the database context, so concurrent publish jobs do not share them.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @return the modifiable set of resource ids
+     *
+     * @see #publishVersions(CmsDbContext, CmsResource, boolean)
+     */
+    protected Set<CmsUUID> getResourceOperations(CmsDbContext dbc) {
+
+        @SuppressWarnings("unchecked")
+        Set<CmsUUID> result = (Set<CmsUUID>)dbc.getAttribute(CmsDriverManager.KEY_RESOURCE_OPERATIONS);
+        if (result == null) {
+            result = new HashSet<CmsUUID>();
+            dbc.setAttribute(CmsDriverManager.KEY_RESOURCE_OPERATIONS, result);
+        }
+        return result;
+    }
+
     /**
      * Returns the count of properties for a property definition.<p>
      *
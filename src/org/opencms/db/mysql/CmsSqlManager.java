@@ -27,6 +27,9 @@
 
 package org.opencms.db.mysql;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
 /**
  * MySQL implementation of the SQL manager.<p>
  *
@@ -46,4 +49,15 @@ public class CmsSqlManager extends org.opencms.db.generic.CmsSqlManager {
         loadQueryProperties(QUERY_PROPERTIES);
     }
 
+    /**
+     * Uses the MySQL result set streaming mode, otherwise the driver reads the complete row into memory.<p>
+     *
+     * @see org.opencms.db.generic.CmsSqlManager#enableStreamingResults(java.sql.PreparedStatement)
+     */
+    @Override
+    public void enableStreamingResults(PreparedStatement stmt) throws SQLException {
+
+        stmt.setFetchSize(Integer.MIN_VALUE);
+    }
+
 }
\ No newline at end of file
@@ -31,12 +31,14 @@ import org.opencms.db.CmsDbContext;
 import org.opencms.db.generic.Messages;
 import org.opencms.main.CmsLog;
 
+import java.io.InputStream;
 import java.sql.Blob;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
+import org.apache.commons.dbcp.DelegatingResultSet;
 import org.apache.commons.logging.Log;
 
 /**
@@ -140,6 +142,39 @@ public class CmsSqlManager extends org.opencms.db.generic.CmsSqlManager {
         }
     }
 
+    /**
+     * Returns the result set of the JDBC driver for a result set that may be wrapped by the connection pool.<p>
+     *
+     * The Oracle BLOB handling requires the result set of the driver. The DBCP based pool wraps result sets,
+     * the default OpenCms pool returns the result sets of the driver directly.<p>
+     *
+     * @param res the result set, possibly wrapped
+     *
+     * @return the result set of the JDBC driver
+     *
+     * @throws SQLException if unwrapping the result set fails
+     */
+    public static ResultSet getInnermostResultSet(ResultSet res) throws SQLException {
+
+        if (res instanceof DelegatingResultSet) {
+            ResultSet result = ((DelegatingResultSet)res).getInnermostDelegate();
+            if (result != null) {
+                return result;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * @see org.opencms.db.generic.CmsSqlManager#getBinaryStream(java.sql.ResultSet, java.lang.String)
+     */
+    @Override
+    public InputStream getBinaryStream(ResultSet res, String attributeName) throws SQLException {
+
+        Blob blob = res.getBlob(attributeName);
+        return blob == null ? null : blob.getBinaryStream();
+    }
+
     /**
      * @see org.opencms.db.generic.CmsSqlManager#getBytes(java.sql.ResultSet, java.lang.String)
      */
@@ -28,6 +28,7 @@
 package org.opencms.file;
 
 import org.opencms.db.CmsResourceState;
+import org.opencms.monitor.CmsMemoryMonitor;
 import org.opencms.util.CmsUUID;
 
 /**
@@ -204,6 +205,19 @@ public class CmsFile extends CmsResource {
         return m_length;
     }
 
+    /**
+     * @see org.opencms.file.CmsResource#getMemorySize()
+     */
+    @Override
+    public int getMemorySize() {
+
+        int size = super.getMemorySize();
+        if (m_fileContent != null) {
+            size += CmsMemoryMonitor.getMemorySize(m_fileContent);
+        }
+        return size;
+    }
+
     /**
      * @see org.opencms.file.CmsResource#isFile()
      */
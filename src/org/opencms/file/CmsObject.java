@@ -66,6 +66,8 @@ import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 import org.opencms.xml.content.CmsNumberSuffixNameSequence;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -2345,6 +2347,36 @@ public final class CmsObject {
         return m_securityManager.readBestUrlName(m_context, id, locale, defaultLocales);
     }
 
+    /**
+     * Opens a stream on the binary content of a file resource.<p>
+     *
+     * Use this instead of {@link #readFile(CmsResource)} to process large files without reading
+     * the complete content into memory. The stream must always be closed, otherwise database
+     * resources may be kept open.<p>
+     *
+     * In case the input {@link CmsResource} object already is a {@link CmsFile} with contents
+     * available, a stream on these contents is returned.<p>
+     *
+     * @param resource the file resource to read the content for
+     *
+     * @return a stream on the content of the file
+     *
+     * @throws CmsException if the content could not be read for any reason
+     *
+     * @see #readFile(CmsResource)
+     */
+    public InputStream readContentStream(CmsResource resource) throws CmsException {
+
+        if (resource instanceof CmsFile) {
+            CmsFile file = (CmsFile)resource;
+            if ((file.getContents() != null) && (file.getContents().length > 0)) {
+                // file has the contents already available
+                return new ByteArrayInputStream(file.getContents());
+            }
+        }
+        return m_securityManager.readContentStream(m_context, resource);
+    }
+
     /**
      * Returns the default resource for the given folder.<p>
      * <ol>
@@ -2918,6 +2950,30 @@ public final class CmsObject {
         return m_securityManager.readPropertyObjects(m_context, resource, search);
     }
 
+    /**
+     * Reads all property objects of several resources at once.<p>
+     *
+     * This is equivalent to calling {@link #readPropertyObjects(CmsResource, boolean)} for each of
+     * the resources, but the properties directly attached to the resources are read from the database
+     * with as few queries as possible. Use this method when the properties of many resources
+     * are required, e.g. for the elements of a container page or the entries of a navigation.<p>
+     *
+     * All properties in the result lists will be in frozen (read only) state, so you can't change the values.<p>
+     *
+     * @param resources the resources where the properties are mapped to
+     * @param search if <code>true</code>, the properties of all parent folders of the resources
+     *      are merged with the resource properties.
+     *
+     * @return a map from the structure ids of the resources to the lists of their properties
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(List<CmsResource> resources, boolean search)
+    throws CmsException {
+
+        return m_securityManager.readPropertyObjects(m_context, resources, search);
+    }
+
     /**
      * Reads all property objects from a resource.<p>
      *
@@ -3150,6 +3206,27 @@ public final class CmsObject {
         return m_securityManager.readResources(m_context, resource, filter, readTree);
     }
 
+    /**
+     * Reads several resources specified by their structure IDs, using the specified resource filter.<p>
+     *
+     * This is equivalent to calling {@link #readResource(CmsUUID, CmsResourceFilter)} for each of
+     * the IDs, but the resources are read from the database with as few queries as possible.
+     * Resources that do not exist, that do not match the filter or that can not be read by the
+     * current user are not contained in the result, the order of the result matches the order
+     * of the given IDs.<p>
+     *
+     * @param structureIds the structure IDs of the resources to read
+     * @param filter the resource filter to use while reading
+     *
+     * @return the resources that were read
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public List<CmsResource> readResources(List<CmsUUID> structureIds, CmsResourceFilter filter) throws CmsException {
+
+        return m_securityManager.readResources(m_context, structureIds, filter);
+    }
+
     /**
      * Reads all resources below the given path matching the filter criteria,
      * including the full tree below the path.<p>
@@ -3848,6 +3925,21 @@ public final class CmsObject {
         getResourceType(resource).unlockResource(this, m_securityManager, resource);
     }
 
+    /**
+     * Adds the given resource to the dependencies of the current request context.<p>
+     *
+     * Reading a resource or its content adds it to the dependencies automatically.
+     * This method must be used if the data of the resource is taken from a cache
+     * instead of reading it, so Flex cache entries that use the data are removed
+     * when the resource is published.<p>
+     *
+     * @param resource the resource whose data has been used
+     */
+    public void updateContextDependency(CmsResource resource) {
+
+        m_securityManager.updateContextDependency(m_context, resource);
+    }
+
     /**
      * Updates the last login date on the given user to the current time.<p>
      *
@@ -28,6 +28,8 @@
 package org.opencms.file;
 
 import org.opencms.main.CmsRuntimeException;
+import org.opencms.monitor.CmsMemoryMonitor;
+import org.opencms.monitor.I_CmsMemoryMonitorable;
 import org.opencms.util.CmsStringUtil;
 
 import java.io.Serializable;
@@ -82,7 +84,7 @@ import java.util.RandomAccess;
  *
  * @since 6.0.0
  */
-public class CmsProperty implements Serializable, Cloneable, Comparable<CmsProperty> {
+public class CmsProperty implements I_CmsMemoryMonitorable, Serializable, Cloneable, Comparable<CmsProperty> {
 
     /**
      * Signals that the resource property values of a resource
@@ -577,6 +579,25 @@ public class CmsProperty implements Serializable, Cloneable, Comparable<CmsPrope
         return false;
     }
 
+    /**
+     * @see org.opencms.monitor.I_CmsMemoryMonitorable#getMemorySize()
+     */
+    public int getMemorySize() {
+
+        int size = 40;
+        size += CmsMemoryMonitor.getMemorySize(m_name);
+        if (m_resourceValue != null) {
+            size += CmsMemoryMonitor.getMemorySize(m_resourceValue);
+        }
+        if (m_structureValue != null) {
+            size += CmsMemoryMonitor.getMemorySize(m_structureValue);
+        }
+        if (m_origin != null) {
+            size += CmsMemoryMonitor.getMemorySize(m_origin);
+        }
+        return size;
+    }
+
     /**
      * Returns the name of this property.<p>
      *
@@ -31,6 +31,8 @@ import org.opencms.db.CmsDriverManager;
 import org.opencms.db.CmsResourceState;
 import org.opencms.file.types.I_CmsResourceType;
 import org.opencms.main.CmsIllegalArgumentException;
+import org.opencms.monitor.CmsMemoryMonitor;
+import org.opencms.monitor.I_CmsMemoryMonitorable;
 import org.opencms.util.A_CmsModeIntEnumeration;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
@@ -60,7 +62,8 @@ import java.io.Serializable;
  *
  * @since 6.0.0
  */
-public class CmsResource implements I_CmsResource, Cloneable, Serializable, Comparable<I_CmsResource> {
+public class CmsResource
+implements I_CmsResource, I_CmsMemoryMonitorable, Cloneable, Serializable, Comparable<I_CmsResource> {
 
     /**
      *  Enumeration class for resource copy modes.<p>
@@ -914,6 +917,22 @@ public class CmsResource implements I_CmsResource, Cloneable, Serializable, Comp
         return m_isFolder ? -1 : m_length;
     }
 
+    /**
+     * @see org.opencms.monitor.I_CmsMemoryMonitorable#getMemorySize()
+     */
+    public int getMemorySize() {
+
+        // object header, primitive fields and the resource state
+        int size = 112;
+        size += CmsMemoryMonitor.getMemorySize(m_rootPath);
+        size += CmsMemoryMonitor.getMemorySize(m_structureId);
+        size += CmsMemoryMonitor.getMemorySize(m_resourceId);
+        size += CmsMemoryMonitor.getMemorySize(m_projectLastModified);
+        size += CmsMemoryMonitor.getMemorySize(m_userCreated);
+        size += CmsMemoryMonitor.getMemorySize(m_userLastModified);
+        return size;
+    }
+
     /**
      * Returns the file name of this resource without parent folders, for example <code>index.html</code>.<p>
      *
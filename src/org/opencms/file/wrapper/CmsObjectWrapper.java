@@ -52,6 +52,8 @@ import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
 import org.opencms.util.CmsUUID;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -526,6 +528,39 @@ public class CmsObjectWrapper {
         }
     }
 
+    /**
+     * Opens a stream on the binary content of a file resource, using the specified resource filter.<p>
+     *
+     * Resources handled by a resource wrapper and resources which get an UTF-8 marker
+     * are read with {@link #readFile(String, CmsResourceFilter)}, since their content is changed.
+     * For all other resources the content is streamed from the VFS.<p>
+     *
+     * @see CmsObject#readContentStream(CmsResource)
+     *
+     * @param resourcename the name of the resource to read (full path)
+     * @param filter the resource filter to use while reading
+     *
+     * @return a stream on the content of the file, must be closed by the caller
+     *
+     * @throws CmsException if the file resource could not be read for any reason
+     */
+    public InputStream readContentStream(String resourcename, CmsResourceFilter filter) throws CmsException {
+
+        boolean wrapped = false;
+        Iterator<I_CmsResourceWrapper> iter = getWrappers().iterator();
+        while (!wrapped && iter.hasNext()) {
+            wrapped = iter.next().readResource(m_cms, resourcename, filter) != null;
+        }
+
+        if (!wrapped) {
+            CmsResource res = m_cms.readResource(resourcename, filter);
+            if ((getResourceTypeWrapper(res) == null) && !needUtf8Marker(res)) {
+                return m_cms.readContentStream(res);
+            }
+        }
+        return new ByteArrayInputStream(readFile(resourcename, filter).getContents());
+    }
+
     /**
      * Reads a file resource (including it's binary content) from the VFS,
      * using the specified resource filter.<p>
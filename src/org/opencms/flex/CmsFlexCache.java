@@ -27,28 +27,47 @@
 
 package org.opencms.flex;
 
+import org.opencms.ade.configuration.CmsADEManager;
 import org.opencms.cache.CmsLruCache;
+import org.opencms.cache.I_CmsLruCache;
 import org.opencms.cache.I_CmsLruCacheObject;
+import org.opencms.db.CmsPublishedResource;
 import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypeJsp;
+import org.opencms.file.types.CmsResourceTypeXmlContainerPage;
 import org.opencms.loader.CmsJspLoader;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.security.CmsRole;
 import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.collections.map.LRUMap;
 import org.apache.commons.logging.Log;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+
 /**
  * This class implements the FlexCache.<p>
  *
@@ -85,15 +104,31 @@ import org.apache.commons.logging.Log;
  * For every entry a key is saved which contains the resource name and the variation.
  * </ul>
  *
+ * If the concurrent storage mode is configured, the keys are stored in a concurrent map that is
+ * indexed by the online / offline suffix, and the variations are stored in concurrent maps, too.
+ * This allows lookups without acquiring a global lock, and clearing the online or offline
+ * half of the cache does not need to scan and copy the keys of the other half.<p>
+ *
  * Cache clearing is handled using events.
  * The cache is fully flushed if an event {@link I_CmsEventListener#EVENT_PUBLISH_PROJECT}
  * or {@link I_CmsEventListener#EVENT_CLEAR_CACHES} is caught.<p>
  *
+ * If an off-heap storage is configured, the output of large entries is moved to direct buffers
+ * before the entries are added to the LRU cache, see {@link CmsFlexCacheOffHeapStorage}.
+ * The LRU cache costs of such entries only include the data that remains on the heap.<p>
+ *
+ * If the dependency based publish invalidation is configured, the resources read while generating
+ * an online entry are recorded in a {@link CmsFlexCacheDependencyIndex}. After publishing, only the online
+ * entries that depend on one of the published resources are removed. All online entries are still cleared
+ * if JSPs, resources in the system folder or configuration files have been published,
+ * since these can influence every entry. Output that is generated from other sources than
+ * the VFS (e.g. search results) is not tracked, so such elements should use a cache timeout.<p>
+ *
  * @since 6.0.0
  *
  * @see org.opencms.flex.CmsFlexCacheKey
  * @see org.opencms.flex.CmsFlexCacheEntry
- * @see org.opencms.cache.CmsLruCache
+ * @see org.opencms.cache.I_CmsLruCache
  * @see org.opencms.cache.I_CmsLruCacheObject
  */
 public class CmsFlexCache extends Object implements I_CmsEventListener {
@@ -116,8 +151,65 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
          */
         public CmsFlexCacheVariation(CmsFlexCacheKey theKey) {
 
+            this(theKey, false);
+        }
+
+        /**
+         * Generates a new instance of CmsFlexCacheVariation.<p>
+         *
+         * @param theKey The (resource) key to contruct this variation list for
+         * @param concurrent if <code>true</code>, the variations are stored in a concurrent map
+         */
+        public CmsFlexCacheVariation(CmsFlexCacheKey theKey, boolean concurrent) {
+
             m_key = theKey;
-            m_map = new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
+            m_map = createVariationMap(concurrent);
+        }
+
+        /**
+         * Creates a new map to store the variations of a resource.<p>
+         *
+         * @param concurrent if <code>true</code>, a concurrent map is created
+         *
+         * @return the new variation map
+         */
+        static Map<String, I_CmsLruCacheObject> createVariationMap(boolean concurrent) {
+
+            if (concurrent) {
+                return new ConcurrentHashMap<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
+            }
+            return new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
+        }
+    }
+
+    /**
+     * Removal listener for the concurrent key maps that releases the variations of evicted or replaced keys.<p>
+     */
+    class CmsFlexKeyRemovalListener implements RemovalListener<String, CmsFlexCacheVariation> {
+
+        /**
+         * Ensures that all variations referenced by a key are released if the key is evicted or replaced,
+         * and that removed keys are removed from the suffix index.<p>
+         *
+         * For explicit removals the variations are released by the caller.<p>
+         *
+         * @see com.google.common.cache.RemovalListener#onRemoval(com.google.common.cache.RemovalNotification)
+         */
+        public void onRemoval(RemovalNotification<String, CmsFlexCacheVariation> notification) {
+
+            if (notification.getCause() != RemovalCause.REPLACED) {
+                // only remove the index entry of the removed variation map, the key may have been added again
+                getKeyIndex(notification.getKey()).remove(notification.getKey(), notification.getValue());
+            }
+            if (!notification.wasEvicted() && (notification.getCause() != RemovalCause.REPLACED)) {
+                return;
+            }
+            CmsFlexCacheVariation v = notification.getValue();
+            if ((v == null) || (v.m_map == null)) {
+                return;
+            }
+            // the variation map is not nulled out, since concurrent readers may still use it
+            removeVariations(v);
         }
     }
 
@@ -212,18 +304,40 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsFlexCache.class);
 
+    /** The names of the configuration resource types that require all online entries to be cleared when published. */
+    private static final List<String> PUBLISH_CLEAR_ALL_TYPES = Collections.unmodifiableList(
+        Arrays.asList(
+            CmsResourceTypeXmlContainerPage.CONFIGURATION_TYPE_NAME,
+            CmsADEManager.MODULE_CONFIG_TYPE,
+            CmsResourceTypeXmlContainerPage.INHERIT_CONTAINER_CONFIG_TYPE_NAME));
+
     /** The LRU cache to organize the cached entries. */
-    protected CmsLruCache m_variationCache;
+    protected I_CmsLruCache m_variationCache;
 
     /** Indicates if offline resources should be cached or not. */
     private boolean m_cacheOffline;
 
+    /** Indicates if the concurrent storage mode is used. */
+    private boolean m_concurrent;
+
+    /** The dependency index for the online entries, only used for the dependency based publish invalidation. */
+    private CmsFlexCacheDependencyIndex m_dependencyIndex;
+
     /** Indicates if the cache is enabled or not. */
     private boolean m_enabled;
 
+    /** The storage for the output of large entries outside of the heap, <code>null</code> if disabled. */
+    private CmsFlexCacheOffHeapStorage m_offHeapStorage;
+
     /** Map to store the entries for fast lookup. */
     private Map<String, CmsFlexCacheVariation> m_keyCache;
 
+    /** Index of the offline keys in the key map, only used in concurrent storage mode. */
+    private ConcurrentMap<String, CmsFlexCacheVariation> m_offlineKeyIndex;
+
+    /** Index of the online keys in the key map, only used in concurrent storage mode. */
+    private ConcurrentMap<String, CmsFlexCacheVariation> m_onlineKeyIndex;
+
     /** Counter for the size. */
     private int m_size;
 
@@ -242,25 +356,50 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
 
         m_enabled = configuration.isCacheEnabled();
         m_cacheOffline = configuration.isCacheOffline();
+        m_concurrent = configuration.isConcurrentStorage();
 
         long maxCacheBytes = configuration.getMaxCacheBytes();
         long avgCacheBytes = configuration.getAvgCacheBytes();
         int maxEntryBytes = configuration.getMaxEntryBytes();
         int maxKeys = configuration.getMaxKeys();
 
-        m_variationCache = new CmsLruCache(maxCacheBytes, avgCacheBytes, maxEntryBytes);
+        m_variationCache = CmsLruCache.createCache(
+            configuration.getCacheEngineConfiguration(),
+            maxCacheBytes,
+            avgCacheBytes,
+            maxEntryBytes);
         OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_entryLruCache", m_variationCache);
 
         if (m_enabled) {
-            CmsFlexKeyMap flexKeyMap = new CmsFlexKeyMap(maxKeys);
-            m_keyCache = Collections.synchronizedMap(
-                CmsCollectionsGenericWrapper.<String, CmsFlexCacheVariation> map(flexKeyMap));
-            OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_resourceMap", flexKeyMap);
+            if (m_concurrent) {
+                // the online and offline keys share the limit of the key map,
+                // they are additionally indexed by suffix so that clearing one half does not scan all keys
+                m_onlineKeyIndex = new ConcurrentHashMap<String, CmsFlexCacheVariation>();
+                m_offlineKeyIndex = new ConcurrentHashMap<String, CmsFlexCacheVariation>();
+                m_keyCache = createConcurrentKeyMap(maxKeys);
+                OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_resourceMap", m_keyCache);
+            } else {
+                CmsFlexKeyMap flexKeyMap = new CmsFlexKeyMap(maxKeys);
+                m_keyCache = Collections.synchronizedMap(
+                    CmsCollectionsGenericWrapper.<String, CmsFlexCacheVariation> map(flexKeyMap));
+                OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_resourceMap", flexKeyMap);
+            }
+            if (configuration.isDependencyInvalidation()) {
+                m_dependencyIndex = new CmsFlexCacheDependencyIndex();
+            }
+            if (configuration.getMaxOffHeapBytes() > 0) {
+                int minBlockBytes = configuration.getMinOffHeapBytes() > 0
+                ? configuration.getMinOffHeapBytes()
+                : CmsFlexCacheOffHeapStorage.DEFAULT_MIN_BLOCK_BYTES;
+                m_offHeapStorage = new CmsFlexCacheOffHeapStorage(configuration.getMaxOffHeapBytes(), minBlockBytes);
+                OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_offHeapStorage", m_offHeapStorage);
+            }
 
             OpenCms.addCmsEventListener(
                 this,
                 new int[] {
                     I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+                    I_CmsEventListener.EVENT_REMOTE_PUBLISH_PROJECT,
                     I_CmsEventListener.EVENT_CLEAR_CACHES,
                     I_CmsEventListener.EVENT_FLEX_PURGE_JSP_REPOSITORY,
                     I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR});
@@ -299,6 +438,16 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
 
         switch (event.getType()) {
             case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
+            case I_CmsEventListener.EVENT_REMOTE_PUBLISH_PROJECT:
+                if (m_dependencyIndex != null) {
+                    clearPublishedDependencies(event);
+                    break;
+                }
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_RECEIVED_EVENT_CLEAR_CACHE_0));
+                }
+                clear();
+                break;
             case I_CmsEventListener.EVENT_CLEAR_CACHES:
                 if (LOG.isDebugEnabled()) {
                     LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_RECEIVED_EVENT_CLEAR_CACHE_0));
@@ -435,11 +584,33 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
      *
      * @return the LRU cache where the CacheEntries are cached
      */
-    public CmsLruCache getEntryLruCache() {
+    public I_CmsLruCache getEntryLruCache() {
 
         return m_variationCache;
     }
 
+    /**
+     * Indicates if the concurrent storage mode is used for the keys and variations.<p>
+     *
+     * @return true if the concurrent storage mode is used
+     */
+    public boolean isConcurrentStorage() {
+
+        return m_concurrent;
+    }
+
+    /**
+     * Indicates if only the online entries depending on the published resources are removed after publishing.<p>
+     *
+     * In this case, the resources read while generating an entry must be tracked.<p>
+     *
+     * @return true if the dependency based publish invalidation is used
+     */
+    public boolean isDependencyInvalidation() {
+
+        return m_enabled && (m_dependencyIndex != null);
+    }
+
     /**
      * Indicates if the cache is enabled (i.e. actually
      * caching entries) or not.<p>
@@ -613,9 +784,9 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         Object o = m_keyCache.get(key.getResource());
         if (o == null) {
             // No variation map for this resource yet, so create one
-            CmsFlexCacheVariation variationMap = new CmsFlexCacheVariation(key);
-            m_keyCache.put(key.getResource(), variationMap);
-            if (LOG.isDebugEnabled()) {
+            CmsFlexCacheVariation variationMap = new CmsFlexCacheVariation(key, m_concurrent);
+            if ((putVariationIfAbsent(m_keyCache, key.getResource(), variationMap) == variationMap)
+                && LOG.isDebugEnabled()) {
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_ADD_KEY_1, key.getResource()));
             }
         }
@@ -650,9 +821,16 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
             return;
         }
         m_keyCache.clear();
+        if (m_concurrent) {
+            m_onlineKeyIndex.clear();
+            m_offlineKeyIndex.clear();
+        }
         m_size = 0;
 
         m_variationCache.clear();
+        if (m_dependencyIndex != null) {
+            m_dependencyIndex.clear();
+        }
 
         if (LOG.isInfoEnabled()) {
             LOG.info(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_CLEAR_0));
@@ -673,6 +851,28 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
      */
     private synchronized void clearAccordingToSuffix(String suffix, boolean entriesOnly) {
 
+        if (m_concurrent) {
+            // the keys are indexed by suffix, so there is no need to scan or copy the key set
+            Iterator<Map.Entry<String, CmsFlexCacheVariation>> i = getKeyIndex(suffix).entrySet().iterator();
+            while (i.hasNext()) {
+                Map.Entry<String, CmsFlexCacheVariation> e = i.next();
+                CmsFlexCacheVariation v = e.getValue();
+                m_size -= v.m_map.size();
+                removeVariations(v);
+                if (!entriesOnly) {
+                    i.remove();
+                    ((ConcurrentMap<String, CmsFlexCacheVariation>)m_keyCache).remove(e.getKey(), v);
+                }
+            }
+            if (LOG.isInfoEnabled()) {
+                LOG.info(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_FLEXCACHE_CLEAR_HALF_2,
+                        suffix,
+                        Boolean.valueOf(entriesOnly)));
+            }
+            return;
+        }
         Set<String> keys = new HashSet<String>(m_keyCache.keySet());
         Iterator<String> i = keys.iterator();
         while (i.hasNext()) {
@@ -730,6 +930,13 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         if (LOG.isInfoEnabled()) {
             LOG.info(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_CLEAR_ALL_0));
         }
+        if (m_concurrent) {
+            for (CmsFlexCacheVariation v : m_keyCache.values()) {
+                removeVariations(v);
+            }
+            m_size = 0;
+            return;
+        }
         // create new set to avoid ConcurrentModificationExceptions
         Set<String> cacheKeys = new HashSet<String>(m_keyCache.keySet());
         Iterator<String> i = cacheKeys.iterator();
@@ -824,6 +1031,113 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         clearAccordingToSuffix(CACHE_ONLINESUFFIX, true);
     }
 
+    /**
+     * Removes the online entries that depend on the resources published with the given event.<p>
+     *
+     * The offline entries are always cleared, since they may display the publish state of resources.
+     * All online entries are cleared if the published resources can not be read,
+     * or if a published resource may influence every entry.<p>
+     *
+     * @param event the publish event
+     */
+    private void clearPublishedDependencies(CmsEvent event) {
+
+        clearOffline();
+        List<CmsPublishedResource> publishedResources = readPublishedResources(event);
+        if (publishedResources == null) {
+            clearOnline();
+            return;
+        }
+        for (CmsPublishedResource pubRes : publishedResources) {
+            if (isPublishClearAll(pubRes)) {
+                clearOnline();
+                return;
+            }
+        }
+        Set<CmsFlexCacheEntry> entries = m_dependencyIndex.getDependentEntries(publishedResources);
+        for (CmsFlexCacheEntry entry : entries) {
+            // this also unregisters the entry from the dependency index
+            m_variationCache.remove(entry);
+        }
+        if (LOG.isInfoEnabled()) {
+            LOG.info(
+                Messages.get().getBundle().key(
+                    Messages.LOG_FLEXCACHE_CLEAR_DEPENDENCIES_2,
+                    Integer.valueOf(entries.size()),
+                    Integer.valueOf(publishedResources.size())));
+        }
+    }
+
+    /**
+     * Creates a concurrent map to store the keys, limited to the given number of keys.<p>
+     *
+     * @param maxKeys the maximum number of keys
+     *
+     * @return the concurrent key map
+     */
+    private Map<String, CmsFlexCacheVariation> createConcurrentKeyMap(int maxKeys) {
+
+        CacheBuilder<String, CmsFlexCacheVariation> builder = CacheBuilder.newBuilder().maximumSize(
+            maxKeys).concurrencyLevel(Math.max(4, Runtime.getRuntime().availableProcessors())).removalListener(
+                new CmsFlexKeyRemovalListener());
+        Cache<String, CmsFlexCacheVariation> cache = builder.build();
+        return cache.asMap();
+    }
+
+    /**
+     * Releases the resources of an entry that has not been added to the LRU cache.<p>
+     *
+     * @param entry the entry
+     * @param indexed if the entry has been registered in the dependency index
+     */
+    private void discard(CmsFlexCacheEntry entry, boolean indexed) {
+
+        if (indexed) {
+            m_dependencyIndex.remove(entry);
+        }
+        entry.releaseOffHeap();
+    }
+
+    /**
+     * Returns the index for the keys with the suffix of the given resource key in concurrent storage mode.<p>
+     *
+     * @param resource the resource name with the online / offline suffix
+     *
+     * @return the index for the keys with the same suffix
+     */
+    private ConcurrentMap<String, CmsFlexCacheVariation> getKeyIndex(String resource) {
+
+        return resource.endsWith(CACHE_ONLINESUFFIX) ? m_onlineKeyIndex : m_offlineKeyIndex;
+    }
+
+    /**
+     * Checks if all online entries must be cleared because the given resource has been published.<p>
+     *
+     * This is the case for JSPs, for resources in the system folder (e.g. templates, formatters and schemas)
+     * and for configuration files, since these can influence the output of every entry.<p>
+     *
+     * @param pubRes the published resource
+     *
+     * @return true if all online entries must be cleared
+     */
+    private boolean isPublishClearAll(CmsPublishedResource pubRes) {
+
+        if (CmsResourceTypeJsp.isJspTypeId(pubRes.getType())) {
+            return true;
+        }
+        if ((pubRes.getRootPath() == null)
+            || pubRes.getRootPath().startsWith(CmsResource.VFS_FOLDER_SYSTEM + "/")) {
+            return true;
+        }
+        try {
+            String typeName = OpenCms.getResourceManager().getResourceType(pubRes.getType()).getTypeName();
+            return PUBLISH_CLEAR_ALL_TYPES.contains(typeName);
+        } catch (CmsException e) {
+            // unknown resource type, better clear everything
+            return true;
+        }
+    }
+
     /**
      * This method purges the JSP repository dirs,
      * i.e. it deletes all JSP files that OpenCms has written to the
@@ -861,10 +1175,36 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         if (key.getTimeout() > 0) {
             theCacheEntry.setDateExpiresToNextTimeout(key.getTimeout());
         }
-        if (o != null) {
-            // We already have a variation map for this resource
+        if (m_offHeapStorage != null) {
+            // must be done before adding the entry, since this changes the LRU cache costs
+            theCacheEntry.moveToOffHeap(m_offHeapStorage);
+        }
+        // register online entries before adding them to the LRU cache, so they are unregistered if evicted immediately
+        boolean indexed = (m_dependencyIndex != null) && key.getResource().endsWith(CACHE_ONLINESUFFIX);
+        if (indexed) {
+            m_dependencyIndex.add(theCacheEntry);
+        }
+        boolean wasAdded;
+        if ((o == null) && !m_concurrent) {
+            // No variation map for this resource yet, so create one
+            CmsFlexCacheVariation list = new CmsFlexCacheVariation(key, false);
+
+            wasAdded = m_variationCache.add(theCacheEntry);
+
+            if (wasAdded) {
+                theCacheEntry.setVariationData(key.getVariation(), list.m_map);
+                list.m_map.put(key.getVariation(), theCacheEntry);
+                m_keyCache.put(key.getResource(), list);
+            }
+        } else {
+            CmsFlexCacheVariation created = null;
+            if (o == null) {
+                // No variation map for this resource yet, so create one,
+                // continue with the map of another thread if it was faster
+                created = new CmsFlexCacheVariation(key, true);
+                o = putVariationIfAbsent(m_keyCache, key.getResource(), created);
+            }
             Map<String, I_CmsLruCacheObject> m = o.m_map;
-            boolean wasAdded = true;
             if (!m.containsKey(key.getVariation())) {
                 wasAdded = m_variationCache.add(theCacheEntry);
             } else {
@@ -874,18 +1214,13 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
             if (wasAdded) {
                 theCacheEntry.setVariationData(key.getVariation(), m);
                 m.put(key.getVariation(), theCacheEntry);
+            } else if ((o == created) && m.isEmpty()) {
+                // do not keep the empty variation map created for the rejected entry
+                ((ConcurrentMap<String, CmsFlexCacheVariation>)m_keyCache).remove(key.getResource(), created);
             }
-        } else {
-            // No variation map for this resource yet, so create one
-            CmsFlexCacheVariation list = new CmsFlexCacheVariation(key);
-
-            boolean wasAdded = m_variationCache.add(theCacheEntry);
-
-            if (wasAdded) {
-                theCacheEntry.setVariationData(key.getVariation(), list.m_map);
-                list.m_map.put(key.getVariation(), theCacheEntry);
-                m_keyCache.put(key.getResource(), list);
-            }
+        }
+        if (!wasAdded) {
+            discard(theCacheEntry, indexed);
         }
 
         if (LOG.isDebugEnabled()) {
@@ -898,4 +1233,81 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_ADDED_ENTRY_1, theCacheEntry.toString()));
         }
     }
+
+    /**
+     * Adds a variation map for a resource to the key map, unless the key map already contains one.<p>
+     *
+     * This is atomic, so concurrent callers always continue with the same variation map.<p>
+     *
+     * @param keyMap the key map
+     * @param resource the resource name with the online / offline suffix
+     * @param variation the new variation map
+     *
+     * @return the variation map stored for the resource, which is either the given or an already existing one
+     */
+    private CmsFlexCacheVariation putVariationIfAbsent(
+        Map<String, CmsFlexCacheVariation> keyMap,
+        String resource,
+        CmsFlexCacheVariation variation) {
+
+        CmsFlexCacheVariation existing;
+        if (keyMap instanceof ConcurrentMap) {
+            existing = ((ConcurrentMap<String, CmsFlexCacheVariation>)keyMap).putIfAbsent(resource, variation);
+            if (existing == null) {
+                getKeyIndex(resource).put(resource, variation);
+            }
+        } else {
+            // the non concurrent key map is a synchronized map, which uses itself as lock
+            synchronized (keyMap) {
+                existing = keyMap.get(resource);
+                if (existing == null) {
+                    keyMap.put(resource, variation);
+                }
+            }
+        }
+        return existing != null ? existing : variation;
+    }
+
+    /**
+     * Reads the resources published with the given publish event.<p>
+     *
+     * @param event the publish event
+     *
+     * @return the published resources, or <code>null</code> if they can not be read
+     */
+    private List<CmsPublishedResource> readPublishedResources(CmsEvent event) {
+
+        Map<String, Object> data = event.getData();
+        String publishId = (data != null) ? (String)data.get(I_CmsEventListener.KEY_PUBLISHID) : null;
+        if (!CmsUUID.isValidUUID(publishId)) {
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_CLEAR_DEPENDENCIES_FAILED_1, publishId));
+            return null;
+        }
+        try {
+            CmsObject cms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserGuest());
+            return cms.readPublishedResources(new CmsUUID(publishId));
+        } catch (CmsException e) {
+            LOG.error(
+                Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_CLEAR_DEPENDENCIES_FAILED_1, publishId),
+                e);
+            return null;
+        }
+    }
+
+    /**
+     * Removes all entries of a variation from the LRU cache in concurrent storage mode.<p>
+     *
+     * The variation map itself is kept, so it can still be used by concurrent readers.<p>
+     *
+     * @param v the variation
+     */
+    private void removeVariations(CmsFlexCacheVariation v) {
+
+        Iterator<I_CmsLruCacheObject> allEntries = v.m_map.values().iterator();
+        while (allEntries.hasNext()) {
+            I_CmsLruCacheObject nextObject = allEntries.next();
+            allEntries.remove();
+            m_variationCache.remove(nextObject);
+        }
+    }
 }
\ No newline at end of file
@@ -40,6 +40,18 @@ import org.apache.commons.logging.Log;
  */
 public class CmsFlexCacheConfiguration {
 
+    /** Publish invalidation mode that clears all online entries after a publish operation. */
+    public static final String PUBLISH_INVALIDATION_ALL = "all";
+
+    /** Publish invalidation mode that only removes the online entries depending on the published resources. */
+    public static final String PUBLISH_INVALIDATION_DEPENDENCIES = "dependencies";
+
+    /** Storage mode that uses concurrent maps for the keys and variations. */
+    public static final String STORAGE_MODE_CONCURRENT = "concurrent";
+
+    /** Storage mode that uses synchronized maps for the keys and variations. */
+    public static final String STORAGE_MODE_DEFAULT = "default";
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsFlexCacheConfiguration.class);
 
@@ -49,6 +61,9 @@ public class CmsFlexCacheConfiguration {
     /** Indicates if the cache is enabled or not. */
     private boolean m_cacheEnabled;
 
+    /** The class name of the LRU cache engine used for the cache entries. */
+    private String m_cacheEngineConfiguration;
+
     /** Indicates if offline resources should be cached or not. */
     private boolean m_cacheOffline;
 
@@ -74,6 +89,18 @@ public class CmsFlexCacheConfiguration {
     /** The maximum key. */
     private int m_maxKeys;
 
+    /** The maximum number of output bytes stored outside of the heap, 0 if disabled. */
+    private long m_maxOffHeapBytes;
+
+    /** The minimum size of an output block to be stored outside of the heap. */
+    private int m_minOffHeapBytes;
+
+    /** The invalidation mode used for online entries after a publish operation. */
+    private String m_publishInvalidation;
+
+    /** The storage mode for the keys and variations. */
+    private String m_storageMode;
+
     /**
      * Empty public constructor for the digester.
      */
@@ -92,6 +119,16 @@ public class CmsFlexCacheConfiguration {
         return m_avgCacheBytes;
     }
 
+    /**
+     * Returns the class name of the LRU cache engine used for the cache entries.<p>
+     *
+     * @return the class name of the LRU cache engine, or <code>null</code> if the default engine is used
+     */
+    public String getCacheEngineConfiguration() {
+
+        return m_cacheEngineConfiguration;
+    }
+
     /**
      * Returns the deviceSelector.<p>
      *
@@ -145,6 +182,46 @@ public class CmsFlexCacheConfiguration {
         return m_maxKeys;
     }
 
+    /**
+     * Returns the maximum number of output bytes stored outside of the heap.<p>
+     *
+     * @return the maximum number of output bytes stored outside of the heap, 0 if the off-heap storage is disabled
+     */
+    public long getMaxOffHeapBytes() {
+
+        return m_maxOffHeapBytes;
+    }
+
+    /**
+     * Returns the minimum size of an output block to be stored outside of the heap.<p>
+     *
+     * @return the minimum size of an output block to be stored outside of the heap
+     */
+    public int getMinOffHeapBytes() {
+
+        return m_minOffHeapBytes;
+    }
+
+    /**
+     * Returns the invalidation mode used for online entries after a publish operation.<p>
+     *
+     * @return the publish invalidation mode, or <code>null</code> if the default mode is used
+     */
+    public String getPublishInvalidation() {
+
+        return m_publishInvalidation;
+    }
+
+    /**
+     * Returns the storage mode for the keys and variations.<p>
+     *
+     * @return the storage mode, or <code>null</code> if the default storage mode is used
+     */
+    public String getStorageMode() {
+
+        return m_storageMode;
+    }
+
     /**
      * Initializes the flex cache configuration with required parameters.<p>
      *
@@ -181,6 +258,26 @@ public class CmsFlexCacheConfiguration {
         return m_cacheEnabled;
     }
 
+    /**
+     * Checks if only the online entries depending on the published resources are removed after a publish operation.<p>
+     *
+     * @return true if the dependency based publish invalidation is configured
+     */
+    public boolean isDependencyInvalidation() {
+
+        return PUBLISH_INVALIDATION_DEPENDENCIES.equalsIgnoreCase(m_publishInvalidation);
+    }
+
+    /**
+     * Checks if the keys and variations are stored in concurrent maps.<p>
+     *
+     * @return true if the concurrent storage mode is configured
+     */
+    public boolean isConcurrentStorage() {
+
+        return STORAGE_MODE_CONCURRENT.equalsIgnoreCase(m_storageMode);
+    }
+
     /**
      * Checks the cacheOffline.<p>
      *
@@ -211,6 +308,22 @@ public class CmsFlexCacheConfiguration {
         m_cacheEnabled = enabled;
     }
 
+    /**
+     * Sets the class name of the LRU cache engine used for the cache entries.<p>
+     *
+     * The class must implement {@link org.opencms.cache.I_CmsLruCache}, for example
+     * {@link org.opencms.cache.CmsConcurrentLruCache}.<p>
+     *
+     * @param cacheEngine the class name of the LRU cache engine
+     */
+    public void setCacheEngineConfiguration(String cacheEngine) {
+
+        m_cacheEngineConfiguration = cacheEngine;
+        if (CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_FLEXCACHE_ENGINE_1, cacheEngine));
+        }
+    }
+
     /**
      * Sets the cacheOffline.<p>
      *
@@ -258,6 +371,32 @@ public class CmsFlexCacheConfiguration {
         }
     }
 
+    /**
+     * Sets the invalidation mode used for online entries after a publish operation.<p>
+     *
+     * Use {@link #PUBLISH_INVALIDATION_DEPENDENCIES} to remove only the entries that have read
+     * one of the published resources, instead of clearing all online entries.<p>
+     *
+     * @param publishInvalidation the publish invalidation mode
+     */
+    public void setPublishInvalidation(String publishInvalidation) {
+
+        m_publishInvalidation = publishInvalidation;
+    }
+
+    /**
+     * Sets the storage mode for the keys and variations.<p>
+     *
+     * Use {@link #STORAGE_MODE_CONCURRENT} to store the keys and variations in concurrent maps,
+     * which allows cache lookups without a global lock.<p>
+     *
+     * @param storageMode the storage mode
+     */
+    public void setStorageMode(String storageMode) {
+
+        m_storageMode = storageMode;
+    }
+
     /**
      * Sets the maxCacheBytes.<p>
      *
@@ -268,6 +407,30 @@ public class CmsFlexCacheConfiguration {
         m_maxCacheBytes = maxCacheBytes;
     }
 
+    /**
+     * Sets the maximum number of output bytes stored outside of the heap.<p>
+     *
+     * A value greater than 0 enables the off-heap storage for the output of cached entries.<p>
+     *
+     * @param maxOffHeapBytes the maximum number of output bytes stored outside of the heap
+     */
+    public void setMaxOffHeapBytes(String maxOffHeapBytes) {
+
+        m_maxOffHeapBytes = Long.parseLong(maxOffHeapBytes.trim());
+    }
+
+    /**
+     * Sets the minimum size of an output block to be stored outside of the heap.<p>
+     *
+     * Smaller blocks are kept on the heap, since the overhead of a direct buffer is not worth it.<p>
+     *
+     * @param minOffHeapBytes the minimum size of an output block to be stored outside of the heap
+     */
+    public void setMinOffHeapBytes(String minOffHeapBytes) {
+
+        m_minOffHeapBytes = Integer.parseInt(minOffHeapBytes.trim());
+    }
+
     /**
      * Sets the maxEntryBytes.<p>
      *
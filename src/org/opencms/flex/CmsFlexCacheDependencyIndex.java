@@ -0,0 +1,302 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsResource;
+import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsUUID;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.Lock;
+
+import com.google.common.util.concurrent.Striped;
+
+/**
+ * Reverse index from VFS resources to the online Flex cache entries that depend on them.<p>
+ *
+ * Entries are registered with the structure ids and root paths of all resources read while
+ * the entry was generated, and with the folders whose contents were listed.
+ * After a publish operation, the index is used to find the entries that must be removed
+ * from the cache for the published resources, so that all other entries can be kept.<p>
+ *
+ * Entries without tracked dependencies are always considered as dependent.<p>
+ *
+ * The index is not locked as a whole: the entries of a key are changed under a lock striped by the key,
+ * and lookups read the concurrent maps without locking.<p>
+ *
+ * @since 10.0.0
+ *
+ * @see org.opencms.flex.CmsFlexRequestContextInfo
+ */
+public class CmsFlexCacheDependencyIndex {
+
+    /** The number of locks used to change the entries of the index keys. */
+    private static final int LOCK_STRIPES = 64;
+
+    /** The registered entries. */
+    private Set<CmsFlexCacheEntry> m_entries;
+
+    /** The entries by the listed folder root paths. */
+    private ConcurrentMap<String, Set<CmsFlexCacheEntry>> m_folderIndex;
+
+    /** The entries by structure id. */
+    private ConcurrentMap<CmsUUID, Set<CmsFlexCacheEntry>> m_idIndex;
+
+    /** The locks for changing the entries of the index keys, striped by key. */
+    private Striped<Lock> m_locks;
+
+    /** The entries by root path, sorted to allow the lookup of all paths below a folder. */
+    private ConcurrentNavigableMap<String, Set<CmsFlexCacheEntry>> m_pathIndex;
+
+    /** The entries without tracked dependencies. */
+    private Set<CmsFlexCacheEntry> m_untracked;
+
+    /**
+     * Creates a new, empty dependency index.<p>
+     */
+    public CmsFlexCacheDependencyIndex() {
+
+        m_entries = createEntrySet();
+        m_folderIndex = new ConcurrentHashMap<String, Set<CmsFlexCacheEntry>>();
+        m_idIndex = new ConcurrentHashMap<CmsUUID, Set<CmsFlexCacheEntry>>();
+        m_locks = Striped.lock(LOCK_STRIPES);
+        m_pathIndex = new ConcurrentSkipListMap<String, Set<CmsFlexCacheEntry>>();
+        m_untracked = createEntrySet();
+    }
+
+    /**
+     * Registers the given entry with its dependencies.<p>
+     *
+     * @param entry the entry to register
+     */
+    public void add(CmsFlexCacheEntry entry) {
+
+        // adding and removing the same entry must not overlap
+        synchronized (entry) {
+            if (!m_entries.add(entry)) {
+                // entry is already registered
+                return;
+            }
+            entry.setDependencyIndex(this);
+            if (!entry.hasDependencies()) {
+                m_untracked.add(entry);
+                return;
+            }
+            for (CmsUUID id : entry.getDependencyIds()) {
+                addToIndex(m_idIndex, id, entry);
+            }
+            for (String path : entry.getDependencyPaths()) {
+                addToIndex(m_pathIndex, path, entry);
+            }
+            for (String folder : entry.getFolderDependencies()) {
+                addToIndex(m_folderIndex, folder, entry);
+            }
+        }
+    }
+
+    /**
+     * Removes all registered entries from the index.<p>
+     */
+    public void clear() {
+
+        for (CmsFlexCacheEntry entry : m_entries) {
+            remove(entry);
+        }
+    }
+
+    /**
+     * Returns all registered entries that depend on one of the given published resources.<p>
+     *
+     * An entry depends on a published resource if:<ul>
+     * <li>it has read a resource with the same structure id or root path,</li>
+     * <li>it has read a resource below the published resource, in case the published resource is a folder
+     *     (since properties may be inherited from the folder),</li>
+     * <li>it has listed the contents of a parent folder of the published resource, or</li>
+     * <li>its dependencies have not been tracked.</li></ul>
+     *
+     * The returned entries are not removed from the index.<p>
+     *
+     * @param publishedResources the published resources
+     *
+     * @return the entries that depend on the given published resources
+     */
+    public Set<CmsFlexCacheEntry> getDependentEntries(
+        Collection<CmsPublishedResource> publishedResources) {
+
+        Set<CmsFlexCacheEntry> result = new HashSet<CmsFlexCacheEntry>(m_untracked);
+        for (CmsPublishedResource pubRes : publishedResources) {
+            addAll(result, m_idIndex.get(pubRes.getStructureId()));
+            String rootPath = pubRes.getRootPath();
+            if (rootPath == null) {
+                continue;
+            }
+            if (pubRes.isFolder()) {
+                String folder = CmsFileUtil.addTrailingSeparator(rootPath);
+                for (Set<CmsFlexCacheEntry> entries : m_pathIndex.subMap(
+                    folder,
+                    folder + Character.MAX_VALUE).values()) {
+                    result.addAll(entries);
+                }
+                // the folder itself may have been listed
+                addAll(result, m_folderIndex.get(folder));
+                // also check the path without trailing separator, which is used when reading a folder by name
+                addAll(result, m_pathIndex.get(CmsFileUtil.removeTrailingSeparator(folder)));
+            } else {
+                addAll(result, m_pathIndex.get(rootPath));
+            }
+            String parent = CmsResource.getParentFolder(rootPath);
+            while (parent != null) {
+                addAll(result, m_folderIndex.get(parent));
+                parent = CmsResource.getParentFolder(parent);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes the given entry from the index.<p>
+     *
+     * @param entry the entry to remove
+     */
+    public void remove(CmsFlexCacheEntry entry) {
+
+        synchronized (entry) {
+            if (!m_entries.remove(entry)) {
+                // entry is not registered
+                return;
+            }
+            entry.setDependencyIndex(null);
+            if (!entry.hasDependencies()) {
+                m_untracked.remove(entry);
+                return;
+            }
+            for (CmsUUID id : entry.getDependencyIds()) {
+                removeFromIndex(m_idIndex, id, entry);
+            }
+            for (String path : entry.getDependencyPaths()) {
+                removeFromIndex(m_pathIndex, path, entry);
+            }
+            for (String folder : entry.getFolderDependencies()) {
+                removeFromIndex(m_folderIndex, folder, entry);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of registered entries.<p>
+     *
+     * @return the number of registered entries
+     */
+    public int size() {
+
+        return m_entries.size();
+    }
+
+    /**
+     * Adds all given entries to the result, if not <code>null</code>.<p>
+     *
+     * @param result the result set
+     * @param entries the entries to add, may be <code>null</code>
+     */
+    private void addAll(Set<CmsFlexCacheEntry> result, Set<CmsFlexCacheEntry> entries) {
+
+        if (entries != null) {
+            result.addAll(entries);
+        }
+    }
+
+    /**
+     * Adds an entry to the set stored for the given key in the given index.<p>
+     *
+     * @param <K> the key type
+     * @param index the index
+     * @param key the key
+     * @param entry the entry to add
+     */
+    private <K> void addToIndex(Map<K, Set<CmsFlexCacheEntry>> index, K key, CmsFlexCacheEntry entry) {
+
+        Lock lock = m_locks.get(key);
+        lock.lock();
+        try {
+            Set<CmsFlexCacheEntry> entries = index.get(key);
+            if (entries == null) {
+                entries = createEntrySet();
+                index.put(key, entries);
+            }
+            entries.add(entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Creates a set of entries that can be read while it is changed.<p>
+     *
+     * @return a new, empty set of entries
+     */
+    private Set<CmsFlexCacheEntry> createEntrySet() {
+
+        return Collections.newSetFromMap(new ConcurrentHashMap<CmsFlexCacheEntry, Boolean>());
+    }
+
+    /**
+     * Removes an entry from the set stored for the given key in the given index.<p>
+     *
+     * The set is removed from the index if it becomes empty.<p>
+     *
+     * @param <K> the key type
+     * @param index the index
+     * @param key the key
+     * @param entry the entry to remove
+     */
+    private <K> void removeFromIndex(Map<K, Set<CmsFlexCacheEntry>> index, K key, CmsFlexCacheEntry entry) {
+
+        Lock lock = m_locks.get(key);
+        lock.lock();
+        try {
+            Set<CmsFlexCacheEntry> entries = index.get(key);
+            if (entries != null) {
+                entries.remove(entry);
+                if (entries.isEmpty()) {
+                    index.remove(key);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
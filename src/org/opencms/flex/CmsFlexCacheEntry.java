@@ -35,15 +35,19 @@ import org.opencms.main.CmsLog;
 import org.opencms.monitor.CmsMemoryMonitor;
 import org.opencms.monitor.I_CmsMemoryMonitorable;
 import org.opencms.util.CmsCollectionsGenericWrapper;
+import org.opencms.util.CmsUUID;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import javax.servlet.ServletException;
 
@@ -66,6 +70,9 @@ import org.apache.commons.logging.Log;
  * The headers are saved in a HashMap.
  * In case of a redirect, the redirect target is cached in a String.<p>
  *
+ * If an off-heap storage is used, large output blocks are moved to direct byte buffers
+ * when the entry is added to the cache, so that only the meta data remains on the heap.<p>
+ *
  * The CmsFlexCacheEntry can also have an expire date value, which indicates the time
  * that his entry will become invalid and should thus be cleared from the cache.<p>
  *
@@ -93,15 +100,39 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
     /** The "last modified" date for this Flex cache entry. */
     private long m_dateLastModified;
 
+    /** The structure ids of the resources this entry depends on, <code>null</code> if not tracked. */
+    private Set<CmsUUID> m_dependencyIds;
+
+    /** The dependency index where this entry is registered. */
+    private volatile CmsFlexCacheDependencyIndex m_dependencyIndex;
+
+    /** The root paths of the resources this entry depends on, <code>null</code> if not tracked. */
+    private Set<String> m_dependencyPaths;
+
     /** The list of items for this resource. */
     private List<Object> m_elements;
 
+    /** The root paths of the folders whose contents this entry depends on, <code>null</code> if not tracked. */
+    private Set<String> m_folderDependencies;
+
     /** A Map of cached headers for this resource. */
     private Map<String, List<String>> m_headers;
 
+    /** Indicates if output blocks of this entry have been moved to an off-heap storage. */
+    private boolean m_hasOffHeap;
+
     /** Pointer to the next cache entry in the LRU cache. */
     private I_CmsLruCacheObject m_next;
 
+    /** The number of requests currently writing the off-heap output blocks of this entry. */
+    private int m_offHeapReaders;
+
+    /** Indicates if the off-heap output blocks of this entry have been released. */
+    private boolean m_offHeapReleased;
+
+    /** The storage where the output blocks of this entry have been moved to, <code>null</code> if none. */
+    private CmsFlexCacheOffHeapStorage m_offHeapStorage;
+
     /** Pointer to the previous cache entry in the LRU cache. */
     private I_CmsLruCacheObject m_previous;
 
@@ -267,6 +298,36 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         return m_dateLastModified;
     }
 
+    /**
+     * Returns the structure ids of the resources this entry depends on.<p>
+     *
+     * @return the structure ids of the resources this entry depends on, or <code>null</code> if not tracked
+     */
+    public Set<CmsUUID> getDependencyIds() {
+
+        return m_dependencyIds;
+    }
+
+    /**
+     * Returns the root paths of the resources this entry depends on.<p>
+     *
+     * @return the root paths of the resources this entry depends on, or <code>null</code> if not tracked
+     */
+    public Set<String> getDependencyPaths() {
+
+        return m_dependencyPaths;
+    }
+
+    /**
+     * Returns the root paths of the folders whose contents this entry depends on.<p>
+     *
+     * @return the root paths of the folders whose contents this entry depends on, or <code>null</code> if not tracked
+     */
+    public Set<String> getFolderDependencies() {
+
+        return m_folderDependencies;
+    }
+
     /**
      * @see org.opencms.cache.I_CmsLruCacheObject#getLruCacheCosts()
      */
@@ -291,6 +352,24 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         return m_next;
     }
 
+    /**
+     * Returns the number of output bytes of this entry stored outside of the Java heap.<p>
+     *
+     * @return the number of output bytes of this entry stored outside of the Java heap
+     */
+    public long getOffHeapSize() {
+
+        long result = 0;
+        if ((m_offHeapStorage != null) && (m_elements != null)) {
+            for (Object o : m_elements) {
+                if (o instanceof ByteBuffer) {
+                    result += ((ByteBuffer)o).capacity();
+                }
+            }
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.cache.I_CmsLruCacheObject#getPreviousLruObject()
      */
@@ -307,6 +386,73 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         return m_elements;
     }
 
+    /**
+     * Returns if the resources this entry depends on have been tracked.<p>
+     *
+     * @return <code>true</code> if the resources this entry depends on have been tracked
+     */
+    public boolean hasDependencies() {
+
+        return m_dependencyIds != null;
+    }
+
+    /**
+     * Moves the output blocks of this completed entry to the given off-heap storage.<p>
+     *
+     * Blocks that are too small, or that do not fit into the storage any more, are kept on the heap.
+     * This must be called before the entry is added to the LRU cache, since the cache costs
+     * of the entry are reduced by the size of the moved blocks.<p>
+     *
+     * @param storage the off-heap storage
+     */
+    public void moveToOffHeap(CmsFlexCacheOffHeapStorage storage) {
+
+        if (!m_completed || (m_elements == null) || (m_offHeapStorage != null)) {
+            return;
+        }
+        List<Object> elements = null;
+        for (int i = 0; i < m_elements.size(); i++) {
+            Object o = m_elements.get(i);
+            if (o instanceof byte[]) {
+                byte[] bytes = (byte[])o;
+                ByteBuffer block = storage.store(bytes);
+                if (block != null) {
+                    if (elements == null) {
+                        elements = new ArrayList<Object>(m_elements);
+                    }
+                    elements.set(i, block);
+                    m_byteSize -= CmsMemoryMonitor.getMemorySize(bytes);
+                }
+            }
+            if (o instanceof String) {
+                // skip the parameter and attribute maps of the include call
+                i += 2;
+            }
+        }
+        if (elements != null) {
+            m_offHeapStorage = storage;
+            m_hasOffHeap = true;
+            m_elements = Collections.unmodifiableList(elements);
+        }
+    }
+
+    /**
+     * Releases the output blocks of this entry from the off-heap storage.<p>
+     *
+     * The storage reuses the released blocks for other entries, so if requests are currently writing
+     * this entry, the blocks are released after the last of these requests is done.<p>
+     */
+    public synchronized void releaseOffHeap() {
+
+        if ((m_offHeapStorage == null) || m_offHeapReleased) {
+            return;
+        }
+        m_offHeapReleased = true;
+        if (m_offHeapReaders == 0) {
+            freeOffHeap();
+        }
+    }
+
     /**
      * @see org.opencms.cache.I_CmsLruCacheObject#removeFromLruCache()
      */
@@ -315,6 +461,10 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         if ((m_variationMap != null) && (m_variationKey != null)) {
             m_variationMap.remove(m_variationKey);
         }
+        if (m_dependencyIndex != null) {
+            m_dependencyIndex.remove(this);
+        }
+        releaseOffHeap();
         if (LOG.isDebugEnabled()) {
             LOG.debug(
                 Messages.get().getBundle().key(
@@ -330,77 +480,37 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
      * the cached entry to the given request / response.
      * This includes calls to all included resources.<p>
      *
+     * If the off-heap output blocks of this entry have already been released, since the entry
+     * has been removed from the cache in the meantime, nothing is delivered.<p>
+     *
      * @param req the request from the client
      * @param res the server response
      *
+     * @return <code>false</code> if the output of this entry is no longer available
+     *
      * @throws CmsFlexCacheException is thrown when problems writing to the response output-stream occur
      * @throws ServletException might be thrown from call to RequestDispatcher.include()
      * @throws IOException might be thrown from call to RequestDispatcher.include() or from Response.sendRedirect()
      */
-    public void service(CmsFlexRequest req, CmsFlexResponse res)
+    public boolean service(CmsFlexRequest req, CmsFlexResponse res)
     throws CmsFlexCacheException, ServletException, IOException {
 
         if (!m_completed) {
-            return;
+            return true;
         }
-
-        if (m_redirectTarget != null) {
-            res.setOnlyBuffering(false);
-            // redirect the response, no further output required
-            res.sendRedirect(m_redirectTarget);
-        } else {
-            // process cached headers first
-            CmsFlexResponse.processHeaders(m_headers, res);
-            // check if this cache entry is a "leaf" (i.e. no further includes)
-            boolean hasNoSubElements = (m_elements.size() == 1);
-            // write output to stream and process all included elements
-            for (int i = 0; i < m_elements.size(); i++) {
-                Object o = m_elements.get(i);
-                if (o instanceof String) {
-                    // handle cached parameters
-                    i++;
-                    Map<String, String[]> paramMap = CmsCollectionsGenericWrapper.map(m_elements.get(i));
-                    Map<String, String[]> oldParamMap = null;
-                    if (paramMap.size() > 0) {
-                        oldParamMap = req.getParameterMap();
-                        req.addParameterMap(paramMap);
-                    }
-                    // handle cached attributes
-                    i++;
-                    Map<String, Object> attrMap = CmsCollectionsGenericWrapper.map(m_elements.get(i));
-                    Map<String, Object> oldAttrMap = null;
-                    if (attrMap.size() > 0) {
-                        oldAttrMap = req.getAttributeMap();
-                        // to avoid issues with multi threading, try to clone the attribute instances
-                        req.addAttributeMap(cloneAttributes(attrMap));
-                        //req.addAttributeMap(attrMap);
-                    }
-                    // do the include call
-                    req.getRequestDispatcher((String)o).include(req, res);
-                    // reset parameters if necessary
-                    if (oldParamMap != null) {
-                        req.setParameterMap(oldParamMap);
-                    }
-                    // reset attributes if necessary
-                    if (oldAttrMap != null) {
-                        req.setAttributeMap(oldAttrMap);
-                    }
-                } else {
-                    try {
-                        res.writeToOutputStream((byte[])o, hasNoSubElements);
-                    } catch (IOException e) {
-                        CmsMessageContainer message = Messages.get().container(
-                            Messages.LOG_FLEXCACHEKEY_NOT_FOUND_1,
-                            getClass().getName());
-                        if (LOG.isDebugEnabled()) {
-                            LOG.debug(message.key());
-                        }
-
-                        throw new CmsFlexCacheException(message, e);
-                    }
-                }
+        if (m_hasOffHeap) {
+            if (!acquireOffHeap()) {
+                return false;
+            }
+            try {
+                serviceElements(req, res);
+            } finally {
+                releaseOffHeapReader();
             }
+        } else {
+            serviceElements(req, res);
         }
+        return true;
     }
 
     /**
@@ -473,6 +583,43 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         setDateLastModified(now - (daytime % timeoutMinutes));
     }
 
+    /**
+     * Sets the resources this entry depends on from the given context info.<p>
+     *
+     * If the context info does not track dependencies, the dependencies of this entry remain unknown.<p>
+     *
+     * @param info the context info of the request that created this entry
+     */
+    public void setDependencies(CmsFlexRequestContextInfo info) {
+
+        if ((info == null) || !info.isTrackingDependencies()) {
+            return;
+        }
+        m_dependencyIds = new HashSet<CmsUUID>(info.getDependencyIds());
+        m_dependencyPaths = new HashSet<String>(info.getDependencyPaths());
+        m_folderDependencies = new HashSet<String>(info.getFolderDependencies());
+        // add the approximate memory footprint of the dependencies
+        m_byteSize += m_dependencyIds.size() * 64;
+        for (String path : m_dependencyPaths) {
+            m_byteSize += CmsMemoryMonitor.getMemorySize(path);
+        }
+        for (String path : m_folderDependencies) {
+            m_byteSize += CmsMemoryMonitor.getMemorySize(path);
+        }
+    }
+
+    /**
+     * Stores a backward reference to the dependency index where this cache entry is registered.<p>
+     *
+     * This is required for the FlexCache.<p>
+     *
+     * @param dependencyIndex the dependency index
+     */
+    public void setDependencyIndex(CmsFlexCacheDependencyIndex dependencyIndex) {
+
+        m_dependencyIndex = dependencyIndex;
+    }
+
     /**
      * @see org.opencms.cache.I_CmsLruCacheObject#setNextLruObject(org.opencms.cache.I_CmsLruCacheObject)
      */
@@ -556,6 +703,21 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         return str;
     }
 
+    /**
+     * Registers a request writing the off-heap output blocks of this entry.<p>
+     *
+     * @return <code>false</code> if the off-heap output blocks have already been released
+     */
+    private synchronized boolean acquireOffHeap() {
+
+        if (m_offHeapReleased) {
+            // the blocks may already be reused for other entries
+            return false;
+        }
+        m_offHeapReaders++;
+        return true;
+    }
+
     /**
      * Clones the attribute instances if possible.<p>
      *
@@ -586,4 +748,107 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
 
         return result;
     }
+
+    /**
+     * Returns the off-heap output blocks of this entry to the storage.<p>
+     */
+    private void freeOffHeap() {
+
+        CmsFlexCacheOffHeapStorage storage = m_offHeapStorage;
+        m_offHeapStorage = null;
+        for (Object o : m_elements) {
+            if (o instanceof ByteBuffer) {
+                storage.release((ByteBuffer)o);
+            }
+        }
+    }
+
+    /**
+     * Unregisters a request writing the off-heap output blocks of this entry,
+     * the blocks are freed if the entry has been released in the meantime.<p>
+     */
+    private synchronized void releaseOffHeapReader() {
+
+        m_offHeapReaders--;
+        if (m_offHeapReleased && (m_offHeapReaders == 0)) {
+            freeOffHeap();
+        }
+    }
+
+    /**
+     * Delivers the headers, the output and the included elements of this entry.<p>
+     *
+     * @param req the request from the client
+     * @param res the server response
+     *
+     * @throws CmsFlexCacheException is thrown when problems writing to the response output-stream occur
+     * @throws ServletException might be thrown from call to RequestDispatcher.include()
+     * @throws IOException might be thrown from call to RequestDispatcher.include() or from Response.sendRedirect()
+     */
+    private void serviceElements(CmsFlexRequest req, CmsFlexResponse res)
+    throws CmsFlexCacheException, ServletException, IOException {
+
+        if (m_redirectTarget != null) {
+            res.setOnlyBuffering(false);
+            // redirect the response, no further output required
+            res.sendRedirect(m_redirectTarget);
+        } else {
+            // process cached headers first
+            CmsFlexResponse.processHeaders(m_headers, res);
+            // check if this cache entry is a "leaf" (i.e. no further includes)
+            boolean hasNoSubElements = (m_elements.size() == 1);
+            // write output to stream and process all included elements
+            for (int i = 0; i < m_elements.size(); i++) {
+                Object o = m_elements.get(i);
+                if (o instanceof String) {
+                    // handle cached parameters
+                    i++;
+                    Map<String, String[]> paramMap = CmsCollectionsGenericWrapper.map(m_elements.get(i));
+                    Map<String, String[]> oldParamMap = null;
+                    if (paramMap.size() > 0) {
+                        oldParamMap = req.getParameterMap();
+                        req.addParameterMap(paramMap);
+                    }
+                    // handle cached attributes
+                    i++;
+                    Map<String, Object> attrMap = CmsCollectionsGenericWrapper.map(m_elements.get(i));
+                    Map<String, Object> oldAttrMap = null;
+                    if (attrMap.size() > 0) {
+                        oldAttrMap = req.getAttributeMap();
+                        // to avoid issues with multi threading, try to clone the attribute instances
+                        req.addAttributeMap(cloneAttributes(attrMap));
+                        //req.addAttributeMap(attrMap);
+                    }
+                    // do the include call
+                    req.getRequestDispatcher((String)o).include(req, res);
+                    // reset parameters if necessary
+                    if (oldParamMap != null) {
+                        req.setParameterMap(oldParamMap);
+                    }
+                    // reset attributes if necessary
+                    if (oldAttrMap != null) {
+                        req.setAttributeMap(oldAttrMap);
+                    }
+                } else {
+                    try {
+                        if (o instanceof ByteBuffer) {
+                            // output stored outside of the heap, use a duplicate since the position is changed
+                            res.writeToOutputStream(((ByteBuffer)o).duplicate());
+                        } else {
+                            res.writeToOutputStream((byte[])o, hasNoSubElements);
+                        }
+                    } catch (IOException e) {
+                        CmsMessageContainer message = Messages.get().container(
+                            Messages.LOG_FLEXCACHEKEY_NOT_FOUND_1,
+                            getClass().getName());
+                        if (LOG.isDebugEnabled()) {
+                            LOG.debug(message.key());
+                        }
+
+                        throw new CmsFlexCacheException(message, e);
+                    }
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,208 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.main.CmsLog;
+import org.opencms.monitor.I_CmsOffHeapMemoryMonitorable;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Stores the output of Flex cache entries in direct byte buffers outside of the Java heap.<p>
+ *
+ * Large cached entries then only keep their keys and meta data on the heap,
+ * which reduces the garbage collection pauses for big caches.
+ * Only output blocks of at least the configured minimum size are stored, and the total size
+ * of all allocated direct buffers is limited. If the limit is reached, or the JVM has no direct memory left,
+ * the output is kept on the heap.<p>
+ *
+ * The JVM only frees the memory of a direct buffer after it has been garbage collected, which may take long
+ * for buffers in the old generation. The direct buffers are therefore never dropped, but pooled
+ * in power of two size classes and reused for the following blocks of the same size class.
+ * This way the total size reported by this storage is the direct memory actually in use.
+ * A block must only be released once no request is writing it any more.<p>
+ *
+ * @since 10.0.0
+ */
+public class CmsFlexCacheOffHeapStorage implements I_CmsOffHeapMemoryMonitorable {
+
+    /** The default minimum size of a block to be stored. */
+    public static final int DEFAULT_MIN_BLOCK_BYTES = 4096;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsFlexCacheOffHeapStorage.class);
+
+    /** The number of stored blocks. */
+    private AtomicInteger m_blockCount;
+
+    /** The released direct buffers for reuse, by capacity. */
+    private Map<Integer, Deque<ByteBuffer>> m_freeBuffers;
+
+    /** The maximum total size of all stored blocks. */
+    private long m_maxBytes;
+
+    /** The minimum size of a block to be stored. */
+    private int m_minBlockBytes;
+
+    /** The total capacity of all allocated direct buffers. */
+    private AtomicLong m_size;
+
+    /**
+     * Creates a new off-heap storage.<p>
+     *
+     * @param maxBytes the maximum total size of all stored blocks
+     * @param minBlockBytes the minimum size of a block to be stored
+     */
+    public CmsFlexCacheOffHeapStorage(long maxBytes, int minBlockBytes) {
+
+        m_maxBytes = maxBytes;
+        m_minBlockBytes = minBlockBytes;
+        m_blockCount = new AtomicInteger();
+        m_size = new AtomicLong();
+        m_freeBuffers = Maps.newHashMap();
+    }
+
+    /**
+     * Returns the capacity of the pooled direct buffer used to store a block of the given size.<p>
+     *
+     * @param size the size of the block
+     *
+     * @return the capacity of the direct buffer, the next power of two
+     */
+    static int getCapacity(int size) {
+
+        int capacity = Integer.highestOneBit(size);
+        if ((capacity < size) && (capacity < (1 << 30))) {
+            capacity <<= 1;
+        }
+        return Math.max(capacity, size);
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsOffHeapMemoryMonitorable#getMaxOffHeapSize()
+     */
+    public long getMaxOffHeapSize() {
+
+        return m_maxBytes;
+    }
+
+    /**
+     * Returns the minimum size of a block to be stored.<p>
+     *
+     * @return the minimum size of a block to be stored
+     */
+    public int getMinBlockBytes() {
+
+        return m_minBlockBytes;
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsOffHeapMemoryMonitorable#getOffHeapBlockCount()
+     */
+    public int getOffHeapBlockCount() {
+
+        return m_blockCount.get();
+    }
+
+    /**
+     * Returns the total capacity of all allocated direct buffers, including the pooled ones.<p>
+     *
+     * @see org.opencms.monitor.I_CmsOffHeapMemoryMonitorable#getOffHeapSize()
+     */
+    public long getOffHeapSize() {
+
+        return m_size.get();
+    }
+
+    /**
+     * Releases a block that has been stored before, its direct buffer is reused for the following blocks.<p>
+     *
+     * The block must not be read any more after it has been released.<p>
+     *
+     * @param block the block returned by {@link #store(byte[])}
+     */
+    public synchronized void release(ByteBuffer block) {
+
+        Integer capacity = Integer.valueOf(block.capacity());
+        Deque<ByteBuffer> buffers = m_freeBuffers.get(capacity);
+        if (buffers == null) {
+            buffers = new ArrayDeque<ByteBuffer>();
+            m_freeBuffers.put(capacity, buffers);
+        }
+        buffers.push(block);
+        m_blockCount.decrementAndGet();
+    }
+
+    /**
+     * Stores the given bytes outside of the Java heap.<p>
+     *
+     * The returned buffer must not be modified, readers must use a duplicate.<p>
+     *
+     * @param bytes the bytes to store
+     *
+     * @return a buffer with the stored bytes, or <code>null</code> if the bytes are too small,
+     *      the maximum size has been reached or the JVM has no direct memory left
+     */
+    public synchronized ByteBuffer store(byte[] bytes) {
+
+        if (bytes.length < m_minBlockBytes) {
+            return null;
+        }
+        int capacity = getCapacity(bytes.length);
+        Deque<ByteBuffer> buffers = m_freeBuffers.get(Integer.valueOf(capacity));
+        ByteBuffer block = (buffers != null) ? buffers.poll() : null;
+        if (block == null) {
+            if ((m_size.get() + capacity) > m_maxBytes) {
+                // the limit is reached, keep the bytes on the heap
+                return null;
+            }
+            try {
+                block = ByteBuffer.allocateDirect(capacity);
+            } catch (OutOfMemoryError e) {
+                // the direct memory of the JVM (-XX:MaxDirectMemorySize) is exhausted, keep the bytes on the heap
+                LOG.warn(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_OFFHEAP_EXHAUSTED_1, m_size), e);
+                return null;
+            }
+            m_size.addAndGet(capacity);
+        }
+        m_blockCount.incrementAndGet();
+        block.clear();
+        block.put(bytes);
+        block.flip();
+        return block;
+    }
+}
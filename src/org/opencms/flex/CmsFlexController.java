@@ -439,6 +439,20 @@ public class CmsFlexController {
         return m_resource;
     }
 
+    /**
+     * Returns the context info of the current include level.<p>
+     *
+     * @return the context info of the current include level, or <code>null</code> if no request has been pushed
+     */
+    public CmsFlexRequestContextInfo getCurrentContextInfo() {
+
+        int pos = m_flexContextInfoList.size() - 1;
+        if (pos < 0) {
+            return null;
+        }
+        return m_flexContextInfoList.get(pos);
+    }
+
     /**
      * Returns the current flex request.<p>
      *
@@ -618,7 +632,11 @@ public class CmsFlexController {
 
         m_flexRequestList.add(req);
         m_flexResponseList.add(res);
-        m_flexContextInfoList.add(new CmsFlexRequestContextInfo());
+        // the read resources are only collected if the cache needs them to invalidate online entries
+        boolean trackDependencies = (m_cache != null)
+            && m_cache.isDependencyInvalidation()
+            && m_cmsObject.getRequestContext().getCurrentProject().isOnlineProject();
+        m_flexContextInfoList.add(new CmsFlexRequestContextInfo(trackDependencies));
         updateRequestContextInfo();
     }
 
@@ -28,6 +28,12 @@
 package org.opencms.flex;
 
 import org.opencms.file.CmsResource;
+import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsUUID;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * Contains information about the OpenCms request context required by the
@@ -38,6 +44,10 @@ import org.opencms.file.CmsResource;
  * Information about the "last modified" and "expire" times of VFS resources are
  * stored in this Object.<p>
  *
+ * If dependency tracking is enabled, the structure ids and root paths of all VFS resources
+ * read in the context are collected as well, together with the folders whose contents have been listed.
+ * This allows the Flex cache to remove only the affected entries after a publish operation.<p>
+ *
  * @since 6.0.0
  */
 public class CmsFlexRequestContextInfo {
@@ -48,13 +58,84 @@ public class CmsFlexRequestContextInfo {
     /** The currently calculated "last modified" date for this request context.  */
     private long m_dateLastModified;
 
+    /** The structure ids of the resources read in this request context, <code>null</code> if dependencies are not tracked. */
+    private Set<CmsUUID> m_dependencyIds;
+
+    /** The root paths of the resources read in this request context, <code>null</code> if dependencies are not tracked. */
+    private Set<String> m_dependencyPaths;
+
+    /** The root paths of the folders listed in this request context, <code>null</code> if dependencies are not tracked. */
+    private Set<String> m_folderDependencies;
+
     /**
      * Public constructor.<p>
      */
     public CmsFlexRequestContextInfo() {
 
+        this(false);
+    }
+
+    /**
+     * Public constructor.<p>
+     *
+     * @param trackDependencies if <code>true</code>, the resources read in this context are collected
+     */
+    public CmsFlexRequestContextInfo(boolean trackDependencies) {
+
         // by default the expiration date is the max long value
         m_dateExpires = CmsResource.DATE_EXPIRED_DEFAULT;
+        if (trackDependencies) {
+            m_dependencyIds = new HashSet<CmsUUID>();
+            m_dependencyPaths = new HashSet<String>();
+            m_folderDependencies = new HashSet<String>();
+        }
+    }
+
+    /**
+     * Adds the given resource to the dependencies of this context.<p>
+     *
+     * Nothing is done if dependencies are not tracked.<p>
+     *
+     * @param resource the resource that has been read
+     */
+    public void addDependency(CmsResource resource) {
+
+        if (m_dependencyIds != null) {
+            m_dependencyIds.add(resource.getStructureId());
+            m_dependencyPaths.add(resource.getRootPath());
+        }
+    }
+
+    /**
+     * Adds the given root path to the dependencies of this context.<p>
+     *
+     * This is used for resources that have been looked up by path, even if the lookup failed,
+     * since the result changes if a resource is published with this path.
+     * Nothing is done if dependencies are not tracked.<p>
+     *
+     * @param rootPath the root path of the resource that has been looked up
+     */
+    public void addDependency(String rootPath) {
+
+        if (m_dependencyPaths != null) {
+            m_dependencyPaths.add(rootPath);
+        }
+    }
+
+    /**
+     * Adds the given folder to the folder dependencies of this context.<p>
+     *
+     * A folder dependency indicates that the contents of the folder have been listed,
+     * so the context depends on all resources published below this folder.
+     * Nothing is done if dependencies are not tracked.<p>
+     *
+     * @param folderRootPath the root path of the folder that has been listed
+     */
+    public void addFolderDependency(String folderRootPath) {
+
+        if (m_folderDependencies != null) {
+            m_folderDependencies.add(CmsFileUtil.addTrailingSeparator(folderRootPath));
+        }
     }
 
     /**
@@ -67,6 +148,36 @@ public class CmsFlexRequestContextInfo {
         return m_dateExpires;
     }
 
+    /**
+     * Returns the structure ids of the resources read in this context.<p>
+     *
+     * @return the structure ids of the resources read in this context
+     */
+    public Set<CmsUUID> getDependencyIds() {
+
+        return m_dependencyIds != null ? m_dependencyIds : Collections.<CmsUUID> emptySet();
+    }
+
+    /**
+     * Returns the root paths of the resources read in this context.<p>
+     *
+     * @return the root paths of the resources read in this context
+     */
+    public Set<String> getDependencyPaths() {
+
+        return m_dependencyPaths != null ? m_dependencyPaths : Collections.<String> emptySet();
+    }
+
+    /**
+     * Returns the root paths of the folders listed in this context.<p>
+     *
+     * @return the root paths of the folders listed in this context
+     */
+    public Set<String> getFolderDependencies() {
+
+        return m_folderDependencies != null ? m_folderDependencies : Collections.<String> emptySet();
+    }
+
     /**
      * Returns the "last modified" date for this context.<p>
      *
@@ -77,9 +188,22 @@ public class CmsFlexRequestContextInfo {
         return m_dateLastModified;
     }
 
+    /**
+     * Returns if the resources read in this context are collected.<p>
+     *
+     * @return <code>true</code> if the resources read in this context are collected
+     */
+    public boolean isTrackingDependencies() {
+
+        return m_dependencyIds != null;
+    }
+
     /**
      * Merges this context info with the values from the other context info.<p>
      *
+     * Only the dates are merged. The dependencies are not merged, since the
+     * output of an included element is not stored in the cache entry of the including element.<p>
+     *
      * @param other the context info to merge with
      */
     public void merge(CmsFlexRequestContextInfo other) {
@@ -150,5 +274,7 @@ public class CmsFlexRequestContextInfo {
         // now use both release and expiration date from the resource to update the expires info
         updateDateExpires(resource.getDateReleased());
         updateDateExpires(resource.getDateExpired());
+        // finally collect the resource as dependency
+        addDependency(resource);
     }
 }
@@ -315,7 +315,10 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
                                     m_vfsTarget));
                         }
                         controller.updateDates(entry.getDateLastModified(), entry.getDateExpires());
-                        entry.service(w_req, w_res);
+                        if (!entry.service(w_req, w_res)) {
+                            // the entry has been removed from the cache in the meantime, load the target again
+                            entry = null;
+                        }
                     } catch (CmsException e) {
                         Throwable t;
                         if (e.getCause() != null) {
@@ -330,7 +333,8 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
                                 m_vfsTarget),
                             t);
                     }
-                } else {
+                }
+                if (entry == null) {
                     // cache is on and resource is not yet cached, so we need to read the cache key for the response
                     CmsFlexCacheKey res_key = cache.getKey(CmsFlexCacheKey.getKeyName(m_vfsTarget, w_req.isOnline()));
                     if (res_key != null) {
@@ -458,6 +462,8 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
                         entry.setDateLastModified(controller.getDateLastModified());
                         entry.setDateExpires(controller.getDateExpires());
                     }
+                    // store the resources read for this entry, required for the invalidation after publishing
+                    entry.setDependencies(controller.getCurrentContextInfo());
                     cache.put(w_res.getCmsCacheKey(), entry, variation);
                 } else {
                     // result can not be cached, do not use "last modified" optimization
@@ -37,10 +37,12 @@ import org.opencms.util.CmsRequestUtil;
 import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -183,6 +185,9 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
     /** The log object for this class. */
     protected static final Log LOG = CmsLog.getLog(CmsFlexResponse.class);
 
+    /** The size of the chunks used to write buffers that are stored outside of the heap. */
+    private static final int WRITE_CHUNK_SIZE = 8192;
+
     /** Map to save response headers belonging to a single include call in .*/
     private Map<String, List<String>> m_bufferHeaders;
 
@@ -1016,6 +1021,38 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
         }
     }
 
+    /**
+     * Writes the remaining bytes of a buffer to the current output stream,
+     * this method should be called from CmsFlexCacheEntry.service() only.<p>
+     *
+     * The Servlet API only allows writing byte arrays, so buffers that are stored outside of the heap
+     * are written in small chunks instead of being copied to the heap completely.<p>
+     *
+     * @param buffer the buffer to write, the position of the buffer is changed
+     *
+     * @throws IOException in case something goes wrong while writing to the stream
+     */
+    void writeToOutputStream(ByteBuffer buffer) throws IOException {
+
+        if (isSuspended()) {
+            return;
+        }
+        if (m_writeOnlyToBuffer) {
+            if (m_out == null) {
+                initStream();
+            }
+            // In this case the buffer will not write to the servlet stream, but to it's internal buffer only
+            writeBuffer(buffer, m_out);
+        } else {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXRESPONSE_ERROR_WRITING_TO_OUTPUT_STREAM_0));
+            }
+            // The request is not buffered, so we can write directly to it's parents output stream
+            writeBuffer(buffer, m_res.getOutputStream());
+            m_res.getOutputStream().flush();
+        }
+    }
+
     /**
      * Helper method to add a value in the internal header list.<p>
      *
@@ -1161,6 +1198,29 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
         headers.put(name, values);
     }
 
+    /**
+     * Writes the remaining bytes of a buffer to the given stream.<p>
+     *
+     * @param buffer the buffer to write
+     * @param out the stream to write to
+     *
+     * @throws IOException in case something goes wrong while writing to the stream
+     */
+    private void writeBuffer(ByteBuffer buffer, OutputStream out) throws IOException {
+
+        if (buffer.hasArray()) {
+            out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+            return;
+        }
+        byte[] chunk = new byte[Math.min(WRITE_CHUNK_SIZE, buffer.remaining())];
+        while (buffer.hasRemaining()) {
+            int len = Math.min(chunk.length, buffer.remaining());
+            buffer.get(chunk, 0, len);
+            out.write(chunk, 0, len);
+        }
+    }
+
     /**
      * This delivers cached sub-elements back to the stream.
      * Needed to overcome JSP buffering.<p>
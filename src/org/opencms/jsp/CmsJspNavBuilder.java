@@ -463,6 +463,7 @@ public class CmsJspNavBuilder {
         if (resources == null) {
             return Collections.<CmsJspNavElement> emptyList();
         }
+        prefetchProperties(resources);
         boolean includeAll = visibility == Visibility.all;
         boolean includeHidden = visibility == Visibility.includeHidden;
         for (CmsResource r : resources) {
@@ -673,6 +674,7 @@ public class CmsJspNavBuilder {
             return Collections.<CmsJspNavElement> emptyList();
         }
 
+        prefetchProperties(resources);
         for (CmsResource r : resources) {
             CmsJspNavElement element = getNavigationForResource(m_cms.getSitePath(r), resourceFilter, shallow);
             if ((element != null) && (includeInvisible || element.isInNavigation())) {
@@ -746,4 +748,20 @@ public class CmsJspNavBuilder {
 
         return new CmsJspNavElement(sitePath, resource, propertiesMap, level);
     }
+
+    /**
+     * Reads the properties of the given resources with as few queries as possible,
+     * so the navigation elements created for the single resources find them in the property cache.<p>
+     *
+     * @param resources the resources to read the properties for
+     */
+    private void prefetchProperties(List<CmsResource> resources) {
+
+        try {
+            m_cms.readPropertyObjects(resources, false);
+        } catch (CmsException e) {
+            // the properties are read again for the single resources
+            LOG.debug(e.getLocalizedMessage(), e);
+        }
+    }
 }
@@ -45,7 +45,10 @@ import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsConstantMap;
 import org.opencms.util.CmsUUID;
 import org.opencms.xml.I_CmsXmlDocument;
+import org.opencms.xml.content.CmsXmlContent;
+import org.opencms.xml.content.CmsXmlContentCache;
 import org.opencms.xml.content.CmsXmlContentFactory;
+import org.opencms.xml.content.CmsXmlContentSnapshot;
 import org.opencms.xml.page.CmsXmlPageFactory;
 import org.opencms.xml.types.I_CmsXmlContentValue;
 
@@ -62,7 +65,9 @@ import org.apache.commons.collections.Transformer;
  * <code>&lt;cms:contentload&gt;</code> tag.<p>
  *
  * The implementation is optimized for performance and uses lazy initializing of the
- * requested values as much as possible.<p>
+ * requested values as much as possible. If the disk cache for XML content snapshots is enabled,
+ * the locale and value checks, the element names and the String values without links are read from
+ * a {@link CmsXmlContentSnapshot} without unmarshalling the XML content.<p>
  *
  * @since 7.0.2
  *
@@ -81,7 +86,7 @@ public class CmsJspContentAccessBean {
          */
         public Object transform(Object input) {
 
-            return Boolean.valueOf(getRawContent().hasLocale(CmsJspElFunctions.convertLocale(input)));
+            return Boolean.valueOf(hasLocale(CmsJspElFunctions.convertLocale(input)));
         }
     }
 
@@ -98,7 +103,7 @@ public class CmsJspContentAccessBean {
 
             Locale locale = CmsJspElFunctions.convertLocale(input);
             Map<String, Boolean> result;
-            if (getRawContent().hasLocale(locale)) {
+            if (hasLocale(locale)) {
                 result = CmsCollectionsGenericWrapper.createLazyMap(new CmsHasValueTransformer(locale));
             } else {
                 result = CmsConstantMap.CONSTANT_BOOLEAN_FALSE_MAP;
@@ -131,7 +136,12 @@ public class CmsJspContentAccessBean {
          */
         public Object transform(Object input) {
 
-            return Boolean.valueOf(getRawContent().hasValue(String.valueOf(input), m_selectedLocale));
+            String path = String.valueOf(input);
+            CmsXmlContentSnapshot snapshot = getSnapshot();
+            if (snapshot != null) {
+                return Boolean.valueOf(snapshot.hasValue(path, m_selectedLocale));
+            }
+            return Boolean.valueOf(getRawContent().hasValue(path, m_selectedLocale));
         }
     }
 
@@ -174,7 +184,10 @@ public class CmsJspContentAccessBean {
         public Object transform(Object input) {
 
             Locale locale = CmsLocaleManager.getLocale(String.valueOf(input));
-
+            CmsXmlContentSnapshot snapshot = getSnapshot();
+            if (snapshot != null) {
+                return snapshot.getNames(locale);
+            }
             return getRawContent().getNames(locale);
         }
     }
@@ -202,6 +215,22 @@ public class CmsJspContentAccessBean {
         }
     }
 
+    /**
+     * Provides a Map which lets the user access the String values from the selected locale in an XML content,
+     * the input is assumed to be a String that represents a Locale.<p>
+     */
+    public class CmsLocaleStringValueTransformer implements Transformer {
+
+        /**
+         * @see org.apache.commons.collections.Transformer#transform(java.lang.Object)
+         */
+        public Object transform(Object input) {
+
+            Locale locale = CmsLocaleManager.getLocale(String.valueOf(input));
+            return CmsCollectionsGenericWrapper.createLazyMap(new CmsStringValueTransformer(locale));
+        }
+    }
+
     /**
      * Provides a Map which lets the user access sub value Lists from the selected locale in an XML content,
      * the input is assumed to be a String that represents a Locale.<p>
@@ -300,6 +329,43 @@ public class CmsJspContentAccessBean {
         }
     }
 
+    /**
+     * Provides a Map which lets the user access the String value of a value in an XML content,
+     * the input is assumed to be a String that represents an xpath in the XML content.<p>
+     */
+    public class CmsStringValueTransformer implements Transformer {
+
+        /** The selected locale. */
+        private Locale m_selectedLocale;
+
+        /**
+         * Constructor with a locale.<p>
+         *
+         * @param locale the locale to use
+         */
+        public CmsStringValueTransformer(Locale locale) {
+
+            m_selectedLocale = locale;
+        }
+
+        /**
+         * @see org.apache.commons.collections.Transformer#transform(java.lang.Object)
+         */
+        public Object transform(Object input) {
+
+            String path = String.valueOf(input);
+            CmsXmlContentSnapshot snapshot = getSnapshot();
+            if ((snapshot != null) && !snapshot.isLinkValue(path, m_selectedLocale)) {
+                return snapshot.getStringValue(path, m_selectedLocale);
+            }
+            I_CmsXmlContentValue value = getRawContent().getValue(path, m_selectedLocale);
+            if ((value == null) || !value.isSimpleType()) {
+                return null;
+            }
+            return value.getStringValue(getCmsObject());
+        }
+    }
+
     /**
      * Provides a Map which lets the user access sub value Lists in an XML content,
      * the input is assumed to be a String that represents an xpath in the XML content.<p>
@@ -429,6 +495,9 @@ public class CmsJspContentAccessBean {
     /** Lazy initialized map of RDFA maps by locale. */
     private Map<String, Map<String, String>> m_localeRdfa;
 
+    /** The lazy initialized with the locale String values. */
+    private Map<String, Map<String, String>> m_localeStringValue;
+
     /** The lazy initialized with the locale sub value lists. */
     private Map<String, Map<String, List<CmsJspContentAccessValueWrapper>>> m_localeSubValueList;
 
@@ -444,6 +513,9 @@ public class CmsJspContentAccessBean {
     /** Resource the XML content is created from. */
     private CmsResource m_resource;
 
+    /** The snapshot of the XML content, read from the disk cache. */
+    private CmsXmlContentSnapshot m_snapshot;
+
     /**
      * No argument constructor, required for a JavaBean.<p>
      *
@@ -725,7 +797,11 @@ public class CmsJspContentAccessBean {
 
         // check the content if the locale has not been set yet
         if (m_locale == null) {
-            getRawContent();
+            if (getSnapshot() != null) {
+                initLocale();
+            } else {
+                getRawContent();
+            }
         }
         return m_locale;
     }
@@ -770,6 +846,33 @@ public class CmsJspContentAccessBean {
         return m_localeRdfa;
     }
 
+    /**
+     * Returns a lazy initialized Map that provides a Map that provides
+     * String values from the XML content in the selected locale.<p>
+     *
+     * The first provided Map key is assumed to be a String that represents the Locale,
+     * the second provided Map key is assumed to be a String that represents the xpath to the value.
+     * If the value does not exist, <code>null</code> is returned.<p>
+     *
+     * Usage example on a JSP with the JSTL:<pre>
+     * &lt;cms:contentload ... &gt;
+     *     &lt;cms:contentaccess var="content" /&gt;
+     *     The Title in Locale "de": ${content.localeStringValue['de']['Title']}
+     * &lt;/cms:contentload&gt;</pre>
+     *
+     * @return a lazy initialized Map that provides a Map that provides
+     *      String values from the XML content in the selected locale
+     *
+     * @see #getStringValue()
+     */
+    public Map<String, Map<String, String>> getLocaleStringValue() {
+
+        if (m_localeStringValue == null) {
+            m_localeStringValue = CmsCollectionsGenericWrapper.createLazyMap(new CmsLocaleStringValueTransformer());
+        }
+        return m_localeStringValue;
+    }
+
     /**
      * Returns a lazy initialized Map that provides a Map that provides Lists of direct sub values
      * from the XML content in the selected locale.<p>
@@ -890,7 +993,12 @@ public class CmsJspContentAccessBean {
                     m_content = CmsXmlPageFactory.unmarshal(m_cms, file);
                 } else {
                     // this is an XML content
-                    m_content = CmsXmlContentFactory.unmarshal(m_cms, file);
+                    CmsXmlContent content = CmsXmlContentFactory.unmarshal(m_cms, file);
+                    if ((m_snapshot == null) && CmsXmlContentCache.getInstance().isSnapshotsEnabled()) {
+                        // store a snapshot, so the next request can avoid unmarshalling the XML
+                        CmsXmlContentFactory.createSnapshot(m_cms, content);
+                    }
+                    m_content = content;
                 }
             } catch (CmsException e) {
                 // this usually should not happen, as the resource already has been read by the current user
@@ -903,19 +1011,7 @@ public class CmsJspContentAccessBean {
 
         // make sure a valid locale is used
         if (m_locale == null) {
-            m_locale = m_requestedLocale;
-            // check if the requested locale is available
-            if (!m_content.hasLocale(m_locale)) {
-                Iterator<Locale> it = OpenCms.getLocaleManager().getDefaultLocales().iterator();
-                while (it.hasNext()) {
-                    Locale locale = it.next();
-                    if (m_content.hasLocale(locale)) {
-                        // found a matching locale
-                        m_locale = locale;
-                        break;
-                    }
-                }
-            }
+            initLocale();
         }
 
         return m_content;
@@ -931,6 +1027,28 @@ public class CmsJspContentAccessBean {
         return getLocaleRdfa().get(getLocale());
     }
 
+    /**
+     * Returns a lazy initialized Map that provides String values from the XML content in the current locale.<p>
+     *
+     * The provided Map key is assumed to be a String that represents the xpath to the value.
+     * In contrast to {@link #getValue()}, this does not require to unmarshal the XML content
+     * if a snapshot of the content is available.<p>
+     *
+     * Usage example on a JSP with the JSTL:<pre>
+     * &lt;cms:contentload ... &gt;
+     *     &lt;cms:contentaccess var="content" /&gt;
+     *     The Title: ${content.stringValue['Title']}
+     * &lt;/cms:contentload&gt;</pre>
+     *
+     * @return a lazy initialized Map that provides String values from the XML content in the current locale
+     *
+     * @see #getLocaleStringValue()
+     */
+    public Map<String, String> getStringValue() {
+
+        return getLocaleStringValue().get(getLocale());
+    }
+
     /**
      * Returns a lazy initialized Map that provides Lists of direct sub values
      * of the given value from the XML content in the current locale.<p>
@@ -1025,4 +1143,73 @@ public class CmsJspContentAccessBean {
         m_content = content;
         m_resource = resource;
     }
+
+    /**
+     * Returns the snapshot of the XML content from the disk cache,
+     * or <code>null</code> if the XML content must be used.<p>
+     *
+     * @return the snapshot of the XML content, or <code>null</code>
+     */
+    protected CmsXmlContentSnapshot getSnapshot() {
+
+        if ((m_snapshot == null)
+            && (m_content == null)
+            && (m_resource != null)
+            && CmsXmlContentCache.getInstance().isSnapshotsEnabled()
+            && !CmsResourceTypeXmlPage.isXmlPage(m_resource)) {
+            m_snapshot = CmsXmlContentCache.getInstance().getSnapshot(m_cms, m_resource);
+        }
+        return m_snapshot;
+    }
+
+    /**
+     * Checks if the given locale is available in the XML content,
+     * using the snapshot of the content if available.<p>
+     *
+     * @param locale the locale to check
+     *
+     * @return <code>true</code> if the given locale is available in the XML content
+     */
+    protected boolean hasLocale(Locale locale) {
+
+        CmsXmlContentSnapshot snapshot = getSnapshot();
+        if (snapshot != null) {
+            return snapshot.hasLocale(locale);
+        }
+        return getRawContent().hasLocale(locale);
+    }
+
+    /**
+     * Selects the locale used for accessing the content, this may be a default fall back locale.<p>
+     *
+     * Either the XML content or the snapshot must have been initialized before.<p>
+     */
+    private void initLocale() {
+
+        m_locale = m_requestedLocale;
+        // check if the requested locale is available
+        if (!isLocaleAvailable(m_locale)) {
+            Iterator<Locale> it = OpenCms.getLocaleManager().getDefaultLocales().iterator();
+            while (it.hasNext()) {
+                Locale locale = it.next();
+                if (isLocaleAvailable(locale)) {
+                    // found a matching locale
+                    m_locale = locale;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if the given locale is available in the already initialized XML content or snapshot.<p>
+     *
+     * @param locale the locale to check
+     *
+     * @return <code>true</code> if the given locale is available
+     */
+    private boolean isLocaleAvailable(Locale locale) {
+
+        return m_content != null ? m_content.hasLocale(locale) : m_snapshot.hasLocale(locale);
+    }
 }
\ No newline at end of file
@@ -35,38 +35,67 @@ import org.opencms.flex.CmsFlexController;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
+import org.opencms.util.CmsByteRange;
 import org.opencms.util.CmsRequestUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.workplace.CmsWorkplaceManager;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
 
+import javax.servlet.ServletOutputStream;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.io.IOUtils;
+
 /**
  * Dump loader for binary or other unprocessed resource types.<p>
  *
  * This loader is also used to deliver static sub-elements of pages processed
  * by other loaders.<p>
  *
+ * Delivered contents support conditional requests with entity tags ("If-None-Match")
+ * and byte range requests ("Range" and "If-Range"), so that interrupted downloads
+ * can be resumed and media files can be seeked without sending the complete content again.<p>
+ *
  * @since 6.0.0
  */
 public class CmsDumpLoader implements I_CmsResourceLoader {
 
+    /** The configuration parameter for the content size (in bytes) above which contents are streamed. */
+    public static final String CONFIGURATION_STREAMING_THRESHOLD = "content.streaming.threshold";
+
+    /** The default content size (in bytes) above which contents are streamed (1 MB). */
+    public static final int DEFAULT_STREAMING_THRESHOLD = 1024 * 1024;
+
     /** The id of this loader. */
     public static final int RESOURCE_LOADER_ID = 1;
 
+    /** The boundary used to separate the parts of a "multipart/byteranges" response. */
+    protected static final String MULTIPART_BOUNDARY = "OPENCMS_MIME_BOUNDARY";
+
     /** The maximum age for dumped contents in the clients cache. */
     private static long m_clientCacheMaxAge;
 
     /** The resource loader configuration. */
     private CmsParameterConfiguration m_configuration;
 
+    /** The content size (in bytes) above which contents are streamed from the database. */
+    private int m_streamingThreshold = DEFAULT_STREAMING_THRESHOLD;
+
     /**
      * The constructor of the class is empty and does nothing.<p>
      */
@@ -126,7 +155,19 @@ public class CmsDumpLoader implements I_CmsResourceLoader {
                     res.setHeader(parts[0], parts[1]);
                 }
             }
-            load(cms, file, req, res);
+            // the exported content is written to the RFS, so it is always delivered completely
+            HttpServletRequest exportReq = new HttpServletRequestWrapper(req) {
+
+                @Override
+                public String getHeader(String name) {
+
+                    if (CmsRequestUtil.HEADER_RANGE.equalsIgnoreCase(name)) {
+                        return null;
+                    }
+                    return super.getHeader(name);
+                }
+            };
+            load(cms, file, exportReq, res);
         }
 
         return file.getContents();
@@ -175,11 +216,18 @@ public class CmsDumpLoader implements I_CmsResourceLoader {
         } else {
             m_clientCacheMaxAge = Long.parseLong(String.valueOf(maxAge));
         }
+        m_streamingThreshold = m_configuration.getInteger(
+            CONFIGURATION_STREAMING_THRESHOLD,
+            DEFAULT_STREAMING_THRESHOLD);
 
         if (CmsLog.INIT.isInfoEnabled()) {
             if (maxAge != null) {
                 CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_CLIENT_CACHE_MAX_AGE_1, maxAge));
             }
+            CmsLog.INIT.info(
+                Messages.get().getBundle().key(
+                    Messages.INIT_STREAMING_THRESHOLD_1,
+                    new Integer(m_streamingThreshold)));
             CmsLog.INIT.info(
                 Messages.get().getBundle().key(Messages.INIT_LOADER_INITIALIZED_1, this.getClass().getName()));
         }
@@ -223,26 +271,177 @@ public class CmsDumpLoader implements I_CmsResourceLoader {
     public void load(CmsObject cms, CmsResource resource, HttpServletRequest req, HttpServletResponse res)
     throws IOException, CmsException {
 
+        load(cms, resource, null, req, res);
+    }
+
+    /**
+     * @see org.opencms.loader.I_CmsResourceLoader#service(org.opencms.file.CmsObject, org.opencms.file.CmsResource, javax.servlet.ServletRequest, javax.servlet.ServletResponse)
+     */
+    public void service(CmsObject cms, CmsResource resource, ServletRequest req, ServletResponse res)
+    throws CmsException, IOException {
+
+        writeContent(cms, resource, res);
+    }
+
+    /**
+     * Checks if the requested resource must be send to the client by checking the "If-None-Match"
+     * and "If-Modified-Since" http headers.<p>
+     *
+     * If the resource has not been modified, the "304 - not modified"
+     * header is send to the client and <code>true</code>
+     * is returned, otherwise nothing is send and <code>false</code> is returned.
+     * An "If-None-Match" header takes precedence over an "If-Modified-Since" header.<p>
+     *
+     * @param resource the resource to check
+     * @param req the current request
+     * @param res the current response
+     *
+     * @return <code>true</code> if the "304 - not modified" header has been send to the client
+     */
+    protected boolean canSendLastModifiedHeader(CmsResource resource, HttpServletRequest req, HttpServletResponse res) {
+
+        // the request must not have been send by a workplace user (we can't use "304 - not modified" in workplace
+        if (CmsWorkplaceManager.isWorkplaceUser(req)) {
+            return false;
+        }
+        boolean notModified;
+        String ifNoneMatch = req.getHeader(CmsRequestUtil.HEADER_IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            // the entity tag of the client must match the current entity tag of the resource
+            notModified = isETagMatching(ifNoneMatch, getETag(resource, req));
+        } else {
+            // resource state must be unchanged and the last modified header must match the time form the resource
+            notModified = resource.getState().isUnchanged()
+                && CmsFlexController.isNotModifiedSince(req, resource.getDateLastModified());
+        }
+        if (notModified) {
+            long now = System.currentTimeMillis();
+            if ((resource.getDateReleased() < now) && (resource.getDateExpired() > now)) {
+                // resource is available and not expired
+                CmsFlexController.setDateExpiresHeader(res, resource.getDateExpired(), m_clientCacheMaxAge);
+                res.setHeader(CmsRequestUtil.HEADER_ETAG, getETag(resource, req));
+                // set status 304 - not modified
+                res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the strong entity tag ("ETag" header value) for the given resource.<p>
+     *
+     * The entity tag is calculated from the resource id and the date the content was last changed,
+     * so it is the same for all siblings and for the online and offline version of an unchanged resource.
+     * Loaders that deliver different versions of a resource depending on request parameters
+     * must add these parameters to the entity tag.<p>
+     *
+     * @param resource the resource to get the entity tag for
+     * @param req the current request
+     *
+     * @return the entity tag for the given resource, including the surrounding quotes
+     */
+    protected String getETag(CmsResource resource, HttpServletRequest req) {
+
+        return "\"" + resource.getResourceId() + "-" + Long.toHexString(resource.getDateContent()) + "\"";
+    }
+
+    /**
+     * Returns the byte ranges requested by the client,
+     * or <code>null</code> if the complete content must be delivered.<p>
+     *
+     * An empty list is returned if none of the requested ranges can be satisfied.<p>
+     *
+     * @param resource the requested resource
+     * @param req the current request
+     * @param eTag the entity tag of the resource, or <code>null</code> if no entity tag is available
+     * @param length the length of the content to deliver
+     *
+     * @return the byte ranges requested by the client, or <code>null</code>
+     */
+    protected List<CmsByteRange> getRequestedRanges(
+        CmsResource resource,
+        HttpServletRequest req,
+        String eTag,
+        long length) {
+
+        List<CmsByteRange> ranges = CmsByteRange.parse(req.getHeader(CmsRequestUtil.HEADER_RANGE), length);
+        if (ranges != null) {
+            // ranges are only delivered if the client still has the current version of the resource
+            String ifRange = req.getHeader(CmsRequestUtil.HEADER_IF_RANGE);
+            if (ifRange != null) {
+                ifRange = ifRange.trim();
+                if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+                    // entity tag, this requires a strong comparison
+                    if (!ifRange.equals(eTag)) {
+                        return null;
+                    }
+                } else {
+                    long date;
+                    try {
+                        date = req.getDateHeader(CmsRequestUtil.HEADER_IF_RANGE);
+                    } catch (IllegalArgumentException e) {
+                        return null;
+                    }
+                    if (((resource.getDateLastModified() / 1000) * 1000) != date) {
+                        return null;
+                    }
+                }
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * Loads the given resource and delivers the content, either completely or the requested byte ranges.<p>
+     *
+     * If a RFS file is given, e.g. a copy of the content from a disk cache, the content is transferred
+     * directly from this file to the response without reading it into memory.<p>
+     *
+     * @param cms the current users OpenCms context
+     * @param resource the requested resource
+     * @param rfsFile the RFS file that contains the content to deliver, or <code>null</code> to deliver the VFS content
+     * @param req the current request
+     * @param res the current response
+     *
+     * @throws IOException if something goes wrong writing the content
+     * @throws CmsException if something goes wrong reading the content
+     */
+    protected void load(
+        CmsObject cms,
+        CmsResource resource,
+        File rfsFile,
+        HttpServletRequest req,
+        HttpServletResponse res) throws IOException, CmsException {
+
         if (canSendLastModifiedHeader(resource, req, res)) {
             // no further processing required
             return;
         }
 
-        // make sure we have the file contents available
-        CmsFile file = cms.readFile(resource);
+        long length;
+        if (rfsFile != null) {
+            length = rfsFile.length();
+        } else if ((resource instanceof CmsFile) && (((CmsFile)resource).getContents() != null)) {
+            length = ((CmsFile)resource).getContents().length;
+        } else {
+            // the contents are only read when they are written
+            length = resource.getLength();
+        }
 
         // set response status to "200 - OK" (required for static export "on-demand")
         res.setStatus(HttpServletResponse.SC_OK);
-        // set content length header
-        res.setContentLength(file.getContents().length);
 
+        String eTag = null;
         if (CmsWorkplaceManager.isWorkplaceUser(req)) {
             // prevent caching for Workplace users
             res.setDateHeader(CmsRequestUtil.HEADER_LAST_MODIFIED, System.currentTimeMillis());
             CmsRequestUtil.setNoCacheHeaders(res);
         } else {
-            // set date last modified header
-            res.setDateHeader(CmsRequestUtil.HEADER_LAST_MODIFIED, file.getDateLastModified());
+            // set date last modified and entity tag header
+            res.setDateHeader(CmsRequestUtil.HEADER_LAST_MODIFIED, resource.getDateLastModified());
+            eTag = getETag(resource, req);
+            res.setHeader(CmsRequestUtil.HEADER_ETAG, eTag);
 
             // set "Expires" only if cache control is not already set
             if (!res.containsHeader(CmsRequestUtil.HEADER_CACHE_CONTROL)) {
@@ -255,49 +454,204 @@ public class CmsDumpLoader implements I_CmsResourceLoader {
                 CmsFlexController.setDateExpiresHeader(res, expireTime, m_clientCacheMaxAge);
             }
         }
-
-        service(cms, file, req, res);
+        res.setHeader(CmsRequestUtil.HEADER_ACCEPT_RANGES, "bytes");
+
+        List<CmsByteRange> ranges = getRequestedRanges(resource, req, eTag, length);
+        if (ranges == null) {
+            // deliver the complete content
+            setContentLength(res, length);
+            if (rfsFile != null) {
+                writeContent(cms, resource, rfsFile, res.getOutputStream(), null);
+            } else {
+                service(cms, resource, req, res);
+            }
+        } else if (ranges.isEmpty()) {
+            // none of the requested ranges is available
+            res.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            res.setHeader(CmsRequestUtil.HEADER_CONTENT_RANGE, CmsByteRange.getUnsatisfiableContentRange(length));
+            res.setContentLength(0);
+        } else {
+            res.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            writeRanges(cms, resource, rfsFile, ranges, length, res);
+        }
     }
 
     /**
-     * @see org.opencms.loader.I_CmsResourceLoader#service(org.opencms.file.CmsObject, org.opencms.file.CmsResource, javax.servlet.ServletRequest, javax.servlet.ServletResponse)
+     * Writes the content of the given resource to the response output stream.<p>
+     *
+     * Contents that are already available, or that are not larger than the configured
+     * streaming threshold, are written from memory. Larger contents are streamed from
+     * the database so that they never need to be held in memory completely.<p>
+     *
+     * @param cms the current users OpenCms context
+     * @param resource the resource to write the content for
+     * @param res the current response
+     *
+     * @throws CmsException if something goes wrong reading the content
+     * @throws IOException if something goes wrong writing the content
      */
-    public void service(CmsObject cms, CmsResource resource, ServletRequest req, ServletResponse res)
+    protected void writeContent(CmsObject cms, CmsResource resource, ServletResponse res)
     throws CmsException, IOException {
 
-        res.getOutputStream().write(cms.readFile(resource).getContents());
+        writeContent(cms, resource, null, res.getOutputStream(), null);
     }
 
     /**
-     * Checks if the requested resource must be send to the client by checking the "If-Modified-Since" http header.<p>
+     * Writes the given byte range of the content of the given resource to the output stream.<p>
      *
-     * If the resource has not been modified, the "304 - not modified"
-     * header is send to the client and <code>true</code>
-     * is returned, otherwise nothing is send and <code>false</code> is returned.<p>
+     * The content is read from the RFS file if one is given, using {@link FileChannel#transferTo(long, long,
+     * WritableByteChannel)} which avoids copying the content through the Java heap where the platform supports it.
+     * Otherwise the content is written as described in
+     * {@link #writeContent(CmsObject, CmsResource, ServletResponse)}.<p>
      *
-     * @param resource the resource to check
-     * @param req the current request
+     * @param cms the current users OpenCms context
+     * @param resource the resource to write the content for
+     * @param rfsFile the RFS file that contains the content, or <code>null</code> to use the VFS content
+     * @param out the output stream to write to
+     * @param range the byte range to write, or <code>null</code> to write the complete content
+     *
+     * @throws CmsException if something goes wrong reading the content
+     * @throws IOException if something goes wrong writing the content
+     */
+    protected void writeContent(
+        CmsObject cms,
+        CmsResource resource,
+        File rfsFile,
+        OutputStream out,
+        CmsByteRange range) throws CmsException, IOException {
+
+        if (rfsFile != null) {
+            FileInputStream in = new FileInputStream(rfsFile);
+            try {
+                FileChannel channel = in.getChannel();
+                WritableByteChannel target = Channels.newChannel(out);
+                long position = (range == null) ? 0 : range.getStart();
+                long remaining = (range == null) ? channel.size() : range.getLength();
+                while (remaining > 0) {
+                    long count = channel.transferTo(position, remaining, target);
+                    if (count <= 0) {
+                        // the file has been truncated
+                        break;
+                    }
+                    position += count;
+                    remaining -= count;
+                }
+            } finally {
+                IOUtils.closeQuietly(in);
+            }
+        } else {
+            byte[] contents = (resource instanceof CmsFile) ? ((CmsFile)resource).getContents() : null;
+            if ((contents == null) && (resource.getLength() > m_streamingThreshold)) {
+                // stream large contents from the database
+                InputStream in = cms.readContentStream(resource);
+                try {
+                    if (range == null) {
+                        IOUtils.copyLarge(in, out);
+                    } else {
+                        IOUtils.copyLarge(in, out, range.getStart(), range.getLength());
+                    }
+                } finally {
+                    IOUtils.closeQuietly(in);
+                }
+                return;
+            }
+            if (contents == null) {
+                contents = cms.readFile(resource).getContents();
+            }
+            if (range == null) {
+                out.write(contents);
+            } else {
+                out.write(contents, (int)range.getStart(), (int)range.getLength());
+            }
+        }
+    }
+
+    /**
+     * Writes the given byte ranges of the content of the given resource to the response.<p>
+     *
+     * A single range is written as is, multiple ranges are written as "multipart/byteranges".<p>
+     *
+     * @param cms the current users OpenCms context
+     * @param resource the resource to write the content for
+     * @param rfsFile the RFS file that contains the content, or <code>null</code> to use the VFS content
+     * @param ranges the byte ranges to write
+     * @param length the length of the complete content
      * @param res the current response
      *
-     * @return <code>true</code> if the "304 - not modified" header has been send to the client
+     * @throws CmsException if something goes wrong reading the content
+     * @throws IOException if something goes wrong writing the content
      */
-    protected boolean canSendLastModifiedHeader(CmsResource resource, HttpServletRequest req, HttpServletResponse res) {
+    protected void writeRanges(
+        CmsObject cms,
+        CmsResource resource,
+        File rfsFile,
+        List<CmsByteRange> ranges,
+        long length,
+        HttpServletResponse res) throws CmsException, IOException {
+
+        if (ranges.size() == 1) {
+            CmsByteRange range = ranges.get(0);
+            res.setHeader(CmsRequestUtil.HEADER_CONTENT_RANGE, range.getContentRange(length));
+            setContentLength(res, range.getLength());
+            writeContent(cms, resource, rfsFile, res.getOutputStream(), range);
+            return;
+        }
+        if ((rfsFile == null) && !(resource instanceof CmsFile) && (resource.getLength() <= m_streamingThreshold)) {
+            // read the content only once for all ranges
+            resource = cms.readFile(resource);
+        }
+        String contentType = res.getContentType();
+        res.setContentType("multipart/byteranges; boundary=" + MULTIPART_BOUNDARY);
+        ServletOutputStream out = res.getOutputStream();
+        for (CmsByteRange range : ranges) {
+            out.println();
+            out.println("--" + MULTIPART_BOUNDARY);
+            if (contentType != null) {
+                out.println(CmsRequestUtil.HEADER_CONTENT_TYPE + ": " + contentType);
+            }
+            out.println(CmsRequestUtil.HEADER_CONTENT_RANGE + ": " + range.getContentRange(length));
+            out.println();
+            writeContent(cms, resource, rfsFile, out, range);
+        }
+        out.println();
+        out.print("--" + MULTIPART_BOUNDARY + "--");
+    }
 
-        // resource state must be unchanged
-        if (resource.getState().isUnchanged()
-            // the request must not have been send by a workplace user (we can't use "304 - not modified" in workplace
-            && !CmsWorkplaceManager.isWorkplaceUser(req)
-            // last modified header must match the time form the resource
-            && CmsFlexController.isNotModifiedSince(req, resource.getDateLastModified())) {
-            long now = System.currentTimeMillis();
-            if ((resource.getDateReleased() < now) && (resource.getDateExpired() > now)) {
-                // resource is available and not expired
-                CmsFlexController.setDateExpiresHeader(res, resource.getDateExpired(), m_clientCacheMaxAge);
-                // set status 304 - not modified
-                res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    /**
+     * Checks if one of the entity tags in the given "If-None-Match" header value matches the given entity tag.<p>
+     *
+     * This uses the weak comparison, as required for "If-None-Match".<p>
+     *
+     * @param header the "If-None-Match" header value
+     * @param eTag the current entity tag of the resource
+     *
+     * @return <code>true</code> if the given entity tag matches
+     */
+    private boolean isETagMatching(String header, String eTag) {
+
+        for (String tag : CmsStringUtil.splitAsList(header, ',', true)) {
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if ("*".equals(tag) || tag.equals(eTag)) {
                 return true;
             }
         }
         return false;
     }
-}
\ No newline at end of file
+
+    /**
+     * Sets the content length header of the response, also for contents larger than 2 GB.<p>
+     *
+     * @param res the current response
+     * @param length the content length
+     */
+    private void setContentLength(HttpServletResponse res, long length) {
+
+        if (length <= Integer.MAX_VALUE) {
+            res.setContentLength((int)length);
+        } else {
+            res.setHeader(CmsRequestUtil.HEADER_CONTENT_LENGTH, String.valueOf(length));
+        }
+    }
+}
@@ -38,9 +38,14 @@ import org.opencms.main.CmsLog;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.scheduler.jobs.CmsImageCacheCleanupJob;
+import org.opencms.util.CmsRequestUtil;
 import org.opencms.util.CmsStringUtil;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
@@ -58,6 +63,17 @@ import org.apache.commons.logging.Log;
  * For example, to scale an image to exact 800x600 pixel with center fitting and a background color of grey,
  * the following parameter String can be used: <code>w:800,h:600,t:0,c:c0c0c0</code>.<p>
  *
+ * Scaled variants that are not yet in the image cache are created by a {@link CmsImageScalingExecutor}
+ * with a limited number of threads, so that concurrent requests for the same variant share one scale operation.
+ * If the executor is saturated, the unscaled image is delivered and marked as not cacheable.<p>
+ *
+ * If output formats are configured with the {@link #CONFIGURATION_SCALING_FORMATS} parameter, for example
+ * <code>webp</code>, scaled images are delivered in the first of these formats accepted by the client.
+ * This requires an ImageIO writer plugin for the format.<p>
+ *
+ * Variants listed in the {@link #CONFIGURATION_SCALING_VARIANTS} parameter are created in the background
+ * by a {@link CmsImageVariantGenerator} for every published image.<p>
+ *
  * @since 6.2.0
  */
 public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener {
@@ -77,6 +93,24 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The configuration parameter for the OpenCms XML configuration to enable the image scaling. */
     public static final String CONFIGURATION_SCALING_ENABLED = "image.scaling.enabled";
 
+    /** The configuration parameter for the OpenCms XML configuration to set the preferred output formats. */
+    public static final String CONFIGURATION_SCALING_FORMATS = "image.scaling.formats";
+
+    /** The configuration parameter for the OpenCms XML configuration to set the image scaling queue size. */
+    public static final String CONFIGURATION_SCALING_QUEUE = "image.scaling.queue";
+
+    /** The configuration parameter for the OpenCms XML configuration to set the number of image scaling threads. */
+    public static final String CONFIGURATION_SCALING_THREADS = "image.scaling.threads";
+
+    /** The configuration parameter for the OpenCms XML configuration to set the time to wait for a scaled image. */
+    public static final String CONFIGURATION_SCALING_TIMEOUT = "image.scaling.timeout";
+
+    /** The configuration parameter for the OpenCms XML configuration to set the variants created after publishing. */
+    public static final String CONFIGURATION_SCALING_VARIANTS = "image.scaling.variants";
+
+    /** The configuration parameter for the OpenCms XML configuration to set the pause between two created variants. */
+    public static final String CONFIGURATION_SCALING_VARIANTS_PAUSE = "image.scaling.variants.pause";
+
     /** Default name for the image cache repository. */
     public static final String IMAGE_REPOSITORY_DEFAULT = "/WEB-INF/imagecache/";
 
@@ -89,6 +123,12 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The log object for this class. */
     protected static final Log LOG = CmsLog.getLog(CmsImageLoader.class);
 
+    /** Request attribute for the output format negotiated for the requested scaled version. */
+    private static final String ATTRIBUTE_OUTPUT_FORMAT = CmsImageLoader.class.getName() + ".outputFormat";
+
+    /** Request attribute to mark that the unscaled image is delivered instead of the requested scaled version. */
+    private static final String ATTRIBUTE_UNSCALED_FALLBACK = CmsImageLoader.class.getName() + ".unscaledFallback";
+
     /** The (optional) image down scale parameters for image write operations. */
     protected static String m_downScaleParams;
 
@@ -98,15 +138,42 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The maximum image size (width * height) to apply image blurring when down scaling (setting this to high may cause "out of memory" errors). */
     protected static int m_maxBlurSize = CmsImageScaler.SCALE_DEFAULT_MAX_BLUR_SIZE;
 
+    /** The executor used to create scaled image versions. */
+    protected static CmsImageScalingExecutor m_scalingExecutor;
+
+    /** The generator for image variants after publishing, <code>null</code> if no variants are configured. */
+    protected static CmsImageVariantGenerator m_variantGenerator;
+
     /** The disk cache to use for saving scaled image versions. */
     protected static CmsVfsNameBasedDiskCache m_vfsDiskCache;
 
+    /** Indicates if the variant generator has been registered as publish listener. */
+    private static boolean m_variantGeneratorRegistered;
+
     /** The name of the configured image cache repository. */
     protected String m_imageRepositoryFolder;
 
     /** The maximum image size (width or height) to allow when up scaling an image using request parameters. */
     protected int m_maxScaleSize = CmsImageScaler.SCALE_DEFAULT_MAX_SIZE;
 
+    /** The preferred output formats for scaled images. */
+    protected List<String> m_scalingFormats = new ArrayList<String>();
+
+    /** The maximum number of queued scale operations. */
+    protected int m_scalingQueueSize = CmsImageScalingExecutor.DEFAULT_QUEUE_SIZE;
+
+    /** The number of image scaling threads. */
+    protected int m_scalingThreads = Runtime.getRuntime().availableProcessors();
+
+    /** The time in milliseconds to wait for a scaled image. */
+    protected long m_scalingTimeout = CmsImageScalingExecutor.DEFAULT_TIMEOUT;
+
+    /** The variants to create after publishing. */
+    protected String m_scalingVariants;
+
+    /** The time in milliseconds to pause between two variants created after publishing. */
+    protected long m_scalingVariantsPause = CmsImageVariantGenerator.DEFAULT_PAUSE;
+
     /**
      * Creates a new image loader.<p>
      */
@@ -200,6 +267,24 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
             if (CONFIGURATION_DOWNSCALE.equals(paramName)) {
                 m_downScaleParams = paramValue.trim();
             }
+            if (CONFIGURATION_SCALING_FORMATS.equals(paramName)) {
+                m_scalingFormats = CmsStringUtil.splitAsList(paramValue.toLowerCase(), '|', true);
+            }
+            if (CONFIGURATION_SCALING_THREADS.equals(paramName)) {
+                m_scalingThreads = CmsStringUtil.getIntValue(paramValue, m_scalingThreads, paramName);
+            }
+            if (CONFIGURATION_SCALING_QUEUE.equals(paramName)) {
+                m_scalingQueueSize = CmsStringUtil.getIntValue(paramValue, m_scalingQueueSize, paramName);
+            }
+            if (CONFIGURATION_SCALING_TIMEOUT.equals(paramName)) {
+                m_scalingTimeout = CmsStringUtil.getLongValue(paramValue, m_scalingTimeout, paramName);
+            }
+            if (CONFIGURATION_SCALING_VARIANTS.equals(paramName)) {
+                m_scalingVariants = paramValue.trim();
+            }
+            if (CONFIGURATION_SCALING_VARIANTS_PAUSE.equals(paramName)) {
+                m_scalingVariantsPause = CmsStringUtil.getLongValue(paramValue, m_scalingVariantsPause, paramName);
+            }
         }
         super.addConfigurationParameter(paramName, paramValue);
     }
@@ -212,8 +297,13 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         if (event == null) {
             return;
         }
-        // only react on the clear caches event
         int type = event.getType();
+        if (type == I_CmsEventListener.EVENT_BEFORE_PUBLISH_PROJECT) {
+            // the publish manager is not available yet when the loader configuration is initialized
+            registerVariantGenerator();
+            return;
+        }
+        // only react on the clear caches event
         if (type != I_CmsEventListener.EVENT_CLEAR_CACHES) {
             return;
         }
@@ -244,6 +334,18 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         m_enabled = false;
         m_imageRepositoryFolder = null;
         m_vfsDiskCache = null;
+        if (m_scalingExecutor != null) {
+            m_scalingExecutor.shutdown();
+            m_scalingExecutor = null;
+        }
+        if (m_variantGenerator != null) {
+            if (m_variantGeneratorRegistered) {
+                OpenCms.getPublishManager().removePublishListener(m_variantGenerator);
+                m_variantGeneratorRegistered = false;
+            }
+            m_variantGenerator.shutdown();
+            m_variantGenerator = null;
+        }
     }
 
     /**
@@ -259,6 +361,16 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         }
         result.put(CONFIGURATION_SCALING_ENABLED, String.valueOf(m_enabled));
         result.put(CONFIGURATION_IMAGE_FOLDER, m_imageRepositoryFolder);
+        if (!m_scalingFormats.isEmpty()) {
+            result.put(CONFIGURATION_SCALING_FORMATS, CmsStringUtil.listAsString(m_scalingFormats, "|"));
+        }
+        result.put(CONFIGURATION_SCALING_THREADS, String.valueOf(m_scalingThreads));
+        result.put(CONFIGURATION_SCALING_QUEUE, String.valueOf(m_scalingQueueSize));
+        result.put(CONFIGURATION_SCALING_TIMEOUT, String.valueOf(m_scalingTimeout));
+        if (m_scalingVariants != null) {
+            result.put(CONFIGURATION_SCALING_VARIANTS, m_scalingVariants);
+            result.put(CONFIGURATION_SCALING_VARIANTS_PAUSE, String.valueOf(m_scalingVariantsPause));
+        }
         return result;
     }
 
@@ -286,6 +398,31 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
                 OpenCms.getSystemInfo().getWebApplicationRfsPath(),
                 m_imageRepositoryFolder);
         }
+        if ((m_scalingExecutor == null) && (m_scalingThreads > 0)) {
+            m_scalingExecutor = new CmsImageScalingExecutor(
+                m_vfsDiskCache,
+                m_scalingThreads,
+                Math.max(1, m_scalingQueueSize),
+                m_scalingTimeout);
+        }
+        // only keep the output formats an image writer is available for
+        Iterator<String> formats = m_scalingFormats.iterator();
+        while (formats.hasNext()) {
+            if (!CmsImageScaler.isOutputFormatSupported(formats.next())) {
+                formats.remove();
+            }
+        }
+        if ((m_variantGenerator == null) && m_enabled) {
+            List<CmsImageScaler> variants = CmsImageVariantGenerator.parseVariants(m_scalingVariants, m_maxScaleSize);
+            if (!variants.isEmpty()) {
+                m_variantGenerator = new CmsImageVariantGenerator(
+                    m_vfsDiskCache,
+                    variants,
+                    m_scalingFormats,
+                    m_scalingExecutor,
+                    m_scalingVariantsPause);
+            }
+        }
         OpenCms.addCmsEventListener(this);
         // output setup information
         if (CmsLog.INIT.isInfoEnabled()) {
@@ -295,6 +432,21 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
                     m_vfsDiskCache.getRepositoryPath()));
             CmsLog.INIT.info(
                 Messages.get().getBundle().key(Messages.INIT_IMAGE_SCALING_ENABLED_1, Boolean.valueOf(m_enabled)));
+            CmsLog.INIT.info(
+                Messages.get().getBundle().key(
+                    Messages.INIT_IMAGE_SCALING_THREADS_2,
+                    Integer.valueOf(m_scalingThreads),
+                    Integer.valueOf(m_scalingQueueSize)));
+            if (!m_scalingFormats.isEmpty()) {
+                CmsLog.INIT.info(
+                    Messages.get().getBundle().key(Messages.INIT_IMAGE_SCALING_FORMATS_1, m_scalingFormats));
+            }
+            if (m_variantGenerator != null) {
+                CmsLog.INIT.info(
+                    Messages.get().getBundle().key(
+                        Messages.INIT_IMAGE_SCALING_VARIANTS_1,
+                        m_variantGenerator.getVariants()));
+            }
         }
     }
 
@@ -306,22 +458,98 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     throws IOException, CmsException {
 
         if (m_enabled) {
+            // get the scale information from the request
+            CmsImageScaler scaler = new CmsImageScaler(req, m_maxScaleSize, m_maxBlurSize);
+            if (scaler.isValid() && !m_scalingFormats.isEmpty()) {
+                // the format of the scaled version depends on the formats accepted by the client
+                res.addHeader(CmsRequestUtil.HEADER_VARY, CmsRequestUtil.HEADER_ACCEPT);
+                if (!(resource instanceof CmsFile)) {
+                    // a given file must keep its format (required e.g. for static export)
+                    String format = getOutputFormat(req);
+                    if (format != null) {
+                        scaler.setOutputFormat(format);
+                        req.setAttribute(ATTRIBUTE_OUTPUT_FORMAT, format);
+                    }
+                }
+            }
             if (canSendLastModifiedHeader(resource, req, res)) {
                 // no image processing required at all
                 return;
             }
-            // get the scale information from the request
-            CmsImageScaler scaler = new CmsImageScaler(req, m_maxScaleSize, m_maxBlurSize);
-            // load the file from the cache
-            CmsFile file = getScaledImage(cms, resource, scaler);
-            // now perform standard load operation inherited from dump loader
-            super.load(cms, file, req, res);
+            File cacheFile = null;
+            if (!(resource instanceof CmsFile)) {
+                // a given file must get the scaled content (required e.g. for static export)
+                cacheFile = m_vfsDiskCache.getCacheFile(m_vfsDiskCache.getCacheName(resource, getCacheParam(scaler)));
+            }
+            if (cacheFile != null) {
+                // deliver the cached image directly from the RFS
+                setOutputContentType(scaler, res);
+                load(cms, resource, cacheFile, req, res);
+            } else {
+                // load the file from the cache
+                CmsFile file = getScaledImage(cms, resource, scaler);
+                if (file == null) {
+                    // the scaled version could not be created in time, deliver the unscaled image
+                    // and make sure it is not cached by the client as the scaled version
+                    req.setAttribute(ATTRIBUTE_UNSCALED_FALLBACK, Boolean.TRUE);
+                    CmsRequestUtil.setNoCacheHeaders(res);
+                    file = cms.readFile(resource);
+                } else {
+                    setOutputContentType(scaler, res);
+                }
+                // now perform standard load operation inherited from dump loader
+                super.load(cms, file, req, res);
+            }
         } else {
             // scaling is disabled
             super.load(cms, resource, req, res);
         }
     }
 
+    /**
+     * Adds the scale parameters to the entity tag, since every scaled version of an image
+     * is a different representation of the resource.<p>
+     *
+     * @see org.opencms.loader.CmsDumpLoader#getETag(org.opencms.file.CmsResource, javax.servlet.http.HttpServletRequest)
+     */
+    @Override
+    protected String getETag(CmsResource resource, HttpServletRequest req) {
+
+        String eTag = super.getETag(resource, req);
+        if (m_enabled && (req.getAttribute(ATTRIBUTE_UNSCALED_FALLBACK) == null)) {
+            CmsImageScaler scaler = new CmsImageScaler(req, m_maxScaleSize, m_maxBlurSize);
+            scaler.setOutputFormat((String)req.getAttribute(ATTRIBUTE_OUTPUT_FORMAT));
+            if (scaler.isValid()) {
+                eTag = eTag.substring(0, eTag.length() - 1)
+                    + "-"
+                    + Integer.toHexString(getCacheParam(scaler).hashCode())
+                    + "\"";
+            }
+        }
+        return eTag;
+    }
+
+    /**
+     * Returns the first configured output format accepted by the client.<p>
+     *
+     * @param req the current request
+     *
+     * @return the first configured output format accepted by the client, or <code>null</code>
+     */
+    protected String getOutputFormat(HttpServletRequest req) {
+
+        String accept = req.getHeader(CmsRequestUtil.HEADER_ACCEPT);
+        if (accept != null) {
+            accept = accept.toLowerCase();
+            for (String format : m_scalingFormats) {
+                if (accept.contains("image/" + format)) {
+                    return format;
+                }
+            }
+        }
+        return null;
+    }
+
     /**
      * Returns a scaled version of the given OpenCms VFS image resource.<p>
      *
@@ -329,11 +557,15 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
      * If the scaled version does not exist in the cache, it is created.
      * Unscaled versions of the images are also stored in the cache.<p>
      *
+     * If the given resource is not a file, the scaled version is created by the image scaling executor.
+     * In this case <code>null</code> is returned if the executor is saturated
+     * or the scaled version could not be created in time.<p>
+     *
      * @param cms the current users OpenCms context
      * @param resource the base VFS resource for the image
      * @param scaler the configured image scaler
      *
-     * @return a scaled version of the given OpenCms VFS image resource
+     * @return a scaled version of the given OpenCms VFS image resource, or <code>null</code>
      *
      * @throws IOException in case of errors accessing the disk based cache
      * @throws CmsException in case of errors accessing the OpenCms VFS
@@ -341,8 +573,7 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     protected CmsFile getScaledImage(CmsObject cms, CmsResource resource, CmsImageScaler scaler)
     throws IOException, CmsException {
 
-        String cacheParam = scaler.isValid() ? scaler.toString() : null;
-        String cacheName = m_vfsDiskCache.getCacheName(resource, cacheParam);
+        String cacheName = m_vfsDiskCache.getCacheName(resource, getCacheParam(scaler));
         byte[] content = m_vfsDiskCache.getCacheContent(cacheName);
 
         CmsFile file;
@@ -357,6 +588,17 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
             // save the content in the file
             file.setContents(content);
         } else {
+            if (scaler.isValid() && (m_scalingExecutor != null) && !(resource instanceof CmsFile)) {
+                // concurrent requests for the same variant share one scale operation, which reads the image
+                // from the VFS and also saves the scaled version in the cache
+                content = m_scalingExecutor.scale(cacheName, scaler, OpenCms.initCmsObject(cms), resource);
+                if (content == null) {
+                    return null;
+                }
+                file = new CmsFile(resource);
+                file.setContents(content);
+                return file;
+            }
             // we must read the content from the VFS (if this has not been done yet)
             file = cms.readFile(resource);
             // upgrade the file (load the content)
@@ -371,4 +613,46 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         }
         return file;
     }
+
+    /**
+     * Returns the parameters used for the disk cache name of the scaled version.<p>
+     *
+     * @param scaler the configured image scaler
+     *
+     * @return the parameters used for the disk cache name, or <code>null</code> for the unscaled version
+     */
+    static String getCacheParam(CmsImageScaler scaler) {
+
+        if (!scaler.isValid()) {
+            return null;
+        }
+        if (scaler.getOutputFormat() != null) {
+            return scaler.toString() + "." + scaler.getOutputFormat();
+        }
+        return scaler.toString();
+    }
+
+    /**
+     * Registers the image variant generator as publish listener, if not already done.<p>
+     */
+    private static synchronized void registerVariantGenerator() {
+
+        if ((m_variantGenerator != null) && !m_variantGeneratorRegistered) {
+            OpenCms.getPublishManager().addPublishListener(m_variantGenerator);
+            m_variantGeneratorRegistered = true;
+        }
+    }
+
+    /**
+     * Sets the content type of the scaled version if it is written in a different output format.<p>
+     *
+     * @param scaler the configured image scaler
+     * @param res the current response
+     */
+    private void setOutputContentType(CmsImageScaler scaler, HttpServletResponse res) {
+
+        if (scaler.getOutputFormat() != null) {
+            res.setContentType("image/" + scaler.getOutputFormat());
+        }
+    }
 }
\ No newline at end of file
@@ -44,11 +44,22 @@ import org.opencms.util.CmsStringUtil;
 import java.awt.Color;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
 import javax.servlet.http.HttpServletRequest;
 
 import org.apache.commons.logging.Log;
@@ -150,6 +161,9 @@ public class CmsImageScaler {
     /** The maximum target width (for scale type '5'). */
     private int m_maxWidth;
 
+    /** The format to write the scaled image in, <code>null</code> to keep the format of the source image. */
+    private String m_outputFormat;
+
     /** The target position (optional). */
     private int m_position;
 
@@ -326,6 +340,40 @@ public class CmsImageScaler {
         return result;
     }
 
+    /**
+     * Calculates the source subsampling to use when reading an image that is scaled to the given target size.<p>
+     *
+     * The subsampled image is at least twice as large as the target size in both dimensions,
+     * so that the quality of the scaled image is not affected.<p>
+     *
+     * @param sourceWidth the width of the source image
+     * @param sourceHeight the height of the source image
+     * @param targetWidth the width of the target image
+     * @param targetHeight the height of the target image
+     *
+     * @return the subsampling to use, 1 if every source pixel is required
+     */
+    public static int calculateSubsampling(int sourceWidth, int sourceHeight, int targetWidth, int targetHeight) {
+
+        if ((targetWidth <= 0) || (targetHeight <= 0)) {
+            return 1;
+        }
+        int subsampling = Math.min(sourceWidth / (2 * targetWidth), sourceHeight / (2 * targetHeight));
+        return Math.max(1, subsampling);
+    }
+
+    /**
+     * Returns <code>true</code> if an image writer is available for the given output format.<p>
+     *
+     * @param format the informal format name, for example <code>webp</code>
+     *
+     * @return <code>true</code> if an image writer is available for the given output format
+     */
+    public static boolean isOutputFormatSupported(String format) {
+
+        return CmsStringUtil.isNotEmpty(format) && ImageIO.getImageWritersByFormatName(format).hasNext();
+    }
+
     /**
      * Adds a filter name to the list of filters that should be applied to the image.<p>
      *
@@ -604,6 +652,16 @@ public class CmsImageScaler {
         return m_maxWidth;
     }
 
+    /**
+     * Returns the format to write the scaled image in.<p>
+     *
+     * @return the format to write the scaled image in, or <code>null</code> to keep the format of the source image
+     */
+    public String getOutputFormat() {
+
+        return m_outputFormat;
+    }
+
     /**
      * Returns the image pixel count, that is the image with multiplied by the image height.<p>
      *
@@ -1072,7 +1130,8 @@ public class CmsImageScaler {
             return result;
         }
         try {
-            BufferedImage image = Simapi.read(content);
+            // crop coordinates refer to the full size source image, so the image can only be subsampled without crop
+            BufferedImage image = isCropping() ? Simapi.read(content) : readImage(content);
 
             if (isCropping()) {
                 // check if the crop width / height are not larger then the source image
@@ -1190,7 +1249,10 @@ public class CmsImageScaler {
 
             // get the byte result for the scaled image if some changes have been made.
             // otherwiese use the original image
-            if (imageProcessed) {
+            if (m_outputFormat != null) {
+                // the output format differs from the source, so the image must be written even if unchanged
+                result = writeImage(image, m_outputFormat);
+            } else if (imageProcessed) {
                 result = scaler.getBytes(image, imageType);
             }
         } catch (Exception e) {
@@ -1322,6 +1384,18 @@ public class CmsImageScaler {
         m_maxWidth = maxWidth;
     }
 
+    /**
+     * Sets the format to write the scaled image in.<p>
+     *
+     * The format must be supported by an image writer, see {@link #isOutputFormatSupported(String)}.<p>
+     *
+     * @param outputFormat the format to write the scaled image in, or <code>null</code> to keep the source format
+     */
+    public void setOutputFormat(String outputFormat) {
+
+        m_outputFormat = outputFormat;
+    }
+
     /**
      * Sets the scale position.<p>
      *
@@ -1550,6 +1624,7 @@ public class CmsImageScaler {
         m_color = Color.WHITE;
         m_filters = new ArrayList<String>();
         m_maxBlurSize = CmsImageLoader.getMaxBlurSize();
+        m_outputFormat = null;
     }
 
     /**
@@ -1600,5 +1675,90 @@ public class CmsImageScaler {
         m_cropWidth = source.m_cropWidth;
         m_cropX = source.m_cropX;
         m_cropY = source.m_cropY;
+        m_outputFormat = source.m_outputFormat;
+    }
+
+    /**
+     * Reads the given image content, only decoding as many pixels as required for the target size.<p>
+     *
+     * If the image is much larger than the target size, the image reader skips rows and columns
+     * of the source (see {@link #calculateSubsampling(int, int, int, int)}), so that large images
+     * do not have to be decoded completely in memory.<p>
+     *
+     * @param content the image content
+     *
+     * @return the decoded image
+     *
+     * @throws IOException in case the image could not be read
+     */
+    private BufferedImage readImage(byte[] content) throws IOException {
+
+        ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(content));
+        if (input != null) {
+            try {
+                Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+                if (readers.hasNext()) {
+                    ImageReader reader = readers.next();
+                    try {
+                        reader.setInput(input, true, true);
+                        int subsampling = calculateSubsampling(
+                            reader.getWidth(0),
+                            reader.getHeight(0),
+                            getWidth(),
+                            getHeight());
+                        if (subsampling > 1) {
+                            ImageReadParam param = reader.getDefaultReadParam();
+                            param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                            return reader.read(0, param);
+                        }
+                    } catch (Exception e) {
+                        // the image reader is unable to read the image, let the imaging library try
+                        LOG.debug(e.getLocalizedMessage(), e);
+                    } finally {
+                        reader.dispose();
+                    }
+                }
+            } finally {
+                input.close();
+            }
+        }
+        return Simapi.read(content);
+    }
+
+    /**
+     * Writes the given image in the given format.<p>
+     *
+     * @param image the image to write
+     * @param format the informal format name
+     *
+     * @return the image content
+     *
+     * @throws IOException in case the image could not be written
+     */
+    private byte[] writeImage(BufferedImage image, String format) throws IOException {
+
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        if (!writers.hasNext()) {
+            throw new IOException(Messages.get().getBundle().key(Messages.ERR_NO_IMAGE_WRITER_1, format));
+        }
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        ImageOutputStream output = ImageIO.createImageOutputStream(result);
+        try {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if ((m_quality > 0) && param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                if ((param.getCompressionType() == null) && (param.getCompressionTypes() != null)) {
+                    param.setCompressionType(param.getCompressionTypes()[0]);
+                }
+                param.setCompressionQuality(m_quality / 100f);
+            }
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+            output.close();
+        }
+        return result.toByteArray();
     }
 }
@@ -0,0 +1,242 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.loader;
+
+import org.opencms.cache.CmsVfsNameBasedDiskCache;
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.logging.Log;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Scales images with a bounded number of worker threads, used by the {@link CmsImageLoader}.<p>
+ *
+ * Requests for the same scaled variant of an image, identified by the name of the file in the
+ * image disk cache, are coalesced: only one scale operation runs per variant, all other requests
+ * wait for its result. The scale operation also reads the image from the VFS, so the content is read only once.
+ * The scaled image is saved in the disk cache before the waiting requests are released.<p>
+ *
+ * The number of waiting scale operations is limited. If the queue is full, or a scale operation
+ * does not finish within the configured timeout, <code>null</code> is returned and the caller is
+ * expected to deliver the unscaled image instead. This way, a spike of requests for new image variants
+ * can not block all request threads of the servlet container.<p>
+ *
+ * @since 10.0.0
+ */
+public class CmsImageScalingExecutor {
+
+    /** The default maximum number of queued scale operations. */
+    public static final int DEFAULT_QUEUE_SIZE = 64;
+
+    /** The default time in milliseconds to wait for a scale operation. */
+    public static final long DEFAULT_TIMEOUT = 30000;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsImageScalingExecutor.class);
+
+    /** The disk cache the scaled images are saved in. */
+    private CmsVfsNameBasedDiskCache m_diskCache;
+
+    /** The thread pool executing the scale operations. */
+    private ThreadPoolExecutor m_executor;
+
+    /** The currently running or queued scale operations, by disk cache name. */
+    private ConcurrentHashMap<String, ScalingTask> m_pending;
+
+    /** The time in milliseconds to wait for a scale operation. */
+    private long m_timeout;
+
+    /**
+     * A scale operation that removes itself from the pending operations when done.<p>
+     */
+    private class ScalingTask extends FutureTask<byte[]> {
+
+        /** The disk cache name of the scaled image. */
+        private String m_cacheName;
+
+        /**
+         * Creates a new scale operation.<p>
+         *
+         * @param cacheName the disk cache name of the scaled image
+         * @param scaler the image scaler to use
+         * @param cms the OpenCms context to read the image with
+         * @param resource the image to scale, if this is a file its content is used
+         */
+        ScalingTask(
+            final String cacheName,
+            final CmsImageScaler scaler,
+            final CmsObject cms,
+            final CmsResource resource) {
+
+            super(new Callable<byte[]>() {
+
+                public byte[] call() throws IOException, CmsException {
+
+                    CmsFile file = (resource instanceof CmsFile) ? (CmsFile)resource : cms.readFile(resource);
+                    byte[] content = scaler.scaleImage(file);
+                    m_diskCache.saveCacheFile(cacheName, content);
+                    return content;
+                }
+            });
+            m_cacheName = cacheName;
+        }
+
+        /**
+         * @see java.util.concurrent.FutureTask#done()
+         */
+        @Override
+        protected void done() {
+
+            m_pending.remove(m_cacheName, this);
+        }
+    }
+
+    /**
+     * Creates a new image scaling executor.<p>
+     *
+     * @param diskCache the disk cache to save the scaled images in
+     * @param threads the number of worker threads
+     * @param queueSize the maximum number of queued scale operations
+     * @param timeout the time in milliseconds to wait for a scale operation
+     */
+    public CmsImageScalingExecutor(CmsVfsNameBasedDiskCache diskCache, int threads, int queueSize, long timeout) {
+
+        m_diskCache = diskCache;
+        m_timeout = timeout;
+        m_pending = new ConcurrentHashMap<String, ScalingTask>();
+        m_executor = new ThreadPoolExecutor(
+            threads,
+            threads,
+            60,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(queueSize),
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("OpenCms: image scaling %d").build());
+        m_executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns the number of currently running or queued scale operations.<p>
+     *
+     * @return the number of currently running or queued scale operations
+     */
+    public int getPendingCount() {
+
+        return m_pending.size();
+    }
+
+    /**
+     * Returns the scaled content of the given image, also saving it in the disk cache.<p>
+     *
+     * If the same variant is already being scaled, the result of this operation is returned.
+     * Otherwise the image is read from the VFS by the scale operation, unless a file with content is given.
+     * The given OpenCms context is used by a worker thread, so it must not be shared with the caller.<p>
+     *
+     * @param cacheName the disk cache name of the scaled image
+     * @param scaler the image scaler to use
+     * @param cms the OpenCms context to read the image with, not required if a file is given
+     * @param resource the image to scale
+     *
+     * @return the scaled content, or <code>null</code> if the executor is saturated
+     *      or the scale operation did not finish in time
+     *
+     * @throws IOException if the scale operation failed
+     * @throws CmsException if the image could not be read
+     */
+    public byte[] scale(String cacheName, CmsImageScaler scaler, CmsObject cms, CmsResource resource)
+    throws IOException, CmsException {
+
+        ScalingTask task = m_pending.get(cacheName);
+        if (task == null) {
+            ScalingTask newTask = new ScalingTask(cacheName, scaler, cms, resource);
+            task = m_pending.putIfAbsent(cacheName, newTask);
+            if (task == null) {
+                task = newTask;
+                try {
+                    m_executor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    // cancelling also releases other requests already waiting for this task
+                    task.cancel(false);
+                    LOG.warn(Messages.get().getBundle().key(Messages.LOG_IMAGE_SCALING_SATURATED_1, cacheName));
+                    return null;
+                }
+            }
+        }
+        try {
+            return task.get(m_timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            LOG.warn(
+                Messages.get().getBundle().key(
+                    Messages.LOG_IMAGE_SCALING_TIMEOUT_2,
+                    cacheName,
+                    String.valueOf(m_timeout)));
+        } catch (CancellationException e) {
+            // the task has been rejected by the executor
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+            if (cause instanceof CmsException) {
+                throw (CmsException)cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            throw new IOException(cause);
+        }
+        return null;
+    }
+
+    /**
+     * Shuts down the executor, running scale operations are finished.<p>
+     */
+    public void shutdown() {
+
+        m_executor.shutdown();
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+import org.opencms.cache.CmsVfsNameBasedDiskCache;
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.types.CmsResourceTypeImage;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.publish.CmsPublishEventAdapter;
+import org.opencms.publish.CmsPublishJobRunning;
+import org.opencms.report.I_CmsReport;
+import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Publish listener that creates the configured scaled variants of published images
+ * in the image disk cache, so that the first request after a publish does not have to scale them.<p>
+ *
+ * The variants are created by a single background thread with minimum priority.
+ * The thread pauses between two variants, and as long as the {@link CmsImageScalingExecutor}
+ * of the image loader is busy with scale operations for live requests.
+ * If more images are published than can be queued, the variants of the remaining images
+ * are created on their first request as usual.<p>
+ *
+ * @since 10.0.0
+ */
+public class CmsImageVariantGenerator extends CmsPublishEventAdapter {
+
+    /** The default time in milliseconds to pause between two variants. */
+    public static final long DEFAULT_PAUSE = 100;
+
+    /** The default maximum number of queued images. */
+    public static final int DEFAULT_QUEUE_SIZE = 1000;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsImageVariantGenerator.class);
+
+    /** The disk cache the variants are saved in. */
+    private CmsVfsNameBasedDiskCache m_diskCache;
+
+    /** The thread pool creating the variants. */
+    private ThreadPoolExecutor m_executor;
+
+    /** The executor for scale operations of live requests, may be <code>null</code>. */
+    private CmsImageScalingExecutor m_liveExecutor;
+
+    /** The time in milliseconds to pause between two variants. */
+    private long m_pause;
+
+    /** The image scalers for the configured variants in the source format and in all configured output formats. */
+    private List<CmsImageScaler> m_scalers;
+
+    /** The image scalers for the configured variants. */
+    private List<CmsImageScaler> m_variants;
+
+    /**
+     * Creates a new image variant generator.<p>
+     *
+     * @param diskCache the disk cache to save the variants in
+     * @param variants the image scalers for the variants to create
+     * @param outputFormats the configured output formats every variant is additionally created in
+     * @param liveExecutor the executor for scale operations of live requests, may be <code>null</code>
+     * @param pause the time in milliseconds to pause between two variants
+     */
+    public CmsImageVariantGenerator(
+        CmsVfsNameBasedDiskCache diskCache,
+        List<CmsImageScaler> variants,
+        List<String> outputFormats,
+        CmsImageScalingExecutor liveExecutor,
+        long pause) {
+
+        m_diskCache = diskCache;
+        m_variants = Collections.unmodifiableList(new ArrayList<CmsImageScaler>(variants));
+        // the image loader delivers the variant in the source format to clients accepting none of the output formats
+        m_scalers = new ArrayList<CmsImageScaler>();
+        for (CmsImageScaler variant : m_variants) {
+            m_scalers.add(variant);
+            for (String format : outputFormats) {
+                CmsImageScaler scaler = (CmsImageScaler)variant.clone();
+                scaler.setOutputFormat(format);
+                m_scalers.add(scaler);
+            }
+        }
+        m_liveExecutor = liveExecutor;
+        m_pause = pause;
+        m_executor = new ThreadPoolExecutor(
+            1,
+            1,
+            60,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(DEFAULT_QUEUE_SIZE),
+            new ThreadFactoryBuilder().setDaemon(true).setPriority(Thread.MIN_PRIORITY).setNameFormat(
+                "OpenCms: image variants %d").build());
+        m_executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Parses the image scalers for a list of variants.<p>
+     *
+     * The variants are separated by <code>|</code>, every variant uses the syntax of the
+     * <code>{@link CmsImageScaler#PARAM_SCALE}</code> request parameter, e.g. <code>w:400,h:300|w:800,h:600,t:2</code>.
+     * Invalid variants, or variants exceeding the given maximum size, are ignored.<p>
+     *
+     * @param variants the list of variants
+     * @param maxScaleSize the maximum width or height of a variant
+     *
+     * @return the image scalers for the valid variants
+     */
+    public static List<CmsImageScaler> parseVariants(String variants, int maxScaleSize) {
+
+        List<CmsImageScaler> result = new ArrayList<CmsImageScaler>();
+        if (CmsStringUtil.isEmptyOrWhitespaceOnly(variants)) {
+            return result;
+        }
+        for (String variant : CmsStringUtil.splitAsList(variants, '|', true)) {
+            CmsImageScaler scaler = new CmsImageScaler(variant);
+            if (scaler.isValid() && (scaler.getWidth() <= maxScaleSize) && (scaler.getHeight() <= maxScaleSize)) {
+                result.add(scaler);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates all configured variants of the given image that are not yet in the disk cache.<p>
+     *
+     * @param file the image file
+     *
+     * @return the number of created variants
+     */
+    public int generateVariants(CmsFile file) {
+
+        int count = 0;
+        for (CmsImageScaler scaler : m_scalers) {
+            String cacheName = m_diskCache.getCacheName(file, CmsImageLoader.getCacheParam(scaler));
+            if (m_diskCache.hasCacheContent(cacheName)) {
+                continue;
+            }
+            if (!awaitIdle()) {
+                break;
+            }
+            try {
+                m_diskCache.saveCacheFile(cacheName, scaler.scaleImage(file));
+                count++;
+            } catch (IOException e) {
+                LOG.warn(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_IMAGE_VARIANT_FAILED_2,
+                        file.getRootPath(),
+                        CmsImageLoader.getCacheParam(scaler)),
+                    e);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of images waiting for their variants to be created.<p>
+     *
+     * @return the number of images waiting for their variants to be created
+     */
+    public int getQueueSize() {
+
+        return m_executor.getQueue().size();
+    }
+
+    /**
+     * Returns the image scalers for the configured variants.<p>
+     *
+     * @return the image scalers for the configured variants
+     */
+    public List<CmsImageScaler> getVariants() {
+
+        return m_variants;
+    }
+
+    /**
+     * Queues the published images for the creation of their variants.<p>
+     *
+     * @see org.opencms.publish.CmsPublishEventAdapter#onFinish(org.opencms.publish.CmsPublishJobRunning)
+     */
+    @Override
+    public void onFinish(CmsPublishJobRunning publishJob) {
+
+        List<CmsResource> images = new ArrayList<CmsResource>();
+        for (CmsResource resource : publishJob.getPublishList().getFileList()) {
+            if ((resource.getTypeId() == CmsResourceTypeImage.getStaticTypeId())
+                && !resource.getState().isDeleted()) {
+                images.add(resource);
+            }
+        }
+        if (images.isEmpty() || m_variants.isEmpty()) {
+            return;
+        }
+        I_CmsReport report = publishJob.getReport();
+        if (report != null) {
+            report.println(
+                Messages.get().container(
+                    Messages.RPT_IMAGE_VARIANTS_SCHEDULED_2,
+                    Integer.valueOf(images.size() * m_scalers.size()),
+                    Integer.valueOf(images.size())),
+                I_CmsReport.FORMAT_NOTE);
+        }
+        for (final CmsResource image : images) {
+            try {
+                m_executor.execute(new Runnable() {
+
+                    public void run() {
+
+                        generateVariants(image.getStructureId());
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                LOG.warn(
+                    Messages.get().getBundle().key(Messages.LOG_IMAGE_VARIANTS_QUEUE_FULL_1, image.getRootPath()));
+            }
+        }
+    }
+
+    /**
+     * Shuts down the generator, queued images are discarded.<p>
+     */
+    public void shutdown() {
+
+        m_executor.shutdownNow();
+    }
+
+    /**
+     * Reads the online version of the given image and creates its variants.<p>
+     *
+     * @param structureId the structure id of the image
+     */
+    protected void generateVariants(CmsUUID structureId) {
+
+        try {
+            CmsObject cms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserExport());
+            CmsResource resource = cms.readResource(structureId, CmsResourceFilter.IGNORE_EXPIRATION);
+            generateVariants(cms.readFile(resource));
+        } catch (CmsException e) {
+            // the image may have been deleted or is not readable by the export user
+            LOG.debug(e.getLocalizedMessage(), e);
+        }
+    }
+
+    /**
+     * Pauses before the next variant, and waits until the scale operations for live requests are done.<p>
+     *
+     * @return <code>false</code> if the generator has been interrupted
+     */
+    private boolean awaitIdle() {
+
+        try {
+            if (m_pause > 0) {
+                Thread.sleep(m_pause);
+            }
+            while ((m_liveExecutor != null) && (m_liveExecutor.getPendingCount() > 0)) {
+                Thread.sleep(DEFAULT_PAUSE);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return true;
+    }
+}
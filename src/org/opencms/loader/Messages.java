@@ -85,6 +85,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_NO_FILE_NAME_AVAILABLE_FOR_PATTERN_1 = "ERR_NO_FILE_NAME_AVAILABLE_FOR_PATTERN_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_NO_IMAGE_WRITER_1 = "ERR_NO_IMAGE_WRITER_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_NONDEF_PROP_2 = "ERR_NONDEF_PROP_2";
 
@@ -178,6 +181,15 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_IMAGE_SCALING_ENABLED_1 = "INIT_IMAGE_SCALING_ENABLED_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_IMAGE_SCALING_FORMATS_1 = "INIT_IMAGE_SCALING_FORMATS_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_IMAGE_SCALING_THREADS_2 = "INIT_IMAGE_SCALING_THREADS_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_IMAGE_SCALING_VARIANTS_1 = "INIT_IMAGE_SCALING_VARIANTS_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_JSP_CACHE_SIZE_1 = "INIT_JSP_CACHE_SIZE_1";
 
@@ -208,6 +220,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_STARTING_LOADER_CONFIG_0 = "INIT_STARTING_LOADER_CONFIG_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_STREAMING_THRESHOLD_1 = "INIT_STREAMING_THRESHOLD_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_WEBAPP_PATH_1 = "INIT_WEBAPP_PATH_1";
 
@@ -238,6 +253,18 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_IGNORING_EXC_1 = "LOG_IGNORING_EXC_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_IMAGE_SCALING_SATURATED_1 = "LOG_IMAGE_SCALING_SATURATED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_IMAGE_SCALING_TIMEOUT_2 = "LOG_IMAGE_SCALING_TIMEOUT_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_IMAGE_VARIANTS_QUEUE_FULL_1 = "LOG_IMAGE_VARIANTS_QUEUE_FULL_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_IMAGE_VARIANT_FAILED_2 = "LOG_IMAGE_VARIANT_FAILED_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_JSP_PERMCHECK_4 = "LOG_JSP_PERMCHECK_4";
 
@@ -265,6 +292,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_X_DIRECTIVE_DETECTED_1 = "LOG_X_DIRECTIVE_DETECTED_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_IMAGE_VARIANTS_SCHEDULED_2 = "RPT_IMAGE_VARIANTS_SCHEDULED_2";
+
     /** Name of the used resource bundle. */
     private static final String BUNDLE_NAME = "org.opencms.loader.messages";
 
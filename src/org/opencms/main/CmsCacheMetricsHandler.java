@@ -0,0 +1,276 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+import org.opencms.file.CmsObject;
+import org.opencms.monitor.CmsMemoryCacheMetrics;
+import org.opencms.security.CmsDefaultAuthorizationHandler;
+import org.opencms.security.CmsRole;
+import org.opencms.util.CmsRequestUtil;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.logging.Log;
+
+import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+
+/**
+ * Exports the metrics of the caches registered with the memory monitor in the Prometheus text format.<p>
+ *
+ * Reachable under: "/opencms/opencms/handleCacheMetrics".<p>
+ *
+ * The metrics are only available for users with the {@link CmsRole#ROOT_ADMIN} role, either from the
+ * current session or authenticated with HTTP basic authentication. Successful basic authentications are
+ * remembered for a few minutes, so a scraper does not log in on every request. For each cache the number of entries,
+ * the limit and the estimated size are exported; hits, misses, evictions and load times are exported
+ * for all caches that record them.<p>
+ *
+ * @since 10.0.0
+ */
+public class CmsCacheMetricsHandler implements I_CmsRequestHandler {
+
+    /** The content type of the Prometheus text format. */
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=UTF-8";
+
+    /** The handler name. */
+    public static final String HANDLER_NAME = "CacheMetrics";
+
+    /** The handler names used by this request handler. */
+    private static final String[] HANDLER_NAMES = new String[] {HANDLER_NAME};
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsCacheMetricsHandler.class);
+
+    /** The maximum number of remembered basic authentications. */
+    private static final int AUTHENTICATIONS_MAX = 100;
+
+    /** The time in minutes a successful basic authentication is remembered. */
+    private static final int AUTHENTICATIONS_TIMEOUT = 5;
+
+    /** The prefix of all metric names. */
+    private static final String METRIC_PREFIX = "opencms_cache_";
+
+    /** The hashes of the recently accepted basic authorization headers. */
+    private Cache<String, Boolean> m_authentications;
+
+    /**
+     * Creates a new cache metrics handler.<p>
+     */
+    public CmsCacheMetricsHandler() {
+
+        m_authentications = CacheBuilder.newBuilder().maximumSize(AUTHENTICATIONS_MAX).expireAfterWrite(
+            AUTHENTICATIONS_TIMEOUT,
+            TimeUnit.MINUTES).build();
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsRequestHandler#getHandlerNames()
+     */
+    public String[] getHandlerNames() {
+
+        return HANDLER_NAMES;
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsRequestHandler#handle(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, java.lang.String)
+     */
+    public void handle(HttpServletRequest req, HttpServletResponse res, String name) throws IOException {
+
+        if (!isAuthorized(req)) {
+            res.setHeader(CmsRequestUtil.HEADER_WWW_AUTHENTICATE, "Basic realm=\"" + HANDLER_NAME + "\"");
+            res.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+        res.setContentType(CONTENT_TYPE);
+        CmsRequestUtil.setNoCacheHeaders(res);
+        PrintWriter writer = res.getWriter();
+        writer.write(getMetricsText(OpenCms.getMemoryMonitor().getCacheMetrics()));
+        writer.flush();
+    }
+
+    /**
+     * Returns the given cache metrics in the Prometheus text format.<p>
+     *
+     * @param metrics the cache metrics
+     *
+     * @return the cache metrics in the Prometheus text format
+     */
+    protected String getMetricsText(List<CmsMemoryCacheMetrics> metrics) {
+
+        StringBuffer result = new StringBuffer(4096);
+        appendHeader(result, "entries", "gauge", "Number of entries in the cache.");
+        for (CmsMemoryCacheMetrics cache : metrics) {
+            appendValue(result, "entries", cache, cache.getEntries());
+        }
+        appendHeader(result, "limit", "gauge", "Configured limit of the cache in entries or cache costs.");
+        for (CmsMemoryCacheMetrics cache : metrics) {
+            appendValue(result, "limit", cache, cache.getLimit());
+        }
+        appendHeader(result, "weighted_size_bytes", "gauge", "Estimated memory size of the cache.");
+        for (CmsMemoryCacheMetrics cache : metrics) {
+            appendValue(result, "weighted_size_bytes", cache, cache.getWeightedSize());
+        }
+        appendHeader(result, "hits_total", "counter", "Number of lookups that found a cached value.");
+        for (CmsMemoryCacheMetrics cache : metrics) {
+            appendValue(result, "hits_total", cache, cache.getHitCount());
+        }
+        appendHeader(result, "misses_total", "counter", "Number of lookups that did not find a cached value.");
+        for (CmsMemoryCacheMetrics cache : metrics) {
+            appendValue(result, "misses_total", cache, cache.getMissCount());
+        }
+        appendHeader(result, "evictions_total", "counter", "Number of entries evicted from the cache.");
+        for (CmsMemoryCacheMetrics cache : metrics) {
+            appendValue(result, "evictions_total", cache, cache.getEvictionCount());
+        }
+        appendHeader(result, "loads_total", "counter", "Number of values loaded into the cache after a miss.");
+        for (CmsMemoryCacheMetrics cache : metrics) {
+            appendValue(result, "loads_total", cache, cache.getLoadCount());
+        }
+        appendHeader(result, "load_seconds_total", "counter", "Time spent loading values after a miss.");
+        for (CmsMemoryCacheMetrics cache : metrics) {
+            long nanos = cache.getTotalLoadTime();
+            if (nanos >= 0) {
+                appendName(result, "load_seconds_total", cache);
+                result.append(nanos / 1.0e9).append('\n');
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Appends the help and type lines of a metric.<p>
+     *
+     * @param result the buffer to append to
+     * @param metric the metric name without prefix
+     * @param type the metric type
+     * @param help the help text
+     */
+    private void appendHeader(StringBuffer result, String metric, String type, String help) {
+
+        result.append("# HELP ").append(METRIC_PREFIX).append(metric).append(' ').append(help).append('\n');
+        result.append("# TYPE ").append(METRIC_PREFIX).append(metric).append(' ').append(type).append('\n');
+    }
+
+    /**
+     * Appends the metric name and the cache label.<p>
+     *
+     * @param result the buffer to append to
+     * @param metric the metric name without prefix
+     * @param cache the cache metrics
+     */
+    private void appendName(StringBuffer result, String metric, CmsMemoryCacheMetrics cache) {
+
+        result.append(METRIC_PREFIX).append(metric).append("{cache=\"");
+        String cacheName = cache.getCacheName();
+        for (int i = 0; i < cacheName.length(); i++) {
+            char c = cacheName.charAt(i);
+            if ((c == '\\') || (c == '"')) {
+                result.append('\\').append(c);
+            } else if (c == '\n') {
+                result.append("\\n");
+            } else {
+                result.append(c);
+            }
+        }
+        result.append("\"} ");
+    }
+
+    /**
+     * Appends a metric line, values less than zero are not recorded and skipped.<p>
+     *
+     * @param result the buffer to append to
+     * @param metric the metric name without prefix
+     * @param cache the cache metrics
+     * @param value the value
+     */
+    private void appendValue(StringBuffer result, String metric, CmsMemoryCacheMetrics cache, long value) {
+
+        if (value >= 0) {
+            appendName(result, metric, cache);
+            result.append(value).append('\n');
+        }
+    }
+
+    /**
+     * Checks if the user of the current session, or the user authenticated with HTTP basic authentication,
+     * has the {@link CmsRole#ROOT_ADMIN} role.<p>
+     *
+     * @param req the current request
+     *
+     * @return <code>true</code> if the metrics may be returned for the request
+     */
+    private boolean isAuthorized(HttpServletRequest req) {
+
+        CmsObject cms = OpenCmsCore.getInstance().initCmsObjectFromSession(req);
+        if (cms != null) {
+            return OpenCms.getRoleManager().hasRole(cms, CmsRole.ROOT_ADMIN);
+        }
+        String auth = req.getHeader(CmsDefaultAuthorizationHandler.HEADER_AUTHORIZATION);
+        if ((auth == null)
+            || !auth.toUpperCase().startsWith(CmsDefaultAuthorizationHandler.AUTHORIZATION_BASIC_PREFIX)) {
+            return false;
+        }
+        // only the hash of the header is kept, not the credentials
+        String key = Hashing.sha256().hashString(auth, Charsets.UTF_8).toString();
+        if (m_authentications.getIfPresent(key) != null) {
+            return true;
+        }
+        String token = new String(
+            Base64.decodeBase64(
+                auth.substring(CmsDefaultAuthorizationHandler.AUTHORIZATION_BASIC_PREFIX.length()).getBytes(
+                    Charsets.UTF_8)),
+            Charsets.UTF_8);
+        int pos = token.indexOf(CmsDefaultAuthorizationHandler.SEPARATOR_CREDENTIALS);
+        if (pos == -1) {
+            return false;
+        }
+        try {
+            // log in without creating a session, metrics are usually collected by a scraper
+            cms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserGuest());
+            cms.loginUser(token.substring(0, pos), token.substring(pos + 1));
+        } catch (CmsException e) {
+            LOG.debug(e.getLocalizedMessage(), e);
+            return false;
+        }
+        if (!OpenCms.getRoleManager().hasRole(cms, CmsRole.ROOT_ADMIN)) {
+            return false;
+        }
+        m_authentications.put(key, Boolean.TRUE);
+        return true;
+    }
+}
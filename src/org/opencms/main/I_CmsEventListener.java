@@ -255,6 +255,25 @@ public interface I_CmsEventListener {
      */
     int EVENT_REBUILD_SEARCHINDEXES = 32;
 
+    /**
+     * Event "a project was published on another cluster node".<p>
+     *
+     * This event is fired by the {@link org.opencms.cache.CmsCacheInvalidationBus} instead of
+     * {@link #EVENT_PUBLISH_PROJECT} for a publish of another node. Only caches handle this event,
+     * since export points, the static export and the search indexes have already been updated by the
+     * publishing node.<p>
+     *
+     * Event data:
+     * <ul>
+     * <li><code>{@link #KEY_PUBLISHID}</code>: the ID of the publish task in the publish history</li>
+     * <li><code>{@link #KEY_PROJECTID}</code>: the ID of the project that has been published</li>
+     * <li><code>{@link #KEY_CLUSTER_NODE}</code>: the ID of the cluster node that has published the project</li>
+     * </ul>
+     *
+     * @see #EVENT_PUBLISH_PROJECT
+     */
+    int EVENT_REMOTE_PUBLISH_PROJECT = 34;
+
     /**
      * Event "all properties (and so the resource itself, too) have been modified".<p>
      *
@@ -363,6 +382,9 @@ public interface I_CmsEventListener {
     /** Key name for passing a change int in the data map - see the <code>CHANGED_XXX</code> constants in {@link org.opencms.db.CmsDriverManager}. */
     String KEY_CHANGE = "change";
 
+    /** Key name for passing the id of the cluster node an event has been received from. */
+    String KEY_CLUSTER_NODE = "clusterNode";
+
     /** Key name for passing a database context in the data map. */
     String KEY_DBCONTEXT = "dbContext";
 
@@ -378,6 +378,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_ERROR_ADE_MANAGER_SHUTDOWN_1 = "LOG_ERROR_ADE_MANAGER_SHUTDOWN_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_ERROR_CACHE_INVALIDATION_SHUTDOWN_1 = "LOG_ERROR_CACHE_INVALIDATION_SHUTDOWN_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_ERROR_DERIGISTERING_JDBC_DRIVER_1 = "LOG_ERROR_DERIGISTERING_JDBC_DRIVER_1";
 
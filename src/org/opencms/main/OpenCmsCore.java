@@ -28,6 +28,8 @@
 package org.opencms.main;
 
 import org.opencms.ade.configuration.CmsADEManager;
+import org.opencms.cache.CmsCacheInvalidationBus;
+import org.opencms.cache.I_CmsCacheInvalidationTransport;
 import org.opencms.configuration.CmsConfigurationException;
 import org.opencms.configuration.CmsConfigurationManager;
 import org.opencms.configuration.CmsImportExportConfiguration;
@@ -178,6 +180,9 @@ public final class OpenCmsCore {
     /** The manager for page aliases. */
     private CmsAliasManager m_aliasManager;
 
+    /** The bus that sends cache invalidation events to the other cluster nodes. */
+    private CmsCacheInvalidationBus m_cacheInvalidationBus;
+
     /** The configured authorization handler. */
     private I_CmsAuthorizationHandler m_authorizationHandler;
 
@@ -1453,6 +1458,17 @@ public final class OpenCmsCore {
         } catch (Exception e) {
             CmsLog.INIT.error("Problem with clearing caches after initialization: " + e.getLocalizedMessage(), e);
         }
+
+        // start the cache invalidation bus after the initial cache flush, which must not be sent to the other nodes
+        I_CmsCacheInvalidationTransport invalidationTransport = systemConfiguration.getCacheInvalidationTransport();
+        if (invalidationTransport != null) {
+            m_cacheInvalidationBus = new CmsCacheInvalidationBus(invalidationTransport, getEventManager());
+            try {
+                m_cacheInvalidationBus.initialize();
+            } catch (CmsException e) {
+                throw new CmsInitException(Messages.get().container(Messages.ERR_CRITICAL_INIT_MANAGERS_0), e);
+            }
+        }
     }
 
     /**
@@ -1826,6 +1842,18 @@ public final class OpenCmsCore {
                         Messages.get().getBundle().key(Messages.LOG_ERROR_PUBLISH_SHUTDOWN_1, e.getMessage()),
                         e);
                 }
+                try {
+                    // stopped after the publish engine, so the events of the last publish job are still sent
+                    if (m_cacheInvalidationBus != null) {
+                        m_cacheInvalidationBus.shutDown();
+                    }
+                } catch (Throwable e) {
+                    CmsLog.INIT.error(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_ERROR_CACHE_INVALIDATION_SHUTDOWN_1,
+                            e.getMessage()),
+                        e);
+                }
                 try {
                     // search manager must be shut down early since there may be background indexing still ongoing
                     if (m_searchManager != null) {
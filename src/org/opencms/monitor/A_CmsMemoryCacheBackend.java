@@ -0,0 +1,133 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.main.CmsLog;
+import org.opencms.monitor.CmsMemoryMonitor.CacheType;
+import org.opencms.util.CmsStringUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Base class for memory monitor cache backends that handles the configuration parameters and the cache types.<p>
+ *
+ * @since 10.0.0
+ */
+public abstract class A_CmsMemoryCacheBackend implements I_CmsMemoryCacheBackend {
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(A_CmsMemoryCacheBackend.class);
+
+    /** The cache types this backend is used for. */
+    private List<CacheType> m_cacheTypes;
+
+    /** The configuration parameters. */
+    private CmsParameterConfiguration m_configuration;
+
+    /**
+     * Default constructor.<p>
+     */
+    protected A_CmsMemoryCacheBackend() {
+
+        m_cacheTypes = Collections.emptyList();
+        m_configuration = new CmsParameterConfiguration();
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#addConfigurationParameter(java.lang.String, java.lang.String)
+     */
+    public void addConfigurationParameter(String paramName, String paramValue) {
+
+        m_configuration.put(paramName, paramValue);
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsMemoryCacheBackend#getCacheTypes()
+     */
+    public List<CacheType> getCacheTypes() {
+
+        return m_cacheTypes;
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#getConfiguration()
+     */
+    public CmsParameterConfiguration getConfiguration() {
+
+        return m_configuration;
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#initConfiguration()
+     */
+    public void initConfiguration() {
+
+        m_configuration = CmsParameterConfiguration.unmodifiableVersion(m_configuration);
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsMemoryCacheBackend#setCacheTypes(java.lang.String)
+     */
+    public void setCacheTypes(String cacheTypes) {
+
+        List<CacheType> types = new ArrayList<CacheType>();
+        for (String name : CmsStringUtil.splitAsList(cacheTypes, ',', true)) {
+            if (CmsStringUtil.isEmptyOrWhitespaceOnly(name)) {
+                continue;
+            }
+            try {
+                types.add(CacheType.valueOf(name.toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                LOG.warn(Messages.get().getBundle().key(Messages.LOG_MM_UNKNOWN_CACHE_TYPE_1, name));
+            }
+        }
+        m_cacheTypes = Collections.unmodifiableList(types);
+    }
+
+    /**
+     * Returns the configured value for the given parameter and cache type.<p>
+     *
+     * A parameter named <code>&lt;name&gt;.&lt;CACHE_TYPE&gt;</code> overrides the parameter
+     * <code>&lt;name&gt;</code> for a single cache type.<p>
+     *
+     * @param name the parameter name
+     * @param type the cache type
+     * @param defaultValue the default value
+     *
+     * @return the configured value for the given parameter and cache type
+     */
+    protected int getInteger(String name, CacheType type, int defaultValue) {
+
+        return m_configuration.getInteger(name + "." + type.name(), m_configuration.getInteger(name, defaultValue));
+    }
+}
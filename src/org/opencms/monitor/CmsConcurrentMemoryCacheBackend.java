@@ -0,0 +1,279 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import org.opencms.monitor.CmsMemoryMonitor.CacheType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ForwardingConcurrentMap;
+
+/**
+ * Memory monitor cache backend that uses concurrent, size bounded Guava caches.<p>
+ *
+ * This is the default cache backend. Lookups do not block each other, and the caches
+ * record hit, miss and eviction statistics.<p>
+ *
+ * The following configuration parameters are supported, each of them can be overridden for
+ * a single cache type with a parameter named <code>&lt;parameter&gt;.&lt;CACHE_TYPE&gt;</code>:
+ * <ul>
+ * <li><code>concurrency-level</code>: the estimated number of concurrently updating threads, default is 16</li>
+ * <li><code>expire-after-access</code>: the number of seconds after the last access an entry is removed,
+ *     default is 0, which means entries are only removed to keep the cache within its size</li>
+ * </ul><p>
+ *
+ * @since 10.0.0
+ */
+public class CmsConcurrentMemoryCacheBackend extends A_CmsMemoryCacheBackend {
+
+    /**
+     * A concurrent cache map that records access statistics.<p>
+     *
+     * @param <V> the type of the cached values
+     */
+    protected static class CmsConcurrentMemoryCache<V> extends ForwardingConcurrentMap<String, V>
+    implements I_CmsMemoryCacheStatistics, RemovalListener<String, V> {
+
+        /** The Guava cache. */
+        private Cache<String, V> m_cache;
+
+        /** The load time tracker. */
+        private CmsMemoryCacheLoadTracker m_loadTracker = new CmsMemoryCacheLoadTracker();
+
+        /** The maximum number of entries. */
+        private int m_maxSize;
+
+        /** The estimated memory size of all cached entries. */
+        private AtomicLong m_weightedSize = new AtomicLong();
+
+        /**
+         * Creates a new concurrent cache.<p>
+         *
+         * @param builder the configured Guava cache builder
+         * @param maxSize the maximum number of entries
+         */
+        protected CmsConcurrentMemoryCache(CacheBuilder<Object, Object> builder, int maxSize) {
+
+            m_cache = builder.removalListener(this).build();
+            m_maxSize = maxSize;
+        }
+
+        /**
+         * @see com.google.common.collect.ForwardingMap#get(java.lang.Object)
+         */
+        @Override
+        public V get(Object key) {
+
+            if (!(key instanceof String)) {
+                return null;
+            }
+            // the map view does not record statistics, so use the cache directly
+            V value = m_cache.getIfPresent(key);
+            if (value == null) {
+                m_loadTracker.missed(key);
+            }
+            return value;
+        }
+
+        /**
+         * @see org.opencms.monitor.I_CmsMemoryCacheStatistics#getEvictionCount()
+         */
+        public long getEvictionCount() {
+
+            return m_cache.stats().evictionCount();
+        }
+
+        /**
+         * @see org.opencms.monitor.I_CmsMemoryCacheStatistics#getHitCount()
+         */
+        public long getHitCount() {
+
+            return m_cache.stats().hitCount();
+        }
+
+        /**
+         * @see org.opencms.monitor.I_CmsMemoryCacheStatistics#getLoadCount()
+         */
+        public long getLoadCount() {
+
+            return m_loadTracker.getLoadCount();
+        }
+
+        /**
+         * @see org.opencms.monitor.I_CmsMemoryCacheStatistics#getMaxSize()
+         */
+        public int getMaxSize() {
+
+            return m_maxSize;
+        }
+
+        /**
+         * @see org.opencms.monitor.I_CmsMemoryCacheStatistics#getMissCount()
+         */
+        public long getMissCount() {
+
+            return m_cache.stats().missCount();
+        }
+
+        /**
+         * @see org.opencms.monitor.I_CmsMemoryCacheStatistics#getTotalLoadTime()
+         */
+        public long getTotalLoadTime() {
+
+            return m_loadTracker.getTotalLoadTime();
+        }
+
+        /**
+         * @see org.opencms.monitor.I_CmsMemoryCacheStatistics#getWeightedSize()
+         */
+        public long getWeightedSize() {
+
+            return m_weightedSize.get();
+        }
+
+        /**
+         * Subtracts the weight of entries that are replaced, removed or evicted.<p>
+         *
+         * @see com.google.common.cache.RemovalListener#onRemoval(com.google.common.cache.RemovalNotification)
+         */
+        public void onRemoval(RemovalNotification<String, V> notification) {
+
+            m_weightedSize.addAndGet(-CmsMemoryWeigher.weigh(notification.getKey(), notification.getValue()));
+        }
+
+        /**
+         * @see com.google.common.collect.ForwardingMap#put(java.lang.Object, java.lang.Object)
+         */
+        @Override
+        public V put(String key, V value) {
+
+            m_loadTracker.loaded(key);
+            if (value == null) {
+                // the synchronized LRU maps accepted null values, a missing entry has the same effect
+                return remove(key);
+            }
+            m_weightedSize.addAndGet(CmsMemoryWeigher.weigh(key, value));
+            return super.put(key, value);
+        }
+
+        /**
+         * @see com.google.common.collect.ForwardingMap#putAll(java.util.Map)
+         */
+        @Override
+        public void putAll(Map<? extends String, ? extends V> map) {
+
+            standardPutAll(map);
+        }
+
+        /**
+         * @see com.google.common.collect.ForwardingConcurrentMap#putIfAbsent(java.lang.Object, java.lang.Object)
+         */
+        @Override
+        public V putIfAbsent(String key, V value) {
+
+            long weight = CmsMemoryWeigher.weigh(key, value);
+            m_weightedSize.addAndGet(weight);
+            V oldValue = super.putIfAbsent(key, value);
+            if (oldValue != null) {
+                // nothing has been added
+                m_weightedSize.addAndGet(-weight);
+            }
+            return oldValue;
+        }
+
+        /**
+         * @see com.google.common.collect.ForwardingConcurrentMap#replace(java.lang.Object, java.lang.Object)
+         */
+        @Override
+        public V replace(String key, V value) {
+
+            long weight = CmsMemoryWeigher.weigh(key, value);
+            m_weightedSize.addAndGet(weight);
+            V oldValue = super.replace(key, value);
+            if (oldValue == null) {
+                // nothing has been replaced
+                m_weightedSize.addAndGet(-weight);
+            }
+            return oldValue;
+        }
+
+        /**
+         * @see com.google.common.collect.ForwardingConcurrentMap#replace(java.lang.Object, java.lang.Object, java.lang.Object)
+         */
+        @Override
+        public boolean replace(String key, V oldValue, V newValue) {
+
+            long weight = CmsMemoryWeigher.weigh(key, newValue);
+            m_weightedSize.addAndGet(weight);
+            boolean replaced = super.replace(key, oldValue, newValue);
+            if (!replaced) {
+                m_weightedSize.addAndGet(-weight);
+            }
+            return replaced;
+        }
+
+        /**
+         * @see com.google.common.collect.ForwardingConcurrentMap#delegate()
+         */
+        @Override
+        protected ConcurrentMap<String, V> delegate() {
+
+            return m_cache.asMap();
+        }
+    }
+
+    /** Parameter name for the concurrency level. */
+    public static final String PARAM_CONCURRENCY_LEVEL = "concurrency-level";
+
+    /** Parameter name for the expiration time in seconds after the last access. */
+    public static final String PARAM_EXPIRE_AFTER_ACCESS = "expire-after-access";
+
+    /** The default concurrency level. */
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    /**
+     * @see org.opencms.monitor.I_CmsMemoryCacheBackend#createCache(org.opencms.monitor.CmsMemoryMonitor.CacheType, int)
+     */
+    public <V> Map<String, V> createCache(CacheType type, int maxSize) {
+
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().maximumSize(maxSize).concurrencyLevel(
+            Math.max(1, getInteger(PARAM_CONCURRENCY_LEVEL, type, DEFAULT_CONCURRENCY_LEVEL))).recordStats();
+        int expireAfterAccess = getInteger(PARAM_EXPIRE_AFTER_ACCESS, type, 0);
+        if (expireAfterAccess > 0) {
+            builder.expireAfterAccess(expireAfterAccess, TimeUnit.SECONDS);
+        }
+        return new CmsConcurrentMemoryCache<V>(builder, maxSize);
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import org.opencms.monitor.CmsMemoryMonitor.CacheType;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.collections.map.LRUMap;
+
+import com.google.common.collect.ForwardingMap;
+
+/**
+ * Memory monitor cache backend that uses synchronized commons-collections {@link LRUMap} instances.<p>
+ *
+ * This is the cache implementation used by OpenCms before cache backends became configurable.
+ * Every access to a cache locks the whole map.<p>
+ *
+ * @since 10.0.0
+ */
+public class CmsLruMemoryCacheBackend extends A_CmsMemoryCacheBackend {
+
+    /**
+     * A synchronized LRU map that records access statistics.<p>
+     *
+     * @param <V> the type of the cached values
+     */
+    protected static class CmsLruMemoryCache<V> extends ForwardingMap<String, V> implements I_CmsMemoryCacheStatistics {
+
+        /** The synchronized map. */
+        private Map<String, V> m_delegate;
+
+        /** The number of evicted entries. */
+        private AtomicLong m_evictionCount = new AtomicLong();
+
+        /** The number of cache hits. */
+        private AtomicLong m_hitCount = new AtomicLong();
+
+        /** The load time tracker. */
+        private CmsMemoryCacheLoadTracker m_loadTracker = new CmsMemoryCacheLoadTracker();
+
+        /** The maximum number of entries. */
+        private int m_maxSize;
+
+        /** The number of cache misses. */
+        private AtomicLong m_missCount = new AtomicLong();
+
+        /** The estimated memory size of all cached entries. */
+        private AtomicLong m_weightedSize = new AtomicLong();
+
+        /**
+         * Creates a new LRU cache.<p>
+         *
+         * @param maxSize the maximum number of entries
+         */
+        @SuppressWarnings("unchecked")
+        protected CmsLruMemoryCache(int maxSize) {
+
+            LRUMap lruMap = new LRUMap(maxSize) {
+
+                /** The serial version id. */
+                private static final long serialVersionUID = -2434733599624380580L;
+
+                /**
+                 * @see org.apache.commons.collections.map.LRUMap#removeLRU(org.apache.commons.collections.map.AbstractLinkedMap.LinkEntry)
+                 */
+                @Override
+                protected boolean removeLRU(LinkEntry entry) {
+
+                    m_evictionCount.incrementAndGet();
+                    m_weightedSize.addAndGet(-CmsMemoryWeigher.weigh(entry.getKey(), entry.getValue()));
+                    return true;
+                }
+            };
+            m_maxSize = lruMap.maxSize();
+            m_delegate = Collections.synchronizedMap(lruMap);
+        }
+
+        /**
+         * @see com.google.common.collect.ForwardingMap#clear()
+         */
+        @Override
+        public void clear() {
+
+            synchronized (m_delegate) {
+                m_delegate.clear();
+                m_weightedSize.set(0);
+            }
+        }
+
+        /**
+         * @see com.google.common.collect.ForwardingMap#get(java.lang.Object)
+         */
+        @Override
+        public V get(Object key) {
+
+            V value = m_delegate.get(key);
+            if (value != null) {
+                m_hitCount.incrementAndGet();
+            } else {
+                m_missCount.incrementAndGet();
+                m_loadTracker.missed(key);
+            }
+            return value;
+        }
+
+        /**
+         * @see org.opencms.monitor.I_CmsMemoryCacheStatistics#getEvictionCount()
+         */
+        public long getEvictionCount() {
+
+            return m_evictionCount.get();
+        }
+
+        /**
+         * @see org.opencms.monitor.I_CmsMemoryCacheStatistics#getHitCount()
+         */
+        public long getHitCount() {
+
+            return m_hitCount.get();
+        }
+
+        /**
+         * @see org.opencms.monitor.I_CmsMemoryCacheStatistics#getLoadCount()
+         */
+        public long getLoadCount() {
+
+            return m_loadTracker.getLoadCount();
+        }
+
+        /**
+         * @see org.opencms.monitor.I_CmsMemoryCacheStatistics#getMaxSize()
+         */
+        public int getMaxSize() {
+
+            return m_maxSize;
+        }
+
+        /**
+         * @see org.opencms.monitor.I_CmsMemoryCacheStatistics#getMissCount()
+         */
+        public long getMissCount() {
+
+            return m_missCount.get();
+        }
+
+        /**
+         * @see org.opencms.monitor.I_CmsMemoryCacheStatistics#getTotalLoadTime()
+         */
+        public long getTotalLoadTime() {
+
+            return m_loadTracker.getTotalLoadTime();
+        }
+
+        /**
+         * @see org.opencms.monitor.I_CmsMemoryCacheStatistics#getWeightedSize()
+         */
+        public long getWeightedSize() {
+
+            return m_weightedSize.get();
+        }
+
+        /**
+         * @see com.google.common.collect.ForwardingMap#put(java.lang.Object, java.lang.Object)
+         */
+        @Override
+        public V put(String key, V value) {
+
+            m_loadTracker.loaded(key);
+            long weight = CmsMemoryWeigher.weigh(key, value);
+            V oldValue;
+            synchronized (m_delegate) {
+                // evictions triggered by this put are subtracted in removeLRU while the lock is held
+                oldValue = m_delegate.put(key, value);
+                m_weightedSize.addAndGet(weight);
+            }
+            if (oldValue != null) {
+                m_weightedSize.addAndGet(-CmsMemoryWeigher.weigh(key, oldValue));
+            }
+            return oldValue;
+        }
+
+        /**
+         * @see com.google.common.collect.ForwardingMap#putAll(java.util.Map)
+         */
+        @Override
+        public void putAll(Map<? extends String, ? extends V> map) {
+
+            standardPutAll(map);
+        }
+
+        /**
+         * @see com.google.common.collect.ForwardingMap#remove(java.lang.Object)
+         */
+        @Override
+        public V remove(Object key) {
+
+            V oldValue = m_delegate.remove(key);
+            if (oldValue != null) {
+                m_weightedSize.addAndGet(-CmsMemoryWeigher.weigh(key, oldValue));
+            }
+            return oldValue;
+        }
+
+        /**
+         * @see com.google.common.collect.ForwardingMap#delegate()
+         */
+        @Override
+        protected Map<String, V> delegate() {
+
+            return m_delegate;
+        }
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsMemoryCacheBackend#createCache(org.opencms.monitor.CmsMemoryMonitor.CacheType, int)
+     */
+    public <V> Map<String, V> createCache(CacheType type, int maxSize) {
+
+        return new CmsLruMemoryCache<V>(maxSize);
+    }
+}
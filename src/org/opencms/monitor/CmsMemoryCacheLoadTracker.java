@@ -0,0 +1,118 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the time needed to load values into a cache.<p>
+ *
+ * The cache maps of the memory monitor are filled by their callers: a lookup that misses is followed by
+ * reading the value and putting it into the cache. The load time is the time between a miss and the
+ * following put of the same key in the same thread.<p>
+ *
+ * @since 10.0.0
+ */
+public class CmsMemoryCacheLoadTracker {
+
+    /** A pending load. */
+    private static class PendingLoad {
+
+        /** The key that was missed. */
+        protected Object m_key;
+
+        /** The time of the miss in nanoseconds. */
+        protected long m_start;
+    }
+
+    /** The number of completed loads. */
+    private AtomicLong m_loadCount = new AtomicLong();
+
+    /** The pending load of the current thread. */
+    private ThreadLocal<PendingLoad> m_pending = new ThreadLocal<PendingLoad>() {
+
+        /**
+         * @see java.lang.ThreadLocal#initialValue()
+         */
+        @Override
+        protected PendingLoad initialValue() {
+
+            return new PendingLoad();
+        }
+    };
+
+    /** The total load time in nanoseconds. */
+    private AtomicLong m_totalLoadTime = new AtomicLong();
+
+    /**
+     * Returns the number of completed loads.<p>
+     *
+     * @return the number of completed loads
+     */
+    public long getLoadCount() {
+
+        return m_loadCount.get();
+    }
+
+    /**
+     * Returns the total load time in nanoseconds.<p>
+     *
+     * @return the total load time in nanoseconds
+     */
+    public long getTotalLoadTime() {
+
+        return m_totalLoadTime.get();
+    }
+
+    /**
+     * Records that a value has been put into the cache.<p>
+     *
+     * @param key the key of the value
+     */
+    public void loaded(Object key) {
+
+        PendingLoad pending = m_pending.get();
+        if ((pending.m_key != null) && pending.m_key.equals(key)) {
+            m_totalLoadTime.addAndGet(System.nanoTime() - pending.m_start);
+            m_loadCount.incrementAndGet();
+            pending.m_key = null;
+        }
+    }
+
+    /**
+     * Records that a lookup in the cache did not find a value.<p>
+     *
+     * @param key the key that was looked up
+     */
+    public void missed(Object key) {
+
+        PendingLoad pending = m_pending.get();
+        pending.m_key = key;
+        pending.m_start = System.nanoTime();
+    }
+}
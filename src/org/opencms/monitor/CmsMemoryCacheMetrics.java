@@ -0,0 +1,219 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import org.opencms.cache.I_CmsLruCache;
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.apache.commons.collections.map.LRUMap;
+
+/**
+ * The metrics of a cache registered with the {@link CmsMemoryMonitor}.<p>
+ *
+ * The values are read from the registered object whenever a getter is called, so an instance
+ * also reflects caches that are replaced under the same name.
+ * Hits, misses, evictions and loads are only available for caches that implement
+ * {@link I_CmsMemoryCacheStatistics}.<p>
+ *
+ * @since 10.0.0
+ */
+public class CmsMemoryCacheMetrics implements CmsMemoryCacheMetricsMXBean {
+
+    /** The name the cache has been registered with. */
+    private String m_cacheName;
+
+    /** The memory monitor. */
+    private CmsMemoryMonitor m_monitor;
+
+    /**
+     * Creates the metrics for a registered cache.<p>
+     *
+     * @param monitor the memory monitor
+     * @param cacheName the name the cache has been registered with
+     */
+    public CmsMemoryCacheMetrics(CmsMemoryMonitor monitor, String cacheName) {
+
+        m_monitor = monitor;
+        m_cacheName = cacheName;
+    }
+
+    /**
+     * @see org.opencms.monitor.CmsMemoryCacheMetricsMXBean#getCacheName()
+     */
+    public String getCacheName() {
+
+        return m_cacheName;
+    }
+
+    /**
+     * @see org.opencms.monitor.CmsMemoryCacheMetricsMXBean#getEntries()
+     */
+    public long getEntries() {
+
+        Object obj = getCache();
+        if (obj instanceof I_CmsLruCache) {
+            return ((I_CmsLruCache)obj).size();
+        }
+        if (obj instanceof I_CmsOffHeapMemoryMonitorable) {
+            return ((I_CmsOffHeapMemoryMonitorable)obj).getOffHeapBlockCount();
+        }
+        if (obj instanceof Map) {
+            return ((Map<?, ?>)obj).size();
+        }
+        if (obj instanceof Collection) {
+            return ((Collection<?>)obj).size();
+        }
+        return -1;
+    }
+
+    /**
+     * @see org.opencms.monitor.CmsMemoryCacheMetricsMXBean#getEvictionCount()
+     */
+    public long getEvictionCount() {
+
+        I_CmsMemoryCacheStatistics stats = getStatistics();
+        return stats != null ? stats.getEvictionCount() : -1;
+    }
+
+    /**
+     * @see org.opencms.monitor.CmsMemoryCacheMetricsMXBean#getHitCount()
+     */
+    public long getHitCount() {
+
+        I_CmsMemoryCacheStatistics stats = getStatistics();
+        return stats != null ? stats.getHitCount() : -1;
+    }
+
+    /**
+     * @see org.opencms.monitor.CmsMemoryCacheMetricsMXBean#getHitRatio()
+     */
+    public double getHitRatio() {
+
+        I_CmsMemoryCacheStatistics stats = getStatistics();
+        if (stats == null) {
+            return -1;
+        }
+        long hits = stats.getHitCount();
+        long lookups = hits + stats.getMissCount();
+        return lookups > 0 ? (double)hits / lookups : -1;
+    }
+
+    /**
+     * @see org.opencms.monitor.CmsMemoryCacheMetricsMXBean#getLimit()
+     */
+    public long getLimit() {
+
+        Object obj = getCache();
+        if (obj instanceof I_CmsLruCache) {
+            return ((I_CmsLruCache)obj).getMaxCacheCosts();
+        }
+        if (obj instanceof I_CmsOffHeapMemoryMonitorable) {
+            return ((I_CmsOffHeapMemoryMonitorable)obj).getMaxOffHeapSize();
+        }
+        if (obj instanceof I_CmsMemoryCacheStatistics) {
+            return ((I_CmsMemoryCacheStatistics)obj).getMaxSize();
+        }
+        if (obj instanceof LRUMap) {
+            return ((LRUMap)obj).maxSize();
+        }
+        return -1;
+    }
+
+    /**
+     * @see org.opencms.monitor.CmsMemoryCacheMetricsMXBean#getLoadCount()
+     */
+    public long getLoadCount() {
+
+        I_CmsMemoryCacheStatistics stats = getStatistics();
+        return stats != null ? stats.getLoadCount() : -1;
+    }
+
+    /**
+     * @see org.opencms.monitor.CmsMemoryCacheMetricsMXBean#getMissCount()
+     */
+    public long getMissCount() {
+
+        I_CmsMemoryCacheStatistics stats = getStatistics();
+        return stats != null ? stats.getMissCount() : -1;
+    }
+
+    /**
+     * Returns the statistics of the cache.<p>
+     *
+     * @return the statistics of the cache, or <code>null</code> if the cache does not record statistics
+     */
+    public I_CmsMemoryCacheStatistics getStatistics() {
+
+        Object obj = getCache();
+        return obj instanceof I_CmsMemoryCacheStatistics ? (I_CmsMemoryCacheStatistics)obj : null;
+    }
+
+    /**
+     * Returns the total time spent loading values after a miss in nanoseconds.<p>
+     *
+     * @return the total time spent loading values after a miss in nanoseconds, or <code>-1</code> if not recorded
+     */
+    public long getTotalLoadTime() {
+
+        I_CmsMemoryCacheStatistics stats = getStatistics();
+        return stats != null ? stats.getTotalLoadTime() : -1;
+    }
+
+    /**
+     * @see org.opencms.monitor.CmsMemoryCacheMetricsMXBean#getTotalLoadTimeMillis()
+     */
+    public long getTotalLoadTimeMillis() {
+
+        long nanos = getTotalLoadTime();
+        return nanos >= 0 ? nanos / 1000000L : -1;
+    }
+
+    /**
+     * @see org.opencms.monitor.CmsMemoryCacheMetricsMXBean#getWeightedSize()
+     */
+    public long getWeightedSize() {
+
+        Object obj = getCache();
+        if (obj == null) {
+            return -1;
+        }
+        return m_monitor.getWeightedSize(obj);
+    }
+
+    /**
+     * Returns the currently registered cache object.<p>
+     *
+     * @return the currently registered cache object, or <code>null</code>
+     */
+    private Object getCache() {
+
+        return m_monitor.getMonitoredObject(m_cacheName);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+/**
+ * Management interface for the metrics of a cache registered with the {@link CmsMemoryMonitor}.<p>
+ *
+ * Values that are not recorded for a cache are returned as <code>-1</code>.<p>
+ *
+ * @since 10.0.0
+ */
+public interface CmsMemoryCacheMetricsMXBean {
+
+    /**
+     * Returns the name the cache has been registered with.<p>
+     *
+     * @return the name the cache has been registered with
+     */
+    String getCacheName();
+
+    /**
+     * Returns the number of entries in the cache.<p>
+     *
+     * @return the number of entries in the cache
+     */
+    long getEntries();
+
+    /**
+     * Returns the number of entries that have been evicted from the cache.<p>
+     *
+     * @return the number of entries that have been evicted from the cache
+     */
+    long getEvictionCount();
+
+    /**
+     * Returns the number of lookups that found a cached value.<p>
+     *
+     * @return the number of lookups that found a cached value
+     */
+    long getHitCount();
+
+    /**
+     * Returns the ratio of lookups that found a cached value.<p>
+     *
+     * @return the ratio of lookups that found a cached value, or <code>-1</code> if nothing has been looked up
+     */
+    double getHitRatio();
+
+    /**
+     * Returns the configured limit of the cache, in entries or in cache costs depending on the cache.<p>
+     *
+     * @return the configured limit of the cache
+     */
+    long getLimit();
+
+    /**
+     * Returns the number of values that have been loaded into the cache after a miss.<p>
+     *
+     * @return the number of values that have been loaded into the cache after a miss
+     */
+    long getLoadCount();
+
+    /**
+     * Returns the number of lookups that did not find a cached value.<p>
+     *
+     * @return the number of lookups that did not find a cached value
+     */
+    long getMissCount();
+
+    /**
+     * Returns the total time spent loading values after a miss in milliseconds.<p>
+     *
+     * @return the total time spent loading values after a miss in milliseconds
+     */
+    long getTotalLoadTimeMillis();
+
+    /**
+     * Returns the estimated memory size of the cache in bytes.<p>
+     *
+     * @return the estimated memory size of the cache in bytes
+     */
+    long getWeightedSize();
+}
@@ -27,15 +27,14 @@
 
 package org.opencms.monitor;
 
-import org.opencms.cache.CmsLruCache;
 import org.opencms.cache.CmsMemoryObjectCache;
 import org.opencms.cache.CmsVfsMemoryObjectCache;
+import org.opencms.cache.I_CmsLruCache;
 import org.opencms.configuration.CmsSystemConfiguration;
 import org.opencms.db.CmsCacheSettings;
 import org.opencms.db.CmsDriverManager;
 import org.opencms.db.CmsPublishedResource;
 import org.opencms.db.CmsSecurityManager;
-import org.opencms.file.CmsFile;
 import org.opencms.file.CmsGroup;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProject;
@@ -63,7 +62,6 @@ import org.opencms.security.CmsOrganizationalUnit;
 import org.opencms.security.CmsPermissionSet;
 import org.opencms.security.CmsRole;
 import org.opencms.security.I_CmsPermissionHandler;
-import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsDateUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
@@ -71,6 +69,7 @@ import org.opencms.util.PrintfFormat;
 import org.opencms.xml.CmsXmlContentDefinition;
 import org.opencms.xml.CmsXmlEntityResolver;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.ConcurrentModificationException;
@@ -82,6 +81,8 @@ import java.util.Locale;
 import java.util.Map;
 
 import javax.mail.internet.InternetAddress;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import org.apache.commons.collections.Buffer;
 import org.apache.commons.collections.buffer.SynchronizedBuffer;
@@ -211,6 +212,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** The memory monitor configuration. */
     private CmsMemoryMonitorConfiguration m_configuration;
 
+    /** The cache backend used for cache types without a configured backend. */
+    private I_CmsMemoryCacheBackend m_defaultCacheBackend;
+
     /** Map to keep track of disabled caches. */
     private Map<CacheType, Boolean> m_disabled = new HashMap<CacheType, Boolean>();
 
@@ -253,6 +257,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** Contains the object to be monitored. */
     private Map<String, Object> m_monitoredObjects;
 
+    /** The names of the registered cache metrics MXBeans. */
+    private Map<String, ObjectName> m_mxBeanNames;
+
     /** Buffer for publish history. */
     private Buffer m_publishHistory;
 
@@ -270,13 +277,16 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public CmsMemoryMonitor() {
 
-        m_monitoredObjects = new HashMap<String, Object>();
+        m_monitoredObjects = Collections.synchronizedMap(new HashMap<String, Object>());
+        m_mxBeanNames = new HashMap<String, ObjectName>();
     }
 
     /**
      * Returns the size of objects that are instances of
-     * <code>byte[]</code>, <code>String</code>, <code>CmsFile</code>,<code>I_CmsLruCacheObject</code>.<p>
-     * For other objects, a size of 0 is returned.
+     * <code>byte[]</code>, <code>String</code>, <code>I_CmsMemoryMonitorable</code> and some other OpenCms types.<p>
+     *
+     * Resources, files, properties and access control lists report their own size
+     * as {@link I_CmsMemoryMonitorable}. For other objects, a size of 8 is returned.
      *
      * @param obj the object
      * @return the size of the object
@@ -297,15 +307,6 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             return 24 + (int)(Math.ceil(((String)obj).length() / 8.0) * 16.0);
         }
 
-        if (obj instanceof CmsFile) {
-            CmsFile f = (CmsFile)obj;
-            if (f.getContents() != null) {
-                return f.getContents().length + 1024;
-            } else {
-                return 1024;
-            }
-        }
-
         if (obj instanceof CmsUUID) {
             return 184; // worst case if UUID String has been generated
         }
@@ -314,10 +315,6 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             return 16; // two ints
         }
 
-        if (obj instanceof CmsResource) {
-            return 1024; // estimated size
-        }
-
         if (obj instanceof CmsPublishedResource) {
             return 512; // estimated size
         }
@@ -338,27 +335,6 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             return 8; // one boolean
         }
 
-        if (obj instanceof CmsProperty) {
-            int size = 8;
-
-            CmsProperty property = (CmsProperty)obj;
-            size += getMemorySize(property.getName());
-
-            if (property.getResourceValue() != null) {
-                size += getMemorySize(property.getResourceValue());
-            }
-
-            if (property.getStructureValue() != null) {
-                size += getMemorySize(property.getStructureValue());
-            }
-
-            if (property.getOrigin() != null) {
-                size += getMemorySize(property.getOrigin());
-            }
-
-            return size;
-        }
-
         if (obj instanceof CmsPropertyDefinition) {
             int size = 8;
 
@@ -389,10 +365,6 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
 
                 Object obj = values[i];
 
-                if (obj instanceof CmsAccessControlList) {
-                    obj = ((CmsAccessControlList)obj).getPermissionMap();
-                }
-
                 if (obj instanceof CmsFlexCacheVariation) {
                     obj = ((CmsFlexCacheVariation)obj).m_map;
                 }
@@ -438,10 +410,6 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
 
                 Object obj = values[i];
 
-                if (obj instanceof CmsAccessControlList) {
-                    obj = ((CmsAccessControlList)obj).getPermissionMap();
-                }
-
                 if (obj instanceof CmsFlexCacheVariation) {
                     obj = ((CmsFlexCacheVariation)obj).m_map;
                 }
@@ -479,8 +447,8 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public static long getValueSize(Object obj) {
 
-        if (obj instanceof CmsLruCache) {
-            return ((CmsLruCache)obj).size();
+        if (obj instanceof I_CmsLruCache) {
+            return ((I_CmsLruCache)obj).size();
         }
 
         if (obj instanceof Map) {
@@ -1360,6 +1328,25 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return new ArrayList<CmsPublishJobInfoBean>(m_publishHistory);
     }
 
+    /**
+     * Returns the metrics of all monitored caches, sorted by their names.<p>
+     *
+     * @return the metrics of all monitored caches
+     */
+    public List<CmsMemoryCacheMetrics> getCacheMetrics() {
+
+        List<String> keyList;
+        synchronized (m_monitoredObjects) {
+            keyList = new ArrayList<String>(m_monitoredObjects.keySet());
+        }
+        Collections.sort(keyList);
+        List<CmsMemoryCacheMetrics> result = new ArrayList<CmsMemoryCacheMetrics>(keyList.size());
+        for (String key : keyList) {
+            result.add(new CmsMemoryCacheMetrics(this, key));
+        }
+        return result;
+    }
+
     /**
      * Returns the ACL cached with the given cache key or <code>null</code> if not found.<p>
      *
@@ -1728,6 +1715,24 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return m_memoryCurrent;
     }
 
+    /**
+     * Returns the total number of bytes stored outside of the Java heap by all monitored objects.<p>
+     *
+     * @return the total number of bytes stored outside of the Java heap
+     *
+     * @see I_CmsOffHeapMemoryMonitorable
+     */
+    public long getOffHeapMemorySize() {
+
+        long result = 0;
+        for (Object obj : new ArrayList<Object>(m_monitoredObjects.values())) {
+            if (obj instanceof I_CmsOffHeapMemoryMonitorable) {
+                result += ((I_CmsOffHeapMemoryMonitorable)obj).getOffHeapSize();
+            }
+        }
+        return result;
+    }
+
     /**
      * Initializes the monitor with the provided configuration.<p>
      *
@@ -1794,8 +1799,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         // create and register all system caches
 
         // temporary xml entities cache
-        Map<String, byte[]> xmlTemporaryCache = CmsCollectionsGenericWrapper.createLRUMap(128);
-        m_cacheXmlTemporaryEntity = Collections.synchronizedMap(xmlTemporaryCache);
+        m_cacheXmlTemporaryEntity = createCache(CacheType.XML_ENTITY_TEMP, 128);
         register(CmsXmlEntityResolver.class.getName() + ".xmlEntityTemporaryCache", m_cacheXmlTemporaryEntity);
 
         // permanent xml entities cache
@@ -1804,8 +1808,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         register(CmsXmlEntityResolver.class.getName() + ".xmlEntityPermanentCache", m_cacheXmlPermanentEntity);
 
         // xml content definitions cache
-        Map<String, CmsXmlContentDefinition> contentDefinitionsCache = CmsCollectionsGenericWrapper.createLRUMap(64);
-        m_cacheContentDefinitions = Collections.synchronizedMap(contentDefinitionsCache);
+        m_cacheContentDefinitions = createCache(CacheType.CONTENT_DEFINITION, 64);
         register(CmsXmlEntityResolver.class.getName() + ".contentDefinitionsCache", m_cacheContentDefinitions);
 
         // lock cache
@@ -1819,50 +1822,38 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         register(CmsLocaleManager.class.getName(), map);
 
         // permissions cache
-        Map<String, I_CmsPermissionHandler.CmsPermissionCheckResult> lruPermissions = CmsCollectionsGenericWrapper.createLRUMap(
-            cacheSettings.getPermissionCacheSize());
-        m_cachePermission = Collections.synchronizedMap(lruPermissions);
-        register(CmsSecurityManager.class.getName(), lruPermissions);
+        m_cachePermission = createCache(CacheType.PERMISSION, cacheSettings.getPermissionCacheSize());
+        register(CmsSecurityManager.class.getName(), m_cachePermission);
 
         // user cache
-        Map<String, CmsUser> lruUsers = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getUserCacheSize());
-        m_cacheUser = Collections.synchronizedMap(lruUsers);
-        register(CmsDriverManager.class.getName() + ".userCache", lruUsers);
+        m_cacheUser = createCache(CacheType.USER, cacheSettings.getUserCacheSize());
+        register(CmsDriverManager.class.getName() + ".userCache", m_cacheUser);
 
         // user list cache
-        Map<String, List<CmsUser>> lruUserList = CmsCollectionsGenericWrapper.createLRUMap(
-            cacheSettings.getUserCacheSize());
-        m_cacheUserList = Collections.synchronizedMap(lruUserList);
-        register(CmsDriverManager.class.getName() + ".userListCache", lruUserList);
+        m_cacheUserList = createCache(CacheType.USER_LIST, cacheSettings.getUserCacheSize());
+        register(CmsDriverManager.class.getName() + ".userListCache", m_cacheUserList);
 
         // group cache
-        Map<String, CmsGroup> lruGroup = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getGroupCacheSize());
-        m_cacheGroup = Collections.synchronizedMap(lruGroup);
-        register(CmsDriverManager.class.getName() + ".groupCache", lruGroup);
+        m_cacheGroup = createCache(CacheType.GROUP, cacheSettings.getGroupCacheSize());
+        register(CmsDriverManager.class.getName() + ".groupCache", m_cacheGroup);
 
         // organizational unit cache
-        Map<String, CmsOrganizationalUnit> lruOrgUnit = CmsCollectionsGenericWrapper.createLRUMap(
-            cacheSettings.getOrgUnitCacheSize());
-        m_cacheOrgUnit = Collections.synchronizedMap(lruOrgUnit);
-        register(CmsDriverManager.class.getName() + ".orgUnitCache", lruOrgUnit);
+        m_cacheOrgUnit = createCache(CacheType.ORG_UNIT, cacheSettings.getOrgUnitCacheSize());
+        register(CmsDriverManager.class.getName() + ".orgUnitCache", m_cacheOrgUnit);
 
         // user groups list cache
-        Map<String, List<CmsGroup>> lruUserGroups = CmsCollectionsGenericWrapper.createLRUMap(
-            cacheSettings.getUserGroupsCacheSize());
-        m_cacheUserGroups = Collections.synchronizedMap(lruUserGroups);
-        register(CmsDriverManager.class.getName() + ".userGroupsCache", lruUserGroups);
+        m_cacheUserGroups = createCache(CacheType.USERGROUPS, cacheSettings.getUserGroupsCacheSize());
+        register(CmsDriverManager.class.getName() + ".userGroupsCache", m_cacheUserGroups);
 
         // project cache
-        Map<String, CmsProject> lruProjects = CmsCollectionsGenericWrapper.createLRUMap(
-            cacheSettings.getProjectCacheSize());
-        m_cacheProject = Collections.synchronizedMap(lruProjects);
-        register(CmsDriverManager.class.getName() + ".projectCache", lruProjects);
+        m_cacheProject = createCache(CacheType.PROJECT, cacheSettings.getProjectCacheSize());
+        register(CmsDriverManager.class.getName() + ".projectCache", m_cacheProject);
 
         // project resources cache cache
-        Map<String, List<CmsResource>> lruProjectResources = CmsCollectionsGenericWrapper.createLRUMap(
+        m_cacheProjectResources = createCache(
+            CacheType.PROJECT_RESOURCES,
             cacheSettings.getProjectResourcesCacheSize());
-        m_cacheProjectResources = Collections.synchronizedMap(lruProjectResources);
-        register(CmsDriverManager.class.getName() + ".projectResourcesCache", lruProjectResources);
+        register(CmsDriverManager.class.getName() + ".projectResourcesCache", m_cacheProjectResources);
 
         // publish history
         int size = configuration.getPublishManager().getPublishHistorySize();
@@ -1876,50 +1867,36 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         register(CmsPublishQueue.class.getName() + ".publishQueue", buffer);
 
         // resource cache
-        Map<String, CmsResource> lruResources = CmsCollectionsGenericWrapper.createLRUMap(
-            cacheSettings.getResourceCacheSize());
-        m_cacheResource = Collections.synchronizedMap(lruResources);
-        register(CmsDriverManager.class.getName() + ".resourceCache", lruResources);
+        m_cacheResource = createCache(CacheType.RESOURCE, cacheSettings.getResourceCacheSize());
+        register(CmsDriverManager.class.getName() + ".resourceCache", m_cacheResource);
 
         // roles cache
-        Map<String, Boolean> lruHasRoles = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getRolesCacheSize());
-        m_cacheHasRoles = Collections.synchronizedMap(lruHasRoles);
-        register(CmsDriverManager.class.getName() + ".rolesCache", lruHasRoles);
+        m_cacheHasRoles = createCache(CacheType.HAS_ROLE, cacheSettings.getRolesCacheSize());
+        register(CmsDriverManager.class.getName() + ".rolesCache", m_cacheHasRoles);
 
         // role lists cache
-        Map<String, List<CmsRole>> lruRoleLists = CmsCollectionsGenericWrapper.createLRUMap(
-            cacheSettings.getRolesCacheSize());
-        m_cacheRoleLists = Collections.synchronizedMap(lruRoleLists);
-        register(CmsDriverManager.class.getName() + ".roleListsCache", lruRoleLists);
+        m_cacheRoleLists = createCache(CacheType.ROLE_LIST, cacheSettings.getRolesCacheSize());
+        register(CmsDriverManager.class.getName() + ".roleListsCache", m_cacheRoleLists);
 
         // resource list cache
-        Map<String, List<CmsResource>> lruResourceList = CmsCollectionsGenericWrapper.createLRUMap(
-            cacheSettings.getResourcelistCacheSize());
-        m_cacheResourceList = Collections.synchronizedMap(lruResourceList);
-        register(CmsDriverManager.class.getName() + ".resourceListCache", lruResourceList);
+        m_cacheResourceList = createCache(CacheType.RESOURCE_LIST, cacheSettings.getResourcelistCacheSize());
+        register(CmsDriverManager.class.getName() + ".resourceListCache", m_cacheResourceList);
 
         // property cache
-        Map<String, CmsProperty> lruProperty = CmsCollectionsGenericWrapper.createLRUMap(
-            cacheSettings.getPropertyCacheSize());
-        m_cacheProperty = Collections.synchronizedMap(lruProperty);
-        register(CmsDriverManager.class.getName() + ".propertyCache", lruProperty);
+        m_cacheProperty = createCache(CacheType.PROPERTY, cacheSettings.getPropertyCacheSize());
+        register(CmsDriverManager.class.getName() + ".propertyCache", m_cacheProperty);
 
         // property list cache
-        Map<String, List<CmsProperty>> lruPropertyList = CmsCollectionsGenericWrapper.createLRUMap(
-            cacheSettings.getPropertyListsCacheSize());
-        m_cachePropertyList = Collections.synchronizedMap(lruPropertyList);
-        register(CmsDriverManager.class.getName() + ".propertyListCache", lruPropertyList);
+        m_cachePropertyList = createCache(CacheType.PROPERTY_LIST, cacheSettings.getPropertyListsCacheSize());
+        register(CmsDriverManager.class.getName() + ".propertyListCache", m_cachePropertyList);
 
         // published resources list cache
-        Map<String, List<CmsPublishedResource>> lruPublishedResources = CmsCollectionsGenericWrapper.createLRUMap(5);
-        m_cachePublishedResources = Collections.synchronizedMap(lruPublishedResources);
-        register(CmsDriverManager.class.getName() + ".publishedResourcesCache", lruPublishedResources);
+        m_cachePublishedResources = createCache(CacheType.PUBLISHED_RESOURCES, 5);
+        register(CmsDriverManager.class.getName() + ".publishedResourcesCache", m_cachePublishedResources);
 
         // acl cache
-        Map<String, CmsAccessControlList> lruAcl = CmsCollectionsGenericWrapper.createLRUMap(
-            cacheSettings.getAclCacheSize());
-        m_cacheAccessControlList = Collections.synchronizedMap(lruAcl);
-        register(CmsDriverManager.class.getName() + ".accessControlListCache", lruAcl);
+        m_cacheAccessControlList = createCache(CacheType.ACL, cacheSettings.getAclCacheSize());
+        register(CmsDriverManager.class.getName() + ".accessControlListCache", m_cacheAccessControlList);
 
         // vfs object cache
         Map<String, Object> vfsObjectCache = new HashMap<String, Object>();
@@ -2079,6 +2056,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
 
         if (enabled()) {
             m_monitoredObjects.put(objectName, object);
+            if ((m_configuration == null) || m_configuration.isJmxEnabled()) {
+                registerMXBean(objectName);
+            }
         }
     }
 
@@ -2172,6 +2152,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         for (CacheType type : CacheType.values()) {
             flushCache(type);
         }
+        unregisterMXBeans();
     }
 
     /**
@@ -2306,10 +2287,44 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         System.gc();
     }
 
+    /**
+     * Creates a bounded system cache with the cache backend configured for the given cache type.<p>
+     *
+     * If no backend is configured for the cache type, a {@link CmsConcurrentMemoryCacheBackend} is used.<p>
+     *
+     * @param <V> the type of the cached values
+     * @param type the cache type
+     * @param maxSize the maximum number of entries in the cache
+     *
+     * @return the new cache
+     */
+    protected <V> Map<String, V> createCache(CacheType type, int maxSize) {
+
+        I_CmsMemoryCacheBackend backend = m_configuration.getCacheBackend(type);
+        if (backend == null) {
+            if (m_defaultCacheBackend == null) {
+                CmsConcurrentMemoryCacheBackend defaultBackend = new CmsConcurrentMemoryCacheBackend();
+                defaultBackend.initConfiguration();
+                m_defaultCacheBackend = defaultBackend;
+            }
+            backend = m_defaultCacheBackend;
+        }
+        if (CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(
+                Messages.get().getBundle().key(
+                    Messages.LOG_MM_CACHE_BACKEND_2,
+                    backend.getClass().getName(),
+                    type.name()));
+        }
+        return backend.createCache(type, maxSize);
+    }
+
     /**
      * Returns the cache costs of a monitored object.<p>
      *
-     * <code>obj</code> must be of type {@link CmsLruCache}.<p>
+     * <code>obj</code> must be of type {@link I_CmsLruCache}.
+     * The data of an {@link I_CmsOffHeapMemoryMonitorable} is not included,
+     * since it does not use any heap memory.<p>
      *
      * @param obj the object
      *
@@ -2318,8 +2333,8 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     protected long getCosts(Object obj) {
 
         long costs = 0;
-        if (obj instanceof CmsLruCache) {
-            costs = ((CmsLruCache)obj).getObjectCosts();
+        if (obj instanceof I_CmsLruCache) {
+            costs = ((I_CmsLruCache)obj).getObjectCosts();
             if (costs < 0) {
                 costs = 0;
             }
@@ -2331,7 +2346,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /**
      * Returns the number of items within a monitored object.<p>
      *
-     * <code>obj</code> must be of type {@link CmsLruCache} or {@link Map}.<p>
+     * <code>obj</code> must be of type {@link I_CmsLruCache}, {@link I_CmsOffHeapMemoryMonitorable} or {@link Map}.<p>
      *
      * @param obj the object
      *
@@ -2339,8 +2354,11 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     protected String getItems(Object obj) {
 
-        if (obj instanceof CmsLruCache) {
-            return Integer.toString(((CmsLruCache)obj).size());
+        if (obj instanceof I_CmsLruCache) {
+            return Integer.toString(((I_CmsLruCache)obj).size());
+        }
+        if (obj instanceof I_CmsOffHeapMemoryMonitorable) {
+            return Integer.toString(((I_CmsOffHeapMemoryMonitorable)obj).getOffHeapBlockCount());
         }
         if (obj instanceof Map) {
             return Integer.toString(((Map<?, ?>)obj).size());
@@ -2417,7 +2435,8 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /**
      * Returns the max costs for all items within a monitored object.<p>
      *
-     * <code>obj</code> must be of type {@link CmsLruCache} or {@link LRUMap}.<p>
+     * <code>obj</code> must be of type {@link I_CmsLruCache}, {@link I_CmsOffHeapMemoryMonitorable},
+     * {@link I_CmsMemoryCacheStatistics} or {@link LRUMap}.<p>
      *
      * @param obj the object
      *
@@ -2425,8 +2444,14 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     protected String getLimit(Object obj) {
 
-        if (obj instanceof CmsLruCache) {
-            return Long.toString(((CmsLruCache)obj).getMaxCacheCosts());
+        if (obj instanceof I_CmsLruCache) {
+            return Long.toString(((I_CmsLruCache)obj).getMaxCacheCosts());
+        }
+        if (obj instanceof I_CmsOffHeapMemoryMonitorable) {
+            return Long.toString(((I_CmsOffHeapMemoryMonitorable)obj).getMaxOffHeapSize());
+        }
+        if (obj instanceof I_CmsMemoryCacheStatistics) {
+            return Integer.toString(((I_CmsMemoryCacheStatistics)obj).getMaxSize());
         }
         if (obj instanceof LRUMap) {
             return Integer.toString(((LRUMap)obj).maxSize());
@@ -2435,6 +2460,37 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return "-";
     }
 
+    /**
+     * Returns the monitored object registered with the given name.<p>
+     *
+     * @param objectName the name of the monitored object
+     *
+     * @return the monitored object, or <code>null</code> if no object is registered with the given name
+     */
+    protected Object getMonitoredObject(String objectName) {
+
+        return m_monitoredObjects.get(objectName);
+    }
+
+    /**
+     * Returns the estimated memory size of a monitored object.<p>
+     *
+     * Caches that implement {@link I_CmsMemoryCacheStatistics} keep a running total of their
+     * weighted entries, which is returned without walking the cache. For all other objects
+     * the size of the keys, values and cache costs is calculated.<p>
+     *
+     * @param obj the monitored object
+     *
+     * @return the estimated memory size of the monitored object
+     */
+    protected long getWeightedSize(Object obj) {
+
+        if (obj instanceof I_CmsMemoryCacheStatistics) {
+            return ((I_CmsMemoryCacheStatistics)obj).getWeightedSize();
+        }
+        return getKeySize(obj) + getValueSize(obj) + getCosts(obj);
+    }
+
     /**
      * Sends a warning or status email with OpenCms Memory information.<p>
      *
@@ -2529,7 +2585,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             PrintfFormat form = new PrintfFormat("%9s");
             Object obj = m_monitoredObjects.get(key);
 
-            long size = getKeySize(obj) + getValueSize(obj) + getCosts(obj);
+            long size = getWeightedSize(obj);
             totalSize += size;
 
             content += new PrintfFormat("%-42.42s").sprintf(shortKey)
@@ -2544,7 +2600,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                 + form.sprintf(Long.toString(size))
                 + "\n";
         }
-        content += "\nTotal size of cache memory monitored: " + totalSize + " (" + (totalSize / 1048576) + ")\n\n";
+        content += "\nTotal size of cache memory monitored: " + totalSize + " (" + (totalSize / 1048576) + ")\n";
+        long offHeapSize = getOffHeapMemorySize();
+        content += "Total size of off-heap memory monitored: " + offHeapSize + " (" + (offHeapSize / 1048576) + ")\n\n";
 
         String from = m_configuration.getEmailSender();
         List<InternetAddress> receivers = new ArrayList<InternetAddress>();
@@ -2638,7 +2696,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                 String key = keys.next();
                 Object obj = m_monitoredObjects.get(key);
 
-                long size = getKeySize(obj) + getValueSize(obj) + getCosts(obj);
+                long size = getWeightedSize(obj);
                 totalSize += size;
 
                 PrintfFormat name1 = new PrintfFormat("%-80s");
@@ -2680,6 +2738,15 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                         new Long(m_memoryAverage.getUsage()),
                         new Integer(m_memoryAverage.getCount())}));
 
+            long offHeapSize = getOffHeapMemorySize();
+            if (offHeapSize > 0) {
+                LOG.info(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_MM_OFFHEAP_STATUS_2,
+                        new Long(offHeapSize),
+                        new Long(offHeapSize / 1048576)));
+            }
+
             CmsSessionManager sm = OpenCms.getSessionManager();
 
             if (sm != null) {
@@ -2727,4 +2794,60 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_memoryCurrent.update();
         m_memoryAverage.calculateAverage(m_memoryCurrent);
     }
+
+    /**
+     * Registers a metrics MXBean for the monitored object with the given name.<p>
+     *
+     * @param objectName the name of the monitored object
+     */
+    private void registerMXBean(String objectName) {
+
+        synchronized (m_mxBeanNames) {
+            if (m_mxBeanNames.containsKey(objectName)) {
+                // the metrics always read the currently registered object
+                return;
+            }
+            try {
+                StringBuffer name = new StringBuffer("org.opencms:type=Cache");
+                String webapp = OpenCms.getSystemInfo().getWebApplicationName();
+                if (webapp != null) {
+                    name.append(",webapp=").append(ObjectName.quote(webapp));
+                }
+                name.append(",name=").append(ObjectName.quote(objectName));
+                ObjectName mxBeanName = new ObjectName(name.toString());
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                if (server.isRegistered(mxBeanName)) {
+                    server.unregisterMBean(mxBeanName);
+                }
+                server.registerMBean(new CmsMemoryCacheMetrics(this, objectName), mxBeanName);
+                m_mxBeanNames.put(objectName, mxBeanName);
+            } catch (Exception e) {
+                LOG.warn(Messages.get().getBundle().key(Messages.LOG_MM_REGISTER_MXBEAN_FAILED_1, objectName), e);
+            }
+        }
+    }
+
+    /**
+     * Unregisters all metrics MXBeans registered by this monitor.<p>
+     */
+    private void unregisterMXBeans() {
+
+        synchronized (m_mxBeanNames) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            for (ObjectName mxBeanName : m_mxBeanNames.values()) {
+                try {
+                    if (server.isRegistered(mxBeanName)) {
+                        server.unregisterMBean(mxBeanName);
+                    }
+                } catch (Exception e) {
+                    LOG.warn(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_MM_UNREGISTER_MXBEAN_FAILED_1,
+                            mxBeanName.getCanonicalName()),
+                        e);
+                }
+            }
+            m_mxBeanNames.clear();
+        }
+    }
 }
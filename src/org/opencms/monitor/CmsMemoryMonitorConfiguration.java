@@ -27,6 +27,7 @@
 
 package org.opencms.monitor;
 
+import org.opencms.monitor.CmsMemoryMonitor.CacheType;
 import org.opencms.util.CmsStringUtil;
 
 import java.util.ArrayList;
@@ -40,6 +41,9 @@ import java.util.List;
  */
 public class CmsMemoryMonitorConfiguration {
 
+    /** The configured cache backends. */
+    private List<I_CmsMemoryCacheBackend> m_cacheBackends;
+
     /** The memory monitor class name. */
     private String m_className;
 
@@ -52,6 +56,9 @@ public class CmsMemoryMonitorConfiguration {
     /** Sender for status emails. */
     private String m_emailSender;
 
+    /** Indicates if the cache metrics are registered as MXBeans. */
+    private boolean m_jmxEnabled;
+
     /** The interval to use for the logging. */
     private int m_logInterval;
 
@@ -66,7 +73,19 @@ public class CmsMemoryMonitorConfiguration {
      */
     public CmsMemoryMonitorConfiguration() {
 
+        m_cacheBackends = new ArrayList<I_CmsMemoryCacheBackend>();
         m_emailReceiver = new ArrayList<String>();
+        m_jmxEnabled = true;
+    }
+
+    /**
+     * Adds a cache backend.<p>
+     *
+     * @param backend the cache backend to add
+     */
+    public void addCacheBackend(I_CmsMemoryCacheBackend backend) {
+
+        m_cacheBackends.add(backend);
     }
 
     /**
@@ -79,6 +98,39 @@ public class CmsMemoryMonitorConfiguration {
         m_emailReceiver.add(emailReceiver);
     }
 
+    /**
+     * Returns the cache backend to use for the given cache type.<p>
+     *
+     * A backend configured for the cache type is preferred over a backend without cache types.<p>
+     *
+     * @param type the cache type
+     *
+     * @return the cache backend to use for the given cache type, or <code>null</code> if none is configured
+     */
+    public I_CmsMemoryCacheBackend getCacheBackend(CacheType type) {
+
+        I_CmsMemoryCacheBackend defaultBackend = null;
+        for (I_CmsMemoryCacheBackend backend : m_cacheBackends) {
+            if (backend.getCacheTypes().contains(type)) {
+                return backend;
+            }
+            if ((defaultBackend == null) && backend.getCacheTypes().isEmpty()) {
+                defaultBackend = backend;
+            }
+        }
+        return defaultBackend;
+    }
+
+    /**
+     * Returns the configured cache backends.<p>
+     *
+     * @return the configured cache backends
+     */
+    public List<I_CmsMemoryCacheBackend> getCacheBackends() {
+
+        return Collections.unmodifiableList(m_cacheBackends);
+    }
+
     /**
      * Returns the name of the memory monitor class.<p>
      *
@@ -180,6 +232,16 @@ public class CmsMemoryMonitorConfiguration {
         m_warningInterval = Integer.parseInt(warningInterval);
     }
 
+    /**
+     * Returns if the cache metrics are registered as MXBeans.<p>
+     *
+     * @return <code>true</code> if the cache metrics are registered as MXBeans
+     */
+    public boolean isJmxEnabled() {
+
+        return m_jmxEnabled;
+    }
+
     /**
      * Sets the emailSender.<p>
      *
@@ -189,4 +251,14 @@ public class CmsMemoryMonitorConfiguration {
 
         m_emailSender = emailSender;
     }
+
+    /**
+     * Sets if the cache metrics are registered as MXBeans.<p>
+     *
+     * @param jmxEnabled <code>"true"</code> if the cache metrics should be registered as MXBeans
+     */
+    public void setJmxEnabled(String jmxEnabled) {
+
+        m_jmxEnabled = Boolean.valueOf(jmxEnabled.trim()).booleanValue();
+    }
 }
@@ -0,0 +1,129 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Map;
+
+/**
+ * Estimates the retained memory size of cached objects.<p>
+ *
+ * Objects that implement {@link I_CmsMemoryMonitorable} report their own size, which is how the
+ * frequently cached types like resources, properties, access control lists, flex cache entries and
+ * XML content definitions are weighed. Collections and maps are weighed by their elements, all other
+ * objects with {@link CmsMemoryMonitor#getMemorySize(Object)}.<p>
+ *
+ * The caches of the memory monitor weigh their entries when they are inserted and removed and keep a running
+ * total, so that the monitor does not need to walk the caches to report their size. This requires cached
+ * values not to change their size while they are cached, which holds for the values OpenCms caches.<p>
+ *
+ * @since 10.0.0
+ */
+public final class CmsMemoryWeigher {
+
+    /** The estimated overhead of a collection element or a map entry. */
+    private static final int ENTRY_OVERHEAD = 32;
+
+    /** The maximum depth of nested collections that are weighed. */
+    private static final int MAX_DEPTH = 5;
+
+    /**
+     * Hides the public constructor.<p>
+     */
+    private CmsMemoryWeigher() {
+
+        // empty
+    }
+
+    /**
+     * Returns the estimated retained size of the given object.<p>
+     *
+     * @param obj the object to weigh
+     *
+     * @return the estimated retained size of the given object
+     */
+    public static long weigh(Object obj) {
+
+        return weighNested(obj, 1);
+    }
+
+    /**
+     * Returns the estimated retained size of a cache entry.<p>
+     *
+     * @param key the key of the entry
+     * @param value the value of the entry
+     *
+     * @return the estimated retained size of the cache entry
+     */
+    public static long weigh(Object key, Object value) {
+
+        return ENTRY_OVERHEAD + weighNested(key, 1) + weighNested(value, 1);
+    }
+
+    /**
+     * Returns the estimated retained size of the given object.<p>
+     *
+     * @param obj the object to weigh
+     * @param depth the current depth of nested collections
+     *
+     * @return the estimated retained size of the given object
+     */
+    private static long weighNested(Object obj, int depth) {
+
+        if (obj == null) {
+            return 0;
+        }
+        if (obj instanceof I_CmsMemoryMonitorable) {
+            return ((I_CmsMemoryMonitorable)obj).getMemorySize();
+        }
+        try {
+            if ((obj instanceof Collection) && (depth < MAX_DEPTH)) {
+                long size = ENTRY_OVERHEAD;
+                for (Object element : ((Collection<?>)obj).toArray()) {
+                    size += 8 + weighNested(element, depth + 1);
+                }
+                return size;
+            }
+            if ((obj instanceof Map) && (depth < MAX_DEPTH)) {
+                long size = ENTRY_OVERHEAD;
+                for (Object entry : ((Map<?, ?>)obj).entrySet().toArray()) {
+                    Map.Entry<?, ?> mapEntry = (Map.Entry<?, ?>)entry;
+                    size += ENTRY_OVERHEAD
+                        + weighNested(mapEntry.getKey(), depth + 1)
+                        + weighNested(mapEntry.getValue(), depth + 1);
+                }
+                return size;
+            }
+        } catch (ConcurrentModificationException e) {
+            // the collection has been modified while it was weighed
+            return ENTRY_OVERHEAD;
+        }
+        return CmsMemoryMonitor.getMemorySize(obj);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import org.opencms.configuration.I_CmsConfigurationParameterHandler;
+import org.opencms.monitor.CmsMemoryMonitor.CacheType;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Describes a backend that creates the bounded system caches managed by the {@link CmsMemoryMonitor}.<p>
+ *
+ * A backend is configured in the <code>&lt;memorymonitor&gt;</code> node of <code>opencms-system.xml</code>.
+ * It may be restricted to a list of cache types, a backend without cache types is used for all
+ * cache types that are not assigned to another backend.<p>
+ *
+ * All maps created by a backend must be safe for concurrent access.<p>
+ *
+ * @since 10.0.0
+ */
+public interface I_CmsMemoryCacheBackend extends I_CmsConfigurationParameterHandler {
+
+    /**
+     * Creates a new thread safe cache map for the given cache type.<p>
+     *
+     * @param <V> the type of the cached values
+     * @param type the type of the cache
+     * @param maxSize the maximum number of entries in the cache
+     *
+     * @return a new thread safe cache map
+     */
+    <V> Map<String, V> createCache(CacheType type, int maxSize);
+
+    /**
+     * Returns the cache types this backend is used for.<p>
+     *
+     * @return the cache types this backend is used for, an empty list means this is the default backend
+     */
+    List<CacheType> getCacheTypes();
+
+    /**
+     * Sets the cache types this backend is used for.<p>
+     *
+     * @param cacheTypes a comma separated list of {@link CacheType} names
+     */
+    void setCacheTypes(String cacheTypes);
+}
@@ -0,0 +1,90 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+/**
+ * Describes a cache map that records access statistics.<p>
+ *
+ * @since 10.0.0
+ */
+public interface I_CmsMemoryCacheStatistics {
+
+    /**
+     * Returns the number of entries that have been evicted from the cache.<p>
+     *
+     * @return the number of entries that have been evicted from the cache
+     */
+    long getEvictionCount();
+
+    /**
+     * Returns the number of lookups that found a cached value.<p>
+     *
+     * @return the number of lookups that found a cached value
+     */
+    long getHitCount();
+
+    /**
+     * Returns the number of values that have been loaded into the cache after a miss.<p>
+     *
+     * @return the number of values that have been loaded into the cache after a miss
+     */
+    long getLoadCount();
+
+    /**
+     * Returns the maximum number of entries in the cache.<p>
+     *
+     * @return the maximum number of entries in the cache
+     */
+    int getMaxSize();
+
+    /**
+     * Returns the number of lookups that did not find a cached value.<p>
+     *
+     * @return the number of lookups that did not find a cached value
+     */
+    long getMissCount();
+
+    /**
+     * Returns the total time spent loading values after a miss in nanoseconds.<p>
+     *
+     * @return the total time spent loading values after a miss in nanoseconds
+     *
+     * @see CmsMemoryCacheLoadTracker
+     */
+    long getTotalLoadTime();
+
+    /**
+     * Returns the estimated memory size of all cached entries in bytes.<p>
+     *
+     * Entries are weighed with {@link CmsMemoryWeigher} when they are added to the cache,
+     * and the total is kept up to date as entries are replaced, removed or evicted.<p>
+     *
+     * @return the estimated memory size of all cached entries in bytes
+     */
+    long getWeightedSize();
+}
@@ -43,6 +43,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_CLEAR_CACHE_MEM_CONS_0 = "LOG_CLEAR_CACHE_MEM_CONS_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_CACHE_BACKEND_2 = "LOG_MM_CACHE_BACKEND_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_CONNECTIONS_3 = "LOG_MM_CONNECTIONS_3";
 
@@ -76,6 +79,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_NOWARN_STATUS_5 = "LOG_MM_NOWARN_STATUS_5";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_OFFHEAP_STATUS_2 = "LOG_MM_OFFHEAP_STATUS_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_REGISTER_MXBEAN_FAILED_1 = "LOG_MM_REGISTER_MXBEAN_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_SESSION_STAT_3 = "LOG_MM_SESSION_STAT_3";
 
@@ -85,6 +94,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_STATUS_EMAIL_SENT_0 = "LOG_MM_STATUS_EMAIL_SENT_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_UNKNOWN_CACHE_TYPE_1 = "LOG_MM_UNKNOWN_CACHE_TYPE_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_UNREGISTER_MXBEAN_FAILED_1 = "LOG_MM_UNREGISTER_MXBEAN_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_WARNING_EMAIL_SENT_0 = "LOG_MM_WARNING_EMAIL_SENT_0";
 
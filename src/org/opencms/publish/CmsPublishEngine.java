@@ -50,16 +50,21 @@ import org.opencms.security.CmsAuthentificationException;
 import org.opencms.security.CmsRole;
 import org.opencms.util.CmsUUID;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.commons.logging.Log;
 
 /**
  * This class is responsible for the publish process.<p>
  *
+ * Depending on the configured number of publish threads, several publish jobs may run concurrently,
+ * as long as their publish lists do not overlap. See {@link CmsPublishScheduler} for details.<p>
+ *
  * @since 6.5.5
  */
 public final class CmsPublishEngine {
@@ -70,9 +75,6 @@ public final class CmsPublishEngine {
     /** The id of the admin user. */
     private CmsUUID m_adminUserId;
 
-    /** The current running publish job. */
-    private CmsPublishThread m_currentPublishThread;
-
     /** The runtime info factory used during publishing. */
     private final I_CmsDbContextFactory m_dbContextFactory;
 
@@ -94,6 +96,12 @@ public final class CmsPublishEngine {
     /** The amount of time the system will wait for a running publish job during shutdown. */
     private int m_publishQueueShutdowntime;
 
+    /** The currently running publish threads, the oldest first. */
+    private final List<CmsPublishThread> m_publishThreads;
+
+    /** The scheduler selecting the publish jobs to start. */
+    private CmsPublishScheduler m_scheduler;
+
     /** Is set during shutdown. */
     private boolean m_shuttingDown;
 
@@ -124,6 +132,11 @@ public final class CmsPublishEngine {
         m_publishHistory = new CmsPublishHistory(this);
         // initialize event handling
         m_listeners = new CmsPublishListenerCollection(this);
+        // initialize the running publish threads
+        m_publishThreads = new CopyOnWriteArrayList<CmsPublishThread>();
+        m_scheduler = new CmsPublishScheduler(
+            CmsPublishManager.DEFAULT_PUBLISH_THREADS,
+            CmsPublishManager.DEFAULT_BULK_JOB_SIZE);
         // set engine state to normal processing
         m_engineState = CmsPublishEngineState.ENGINE_STARTED;
         if (CmsLog.INIT.isInfoEnabled()) {
@@ -132,28 +145,29 @@ public final class CmsPublishEngine {
     }
 
     /**
-     * Abandons the given publish thread.<p>
+     * Abandons the oldest running publish thread.<p>
      */
     public void abandonThread() {
 
-        if (!m_currentPublishThread.isAlive()) {
-            // thread is dead
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_DEAD_JOB_0));
-            }
-        } else {
-            // thread is not dead, and we suppose it hangs :(
-            if (LOG.isWarnEnabled()) {
-                LOG.warn(
-                    Messages.get().getBundle().key(
-                        Messages.LOG_THREADSTORE_PUBLISH_THREAD_INTERRUPT_2,
-                        m_currentPublishThread.getName(),
-                        m_currentPublishThread.getUUID()));
-            }
-            m_currentPublishThread.interrupt();
+        CmsPublishThread publishThread = getCurrentPublishJob();
+        if (publishThread != null) {
+            abandonThread(publishThread);
+        }
+        // and try again
+        checkCurrentPublishJobThread();
+    }
+
+    /**
+     * Abandons the publish thread of the given publish job.<p>
+     *
+     * @param publishJob the publish job to abandon the thread for
+     */
+    public void abandonThread(CmsPublishJobRunning publishJob) {
+
+        CmsPublishThread publishThread = getPublishThread(publishJob.m_publishJob);
+        if (publishThread != null) {
+            abandonThread(publishThread);
         }
-        // just throw it away
-        m_currentPublishThread = null;
         // and try again
         checkCurrentPublishJobThread();
     }
@@ -186,31 +200,30 @@ public final class CmsPublishEngine {
             return;
         }
 
-        // there is no running publish job
-        if (m_currentPublishThread == null) {
-            // but something is waiting in the queue
-            if (!m_publishQueue.isEmpty()) {
-                // start the next waiting publish job
-                CmsPublishJobInfoBean publishJob = m_publishQueue.next();
-                m_currentPublishThread = new CmsPublishThread(this, publishJob);
-                m_currentPublishThread.start();
-            } else {
-                // nothing to do
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_NO_RUNNING_JOB_0));
-                }
+        // clean up dead threads
+        for (CmsPublishThread publishThread : m_publishThreads) {
+            if (!publishThread.isAlive()) {
+                abandonThread(publishThread);
             }
-            return;
         }
-        if (m_currentPublishThread.isAlive()) {
-            // normal running
-            // wait until it is finished
+
+        // start as many waiting publish jobs as possible
+        CmsPublishJobInfoBean publishJob = m_publishQueue.next(m_scheduler, getRunningPublishJobs());
+        while (publishJob != null) {
+            CmsPublishThread publishThread = new CmsPublishThread(this, publishJob);
+            m_publishThreads.add(publishThread);
+            publishThread.start();
+            publishJob = m_publishQueue.next(m_scheduler, getRunningPublishJobs());
+        }
+
+        if (m_publishThreads.isEmpty()) {
+            // nothing to do
             if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_WAITING_0));
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_NO_RUNNING_JOB_0));
             }
-        } else {
-            // clean up the dead thread
-            abandonThread();
+        } else if (LOG.isDebugEnabled()) {
+            // normal running, wait until a job is finished
+            LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_WAITING_0));
         }
     }
 
@@ -272,10 +285,11 @@ public final class CmsPublishEngine {
      */
     public CmsPublishJobBase getJobByPublishHistoryId(CmsUUID publishHistoryId) {
 
-        // try current running job
-        if ((m_currentPublishThread != null)
-            && m_currentPublishThread.getPublishJob().getPublishHistoryId().equals(publishHistoryId)) {
-            return new CmsPublishJobRunning(m_currentPublishThread.getPublishJob());
+        // try current running jobs
+        for (CmsPublishThread publishThread : m_publishThreads) {
+            if (publishThread.getPublishJob().getPublishHistoryId().equals(publishHistoryId)) {
+                return new CmsPublishJobRunning(publishThread.getPublishJob());
+            }
         }
         // try enqueued jobs
         Iterator<CmsPublishJobEnqueued> itEnqueuedJobs = getPublishQueue().asList().iterator();
@@ -334,10 +348,10 @@ public final class CmsPublishEngine {
         // prevent new publish jobs are accepted
         m_shuttingDown = true;
 
-        // if a job is currently running,
+        // if jobs are currently running,
         // wait the specified amount of time,
-        // then write an abort message to the report
-        if (m_currentPublishThread != null) {
+        // then write an abort message to the reports
+        if (!m_publishThreads.isEmpty()) {
 
             // if a shutdown time is defined, wait  if a publish process is running
             if (m_publishQueueShutdowntime > 0) {
@@ -350,8 +364,8 @@ public final class CmsPublishEngine {
                 }
             }
 
-            if (m_currentPublishThread != null) {
-                CmsPublishJobInfoBean publishJob = m_currentPublishThread.getPublishJob();
+            for (CmsPublishThread publishThread : m_publishThreads) {
+                CmsPublishJobInfoBean publishJob = publishThread.getPublishJob();
                 try {
                     abortPublishJob(m_adminUserId, new CmsPublishJobEnqueued(publishJob), false);
                 } catch (CmsException e) {
@@ -398,9 +412,9 @@ public final class CmsPublishEngine {
         // abort event should be raised before the job is removed implicitly
         m_listeners.fireAbort(userId, publishJob);
 
-        if ((m_currentPublishThread == null)
-            || !publishJob.m_publishJob.equals(m_currentPublishThread.getPublishJob())) {
-            // engine is currently publishing another job or is not publishing
+        CmsPublishThread publishThread = getPublishThread(publishJob.m_publishJob);
+        if (publishThread == null) {
+            // engine is currently publishing other jobs or is not publishing
             if (!m_publishQueue.abortPublishJob(publishJob.m_publishJob)) {
                 // job not found
                 throw new CmsPublishException(
@@ -408,10 +422,10 @@ public final class CmsPublishEngine {
             }
         } else if (!m_shuttingDown) {
             // engine is currently publishing the job to abort
-            m_currentPublishThread.abort();
-        } else if (m_shuttingDown && (m_currentPublishThread != null)) {
+            publishThread.abort();
+        } else {
             // aborting the current job during shut down
-            I_CmsReport report = m_currentPublishThread.getReport();
+            I_CmsReport report = publishThread.getReport();
             report.println();
             report.println();
             report.println(
@@ -459,19 +473,20 @@ public final class CmsPublishEngine {
 
         m_engineState = CmsPublishEngineState.ENGINE_STARTED;
         // start publish job if jobs waiting
-        if ((m_currentPublishThread == null) && !m_publishQueue.isEmpty()) {
+        if (!m_publishQueue.isEmpty()) {
             checkCurrentPublishJobThread();
         }
     }
 
     /**
-     * Returns the current running publish job.<p>
+     * Returns the oldest running publish job.<p>
      *
-     * @return the current running publish job
+     * @return the oldest running publish job, or <code>null</code> if no job is running
      */
     protected CmsPublishThread getCurrentPublishJob() {
 
-        return m_currentPublishThread;
+        Iterator<CmsPublishThread> it = m_publishThreads.iterator();
+        return it.hasNext() ? it.next() : null;
     }
 
     /**
@@ -540,6 +555,20 @@ public final class CmsPublishEngine {
         return result;
     }
 
+    /**
+     * Returns the currently running publish jobs, the oldest first.<p>
+     *
+     * @return the currently running publish jobs
+     */
+    protected List<CmsPublishJobInfoBean> getRunningPublishJobs() {
+
+        List<CmsPublishJobInfoBean> result = new ArrayList<CmsPublishJobInfoBean>(m_publishThreads.size());
+        for (CmsPublishThread publishThread : m_publishThreads) {
+            result.add(publishThread.getPublishJob());
+        }
+        return result;
+    }
+
     /**
      * Returns the user identified by the given id.<p>
      *
@@ -567,11 +596,17 @@ public final class CmsPublishEngine {
      * @param adminCms the admin cms
      * @param publishQueuePersistance flag if the queue is persisted
      * @param publishQueueShutdowntime amount of time to wait for a publish job during shutdown
+     * @param publishThreads the maximum number of concurrently running publish jobs
+     * @param bulkJobSize the number of resources above which a publish job is a bulk job
      *
      * @throws CmsException if something goes wrong
      */
-    protected void initialize(CmsObject adminCms, boolean publishQueuePersistance, int publishQueueShutdowntime)
-    throws CmsException {
+    protected void initialize(
+        CmsObject adminCms,
+        boolean publishQueuePersistance,
+        int publishQueueShutdowntime,
+        int publishThreads,
+        int bulkJobSize) throws CmsException {
 
         // check the driver manager
         if ((m_driverManager == null) || (m_dbContextFactory == null)) {
@@ -579,6 +614,7 @@ public final class CmsPublishEngine {
         }
 
         m_publishQueueShutdowntime = publishQueueShutdowntime;
+        m_scheduler = new CmsPublishScheduler(publishThreads, bulkJobSize);
 
         // initially the engine is stopped, must be restartet after full system initialization
         m_engineState = CmsPublishEngineState.ENGINE_STOPPED;
@@ -598,7 +634,7 @@ public final class CmsPublishEngine {
     protected boolean isRunning() {
 
         return (((m_engineState == CmsPublishEngineState.ENGINE_STARTED) && !m_publishQueue.isEmpty())
-            || (m_currentPublishThread != null));
+            || !m_publishThreads.isEmpty());
     }
 
     /**
@@ -693,10 +729,8 @@ public final class CmsPublishEngine {
             // log failure, most likely a database problem
             LOG.error(t.getLocalizedMessage(), t);
         }
-        if (Thread.currentThread() == m_currentPublishThread) {
-            // wipe the dead thread, only if this thread has not been abandoned
-            m_currentPublishThread = null;
-        }
+        // wipe the finishing thread, this has no effect if the thread has been abandoned
+        m_publishThreads.remove(Thread.currentThread());
         // clear the published resources cache
         OpenCms.getMemoryMonitor().flushCache(CmsMemoryMonitor.CacheType.PUBLISHED_RESOURCES);
         // try to start a new publish job
@@ -771,7 +805,7 @@ public final class CmsPublishEngine {
         if (m_engineState != CmsPublishEngineState.ENGINE_STARTED) {
             m_engineState = CmsPublishEngineState.ENGINE_STARTED;
             // start publish job if jobs waiting
-            if ((m_currentPublishThread == null) && !m_publishQueue.isEmpty()) {
+            if (!m_publishQueue.isEmpty()) {
                 checkCurrentPublishJobThread();
             }
         }
@@ -812,6 +846,50 @@ public final class CmsPublishEngine {
         }
     }
 
+    /**
+     * Abandons the given publish thread.<p>
+     *
+     * @param publishThread the publish thread to abandon
+     */
+    private void abandonThread(CmsPublishThread publishThread) {
+
+        if (!publishThread.isAlive()) {
+            // thread is dead
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_DEAD_JOB_0));
+            }
+        } else {
+            // thread is not dead, and we suppose it hangs :(
+            if (LOG.isWarnEnabled()) {
+                LOG.warn(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_THREADSTORE_PUBLISH_THREAD_INTERRUPT_2,
+                        publishThread.getName(),
+                        publishThread.getUUID()));
+            }
+            publishThread.interrupt();
+        }
+        // just throw it away
+        m_publishThreads.remove(publishThread);
+    }
+
+    /**
+     * Returns the running publish thread for the given publish job.<p>
+     *
+     * @param publishJob the publish job
+     *
+     * @return the running publish thread for the given publish job, or <code>null</code> if the job is not running
+     */
+    private CmsPublishThread getPublishThread(CmsPublishJobInfoBean publishJob) {
+
+        for (CmsPublishThread publishThread : m_publishThreads) {
+            if (publishJob.equals(publishThread.getPublishJob())) {
+                return publishThread;
+            }
+        }
+        return null;
+    }
+
     /**
      * Returns <code>true</code> if the login manager allows login.<p>
      *
@@ -117,6 +117,10 @@ public class CmsPublishListVerifier {
      */
     public void checkPublishList(CmsPublishList publishList) throws CmsException {
 
+        if (m_forbiddenParentFolders.isEmpty()) {
+            // nothing to check, avoid walking a possibly huge publish list
+            return;
+        }
         for (CmsResource resource : publishList.getAllResources()) {
             for (ForbiddenFolderEntry entry : m_forbiddenParentFolders.values()) {
                 if (CmsStringUtil.isPrefixPath(entry.getRootPath(), resource.getRootPath())) {
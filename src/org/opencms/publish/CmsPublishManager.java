@@ -66,9 +66,15 @@ public class CmsPublishManager {
         currentUser
     }
 
+    /** The default number of resources above which a publish job is a bulk job. */
+    public static final int DEFAULT_BULK_JOB_SIZE = 1000;
+
     /** The default history size. */
     public static final int DEFAULT_HISTORY_SIZE = 100;
 
+    /** The default number of concurrently running publish jobs. */
+    public static final int DEFAULT_PUBLISH_THREADS = 1;
+
     /** The default persistence setting for the publish queue. */
     public static final boolean DEFAULT_QUEUE_PERSISTANCE = false;
 
@@ -78,6 +84,9 @@ public class CmsPublishManager {
     /** Milliseconds in a second. */
     private static final int MS_ONE_SECOND = 1000;
 
+    /** The number of resources above which a publish job is a bulk job. */
+    private int m_bulkJobSize = DEFAULT_BULK_JOB_SIZE;
+
     /** Indicates if the configuration can be modified. */
     private boolean m_frozen;
 
@@ -99,6 +108,9 @@ public class CmsPublishManager {
     /** The amount of time to wait for a publish job during shutdown. */
     private int m_publishQueueShutdowntime;
 
+    /** The maximum number of concurrently running publish jobs. */
+    private int m_publishThreads = DEFAULT_PUBLISH_THREADS;
+
     /** The security manager. */
     private CmsSecurityManager m_securityManager;
 
@@ -135,6 +147,16 @@ public class CmsPublishManager {
         m_publishEngine.abandonThread();
     }
 
+    /**
+     * Abandons the publish thread of the given running publish job.<p>
+     *
+     * @param publishJob the running publish job
+     */
+    public void abandonThread(CmsPublishJobRunning publishJob) {
+
+        m_publishEngine.abandonThread(publishJob);
+    }
+
     /**
      * Aborts the given publish job.<p>
      *
@@ -196,9 +218,21 @@ public class CmsPublishManager {
     }
 
     /**
-     * Returns the current running publish job.<p>
+     * Returns the number of resources above which a publish job is a bulk job.<p>
      *
-     * @return the current running publish job
+     * Bulk jobs never occupy all publish threads at once.<p>
+     *
+     * @return the number of resources above which a publish job is a bulk job
+     */
+    public int getBulkJobSize() {
+
+        return m_bulkJobSize;
+    }
+
+    /**
+     * Returns the oldest running publish job.<p>
+     *
+     * @return the oldest running publish job
      */
     public CmsPublishJobRunning getCurrentPublishJob() {
 
@@ -413,6 +447,16 @@ public class CmsPublishManager {
         return m_publishQueueShutdowntime;
     }
 
+    /**
+     * Returns the maximum number of concurrently running publish jobs.<p>
+     *
+     * @return the maximum number of concurrently running publish jobs
+     */
+    public int getPublishThreads() {
+
+        return m_publishThreads;
+    }
+
     /**
      * Returns a new publish list that contains the unpublished resources related
      * to all resources in the given publish list, the related resources exclude
@@ -446,6 +490,21 @@ public class CmsPublishManager {
         return m_publishEngine.getReportContents(publishJob);
     }
 
+    /**
+     * Returns the currently running publish jobs, the oldest first.<p>
+     *
+     * @return a list of {@link CmsPublishJobRunning} objects
+     */
+    public List<CmsPublishJobRunning> getRunningPublishJobs() {
+
+        List<CmsPublishJobInfoBean> runningJobs = m_publishEngine.getRunningPublishJobs();
+        List<CmsPublishJobRunning> result = new ArrayList<CmsPublishJobRunning>(runningJobs.size());
+        for (CmsPublishJobInfoBean publishJob : runningJobs) {
+            result.add(new CmsPublishJobRunning(publishJob));
+        }
+        return result;
+    }
+
     /**
      * Returns the current user's publish list.<p>
      *
@@ -469,7 +528,12 @@ public class CmsPublishManager {
      */
     public void initialize(CmsObject cms) throws CmsException {
 
-        m_publishEngine.initialize(cms, m_publishQueuePersistance, m_publishQueueShutdowntime);
+        m_publishEngine.initialize(
+            cms,
+            m_publishQueuePersistance,
+            m_publishQueueShutdowntime,
+            m_publishThreads,
+            m_bulkJobSize);
         m_frozen = true;
     }
 
@@ -660,6 +724,19 @@ public class CmsPublishManager {
         m_publishEngine = publishEngine;
     }
 
+    /**
+     * Sets the number of resources above which a publish job is a bulk job.<p>
+     *
+     * @param bulkJobSize the bulk job size to set, parsed as <code>int</code>
+     */
+    public void setBulkJobSize(String bulkJobSize) {
+
+        if (m_frozen) {
+            throw new CmsRuntimeException(Messages.get().container(Messages.ERR_CONFIG_FROZEN_0));
+        }
+        m_bulkJobSize = Integer.parseInt(bulkJobSize);
+    }
+
     /**
      * Sets the publish History Size.<p>
      *
@@ -712,6 +789,19 @@ public class CmsPublishManager {
         m_publishQueueShutdowntime = Integer.parseInt(publishQueueShutdowntime);
     }
 
+    /**
+     * Sets the maximum number of concurrently running publish jobs.<p>
+     *
+     * @param publishThreads the number of publish threads to set, parsed as <code>int</code>
+     */
+    public void setPublishThreads(String publishThreads) {
+
+        if (m_frozen) {
+            throw new CmsRuntimeException(Messages.get().container(Messages.ERR_CONFIG_FROZEN_0));
+        }
+        m_publishThreads = Integer.parseInt(publishThreads);
+    }
+
     /**
      * Sets the security manager during initialization.<p>
      *
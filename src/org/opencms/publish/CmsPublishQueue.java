@@ -270,13 +270,21 @@ public class CmsPublishQueue {
 
     /**
      * Returns the next publish job to be published, removing it
-     * from the queue, or <code>null</code> if the queue is empty.<p>
+     * from the queue, or <code>null</code> if no job can be started right now.<p>
+     *
+     * @param scheduler the scheduler deciding which job may be started
+     * @param runningJobs the currently running publish jobs
      *
      * @return the next publish job to be published
      */
-    protected CmsPublishJobInfoBean next() {
+    protected CmsPublishJobInfoBean next(CmsPublishScheduler scheduler, List<CmsPublishJobInfoBean> runningJobs) {
 
-        CmsPublishJobInfoBean publishJob = OpenCms.getMemoryMonitor().getFirstCachedPublishJob();
+        if (isEmpty()) {
+            return null;
+        }
+        CmsPublishJobInfoBean publishJob = scheduler.selectNextJob(
+            OpenCms.getMemoryMonitor().getAllCachedPublishJobs(),
+            runningJobs);
         if (publishJob != null) {
             OpenCms.getMemoryMonitor().uncachePublishJob(publishJob);
         }
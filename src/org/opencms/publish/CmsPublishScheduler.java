@@ -0,0 +1,303 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.publish;
+
+import org.opencms.db.CmsPublishList;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Selects the publish jobs that can be started by the publish engine.<p>
+ *
+ * Several publish jobs are only published concurrently if the resources of their publish lists do not overlap,
+ * that is if no resource of one job is contained in, or is a parent folder of, a resource of the other job.
+ * Besides the current root paths, the online root paths of moved resources are compared, and jobs publishing
+ * siblings of the same resource overlap as well, since they share the content record.
+ * A waiting job is also never started before an earlier enqueued job it overlaps with.<p>
+ *
+ * Jobs with more resources than the configured bulk job size may only use all but one of the publish threads,
+ * so that there is always a thread left for small, interactive publish jobs.<p>
+ *
+ * @since 10.0.0
+ */
+/* default */class CmsPublishScheduler {
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsPublishScheduler.class);
+
+    /** The root folder, used for jobs without publish list, which overlap with all other jobs. */
+    private static final String ROOT_FOLDER = "/";
+
+    /** The number of resources above which a publish job is a bulk job. */
+    private final int m_bulkJobSize;
+
+    /** The maximum number of concurrently running publish jobs. */
+    private final int m_maxThreads;
+
+    /** The online root paths of the moved resources of the publish jobs, read only once per job. */
+    private final Map<CmsPublishJobInfoBean, Set<String>> m_onlineRootPaths = Collections.synchronizedMap(
+        new WeakHashMap<CmsPublishJobInfoBean, Set<String>>());
+
+    /**
+     * Creates a new publish scheduler.<p>
+     *
+     * @param maxThreads the maximum number of concurrently running publish jobs
+     * @param bulkJobSize the number of resources above which a publish job is a bulk job
+     */
+    protected CmsPublishScheduler(int maxThreads, int bulkJobSize) {
+
+        m_maxThreads = Math.max(1, maxThreads);
+        m_bulkJobSize = bulkJobSize;
+    }
+
+    /**
+     * Checks if one of the given root paths overlaps with the given set of root paths.<p>
+     *
+     * Two paths overlap if they are equal, or if one of them is a parent folder of the other one.<p>
+     *
+     * @param rootPaths the root paths to check
+     * @param otherPaths the sorted root paths to check against
+     *
+     * @return <code>true</code> if one of the given root paths overlaps with the given set of root paths
+     */
+    protected static boolean overlaps(Collection<String> rootPaths, NavigableSet<String> otherPaths) {
+
+        if (otherPaths.isEmpty()) {
+            return false;
+        }
+        for (String rootPath : rootPaths) {
+            // check the path itself and all its parent folders
+            String path = rootPath;
+            while (path != null) {
+                if (otherPaths.contains(path)) {
+                    return true;
+                }
+                path = CmsResource.getParentFolder(path);
+            }
+            if (CmsResource.isFolder(rootPath)) {
+                // check the resources in this folder
+                String next = otherPaths.ceiling(rootPath);
+                if ((next != null) && next.startsWith(rootPath)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the maximum number of concurrently running publish jobs.<p>
+     *
+     * @return the maximum number of concurrently running publish jobs
+     */
+    protected int getMaxThreads() {
+
+        return m_maxThreads;
+    }
+
+    /**
+     * Returns the online root paths of the resources in the publish list of the given job
+     * which have been moved in the offline project.<p>
+     *
+     * The online resources are read only once per job. If they can not be read, the root folder is returned,
+     * so the job does not run concurrently with any other job.<p>
+     *
+     * @param publishJob the publish job
+     *
+     * @return the online root paths of the moved resources of the given job
+     */
+    protected Set<String> getOnlineRootPaths(CmsPublishJobInfoBean publishJob) {
+
+        Set<String> result = m_onlineRootPaths.get(publishJob);
+        if (result != null) {
+            return result;
+        }
+        result = new TreeSet<String>();
+        CmsPublishList publishList = publishJob.getPublishList();
+        if (publishList != null) {
+            // only changed resources can have been moved, new resources do not exist online
+            Map<CmsUUID, String> offlinePaths = new HashMap<CmsUUID, String>();
+            for (CmsResource resource : publishList.getAllResources()) {
+                if (resource.getState().isChanged()) {
+                    offlinePaths.put(resource.getStructureId(), resource.getRootPath());
+                }
+            }
+            if (!offlinePaths.isEmpty()) {
+                try {
+                    CmsObject cms = OpenCms.initCmsObject(publishJob.getCmsObject());
+                    cms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+                    for (CmsResource onlineResource : cms.readResources(
+                        new ArrayList<CmsUUID>(offlinePaths.keySet()),
+                        CmsResourceFilter.ALL)) {
+                        if (!onlineResource.getRootPath().equals(offlinePaths.get(onlineResource.getStructureId()))) {
+                            result.add(onlineResource.getRootPath());
+                        }
+                    }
+                } catch (CmsException e) {
+                    LOG.error(e.getLocalizedMessage(), e);
+                    result.add(ROOT_FOLDER);
+                }
+            }
+        }
+        m_onlineRootPaths.put(publishJob, result);
+        return result;
+    }
+
+    /**
+     * Returns the root paths of all resources in the publish list of the given job.<p>
+     *
+     * @param publishJob the publish job
+     *
+     * @return the root paths of all resources in the publish list of the given job
+     */
+    protected Set<String> getPublishedRootPaths(CmsPublishJobInfoBean publishJob) {
+
+        Set<String> result = new TreeSet<String>();
+        CmsPublishList publishList = publishJob.getPublishList();
+        if (publishList == null) {
+            // nothing known about this job, so it must not run concurrently with any other job
+            result.add(ROOT_FOLDER);
+        } else {
+            for (CmsResource resource : publishList.getAllResources()) {
+                result.add(resource.getRootPath());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the resource ids of all resources in the publish list of the given job.<p>
+     *
+     * Siblings share the resource id, so jobs publishing different siblings of the same resource
+     * have a common resource id.<p>
+     *
+     * @param publishJob the publish job
+     *
+     * @return the resource ids of all resources in the publish list of the given job
+     */
+    protected Set<CmsUUID> getResourceIds(CmsPublishJobInfoBean publishJob) {
+
+        Set<CmsUUID> result = new HashSet<CmsUUID>();
+        CmsPublishList publishList = publishJob.getPublishList();
+        if (publishList != null) {
+            for (CmsResource resource : publishList.getAllResources()) {
+                result.add(resource.getResourceId());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the root paths the given job may change, that is the root paths of all resources
+     * in its publish list, and the online root paths of the moved resources.<p>
+     *
+     * @param publishJob the publish job
+     *
+     * @return the root paths the given job may change
+     */
+    protected Set<String> getRootPaths(CmsPublishJobInfoBean publishJob) {
+
+        Set<String> result = getPublishedRootPaths(publishJob);
+        result.addAll(getOnlineRootPaths(publishJob));
+        return result;
+    }
+
+    /**
+     * Checks if the given publish job is a bulk job.<p>
+     *
+     * @param publishJob the publish job
+     *
+     * @return <code>true</code> if the given publish job is a bulk job
+     */
+    protected boolean isBulkJob(CmsPublishJobInfoBean publishJob) {
+
+        return publishJob.getSize() > m_bulkJobSize;
+    }
+
+    /**
+     * Selects the next publish job to start.<p>
+     *
+     * @param queuedJobs the waiting publish jobs, in the order they have been enqueued
+     * @param runningJobs the currently running publish jobs
+     *
+     * @return the next publish job to start, or <code>null</code> if no job can be started now
+     */
+    protected CmsPublishJobInfoBean selectNextJob(
+        List<CmsPublishJobInfoBean> queuedJobs,
+        List<CmsPublishJobInfoBean> runningJobs) {
+
+        if (queuedJobs.isEmpty() || (runningJobs.size() >= m_maxThreads)) {
+            return null;
+        }
+        NavigableSet<String> blockedPaths = new TreeSet<String>();
+        Set<CmsUUID> blockedResourceIds = new HashSet<CmsUUID>();
+        int runningBulkJobs = 0;
+        for (CmsPublishJobInfoBean runningJob : runningJobs) {
+            blockedPaths.addAll(getRootPaths(runningJob));
+            blockedResourceIds.addAll(getResourceIds(runningJob));
+            if (isBulkJob(runningJob)) {
+                runningBulkJobs++;
+            }
+        }
+        boolean bulkThreadAvailable = runningBulkJobs < Math.max(1, m_maxThreads - 1);
+        for (CmsPublishJobInfoBean queuedJob : queuedJobs) {
+            Set<String> rootPaths = getRootPaths(queuedJob);
+            Set<CmsUUID> resourceIds = getResourceIds(queuedJob);
+            if ((bulkThreadAvailable || !isBulkJob(queuedJob))
+                && !overlaps(rootPaths, blockedPaths)
+                && Collections.disjoint(resourceIds, blockedResourceIds)) {
+                return queuedJob;
+            }
+            // later jobs must not overtake this job if they overlap with it
+            blockedPaths.addAll(rootPaths);
+            blockedResourceIds.addAll(resourceIds);
+        }
+        return null;
+    }
+}
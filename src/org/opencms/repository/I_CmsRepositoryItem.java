@@ -27,6 +27,8 @@
 
 package org.opencms.repository;
 
+import java.io.InputStream;
+
 /**
  * This class represents items in the repository interface. That can be
  * files or folders (collections). <p>
@@ -49,6 +51,16 @@ public interface I_CmsRepositoryItem {
      */
     long getContentLength();
 
+    /**
+     * Opens a stream on the content of this item.<p>
+     *
+     * In contrast to {@link #getContent()} the content is not read into memory completely.
+     * The stream must be closed by the caller.<p>
+     *
+     * @return a stream on the content of this item, or <code>null</code> if the item is a collection
+     */
+    InputStream getContentStream();
+
     /**
      * Returns the date of the creation of this item.<p>
      *
@@ -56,6 +56,9 @@ public class CmsIndexingThread extends Thread {
     /** The counter to output for the report. */
     private int m_count;
 
+    /** The error that occurred while creating the result document. */
+    private Throwable m_error;
+
     /** The current index. */
     private CmsSearchIndex m_index;
 
@@ -89,6 +92,18 @@ public class CmsIndexingThread extends Thread {
         m_result = null;
     }
 
+    /**
+     * Returns the error that occurred while creating the index document.<p>
+     *
+     * In case the document was created without issues, <code>null</code> is returned.<p>
+     *
+     * @return the error that occurred while creating the index document
+     */
+    public Throwable getError() {
+
+        return m_error;
+    }
+
     /**
      * Returns the document created by this indexer thread.<p>
      *
@@ -117,18 +132,21 @@ public class CmsIndexingThread extends Thread {
             m_result = createIndexDocument(m_cms, m_res, m_index, m_count, m_report);
             docOk = true;
 
-            // check if the thread was interrupted
-            if (isInterrupted() && LOG.isDebugEnabled()) {
+            // check if the thread was interrupted, this thread may also have been executed by a pooled thread
+            if (Thread.currentThread().isInterrupted() && LOG.isDebugEnabled()) {
                 LOG.debug(
                     Messages.get().getBundle().key(Messages.LOG_ABANDONED_THREAD_FINISHED_1, m_res.getRootPath()));
             }
 
         } catch (CmsIndexNoContentException e) {
             // Ignore exception caused by empty documents, so that the report is not messed up with error message
-            m_report.println(
-                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                I_CmsReport.FORMAT_OK);
+            if (m_report != null) {
+                m_report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                    I_CmsReport.FORMAT_OK);
+            }
         } catch (Throwable exc) {
+            m_error = exc;
             if (m_report != null) {
                 m_report.println(
                     org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
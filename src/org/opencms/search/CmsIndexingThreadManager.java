@@ -28,29 +28,102 @@
 package org.opencms.search;
 
 import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
 import org.opencms.i18n.CmsMessageContainer;
+import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
 import org.opencms.report.CmsLogReport;
 import org.opencms.report.I_CmsReport;
 
 import java.io.IOException;
+import java.util.LinkedList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.commons.logging.Log;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 /**
  * Implements the management of indexing threads.<p>
  *
+ * If more than one indexing thread is configured, the index documents are extracted
+ * concurrently by a pool of worker threads, while the thread calling
+ * {@link #createIndexingThread(CmsVfsIndexer, I_CmsIndexWriter, CmsResource)} acts as the
+ * single writer that adds the extracted documents to the index in the original order.<p>
+ *
  * @since 6.0.0
  */
 public class CmsIndexingThreadManager {
 
+    /**
+     * A document extraction that has been handed to the worker pool, but not yet written to the index.<p>
+     */
+    private static class CmsPendingDocument {
+
+        /** The report count of the resource. */
+        int m_count;
+
+        /** The future for the running extraction. */
+        Future<?> m_future;
+
+        /** The VFS indexer the resource is indexed by. */
+        CmsVfsIndexer m_indexer;
+
+        /** The resource to index. */
+        CmsResource m_res;
+
+        /** The time the extraction was started. */
+        long m_startTime;
+
+        /** The extraction thread, executed in the worker pool. */
+        CmsIndexingThread m_thread;
+
+        /** The index writer to write the document with. */
+        I_CmsIndexWriter m_writer;
+
+        /**
+         * Creates a new pending document.<p>
+         *
+         * @param indexer the VFS indexer the resource is indexed by
+         * @param writer the index writer to write the document with
+         * @param res the resource to index
+         * @param count the report count of the resource
+         * @param thread the extraction thread
+         */
+        CmsPendingDocument(
+            CmsVfsIndexer indexer,
+            I_CmsIndexWriter writer,
+            CmsResource res,
+            int count,
+            CmsIndexingThread thread) {
+
+            m_indexer = indexer;
+            m_writer = writer;
+            m_res = res;
+            m_count = count;
+            m_thread = thread;
+        }
+    }
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsIndexingThreadManager.class);
 
     /** Number of threads abandoned. */
     private int m_abandonedCounter;
 
+    /** The worker pool used to extract the index documents if more than one indexing thread is configured. */
+    private ExecutorService m_executor;
+
+    /** The number of index documents that are extracted in parallel. */
+    private int m_indexingThreads;
+
     /** The time the last error was written to the log. */
     private long m_lastLogErrorTime;
 
@@ -60,6 +133,9 @@ public class CmsIndexingThreadManager {
     /** The maximum number of modifications before a commit in the search index is triggered. */
     private int m_maxModificationsBeforeCommit;
 
+    /** The extracted documents waiting to be written to the index, in the order they were started. */
+    private LinkedList<CmsPendingDocument> m_pendingDocuments;
+
     /** Number of thread returned. */
     private int m_returnedCounter;
 
@@ -69,6 +145,9 @@ public class CmsIndexingThreadManager {
     /** Timeout for abandoning threads. */
     private long m_timeout;
 
+    /** Number of documents written to (or deleted from) the index. */
+    private int m_writtenCounter;
+
     /**
      * Creates and starts a thread manager for indexing threads.<p>
      *
@@ -77,8 +156,22 @@ public class CmsIndexingThreadManager {
      */
     public CmsIndexingThreadManager(long timeout, int maxModificationsBeforeCommit) {
 
+        this(timeout, maxModificationsBeforeCommit, 1);
+    }
+
+    /**
+     * Creates and starts a thread manager for indexing threads.<p>
+     *
+     * @param timeout timeout after a thread is abandoned
+     * @param maxModificationsBeforeCommit the maximum number of modifications before a commit is triggered
+     * @param indexingThreads the number of index documents that are extracted in parallel
+     */
+    public CmsIndexingThreadManager(long timeout, int maxModificationsBeforeCommit, int indexingThreads) {
+
         m_timeout = timeout;
         m_maxModificationsBeforeCommit = maxModificationsBeforeCommit;
+        m_indexingThreads = Math.max(1, indexingThreads);
+        m_pendingDocuments = new LinkedList<CmsPendingDocument>();
     }
 
     /**
@@ -89,12 +182,22 @@ public class CmsIndexingThreadManager {
      * value. If the timeout value is reached, the indexing thread is
      * aborted by an interrupt signal.<p>
      *
+     * If more than one indexing thread is configured, the manager only waits
+     * if the configured number of documents is already being extracted.
+     * The extracted documents are written to the index in the order the
+     * resources have been passed to this method.<p>
+     *
      * @param indexer the VFS indexer to create the index thread for
      * @param writer the index writer that can update the index
      * @param res the resource
      */
     public void createIndexingThread(CmsVfsIndexer indexer, I_CmsIndexWriter writer, CmsResource res) {
 
+        if (m_indexingThreads > 1) {
+            submitIndexingThread(indexer, writer, res);
+            return;
+        }
+
         I_CmsReport report = indexer.getReport();
         m_startedCounter++;
         CmsIndexingThread thread = new CmsIndexingThread(
@@ -112,54 +215,27 @@ public class CmsIndexingThreadManager {
         }
         if (thread.isAlive()) {
             // the thread has not finished - so it must be marked as an abandoned thread
-            m_abandonedCounter++;
             thread.interrupt();
-            if (LOG.isWarnEnabled()) {
-                LOG.warn(Messages.get().getBundle().key(Messages.LOG_INDEXING_TIMEOUT_1, res.getRootPath()));
-            }
-            if (report != null) {
-                report.println();
-                report.print(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
-                    I_CmsReport.FORMAT_WARNING);
-                report.println(
-                    Messages.get().container(Messages.RPT_SEARCH_INDEXING_TIMEOUT_1, res.getRootPath()),
-                    I_CmsReport.FORMAT_WARNING);
-            }
+            abandonThread(report, res);
         } else {
             // the thread finished normally
             m_returnedCounter++;
         }
-        I_CmsSearchDocument doc = thread.getResult();
-        if (doc != null) {
-            // write the document to the index
-            indexer.updateResource(writer, res.getRootPath(), doc);
-        } else {
-            indexer.deleteResource(writer, new CmsPublishedResource(res));
-        }
-        if ((m_startedCounter % m_maxModificationsBeforeCommit) == 0) {
-            try {
-                writer.commit();
-            } catch (IOException e) {
-                if (LOG.isWarnEnabled()) {
-                    LOG.warn(
-                        Messages.get().getBundle().key(
-                            Messages.LOG_IO_INDEX_WRITER_COMMIT_2,
-                            indexer.getIndex().getName(),
-                            indexer.getIndex().getPath()),
-                        e);
-                }
-            }
-        }
+        writeDocument(indexer, writer, res, thread.getResult());
     }
 
     /**
      * Returns if the indexing manager still have indexing threads.<p>
      *
+     * If documents are extracted in parallel, all pending documents are
+     * written to the index before this method returns.<p>
+     *
      * @return true if the indexing manager still have indexing threads
      */
     public boolean isRunning() {
 
+        finishPendingDocuments();
+
         if (m_lastLogErrorTime <= 0) {
             m_lastLogErrorTime = System.currentTimeMillis();
             m_lastLogWarnTime = m_lastLogErrorTime;
@@ -223,4 +299,207 @@ public class CmsIndexingThreadManager {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Marks the indexing thread for the given resource as abandoned.<p>
+     *
+     * @param report the report to write the output to, may be <code>null</code>
+     * @param res the resource that could not be indexed in time
+     */
+    private void abandonThread(I_CmsReport report, CmsResource res) {
+
+        m_abandonedCounter++;
+        if (LOG.isWarnEnabled()) {
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_INDEXING_TIMEOUT_1, res.getRootPath()));
+        }
+        if (report != null) {
+            report.println();
+            report.print(
+                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
+                I_CmsReport.FORMAT_WARNING);
+            report.println(
+                Messages.get().container(Messages.RPT_SEARCH_INDEXING_TIMEOUT_1, res.getRootPath()),
+                I_CmsReport.FORMAT_WARNING);
+        }
+    }
+
+    /**
+     * Waits for the extraction of the given pending document and writes the result to the index.<p>
+     *
+     * If the extraction does not finish within the configured timeout,
+     * the extraction is aborted by an interrupt signal.<p>
+     *
+     * @param pending the pending document to finish
+     */
+    private void finishPendingDocument(CmsPendingDocument pending) {
+
+        I_CmsReport report = pending.m_indexer.getReport();
+        if (report != null) {
+            report.print(
+                org.opencms.report.Messages.get().container(
+                    org.opencms.report.Messages.RPT_SUCCESSION_1,
+                    String.valueOf(pending.m_count)),
+                I_CmsReport.FORMAT_NOTE);
+            report.print(Messages.get().container(Messages.RPT_SEARCH_INDEXING_FILE_BEGIN_0), I_CmsReport.FORMAT_NOTE);
+            report.print(
+                org.opencms.report.Messages.get().container(
+                    org.opencms.report.Messages.RPT_ARGUMENT_1,
+                    report.removeSiteRoot(pending.m_res.getRootPath())));
+            report.print(
+                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0),
+                I_CmsReport.FORMAT_DEFAULT);
+        }
+        boolean finished = false;
+        try {
+            long wait = Math.max(1, (pending.m_startTime + m_timeout) - System.currentTimeMillis());
+            pending.m_future.get(wait, TimeUnit.MILLISECONDS);
+            finished = true;
+        } catch (TimeoutException e) {
+            // the extraction has not finished in time
+        } catch (InterruptedException e) {
+            // stop waiting, the extraction is abandoned
+        } catch (ExecutionException e) {
+            // should not happen since the indexing thread catches all errors
+            finished = true;
+            LOG.error(e.getLocalizedMessage(), e);
+        }
+        I_CmsSearchDocument doc = null;
+        if (finished) {
+            m_returnedCounter++;
+            doc = pending.m_thread.getResult();
+            if (report != null) {
+                if (pending.m_thread.getError() != null) {
+                    report.println(
+                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
+                        I_CmsReport.FORMAT_ERROR);
+                    report.println(
+                        org.opencms.report.Messages.get().container(
+                            org.opencms.report.Messages.RPT_ARGUMENT_1,
+                            pending.m_thread.getError().toString()),
+                        I_CmsReport.FORMAT_ERROR);
+                } else if (doc == null) {
+                    report.println(
+                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_SKIPPED_0),
+                        I_CmsReport.FORMAT_NOTE);
+                } else {
+                    report.println(
+                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                        I_CmsReport.FORMAT_OK);
+                }
+            }
+        } else {
+            // the extraction has not finished - so it must be marked as an abandoned thread
+            pending.m_future.cancel(true);
+            abandonThread(report, pending.m_res);
+        }
+        writeDocument(pending.m_indexer, pending.m_writer, pending.m_res, doc);
+    }
+
+    /**
+     * Writes all pending documents to the index and shuts down the worker pool.<p>
+     */
+    private void finishPendingDocuments() {
+
+        while (!m_pendingDocuments.isEmpty()) {
+            finishPendingDocument(m_pendingDocuments.removeFirst());
+        }
+        if (m_executor != null) {
+            // abandoned extractions keep running until they notice the interrupt
+            m_executor.shutdown();
+            m_executor = null;
+        }
+    }
+
+    /**
+     * Returns the worker pool used to extract the index documents.<p>
+     *
+     * @return the worker pool used to extract the index documents
+     */
+    private ExecutorService getExecutor() {
+
+        if (m_executor == null) {
+            // no upper bound: abandoned extractions must not block the pool
+            m_executor = Executors.newCachedThreadPool(
+                new ThreadFactoryBuilder().setDaemon(true).setPriority(Thread.MIN_PRIORITY).setNameFormat(
+                    "OpenCms: Indexing %d").build());
+        }
+        return m_executor;
+    }
+
+    /**
+     * Hands the extraction of the index document for a resource to the worker pool.<p>
+     *
+     * If the configured number of documents is already being extracted, the oldest
+     * pending document is finished first. Afterwards all pending documents that have
+     * already been extracted are written to the index.<p>
+     *
+     * @param indexer the VFS indexer to create the index thread for
+     * @param writer the index writer that can update the index
+     * @param res the resource
+     */
+    private void submitIndexingThread(CmsVfsIndexer indexer, I_CmsIndexWriter writer, CmsResource res) {
+
+        while (m_pendingDocuments.size() >= m_indexingThreads) {
+            finishPendingDocument(m_pendingDocuments.removeFirst());
+        }
+
+        // the extraction runs concurrently, so every document gets its own copy of the user context
+        CmsObject cms = indexer.getCms();
+        try {
+            cms = OpenCms.initCmsObject(cms);
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+        }
+        m_startedCounter++;
+        // the report output is written in order by the writer, not by the worker threads
+        CmsIndexingThread thread = new CmsIndexingThread(cms, res, indexer.getIndex(), m_startedCounter, null);
+        CmsPendingDocument pending = new CmsPendingDocument(indexer, writer, res, m_startedCounter, thread);
+        pending.m_startTime = System.currentTimeMillis();
+        pending.m_future = getExecutor().submit(thread);
+        m_pendingDocuments.add(pending);
+
+        while (!m_pendingDocuments.isEmpty() && m_pendingDocuments.getFirst().m_future.isDone()) {
+            finishPendingDocument(m_pendingDocuments.removeFirst());
+        }
+    }
+
+    /**
+     * Writes the extracted document for a resource to the index, or deletes the resource
+     * from the index if no document was extracted.<p>
+     *
+     * The index is committed after the configured maximum number of modifications.<p>
+     *
+     * @param indexer the VFS indexer the resource is indexed by
+     * @param writer the index writer that can update the index
+     * @param res the resource
+     * @param doc the extracted document, may be <code>null</code>
+     */
+    private void writeDocument(
+        CmsVfsIndexer indexer,
+        I_CmsIndexWriter writer,
+        CmsResource res,
+        I_CmsSearchDocument doc) {
+
+        if (doc != null) {
+            // write the document to the index
+            indexer.updateResource(writer, res.getRootPath(), doc);
+        } else {
+            indexer.deleteResource(writer, new CmsPublishedResource(res));
+        }
+        m_writtenCounter++;
+        if ((m_writtenCounter % m_maxModificationsBeforeCommit) == 0) {
+            try {
+                writer.commit();
+            } catch (IOException e) {
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_IO_INDEX_WRITER_COMMIT_2,
+                            indexer.getIndex().getName(),
+                            indexer.getIndex().getPath()),
+                        e);
+                }
+            }
+        }
+    }
+}
@@ -77,10 +77,12 @@ import org.opencms.util.CmsWaitHandle;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -153,21 +155,38 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
 
     /**
      * Handles offline index generation.<p>
+     *
+     * The changed resources are collected in a queue that contains every resource state only once.
+     * The queue is indexed once no further change has been queued for the debounce time,
+     * but no later than the offline update frequency after the oldest change has been queued.<p>
      */
     protected class CmsSearchOfflineHandler implements I_CmsEventListener {
 
+        /** The time the oldest change in the queue was added, 0 if the queue is empty. */
+        private long m_firstQueuedTime;
+
+        /** The folders with changed access control entries, the resources below them must be indexed again. */
+        private Set<CmsUUID> m_foldersWithChangedAcl;
+
+        /** The time the oldest change of the resources currently indexed was added, 0 if no update is running. */
+        private long m_indexingQueuedTime;
+
         /** Indicates if the event handlers for the offline search have been already registered. */
         private boolean m_isEventRegistered;
 
-        /** The list of resources to index. */
-        private List<CmsPublishedResource> m_resourcesToIndex;
+        /** The time the latest change in the queue was added. */
+        private long m_lastQueuedTime;
+
+        /** The queue of resources to index, keyed by resource and state. */
+        private LinkedHashMap<String, CmsPublishedResource> m_resourcesToIndex;
 
         /**
          * Initializes the offline index handler.<p>
          */
         protected CmsSearchOfflineHandler() {
 
-            m_resourcesToIndex = new ArrayList<CmsPublishedResource>();
+            m_resourcesToIndex = new LinkedHashMap<String, CmsPublishedResource>();
+            m_foldersWithChangedAcl = new HashSet<CmsUUID>();
         }
 
         /**
@@ -191,6 +210,12 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                     // a resource has been modified - offline indexes require (re)indexing
                     List<CmsResource> resources = Collections.singletonList(
                         (CmsResource)event.getData().get(I_CmsEventListener.KEY_RESOURCE));
+                    if (isFolderAccessControlChange(event)) {
+                        // the resources below the folder inherit the changed permissions
+                        synchronized (this) {
+                            m_foldersWithChangedAcl.add(resources.get(0).getStructureId());
+                        }
+                    }
                     reIndexResources(resources);
                     break;
                 case I_CmsEventListener.EVENT_RESOURCE_DELETED:
@@ -221,11 +246,47 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         /**
          * Adds a list of {@link CmsPublishedResource} objects to be indexed.<p>
          *
+         * A resource that is already queued with the same state is moved to the end of the queue.<p>
+         *
          * @param resourcesToIndex the list of {@link CmsPublishedResource} objects to be indexed
          */
         protected synchronized void addResourcesToIndex(List<CmsPublishedResource> resourcesToIndex) {
 
-            m_resourcesToIndex.addAll(resourcesToIndex);
+            for (CmsPublishedResource pubRes : resourcesToIndex) {
+                String key = getQueueKey(pubRes);
+                m_resourcesToIndex.remove(key);
+                m_resourcesToIndex.put(key, pubRes);
+            }
+            m_lastQueuedTime = System.currentTimeMillis();
+            if (m_firstQueuedTime == 0) {
+                m_firstQueuedTime = m_lastQueuedTime;
+            }
+            // wake up the offline index thread so it can schedule the update
+            notifyAll();
+        }
+
+        /**
+         * Returns the time in milliseconds since the oldest change that is not yet indexed has been queued.<p>
+         *
+         * @return the offline indexing lag in milliseconds, 0 if all changes are indexed
+         */
+        protected synchronized long getIndexingLag() {
+
+            long oldest = m_indexingQueuedTime;
+            if ((oldest == 0) || ((m_firstQueuedTime > 0) && (m_firstQueuedTime < oldest))) {
+                oldest = m_firstQueuedTime;
+            }
+            return oldest > 0 ? System.currentTimeMillis() - oldest : 0;
+        }
+
+        /**
+         * Returns the number of resources waiting in the queue.<p>
+         *
+         * @return the number of resources waiting in the queue
+         */
+        protected synchronized int getQueueSize() {
+
+            return m_resourcesToIndex.size();
         }
 
         /**
@@ -236,9 +297,14 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         protected List<CmsPublishedResource> getResourcesToIndex() {
 
             List<CmsPublishedResource> result;
+            List<CmsUUID> aclChangedFolders;
             synchronized (this) {
-                result = m_resourcesToIndex;
-                m_resourcesToIndex = new ArrayList<CmsPublishedResource>();
+                result = new ArrayList<CmsPublishedResource>(m_resourcesToIndex.values());
+                m_resourcesToIndex.clear();
+                aclChangedFolders = new ArrayList<CmsUUID>(m_foldersWithChangedAcl);
+                m_foldersWithChangedAcl.clear();
+                m_indexingQueuedTime = m_firstQueuedTime;
+                m_firstQueuedTime = 0;
             }
             try {
                 CmsObject cms = m_adminCms;
@@ -248,6 +314,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                     cms = OpenCms.initCmsObject(m_adminCms);
                     cms.getRequestContext().setCurrentProject(offline);
                 }
+                addResourcesInFolders(cms, aclChangedFolders, result);
                 findRelatedContainerPages(cms, result);
             } catch (CmsException e) {
                 LOG.error(e.getLocalizedMessage(), e);
@@ -255,6 +322,33 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
             return result;
         }
 
+        /**
+         * Returns the time in milliseconds until the queued resources should be indexed.<p>
+         *
+         * @return the time in milliseconds until the queued resources should be indexed
+         */
+        protected synchronized long getUpdateDelay() {
+
+            long maxLatency = getOfflineUpdateFrequency();
+            if (isOfflineIndexingPaused()) {
+                return Long.MAX_VALUE;
+            }
+            if (m_resourcesToIndex.isEmpty()) {
+                // nothing to do, check again after the update frequency
+                return maxLatency;
+            }
+            long due = Math.min(m_lastQueuedTime + getOfflineUpdateDebounce(), m_firstQueuedTime + maxLatency);
+            return due - System.currentTimeMillis();
+        }
+
+        /**
+         * Marks the update of the resources returned by {@link #getResourcesToIndex()} as finished.<p>
+         */
+        protected synchronized void indexingFinished() {
+
+            m_indexingQueuedTime = 0;
+        }
+
         /**
          * Initializes this offline search handler, registering the event handlers if required.<p>
          */
@@ -314,7 +408,10 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     }
 
     /**
-     * The offline indexer thread runs periodically and indexes all resources added by the event handler.<p>
+     * The offline indexer thread indexes the resources queued by the event handler.<p>
+     *
+     * The thread waits until the queue has been quiet for the debounce time or the oldest
+     * queued change has reached the offline update frequency, then indexes the whole queue at once.<p>
      */
     protected class CmsSearchOfflineIndexThread extends Thread {
 
@@ -328,7 +425,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         private boolean m_isUpdating;
 
         /** If true a manual update (after file upload) was triggered. */
-        private boolean m_updateTriggered;
+        private volatile boolean m_updateTriggered;
 
         /** The wait handle used for signalling when the worker thread has finished. */
         private CmsWaitHandle m_waitHandle = new CmsWaitHandle();
@@ -372,25 +469,30 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
 
             // create a log report for the output
             I_CmsReport report = new CmsLogReport(m_adminCms.getRequestContext().getLocale(), CmsSearchManager.class);
-            long offlineUpdateFrequency = getOfflineUpdateFrequency();
             m_updateTriggered = false;
             try {
                 while (m_isAlive) {
                     if (!m_updateTriggered) {
                         try {
-                            sleep(offlineUpdateFrequency);
+                            synchronized (m_handler) {
+                                long delay = m_handler.getUpdateDelay();
+                                if (delay > 0) {
+                                    // the handler notifies this thread when a new change is queued
+                                    m_handler.wait(delay);
+                                }
+                            }
                         } catch (InterruptedException e) {
                             // continue the thread after interruption
                             if (!m_isAlive) {
-                                // the thread has been shut down while sleeping
+                                // the thread has been shut down while waiting
                                 continue;
                             }
-                            if (offlineUpdateFrequency != getOfflineUpdateFrequency()) {
-                                // offline update frequency change - clear interrupt status
-                                offlineUpdateFrequency = getOfflineUpdateFrequency();
-                            }
                             LOG.info(e.getLocalizedMessage(), e);
                         }
+                        if (m_isAlive && !m_updateTriggered && (m_handler.getUpdateDelay() > 0)) {
+                            // a change has been queued, but the debounce time has not yet passed
+                            continue;
+                        }
                     }
                     if (m_isAlive) {
                         // set update trigger to false since we do the update now
@@ -403,6 +505,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                         } else {
                             getWaitHandle().release();
                         }
+                        m_handler.indexingFinished();
                         // this is just called to clear the interrupt status of the thread
                         interrupted();
                     }
@@ -435,23 +538,13 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
             List<CmsPublishedResource> resourcesToIndex = m_handler.getResourcesToIndex();
             List<CmsPublishedResource> result = new ArrayList<CmsPublishedResource>(resourcesToIndex.size());
 
+            // the related container pages may already be contained in the queue
+            Set<String> keys = new HashSet<String>(resourcesToIndex.size());
             for (CmsPublishedResource pubRes : resourcesToIndex) {
-                int pos = result.indexOf(pubRes);
-
-                // do not index temporary files
-                if (pos < 0) {
-                    // resource not already contained in the update list
+                if (keys.add(getQueueKey(pubRes))) {
+                    // resource not already contained in the update list with this state
                     result.add(pubRes);
-                } else {
-                    CmsPublishedResource curRes = result.get(pos);
-                    if ((pubRes.getState() != curRes.getState())
-                        || (pubRes.getMovedState() != curRes.getMovedState())
-                        || !pubRes.getRootPath().equals(curRes.getRootPath())) {
-                        // resource already in the update list but new state is different, so also add this
-                        result.add(pubRes);
-                    }
                 }
-
             }
             return changeStateOfMoveOriginsToDeleted(result);
         }
@@ -619,9 +712,15 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /** The default value used for keeping the extraction results in the cache (672 hours = 4 weeks). */
     public static final float DEFAULT_EXTRACTION_CACHE_MAX_AGE = 672.0f;
 
+    /** The default number of threads used to extract index documents in parallel (1 = extract sequentially). */
+    public static final int DEFAULT_INDEXING_THREADS = 1;
+
     /** Default for the maximum number of modifications before a commit in the search index is triggered (500). */
     public static final int DEFAULT_MAX_MODIFICATIONS_BEFORE_COMMIT = 500;
 
+    /** The default time offline indexes wait for further changes before updating (1000 msec = 1 sec). */
+    public static final int DEFAULT_OFFLINE_UPDATE_DEBOUNCE = 1000;
+
     /** The default update frequency for offline indexes (15000 msec = 15 sec). */
     public static final int DEFAULT_OFFLINE_UPDATE_FREQNENCY = 15000;
 
@@ -640,6 +739,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /** The log object for this class. */
     protected static final Log LOG = CmsLog.getLog(CmsSearchManager.class);
 
+    /** The minimum time between hard commits of offline Solr indexes, updates in between are soft committed. */
+    private static final long OFFLINE_HARD_COMMIT_INTERVAL = 60000;
+
     /** The administrator OpenCms user context to access OpenCms VFS resources. */
     protected CmsObject m_adminCms;
 
@@ -682,12 +784,18 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /** A list of search indexes. */
     private List<CmsSearchIndex> m_indexes;
 
+    /** The number of threads used to extract index documents in parallel. */
+    private int m_indexingThreads;
+
     /** Seconds to wait for an index lock. */
     private int m_indexLockMaxWaitSeconds = 10;
 
     /** Configured index sources. */
     private Map<String, CmsSearchIndexSource> m_indexSources;
 
+    /** The time the offline Solr indexes have been hard committed the last time. */
+    private long m_lastOfflineHardCommit;
+
     /** The max. char. length of the excerpt in the search result. */
     private int m_maxExcerptLength;
 
@@ -697,6 +805,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /** The offline index search handler. */
     private CmsSearchOfflineHandler m_offlineHandler;
 
+    /** The time in milliseconds the offline indexer waits for further changes before updating. */
+    private long m_offlineUpdateDebounce;
+
     /** The update frequency of the offline indexer in milliseconds. */
     private long m_offlineUpdateFrequency;
 
@@ -723,7 +834,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         m_extractionCacheMaxAge = DEFAULT_EXTRACTION_CACHE_MAX_AGE;
         m_maxExcerptLength = DEFAULT_EXCERPT_LENGTH;
         m_offlineUpdateFrequency = DEFAULT_OFFLINE_UPDATE_FREQNENCY;
+        m_offlineUpdateDebounce = DEFAULT_OFFLINE_UPDATE_DEBOUNCE;
         m_maxModificationsBeforeCommit = DEFAULT_MAX_MODIFICATIONS_BEFORE_COMMIT;
+        m_indexingThreads = DEFAULT_INDEXING_THREADS;
 
         m_fieldConfigurations = new HashMap<String, CmsSearchFieldConfiguration>();
         // make sure we have a "standard" field configuration
@@ -1278,6 +1391,16 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         return null;
     }
 
+    /**
+     * Returns the number of threads used to extract index documents in parallel.<p>
+     *
+     * @return the number of threads used to extract index documents in parallel
+     */
+    public int getIndexingThreads() {
+
+        return m_indexingThreads;
+    }
+
     /**
      * Returns the seconds to wait for an index lock during an update operation.<p>
      *
@@ -1350,9 +1473,41 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         return m_maxModificationsBeforeCommit;
     }
 
+    /**
+     * Returns the time in milliseconds since the oldest change that is not yet contained in the offline indexes.<p>
+     *
+     * @return the offline indexing lag in milliseconds, 0 if the offline indexes are up to date
+     */
+    public long getOfflineIndexLag() {
+
+        return m_offlineHandler.getIndexingLag();
+    }
+
+    /**
+     * Returns the number of changed resources waiting to be updated in the offline indexes.<p>
+     *
+     * @return the number of changed resources waiting to be updated in the offline indexes
+     */
+    public int getOfflineIndexQueueSize() {
+
+        return m_offlineHandler.getQueueSize();
+    }
+
+    /**
+     * Returns the time in milliseconds the offline indexer waits for further changes before updating.<p>
+     *
+     * @return the time in milliseconds the offline indexer waits for further changes before updating
+     */
+    public long getOfflineUpdateDebounce() {
+
+        return m_offlineUpdateDebounce;
+    }
+
     /**
      * Returns the update frequency of the offline indexer in milliseconds.<p>
      *
+     * This is the maximum time a change waits before it is updated in the offline indexes.<p>
+     *
      * @return the update frequency of the offline indexer in milliseconds
      */
     public long getOfflineUpdateFrequency() {
@@ -2039,6 +2194,38 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         }
     }
 
+    /**
+     * Sets the number of threads used to extract index documents in parallel.<p>
+     *
+     * A value of 1 or less extracts the documents sequentially.<p>
+     *
+     * @param indexingThreads the number of threads to set
+     */
+    public void setIndexingThreads(int indexingThreads) {
+
+        m_indexingThreads = indexingThreads;
+    }
+
+    /**
+     * Sets the number of threads used to extract index documents in parallel as a string.<p>
+     *
+     * @param value the number of threads to set
+     */
+    public void setIndexingThreads(String value) {
+
+        try {
+            setIndexingThreads(Integer.parseInt(value));
+        } catch (Exception e) {
+            LOG.error(
+                Messages.get().getBundle().key(
+                    Messages.LOG_PARSE_INDEXING_THREADS_FAILED_2,
+                    value,
+                    new Integer(DEFAULT_INDEXING_THREADS)),
+                e);
+            setIndexingThreads(DEFAULT_INDEXING_THREADS);
+        }
+    }
+
     /**
      * Sets the seconds to wait for an index lock during an update operation.<p>
      *
@@ -2109,6 +2296,36 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         }
     }
 
+    /**
+     * Sets the time in milliseconds the offline indexer waits for further changes before updating.<p>
+     *
+     * @param offlineUpdateDebounce the time in milliseconds to set
+     */
+    public void setOfflineUpdateDebounce(long offlineUpdateDebounce) {
+
+        m_offlineUpdateDebounce = offlineUpdateDebounce;
+    }
+
+    /**
+     * Sets the time in milliseconds the offline indexer waits for further changes before updating as a String.<p>
+     *
+     * @param offlineUpdateDebounce the time in milliseconds to set
+     */
+    public void setOfflineUpdateDebounce(String offlineUpdateDebounce) {
+
+        try {
+            setOfflineUpdateDebounce(Long.parseLong(offlineUpdateDebounce));
+        } catch (Exception e) {
+            LOG.error(
+                Messages.get().getBundle().key(
+                    Messages.LOG_PARSE_OFFLINE_DEBOUNCE_FAILED_2,
+                    offlineUpdateDebounce,
+                    new Long(DEFAULT_OFFLINE_UPDATE_DEBOUNCE)),
+                e);
+            setOfflineUpdateDebounce(DEFAULT_OFFLINE_UPDATE_DEBOUNCE);
+        }
+    }
+
     /**
      * Sets the update frequency of the offline indexer in milliseconds.<p>
      *
@@ -2232,6 +2449,43 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         }
     }
 
+    /**
+     * Adds all files below the given folders to the list of resources to index.<p>
+     *
+     * Used for changed folders, since the files below them inherit the permissions
+     * and the searched properties of the folders.<p>
+     *
+     * @param cms the OpenCms user context to read the resources with
+     * @param folderIds the structure ids of the folders
+     * @param resourcesToIndex the list of resources to index, extended by this method
+     */
+    protected void addResourcesInFolders(
+        CmsObject cms,
+        Collection<CmsUUID> folderIds,
+        List<CmsPublishedResource> resourcesToIndex) {
+
+        if (folderIds.isEmpty()) {
+            return;
+        }
+        Set<CmsUUID> queuedIds = new HashSet<CmsUUID>();
+        for (CmsPublishedResource pubRes : resourcesToIndex) {
+            queuedIds.add(pubRes.getStructureId());
+        }
+        for (CmsUUID folderId : folderIds) {
+            try {
+                CmsResource folder = cms.readResource(folderId, CmsResourceFilter.ALL);
+                for (CmsResource res : cms.readResources(cms.getSitePath(folder), CmsResourceFilter.ALL, true)) {
+                    if (res.isFile() && queuedIds.add(res.getStructureId())) {
+                        resourcesToIndex.add(new CmsPublishedResource(res));
+                    }
+                }
+            } catch (CmsException e) {
+                // the folder may have been deleted in the meantime
+                LOG.warn(e.getLocalizedMessage(), e);
+            }
+        }
+    }
+
     /**
      * Cleans up the extraction result cache.<p>
      */
@@ -2369,7 +2623,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
      */
     protected CmsIndexingThreadManager getThreadManager() {
 
-        return new CmsIndexingThreadManager(m_timeout, m_maxModificationsBeforeCommit);
+        return new CmsIndexingThreadManager(m_timeout, m_maxModificationsBeforeCommit, m_indexingThreads);
     }
 
     /**
@@ -2488,6 +2742,26 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         }
     }
 
+    /**
+     * Checks if the given event reports changed access control entries of a folder.<p>
+     *
+     * @param event the event to check
+     *
+     * @return <code>true</code> if the given event reports changed access control entries of a folder
+     */
+    protected boolean isFolderAccessControlChange(CmsEvent event) {
+
+        if (event.getType() != I_CmsEventListener.EVENT_RESOURCE_MODIFIED) {
+            return false;
+        }
+        Object change = event.getData().get(I_CmsEventListener.KEY_CHANGE);
+        Object resource = event.getData().get(I_CmsEventListener.KEY_RESOURCE);
+        return (change instanceof Integer)
+            && ((((Integer)change).intValue() & CmsDriverManager.CHANGED_ACCESSCONTROL) != 0)
+            && (resource instanceof CmsResource)
+            && ((CmsResource)resource).isFolder();
+    }
+
     /**
      * Incrementally updates all indexes that have their rebuild mode set to <code>"auto"</code>
      * after resources have been published.<p>
@@ -2515,7 +2789,13 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
             // When published resources with both states 'new' and 'deleted' exist in the same publish job history, the resource has been moved
 
             List<CmsPublishedResource> updateResources = new ArrayList<CmsPublishedResource>();
+            List<CmsUUID> changedFolders = new ArrayList<CmsUUID>();
             for (CmsPublishedResource res : publishedResources) {
+                if (res.isFolder() && res.getState().isChanged()) {
+                    // the resources below this folder inherit its permissions and searched properties,
+                    // the publish list does not tell which of them have changed
+                    changedFolders.add(res.getStructureId());
+                }
                 if (res.isFolder() || res.getState().isUnchanged()) {
                     // folders and unchanged resources don't need to be indexed after publish
                     continue;
@@ -2571,6 +2851,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                 }
             }
 
+            addResourcesInFolders(adminCms, changedFolders, updateResources);
             findRelatedContainerPages(adminCms, updateResources);
             if (!updateResources.isEmpty()) {
                 // sort the resource to update
@@ -2779,6 +3060,30 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         I_CmsReport report,
         List<CmsPublishedResource> resourcesToIndex) throws CmsException {
 
+        updateIndexIncremental(cms, index, report, resourcesToIndex, false);
+    }
+
+    /**
+     * Incrementally updates the given index.<p>
+     *
+     * A soft commit only makes the changes visible to searches without writing them to disk,
+     * it is only used for Solr indexes.<p>
+     *
+     * @param cms the OpenCms user context to use for accessing the VFS
+     * @param index the index to update
+     * @param report the report to write output messages to
+     * @param resourcesToIndex a list of <code>{@link CmsPublishedResource}</code> objects to update in the index
+     * @param softCommit if the final commit of the update should be a soft commit
+     *
+     * @throws CmsException if something goes wrong
+     */
+    protected synchronized void updateIndexIncremental(
+        CmsObject cms,
+        CmsSearchIndex index,
+        I_CmsReport report,
+        List<CmsPublishedResource> resourcesToIndex,
+        boolean softCommit) throws CmsException {
+
         // update the existing index
         List<CmsSearchIndexUpdateData> updateCollections = new ArrayList<CmsSearchIndexUpdateData>();
 
@@ -2856,7 +3161,11 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                 // close the index writer
                 if (writer != null) {
                     try {
-                        writer.commit();
+                        if (softCommit && (writer instanceof CmsSolrIndexWriter)) {
+                            ((CmsSolrIndexWriter)writer).softCommit();
+                        } else {
+                            writer.commit();
+                        }
                     } catch (IOException e) {
                         LOG.error(
                             Messages.get().getBundle().key(
@@ -2895,6 +3204,14 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
             LOG.error(e.getLocalizedMessage(), e);
         }
 
+        // Solr changes are soft committed to become searchable quickly, with a regular hard commit in between
+        boolean softCommit = true;
+        long now = System.currentTimeMillis();
+        if ((now - m_lastOfflineHardCommit) >= OFFLINE_HARD_COMMIT_INTERVAL) {
+            softCommit = false;
+            m_lastOfflineHardCommit = now;
+        }
+
         Iterator<CmsSearchIndex> j = m_offlineIndexes.iterator();
         while (j.hasNext()) {
             CmsSearchIndex index = j.next();
@@ -2902,7 +3219,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                 try {
                     // switch to the index project
                     cms.getRequestContext().setCurrentProject(cms.readProject(index.getProject()));
-                    updateIndexIncremental(cms, index, report, resourcesToIndex);
+                    updateIndexIncremental(cms, index, report, resourcesToIndex, softCommit);
                 } catch (CmsException e) {
                     LOG.error(Messages.get().getBundle().key(Messages.LOG_UPDATE_INDEX_FAILED_1, index.getName()), e);
                 }
@@ -3008,6 +3325,25 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         return result;
     }
 
+
+    /**
+     * Returns the key identifying a resource with its state in the offline index queue.<p>
+     *
+     * @param pubRes the resource
+     *
+     * @return the key identifying the resource with its state
+     */
+    private String getQueueKey(CmsPublishedResource pubRes) {
+
+        CmsUUID id = pubRes.getStructureId().isNullUUID() ? pubRes.getResourceId() : pubRes.getStructureId();
+        return id
+            + "|"
+            + pubRes.getState().getState()
+            + "|"
+            + pubRes.getMovedState().getState()
+            + "|"
+            + pubRes.getRootPath();
+    }
     /**
      * Shuts down the Solr core container.<p>
      */
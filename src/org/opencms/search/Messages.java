@@ -355,9 +355,15 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_PARSE_EXTRACTION_CACHE_AGE_FAILED_2 = "LOG_PARSE_EXTRACTION_CACHE_AGE_FAILED_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_PARSE_INDEXING_THREADS_FAILED_2 = "LOG_PARSE_INDEXING_THREADS_FAILED_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_PARSE_MAXCOMMIT_FAILED_2 = "LOG_PARSE_MAXCOMMIT_FAILED_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_PARSE_OFFLINE_DEBOUNCE_FAILED_2 = "LOG_PARSE_OFFLINE_DEBOUNCE_FAILED_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_PARSE_OFFLINE_UPDATE_FAILED_2 = "LOG_PARSE_OFFLINE_UPDATE_FAILED_2";
 
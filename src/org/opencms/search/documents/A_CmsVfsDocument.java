@@ -116,7 +116,9 @@ public abstract class A_CmsVfsDocument implements I_CmsDocumentFactory {
             // check if caching is enabled for this document type
             CmsExtractionResultCache cache = getCache();
             String cacheName = null;
-            if ((cache != null) && (resource.getSiblingCount() > 1)) {
+            // the resource used for the extraction, may be replaced by the file with the content already read
+            CmsResource extractResource = resource;
+            if ((cache != null) && !isContentOnlyExtraction() && (resource.getSiblingCount() > 1)) {
                 // hard drive based caching only makes sense for resources that have siblings,
                 // because the index will also store the content as a blob
                 cacheName = cache.getCacheName(
@@ -142,14 +144,27 @@ public abstract class A_CmsVfsDocument implements I_CmsDocumentFactory {
                 }
             }
 
+            if ((content == null) && (cache != null) && isContentOnlyExtraction()) {
+                // the result depends only on the content, so siblings, copies and identical files share the result
+                try {
+                    CmsFile file = readFile(cms, resource);
+                    extractResource = file;
+                    cacheName = cache.getCacheName(file.getContents(), getName());
+                    content = cache.getCacheObject(cacheName);
+                } catch (CmsException e) {
+                    // the extraction below will fail in the same way and handle this
+                    LOG.debug(e.getLocalizedMessage(), e);
+                }
+            }
+
             if (content == null) {
                 // extraction result has not been attached to the resource
                 try {
-                    content = extractContent(cms, resource, index);
+                    content = extractContent(cms, extractResource, index);
                     if (LOG.isDebugEnabled()) {
                         LOG.debug("Extracting content for '" + resource.getRootPath() + "' successful.");
                     }
-                    if ((cache != null) && (resource.getSiblingCount() > 1)) {
+                    if (cacheName != null) {
                         // save extracted content to the cache
                         cache.saveCacheObject(cacheName, content);
                     }
@@ -230,6 +245,19 @@ public abstract class A_CmsVfsDocument implements I_CmsDocumentFactory {
         m_cache = cache;
     }
 
+    /**
+     * Returns if the extraction result of this document type depends only on the content of the file.<p>
+     *
+     * If this is the case, the extraction results are cached by a digest of the file content,
+     * so that all files with identical content share one extraction result.<p>
+     *
+     * @return <code>true</code> if the extraction result depends only on the content of the file
+     */
+    protected boolean isContentOnlyExtraction() {
+
+        return false;
+    }
+
     /**
      * Logs content extraction for the specified resource and index.<p>
      *
@@ -260,7 +288,15 @@ public abstract class A_CmsVfsDocument implements I_CmsDocumentFactory {
      */
     protected CmsFile readFile(CmsObject cms, CmsResource resource) throws CmsException, CmsIndexNoContentException {
 
-        CmsFile file = cms.readFile(resource);
+        CmsFile file;
+        if ((resource instanceof CmsFile)
+            && (((CmsFile)resource).getContents() != null)
+            && (((CmsFile)resource).getContents().length > 0)) {
+            // the content has already been read
+            file = (CmsFile)resource;
+        } else {
+            file = cms.readFile(resource);
+        }
         if (file.getLength() <= 0) {
             throw new CmsIndexNoContentException(
                 Messages.get().container(Messages.ERR_NO_CONTENT_1, resource.getRootPath()));
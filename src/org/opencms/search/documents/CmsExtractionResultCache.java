@@ -30,16 +30,24 @@ package org.opencms.search.documents;
 import org.opencms.cache.CmsVfsDiskCache;
 import org.opencms.file.CmsResource;
 import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor;
 import org.opencms.search.extractors.CmsExtractionResult;
 import org.opencms.search.extractors.I_CmsExtractionResult;
+import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsFileUtil;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.logging.Log;
 
+import com.google.common.hash.Hashing;
+
 /**
  * Implements a disk cache that stores text extraction results in the RFS.<p>
  *
@@ -57,13 +65,32 @@ import org.apache.commons.logging.Log;
  * project will have a new hash code compared to the online project. If the resource is identical in the online and
  * the offline project, the generated hash codes will be the same.<p>
  *
+ * For document types where the extraction result depends only on the file content, the cache name can
+ * also be calculated from a digest of the content, see {@link #getCacheName(byte[], String)}.
+ * This way siblings, copies and otherwise identical files share a single extraction result.<p>
+ *
+ * The most recently used extraction results are additionally kept in memory in their serialized form,
+ * so that repeated lookups do not require disk access.<p>
+ *
  * @since 6.2.0
  */
 public class CmsExtractionResultCache {
 
+    /** The default maximum number of extraction results kept in memory. */
+    public static final int DEFAULT_MEMORY_CACHE_SIZE = 128;
+
+    /** Serialized extraction results larger than this number of bytes are not kept in memory. */
+    public static final int MAX_MEMORY_ENTRY_SIZE = 512 * 1024;
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsExtractionResultCache.class);
 
+    /** Indicates if a cache cleanup is currently running. */
+    private AtomicBoolean m_cleaning = new AtomicBoolean();
+
+    /** The serialized extraction results kept in memory, keyed by their RFS name, may be <code>null</code>. */
+    private Map<String, byte[]> m_memoryCache;
+
     /** The name of the cache base repository folder in the RFS. */
     private String m_rfsRepository;
 
@@ -75,8 +102,28 @@ public class CmsExtractionResultCache {
      */
     public CmsExtractionResultCache(String basepath, String foldername) {
 
+        this(basepath, foldername, DEFAULT_MEMORY_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a new disk cache with an in-memory tier of the given size.<p>
+     *
+     * @param basepath the base path for the cache in the RFS
+     * @param foldername the folder name for this cache, to be used a subfolder for the base folder
+     * @param memorySize the maximum number of extraction results kept in memory, 0 disables the memory tier
+     */
+    public CmsExtractionResultCache(String basepath, String foldername, int memorySize) {
+
         // normalize the given folder name
         m_rfsRepository = CmsFileUtil.normalizePath(basepath + foldername + File.separatorChar);
+        if (memorySize > 0) {
+            Map<String, byte[]> lruMap = CmsCollectionsGenericWrapper.createLRUMap(memorySize);
+            m_memoryCache = Collections.synchronizedMap(lruMap);
+            CmsMemoryMonitor memMonitor = OpenCms.getMemoryMonitor();
+            if (memMonitor != null) {
+                memMonitor.register(CmsExtractionResultCache.class.getName() + ".memoryCache", lruMap);
+            }
+        }
     }
 
     /**
@@ -86,38 +133,42 @@ public class CmsExtractionResultCache {
      *
      * @return the total number of deleted resources
      */
-    public synchronized int cleanCache(float maxAge) {
+    public int cleanCache(float maxAge) {
 
-        // calculate oldest possible date for the cache files
-        long expireDate = System.currentTimeMillis() - (long)(maxAge * 60.0f * 60.0f * 1000.0f);
-        File basedir = new File(m_rfsRepository);
-        // perform the cache cleanup
-        int count = 0;
-        if (basedir.canRead() && basedir.isDirectory()) {
-            File[] files = basedir.listFiles();
-            if (files != null) {
-                for (int i = 0; i < files.length; i++) {
-                    File f = files[i];
-                    if (f.canWrite()) {
-                        if (f.lastModified() < expireDate) {
-                            try {
-                                f.delete();
-                                count++;
-                            } catch (Exception e) {
-                                if (LOG.isWarnEnabled()) {
-                                    LOG.warn(
-                                        Messages.get().getBundle().key(
-                                            Messages.LOG_EXCERPT_CACHE_DELETE_ERROR_1,
-                                            f.getAbsolutePath()),
-                                        e);
-                                }
-                            }
-                        }
-                    }
-                }
-            }
+        if (!m_cleaning.compareAndSet(false, true)) {
+            // another cleanup is already running
+            return 0;
+        }
+        try {
+            return internalCleanCache(maxAge);
+        } finally {
+            m_cleaning.set(false);
         }
-        return count;
+    }
+
+    /**
+     * Returns the RFS name used for caching the text extraction result
+     * based on a digest of the given file content.<p>
+     *
+     * Use this only for document types where the extraction result depends on nothing but the file content.<p>
+     *
+     * @param content the content of the file to generate the cache name for
+     * @param docTypeName the name of the search document type
+     *
+     * @return the RFS name to use for caching the extraction result of the given content
+     */
+    public String getCacheName(byte[] content, String docTypeName) {
+
+        StringBuffer buf = new StringBuffer(m_rfsRepository.length() + 80);
+        buf.append(m_rfsRepository);
+        buf.append('/');
+        buf.append(Hashing.sha256().hashBytes(content).toString());
+        if (docTypeName != null) {
+            buf.append('_');
+            buf.append(docTypeName);
+        }
+        buf.append(".ext");
+        return buf.toString();
     }
 
     /**
@@ -169,6 +220,12 @@ public class CmsExtractionResultCache {
      */
     public CmsExtractionResult getCacheObject(String rfsName) {
 
+        if (m_memoryCache != null) {
+            byte[] byteContent = m_memoryCache.get(rfsName);
+            if (byteContent != null) {
+                return CmsExtractionResult.fromBytes(byteContent);
+            }
+        }
         try {
             File f = new File(rfsName);
             if (f.exists()) {
@@ -178,7 +235,11 @@ public class CmsExtractionResultCache {
                     f.setLastModified(System.currentTimeMillis());
                 }
                 byte[] byteContent = CmsFileUtil.readFile(f);
-                return CmsExtractionResult.fromBytes(byteContent);
+                CmsExtractionResult result = CmsExtractionResult.fromBytes(byteContent);
+                if (result != null) {
+                    putMemoryObject(rfsName, byteContent);
+                }
+                return result;
             }
         } catch (IOException e) {
             // unable to read content
@@ -210,6 +271,61 @@ public class CmsExtractionResultCache {
         byte[] byteContent = content.getBytes();
         if (byteContent != null) {
             CmsVfsDiskCache.saveFile(rfsName, byteContent);
+            putMemoryObject(rfsName, byteContent);
+        }
+    }
+
+    /**
+     * Removes all expired extraction result cache entries from the RFS cache.<p>
+     *
+     * @param maxAge the maximum age of the extraction result cache files in hours (or fractions of hours)
+     *
+     * @return the total number of deleted resources
+     */
+    private int internalCleanCache(float maxAge) {
+
+        // calculate oldest possible date for the cache files
+        long expireDate = System.currentTimeMillis() - (long)(maxAge * 60.0f * 60.0f * 1000.0f);
+        File basedir = new File(m_rfsRepository);
+        // perform the cache cleanup
+        int count = 0;
+        if (basedir.canRead() && basedir.isDirectory()) {
+            File[] files = basedir.listFiles();
+            if (files != null) {
+                for (int i = 0; i < files.length; i++) {
+                    File f = files[i];
+                    if (f.canWrite()) {
+                        if (f.lastModified() < expireDate) {
+                            try {
+                                f.delete();
+                                count++;
+                            } catch (Exception e) {
+                                if (LOG.isWarnEnabled()) {
+                                    LOG.warn(
+                                        Messages.get().getBundle().key(
+                                            Messages.LOG_EXCERPT_CACHE_DELETE_ERROR_1,
+                                            f.getAbsolutePath()),
+                                        e);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Keeps the serialized extraction result in the memory tier, unless it is too large.<p>
+     *
+     * @param rfsName the RFS name of the extraction result
+     * @param byteContent the serialized extraction result
+     */
+    private void putMemoryObject(String rfsName, byte[] byteContent) {
+
+        if ((m_memoryCache != null) && (byteContent.length <= MAX_MEMORY_ENTRY_SIZE)) {
+            m_memoryCache.put(rfsName, byteContent);
         }
     }
 }
\ No newline at end of file
@@ -27,12 +27,15 @@
 
 package org.opencms.search.extractors;
 
+import org.opencms.i18n.CmsEncoder;
 import org.opencms.util.CmsStringUtil;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.Arrays;
 import java.util.Collection;
@@ -41,6 +44,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Map.Entry;
 
 /**
  * The result of a document text extraction.<p>
@@ -48,10 +52,17 @@ import java.util.Map;
  * This data structure contains the extracted text as well as (optional)
  * meta information extracted from the document.<p>
  *
+ * The serialized version returned by {@link #getBytes()} uses a compact binary format.
+ * Extraction results serialized with Java serialization by older versions can still be read
+ * with {@link #fromBytes(byte[])}.<p>
+ *
  * @since 6.0.0
  */
 public class CmsExtractionResult implements I_CmsExtractionResult, Serializable {
 
+    /** The header of the compact binary format, the last byte is the format version. */
+    private static final byte[] COMPACT_FORMAT_HEADER = {'C', 'E', 'R', 1};
+
     /** UID required for safe serialization. */
     private static final long serialVersionUID = 1465447302192195154L;
 
@@ -70,6 +81,14 @@ public class CmsExtractionResult implements I_CmsExtractionResult, Serializable
     /** The serialized version of this object. */
     private byte[] m_serializedVersion;
 
+    /**
+     * Creates an empty extraction result, used when reading the compact binary format.<p>
+     */
+    private CmsExtractionResult() {
+
+        // fields are set by the caller
+    }
+
     /** Creates a new multilingual extraction result.
      * @param defaultLocale the default (best fitting) locale of the result.
      * @param multilingualContentItems the content items for the different locales
@@ -161,7 +180,17 @@ public class CmsExtractionResult implements I_CmsExtractionResult, Serializable
 
         Object obj = null;
         if (bytes != null) {
-            // create an object out of the byte array
+            if (isCompactFormat(bytes)) {
+                try {
+                    CmsExtractionResult result = readCompact(bytes);
+                    result.m_serializedVersion = bytes;
+                    return result;
+                } catch (IOException e) {
+                    // the data is corrupt
+                    return null;
+                }
+            }
+            // create an object out of the byte array written by Java serialization
             try {
                 ByteArrayInputStream in = new ByteArrayInputStream(bytes);
                 ObjectInputStream oin = new ObjectInputStream(in);
@@ -189,11 +218,11 @@ public class CmsExtractionResult implements I_CmsExtractionResult, Serializable
             return m_serializedVersion;
         }
         try {
-            // serialize this object and return
+            // serialize this object in the compact format and return
             ByteArrayOutputStream out = new ByteArrayOutputStream(512);
-            ObjectOutputStream oout = new ObjectOutputStream(out);
-            oout.writeObject(this);
-            oout.close();
+            DataOutputStream dout = new DataOutputStream(out);
+            writeCompact(dout);
+            dout.close();
             m_serializedVersion = out.toByteArray();
         } catch (Exception e) {
             // ignore, serialized version will be null
@@ -307,6 +336,171 @@ public class CmsExtractionResult implements I_CmsExtractionResult, Serializable
         m_serializedVersion = null;
     }
 
+    /**
+     * Checks if the given bytes start with the header of the compact binary format.<p>
+     *
+     * @param bytes the bytes to check
+     *
+     * @return <code>true</code> if the given bytes use the compact binary format
+     */
+    private static boolean isCompactFormat(byte[] bytes) {
+
+        if (bytes.length < COMPACT_FORMAT_HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < COMPACT_FORMAT_HEADER.length; i++) {
+            if (bytes[i] != COMPACT_FORMAT_HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads an extraction result from the compact binary format.<p>
+     *
+     * @param bytes the bytes to read, starting with the format header
+     *
+     * @return the extraction result
+     *
+     * @throws IOException if the bytes can not be read
+     */
+    private static CmsExtractionResult readCompact(byte[] bytes) throws IOException {
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        in.skipBytes(COMPACT_FORMAT_HEADER.length);
+        CmsExtractionResult result = new CmsExtractionResult();
+        result.m_defaultLocale = readLocale(in);
+        int localeCount = in.readInt();
+        result.m_locales = new HashSet<Locale>(localeCount);
+        for (int i = 0; i < localeCount; i++) {
+            result.m_locales.add(readLocale(in));
+        }
+        int contentCount = in.readInt();
+        result.m_contentItems = new HashMap<Locale, Map<String, String>>(contentCount);
+        for (int i = 0; i < contentCount; i++) {
+            Locale locale = readLocale(in);
+            result.m_contentItems.put(locale, readMap(in));
+        }
+        result.m_fieldMappings = readMap(in);
+        return result;
+    }
+
+    /**
+     * Reads a locale written by {@link #writeLocale(DataOutputStream, Locale)}.<p>
+     *
+     * @param in the stream to read from
+     *
+     * @return the locale, may be <code>null</code>
+     *
+     * @throws IOException if reading fails
+     */
+    private static Locale readLocale(DataInputStream in) throws IOException {
+
+        String language = readString(in);
+        if (language == null) {
+            return null;
+        }
+        return new Locale(language, readString(in), readString(in));
+    }
+
+    /**
+     * Reads a string map written by {@link #writeMap(DataOutputStream, Map)}.<p>
+     *
+     * @param in the stream to read from
+     *
+     * @return the map
+     *
+     * @throws IOException if reading fails
+     */
+    private static Map<String, String> readMap(DataInputStream in) throws IOException {
+
+        int size = in.readInt();
+        Map<String, String> result = new HashMap<String, String>(size);
+        for (int i = 0; i < size; i++) {
+            String key = readString(in);
+            result.put(key, readString(in));
+        }
+        return result;
+    }
+
+    /**
+     * Reads a string written by {@link #writeString(DataOutputStream, String)}.<p>
+     *
+     * @param in the stream to read from
+     *
+     * @return the string, may be <code>null</code>
+     *
+     * @throws IOException if reading fails
+     */
+    private static String readString(DataInputStream in) throws IOException {
+
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, CmsEncoder.ENCODING_UTF_8);
+    }
+
+    /**
+     * Writes a locale, including <code>null</code> values.<p>
+     *
+     * @param out the stream to write to
+     * @param locale the locale to write
+     *
+     * @throws IOException if writing fails
+     */
+    private static void writeLocale(DataOutputStream out, Locale locale) throws IOException {
+
+        if (locale == null) {
+            writeString(out, null);
+        } else {
+            writeString(out, locale.getLanguage());
+            writeString(out, locale.getCountry());
+            writeString(out, locale.getVariant());
+        }
+    }
+
+    /**
+     * Writes a string map.<p>
+     *
+     * @param out the stream to write to
+     * @param map the map to write
+     *
+     * @throws IOException if writing fails
+     */
+    private static void writeMap(DataOutputStream out, Map<String, String> map) throws IOException {
+
+        out.writeInt(map.size());
+        for (Entry<String, String> entry : map.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+    }
+
+    /**
+     * Writes a string as UTF-8 bytes with a length prefix, including <code>null</code> values.<p>
+     *
+     * Unlike {@link DataOutputStream#writeUTF(String)}, this is not limited to 64 KB.<p>
+     *
+     * @param out the stream to write to
+     * @param value the string to write
+     *
+     * @throws IOException if writing fails
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(CmsEncoder.ENCODING_UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
     /** Merges the item from the resultLocaleValues into the corresponding item of the localeValues.
      * @param item the item to merge
      * @param localeValues the values where the item gets merged into
@@ -343,4 +537,27 @@ public class CmsExtractionResult implements I_CmsExtractionResult, Serializable
         }
         return multilingualContentItems;
     }
+
+    /**
+     * Writes this extraction result in the compact binary format.<p>
+     *
+     * @param out the stream to write to
+     *
+     * @throws IOException if writing fails
+     */
+    private void writeCompact(DataOutputStream out) throws IOException {
+
+        out.write(COMPACT_FORMAT_HEADER);
+        writeLocale(out, m_defaultLocale);
+        out.writeInt(m_locales.size());
+        for (Locale locale : m_locales) {
+            writeLocale(out, locale);
+        }
+        out.writeInt(m_contentItems.size());
+        for (Entry<Locale, Map<String, String>> entry : m_contentItems.entrySet()) {
+            writeLocale(out, entry.getKey());
+            writeMap(out, entry.getValue());
+        }
+        writeMap(out, m_fieldMappings);
+    }
 }
\ No newline at end of file
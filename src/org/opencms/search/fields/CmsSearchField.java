@@ -50,6 +50,15 @@ public class CmsSearchField implements Serializable {
     /** Th default boost factor (1.0), used in case no boost has been set for a field. */
     public static final float BOOST_DEFAULT = 1.0f;
 
+    /** Name of the field that contains all principals with an access control entry on the resource. */
+    public static final String FIELD_ACL_PRINCIPALS = "acl_principals";
+
+    /** Name of the field that contains the principals that are allowed to read the resource. */
+    public static final String FIELD_ACL_READ_ALLOWED = "acl_read_allowed";
+
+    /** Name of the field that contains the principals that are denied to read the resource. */
+    public static final String FIELD_ACL_READ_DENIED = "acl_read_denied";
+
     /** Name of the field that contains the (optional) category of the document (hardcoded). */
     public static final String FIELD_CATEGORY = "category";
 
@@ -259,6 +259,29 @@ public class CmsSolrConfiguration {
         return new File(getHome() + CONF_FOLDER + IndexSchema.DEFAULT_SCHEMA_FILE);
     }
 
+    /**
+     * Checks if the Solr index schema defines all the given fields.<p>
+     *
+     * Installations updated from an older version may still use a schema without the fields added later.<p>
+     *
+     * @param fieldNames the names of the fields to check
+     *
+     * @return <code>true</code> if the schema defines all the given fields
+     */
+    public boolean hasSchemaFields(String... fieldNames) {
+
+        IndexSchema schema = getSolrSchema();
+        if (schema == null) {
+            return false;
+        }
+        for (String fieldName : fieldNames) {
+            if (schema.getFieldOrNull(fieldName) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Returns <code>true</code> if the Solr server is embedded, <code>false</code> otherwise.<p>
      *
@@ -55,7 +55,12 @@ import org.opencms.search.fields.CmsSearchFieldConfiguration;
 import org.opencms.search.fields.CmsSearchFieldMapping;
 import org.opencms.search.fields.CmsSearchFieldMappingType;
 import org.opencms.search.fields.I_CmsSearchFieldMapping;
+import org.opencms.security.CmsAccessControlEntry;
+import org.opencms.security.CmsAccessControlList;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.security.CmsPermissionSetCustom;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 import org.opencms.xml.CmsXmlContentDefinition;
 import org.opencms.xml.containerpage.CmsContainerElementBean;
 import org.opencms.xml.containerpage.CmsContainerPageBean;
@@ -100,6 +105,21 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
         super();
     }
 
+    /**
+     * Checks if the Solr schema defines the fields for the principals allowed or denied to read a resource.<p>
+     *
+     * @return <code>true</code> if the Solr schema defines the fields for the read principals
+     */
+    public static boolean hasReadPrincipalFields() {
+
+        CmsSolrConfiguration config = OpenCms.getSearchManager().getSolrServerConfiguration();
+        return (config != null)
+            && config.hasSchemaFields(
+                CmsSearchField.FIELD_ACL_PRINCIPALS,
+                CmsSearchField.FIELD_ACL_READ_ALLOWED,
+                CmsSearchField.FIELD_ACL_READ_DENIED);
+    }
+
     /**
      * Adds the additional fields to the configuration, if they are not null.<p>
      *
@@ -226,7 +246,7 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
             document.addSearchField(m_solrFields.get(CmsSearchField.FIELD_SEARCH_CHANNEL), "content");
         }
 
-        return document;
+        return appendReadPrincipals(document, cms, resource);
     }
 
     /**
@@ -573,6 +593,63 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
         return document;
     }
 
+    /**
+     * Appends the principals that are allowed or denied to read the resource.<p>
+     *
+     * The values are taken from the effective access control list of the resource, including inherited entries.
+     * The "all others" principal is indexed as allowed only if its own entry grants read access, since it only
+     * applies to users without any other matching entry. It is also always written to the principals field,
+     * so that documents indexed with this information can be told apart from documents indexed without it.
+     * Nothing is appended if the Solr schema does not define the fields.<p>
+     *
+     * @param document the document to append the principals to
+     * @param cms the current CmsObject
+     * @param resource the resource to read the access control list from
+     *
+     * @return the document with the appended principals
+     */
+    protected I_CmsSearchDocument appendReadPrincipals(
+        I_CmsSearchDocument document,
+        CmsObject cms,
+        CmsResource resource) {
+
+        if (!hasReadPrincipalFields()) {
+            // the schema has not been updated yet, adding unknown fields would fail
+            return document;
+        }
+        try {
+            CmsAccessControlList acl = cms.getAccessControlList(cms.getSitePath(resource), false);
+            List<String> principals = new ArrayList<String>();
+            List<String> allowed = new ArrayList<String>();
+            List<String> denied = new ArrayList<String>();
+            principals.add(CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID.toString());
+            for (Map.Entry<CmsUUID, CmsPermissionSetCustom> entry : acl.getPermissionMap().entrySet()) {
+                String principal = entry.getKey().toString();
+                CmsPermissionSetCustom permissions = entry.getValue();
+                if (CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID.equals(entry.getKey())) {
+                    if ((permissions.getPermissions() & CmsPermissionSet.PERMISSION_READ) > 0) {
+                        allowed.add(principal);
+                    }
+                    continue;
+                }
+                principals.add(principal);
+                if ((permissions.getAllowedPermissions() & CmsPermissionSet.PERMISSION_READ) > 0) {
+                    allowed.add(principal);
+                }
+                if ((permissions.getDeniedPermissions() & CmsPermissionSet.PERMISSION_READ) > 0) {
+                    denied.add(principal);
+                }
+            }
+            addMultiValuedField(document, CmsSearchField.FIELD_ACL_PRINCIPALS, principals);
+            addMultiValuedField(document, CmsSearchField.FIELD_ACL_READ_ALLOWED, allowed);
+            addMultiValuedField(document, CmsSearchField.FIELD_ACL_READ_DENIED, denied);
+        } catch (CmsException e) {
+            // without the principals the document is only checked by the permission check after the search
+            LOG.warn(e.getLocalizedMessage(), e);
+        }
+        return document;
+    }
+
     /**
      * Retrieves the locales for an content, that is whether an XML content nor an XML page.<p>
      *
@@ -774,6 +851,22 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
         getFields().addAll(m_solrFields.values());
     }
 
+    /**
+     * Adds the given values to the multi-valued field with the given name.<p>
+     *
+     * @param document the document to add the field to
+     * @param fieldName the name of the field
+     * @param values the values to add
+     */
+    private void addMultiValuedField(I_CmsSearchDocument document, String fieldName, List<String> values) {
+
+        if (!values.isEmpty()) {
+            document.addSearchField(
+                new CmsSolrField(fieldName, null, null, null, CmsSearchField.BOOST_DEFAULT),
+                CmsStringUtil.listAsString(values, "\n"));
+        }
+    }
+
     /**
      * Returns <code>true</code> if at least one of the index sources uses a VFS indexer that is able
      * to index locale dependent resources.<p>
@@ -33,10 +33,13 @@ package org.opencms.search.solr;
 
 import org.opencms.configuration.CmsConfigurationException;
 import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.file.CmsGroup;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProject;
+import org.opencms.file.CmsRequestContext;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.CmsUser;
 import org.opencms.file.types.CmsResourceTypeXmlContainerPage;
 import org.opencms.file.types.CmsResourceTypeXmlContent;
 import org.opencms.i18n.CmsEncoder;
@@ -60,6 +63,7 @@ import org.opencms.search.fields.CmsSearchField;
 import org.opencms.search.galleries.CmsGallerySearchParameters;
 import org.opencms.search.galleries.CmsGallerySearchResult;
 import org.opencms.search.galleries.CmsGallerySearchResultList;
+import org.opencms.security.CmsAccessControlEntry;
 import org.opencms.security.CmsRole;
 import org.opencms.security.CmsRoleViolationException;
 import org.opencms.util.CmsRequestUtil;
@@ -71,9 +75,14 @@ import java.io.UnsupportedEncodingException;
 import java.io.Writer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.servlet.ServletResponse;
 
@@ -106,7 +115,13 @@ import org.apache.solr.schema.SchemaField;
 import org.apache.solr.search.DocListAndSet;
 import org.apache.solr.search.DocSlice;
 import org.apache.solr.search.QParser;
+import org.apache.solr.search.SolrIndexSearcher;
 import org.apache.solr.util.FastWriter;
+import org.apache.solr.util.RefCounted;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 /**
  * Implements the search within an Solr index.<p>
@@ -121,12 +136,24 @@ public class CmsSolrIndex extends CmsSearchIndex {
     /** The name of the default Solr Online index. */
     public static final String DEFAULT_INDEX_NAME_ONLINE = "Solr Online";
 
+    /** The default time in milliseconds a search result is kept in the result cache. */
+    public static final long DEFAULT_RESULT_CACHE_MAX_AGE = 60000;
+
+    /** The default number of search results kept in the result cache. */
+    public static final int DEFAULT_RESULT_CACHE_SIZE = 100;
+
     /** Constant for additional parameter to set the post processor class name. */
     public static final String POST_PROCESSOR = "search.solr.postProcessor";
 
     /** The solr exclude property. */
     public static final String PROPERTY_SEARCH_EXCLUDE_VALUE_SOLR = "solr";
 
+    /** Constant for additional parameter to set the time in milliseconds a search result is cached. */
+    public static final String RESULT_CACHE_MAX_AGE = "search.solr.resultCacheMaxAge";
+
+    /** Constant for additional parameter to set the number of cached search results, 0 disables the cache. */
+    public static final String RESULT_CACHE_SIZE = "search.solr.resultCacheSize";
+
     /** Indicates the maximum number of documents from the complete result set to return. */
     public static final int ROWS_MAX = 50;
 
@@ -175,6 +202,18 @@ public class CmsSolrIndex extends CmsSearchIndex {
     /** The post document manipulator. */
     private I_CmsSolrPostSearchProcessor m_postProcessor;
 
+    /** The cache for search results, <code>null</code> if results are not cached. */
+    private Cache<String, CmsSolrResultList> m_resultCache;
+
+    /** Counts the commits to this index, part of the result cache keys. */
+    private AtomicLong m_resultCacheGeneration = new AtomicLong();
+
+    /** The time in milliseconds a search result is kept in the result cache. */
+    private long m_resultCacheMaxAge = DEFAULT_RESULT_CACHE_MAX_AGE;
+
+    /** The maximum number of search results kept in the result cache. */
+    private int m_resultCacheSize = DEFAULT_RESULT_CACHE_SIZE;
+
     /**
      * Default constructor.<p>
      */
@@ -234,10 +273,37 @@ public class CmsSolrIndex extends CmsSearchIndex {
                     LOG.error(ex.getMessage(), ex);
                 }
             }
+        } else if (RESULT_CACHE_SIZE.equals(key)) {
+            try {
+                m_resultCacheSize = Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                LOG.error(Messages.get().getBundle().key(Messages.LOG_SOLR_ERR_INVALID_PARAM_3, value, key, getName()));
+            }
+        } else if (RESULT_CACHE_MAX_AGE.equals(key)) {
+            try {
+                m_resultCacheMaxAge = Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                LOG.error(Messages.get().getBundle().key(Messages.LOG_SOLR_ERR_INVALID_PARAM_3, value, key, getName()));
+            }
         }
         super.addConfigurationParameter(key, value);
     }
 
+    /**
+     * Removes all cached search results of this index.<p>
+     *
+     * Called by the index writer whenever changes are committed to the index.<p>
+     */
+    public void clearResultCache() {
+
+        // results that are currently computed will be stored with the old generation and never be read again
+        m_resultCacheGeneration.incrementAndGet();
+        Cache<String, CmsSolrResultList> cache = m_resultCache;
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
     /**
      * @see org.opencms.search.CmsSearchIndex#createEmptyDocument(org.opencms.file.CmsResource)
      */
@@ -312,6 +378,12 @@ public class CmsSolrIndex extends CmsSearchIndex {
         if (getPostProcessor() != null) {
             result.put(POST_PROCESSOR, getPostProcessor().getClass().getName());
         }
+        if (m_resultCacheSize != DEFAULT_RESULT_CACHE_SIZE) {
+            result.put(RESULT_CACHE_SIZE, String.valueOf(m_resultCacheSize));
+        }
+        if (m_resultCacheMaxAge != DEFAULT_RESULT_CACHE_MAX_AGE) {
+            result.put(RESULT_CACHE_MAX_AGE, String.valueOf(m_resultCacheMaxAge));
+        }
         return result;
     }
 
@@ -411,6 +483,16 @@ public class CmsSolrIndex extends CmsSearchIndex {
 
         super.initialize();
         getFieldConfiguration().init();
+        if ((m_resultCacheSize > 0) && (m_resultCacheMaxAge > 0)) {
+            m_resultCache = CacheBuilder.newBuilder().maximumSize(m_resultCacheSize).expireAfterWrite(
+                m_resultCacheMaxAge,
+                TimeUnit.MILLISECONDS).build();
+        } else {
+            m_resultCache = null;
+        }
+        if (isCheckingPermissions() && !CmsSolrFieldConfiguration.hasReadPrincipalFields()) {
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_SOLR_READ_PRINCIPAL_FIELDS_MISSING_1, getName()));
+        }
         try {
             OpenCms.getSearchManager().registerSolrIndex(this);
         } catch (CmsConfigurationException ex) {
@@ -478,6 +560,11 @@ public class CmsSolrIndex extends CmsSearchIndex {
      * permissions for grows with increasing page number, that's why we also multiply
      * the rows by the current page count.</li>
      *
+     * <li>If the index checks permissions and the Solr schema defines the fields for the read principals,
+     * a filter query for the read principals of the current user is added to a copy of the query, so Solr
+     * already excludes most documents the user is not allowed to read. In this case the rows are not
+     * multiplied by <code>'5'</code>, the permission check only remains as a safety net.</li>
+     *
      * <li>Also make sure we perform the permission check for all found documents, so start with
      * the first found doc.</li>
      * </ul>
@@ -790,35 +877,27 @@ public class CmsSolrIndex extends CmsSearchIndex {
     }
 
     /**
-     * Performs the actual search.<p>
+     * Executes the query against the Solr index and checks the permissions for the found documents.<p>
      *
      * @param cms the current OpenCms context
-     * @param ignoreMaxRows <code>true</code> to return all all requested rows, <code>false</code> to use max rows
      * @param query the OpenCms Solr query
+     * @param ignoreMaxRows <code>true</code> to return all all requested rows, <code>false</code> to use max rows
      * @param response the servlet response to write the query result to, may also be <code>null</code>
-     * @param ignoreSearchExclude if set to false, only contents with search_exclude unset or "false" will be found - typical for the the non-gallery case
      * @param filter the resource filter to use
+     * @param permissionFiltered <code>true</code> if the query already filters the read principals
      *
      * @return the found documents
      *
      * @throws CmsSearchException if something goes wrong
-     *
-     * @see #search(CmsObject, CmsSolrQuery, boolean)
      */
     @SuppressWarnings("unchecked")
-    private CmsSolrResultList search(
+    private CmsSolrResultList executeSearch(
         CmsObject cms,
-        final CmsSolrQuery query,
+        CmsSolrQuery query,
         boolean ignoreMaxRows,
         ServletResponse response,
-        boolean ignoreSearchExclude,
-        CmsResourceFilter filter) throws CmsSearchException {
-
-        // check if the user is allowed to access this index
-        checkOfflineAccess(cms);
-        if (!ignoreSearchExclude) {
-            query.addFilterQuery(CmsSearchField.FIELD_SEARCH_EXCLUDE + ":\"false\"");
-        }
+        CmsResourceFilter filter,
+        boolean permissionFiltered) throws CmsSearchException {
 
         int previousPriority = Thread.currentThread().getPriority();
         long startTime = System.currentTimeMillis();
@@ -854,9 +933,11 @@ public class CmsSolrIndex extends CmsSearchIndex {
                 page = Math.round(start / rows) + 1;
             }
 
-            // set the start to '0' and expand the rows before performing the query
+            // set the start to '0' and expand the rows before performing the query,
+            // fewer documents are dropped by the permission check if Solr already filtered the principals
+            int overfetch = permissionFiltered ? 2 : 5;
             query.setStart(new Integer(0));
-            query.setRows(new Integer((5 * rows * page) + start));
+            query.setRows(new Integer((overfetch * rows * page) + start));
 
             // perform the Solr query and remember the original Solr response
             QueryResponse queryResponse = m_solr.query(query);
@@ -889,9 +970,25 @@ public class CmsSolrIndex extends CmsSearchIndex {
             // process found documents
             List<CmsSearchResource> allDocs = new ArrayList<CmsSearchResource>();
             int cnt = 0;
-            for (int i = 0; (i < queryResponse.getResults().size()) && (cnt < end); i++) {
+            SolrDocumentList foundDocs = queryResponse.getResults();
+            int fetched = foundDocs.size();
+            for (int i = 0; cnt < end; i++) {
+                if (i == foundDocs.size()) {
+                    if (!permissionFiltered || (fetched >= hitCount)) {
+                        break;
+                    }
+                    // the resource check dropped too many documents for a full page, fetch the next documents
+                    query.setStart(Integer.valueOf(fetched));
+                    query.setRows(Integer.valueOf(overfetch * (end - cnt)));
+                    foundDocs = m_solr.query(query).getResults();
+                    if (foundDocs.isEmpty()) {
+                        break;
+                    }
+                    fetched += foundDocs.size();
+                    i = 0;
+                }
                 try {
-                    SolrDocument doc = queryResponse.getResults().get(i);
+                    SolrDocument doc = foundDocs.get(i);
                     CmsSolrDocument searchDoc = new CmsSolrDocument(doc);
                     if (needsPermissionCheck(searchDoc)) {
                         // only if the document is an OpenCms internal resource perform the permission check
@@ -1106,6 +1203,245 @@ public class CmsSolrIndex extends CmsSearchIndex {
 
     }
 
+    /**
+     * Returns a filter query that restricts the search to documents the given user is allowed to read.<p>
+     *
+     * The filter evaluates the indexed read principals like {@link org.opencms.security.CmsAccessControlList}:
+     * a document matches if any principal of the user is allowed and none is denied to read it, or if no
+     * principal of the user has an entry and the "all others" entry allows to read it. Documents indexed
+     * without principals always match and are left to the permission check after the search.<p>
+     *
+     * @param user the current user
+     * @param groups the groups of the user
+     * @param roles the roles of the user
+     *
+     * @return the filter query, or <code>null</code> if the user can ignore permissions
+     */
+    private String getReadPermissionFilterQuery(CmsUser user, List<CmsGroup> groups, List<CmsRole> roles) {
+
+        for (CmsRole role : roles) {
+            // users with the VFS manager role (or one of its parents) for any OU can ignore permissions
+            for (CmsRole ignoring = CmsRole.VFS_MANAGER; ignoring != null; ignoring = ignoring.getParentRole()) {
+                if (ignoring.getRoleName().equals(role.getRoleName())) {
+                    return null;
+                }
+            }
+        }
+        List<String> principals = new ArrayList<String>();
+        principals.add(user.getId().toString());
+        for (CmsGroup group : groups) {
+            principals.add(group.getId().toString());
+        }
+        for (CmsRole role : roles) {
+            principals.add(role.getId().toString());
+        }
+        String ids = "(\"" + CmsStringUtil.listAsString(principals, "\" OR \"") + "\")";
+        String allOthers = "\"" + CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID + "\"";
+
+        StringBuffer result = new StringBuffer(128 + (principals.size() * 90));
+        result.append("(+").append(CmsSearchField.FIELD_ACL_READ_ALLOWED).append(':').append(ids);
+        result.append(" -").append(CmsSearchField.FIELD_ACL_READ_DENIED).append(':').append(ids).append(')');
+        result.append(" OR (+").append(CmsSearchField.FIELD_ACL_READ_ALLOWED).append(':').append(allOthers);
+        result.append(" -").append(CmsSearchField.FIELD_ACL_PRINCIPALS).append(':').append(ids).append(')');
+        result.append(" OR (*:* -").append(CmsSearchField.FIELD_ACL_PRINCIPALS).append(":[* TO *])");
+        return result.toString();
+    }
+
+    /**
+     * Returns the key of the result cache for the given search.<p>
+     *
+     * The key contains the generation of the index, the permission context of the current user and
+     * the normalized query, i.e. the query parameters in alphabetical order.<p>
+     *
+     * @param cms the current OpenCms context
+     * @param query the OpenCms Solr query
+     * @param ignoreMaxRows <code>true</code> to return all all requested rows, <code>false</code> to use max rows
+     * @param filter the resource filter to use
+     * @param groups the groups of the current user
+     * @param roles the roles of the current user
+     *
+     * @return the key of the result cache
+     */
+    private String getResultCacheKey(
+        CmsObject cms,
+        CmsSolrQuery query,
+        boolean ignoreMaxRows,
+        CmsResourceFilter filter,
+        List<CmsGroup> groups,
+        List<CmsRole> roles) {
+
+        StringBuffer key = new StringBuffer(512);
+        key.append(m_resultCacheGeneration.get()).append('_').append(getSearcherVersion());
+
+        // the permission context: resource permissions may be granted to the user itself, its groups or its roles
+        CmsRequestContext context = cms.getRequestContext();
+        key.append('|').append(context.getCurrentProject().getUuid());
+        key.append('|').append(context.getCurrentUser().getId());
+        key.append('|').append(context.getSiteRoot());
+        key.append('|').append(context.getLocale());
+        List<String> principals = new ArrayList<String>();
+        for (CmsGroup group : groups) {
+            principals.add(group.getId().toString());
+        }
+        for (CmsRole role : roles) {
+            principals.add(role.getFqn());
+        }
+        Collections.sort(principals);
+        key.append('|').append(principals);
+
+        key.append('|').append(ignoreMaxRows);
+        key.append('|').append(filter == null ? null : filter.getCacheId());
+
+        // the normalized query, the values are prefixed with their length to keep the key unambiguous
+        List<String> names = new ArrayList<String>(query.getParameterNames());
+        Collections.sort(names);
+        for (String name : names) {
+            String[] values = query.getParams(name);
+            if (values == null) {
+                continue;
+            }
+            if (CommonParams.FQ.equals(name)) {
+                // the order of filter queries does not change the result
+                values = values.clone();
+                Arrays.sort(values);
+            }
+            key.append('|').append(name);
+            for (String value : values) {
+                key.append('=').append(value.length()).append(':').append(value);
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Returns the version of the index reader currently used by the embedded Solr core.<p>
+     *
+     * The version changes whenever new documents become visible, also for documents added
+     * with a "commit within" time and no explicit commit.<p>
+     *
+     * @return the version of the current index reader, or <code>-1</code> if not running an embedded server
+     */
+    private long getSearcherVersion() {
+
+        if (m_solr instanceof EmbeddedSolrServer) {
+            SolrCore core = ((EmbeddedSolrServer)m_solr).getCoreContainer().getCore(getName());
+            if (core != null) {
+                try {
+                    RefCounted<SolrIndexSearcher> searcher = core.getSearcher();
+                    try {
+                        return searcher.get().getIndexReader().getVersion();
+                    } finally {
+                        searcher.decref();
+                    }
+                } finally {
+                    core.close();
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Performs the actual search.<p>
+     *
+     * Search results are cached as long as the index is not changed. Identical searches that are
+     * executed concurrently are performed only once, all callers wait for the same result.
+     * Searches that write to a servlet response or use a post processor are never cached,
+     * since their result may depend on more than the request context.<p>
+     *
+     * @param cms the current OpenCms context
+     * @param ignoreMaxRows <code>true</code> to return all all requested rows, <code>false</code> to use max rows
+     * @param query the OpenCms Solr query
+     * @param response the servlet response to write the query result to, may also be <code>null</code>
+     * @param ignoreSearchExclude if set to false, only contents with search_exclude unset or "false" will be found - typical for the the non-gallery case
+     * @param filter the resource filter to use
+     *
+     * @return the found documents
+     *
+     * @throws CmsSearchException if something goes wrong
+     *
+     * @see #search(CmsObject, CmsSolrQuery, boolean)
+     */
+    private CmsSolrResultList search(
+        final CmsObject cms,
+        final CmsSolrQuery query,
+        final boolean ignoreMaxRows,
+        ServletResponse response,
+        boolean ignoreSearchExclude,
+        final CmsResourceFilter filter) throws CmsSearchException {
+
+        // check if the user is allowed to access this index
+        checkOfflineAccess(cms);
+        if (!ignoreSearchExclude) {
+            query.addFilterQuery(CmsSearchField.FIELD_SEARCH_EXCLUDE + ":\"false\"");
+        }
+
+        Cache<String, CmsSolrResultList> cache = m_resultCache;
+        boolean cacheable = (cache != null) && (response == null) && (m_postProcessor == null);
+        List<CmsGroup> groups = null;
+        List<CmsRole> roles = null;
+        if (cacheable || isCheckingPermissions()) {
+            // the principals of the current user, read the same way as for the permission check
+            CmsUser user = cms.getRequestContext().getCurrentUser();
+            try {
+                groups = cms.getGroupsOfUser(user.getName(), false);
+                roles = OpenCms.getRoleManager().getRolesOfUser(cms, user.getName(), "", true, false, false);
+            } catch (CmsException e) {
+                throw new CmsSearchException(
+                    Messages.get().container(
+                        Messages.LOG_SOLR_ERR_SEARCH_EXECUTION_FAILD_1,
+                        CmsEncoder.decode(query.toString())),
+                    e);
+            }
+        }
+        String permissionFilter = null;
+        if (isCheckingPermissions() && CmsSolrFieldConfiguration.hasReadPrincipalFields()) {
+            permissionFilter = getReadPermissionFilterQuery(cms.getRequestContext().getCurrentUser(), groups, roles);
+        }
+        final boolean permissionFiltered = permissionFilter != null;
+        final CmsSolrQuery searchQuery;
+        if (permissionFiltered) {
+            // add the filter to a copy, the caller may use the query for further searches
+            searchQuery = query.clone();
+            searchQuery.addFilterQuery(permissionFilter);
+        } else {
+            searchQuery = query;
+        }
+        if (!cacheable) {
+            return executeSearch(cms, searchQuery, ignoreMaxRows, response, filter, permissionFiltered);
+        }
+        String key = getResultCacheKey(cms, searchQuery, ignoreMaxRows, filter, groups, roles);
+        try {
+            // the cache loads each key only once, concurrent callers of the same key wait for this result
+            CmsSolrResultList result = cache.get(key, new Callable<CmsSolrResultList>() {
+
+                @SuppressWarnings("synthetic-access")
+                @Override
+                public CmsSolrResultList call() throws CmsSearchException {
+
+                    return executeSearch(cms, searchQuery, ignoreMaxRows, null, filter, permissionFiltered);
+                }
+            });
+            // return a copy, so callers may modify their result list
+            return new CmsSolrResultList(result);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CmsSearchException) {
+                throw (CmsSearchException)e.getCause();
+            }
+            throw new CmsSearchException(
+                Messages.get().container(
+                    Messages.LOG_SOLR_ERR_SEARCH_EXECUTION_FAILD_1,
+                    CmsEncoder.decode(searchQuery.toString())),
+                e.getCause());
+        } catch (UncheckedExecutionException e) {
+            throw new CmsSearchException(
+                Messages.get().container(
+                    Messages.LOG_SOLR_ERR_SEARCH_EXECUTION_FAILD_1,
+                    CmsEncoder.decode(searchQuery.toString())),
+                e.getCause());
+        }
+    }
+
     /**
      * Writes the Solr response.<p>
      *
@@ -119,6 +119,7 @@ public class CmsSolrIndexWriter implements I_CmsIndexWriter {
                         m_index.getName(),
                         m_index.getPath()));
                 m_server.commit();
+                m_index.clearResultCache();
             } catch (SolrServerException e) {
                 throw new IOException(e.getLocalizedMessage(), e);
             }
@@ -177,6 +178,30 @@ public class CmsSolrIndexWriter implements I_CmsIndexWriter {
         // should be configured within solrconfig.xml
     }
 
+    /**
+     * Makes the changes visible to searches without flushing them to disk.<p>
+     *
+     * The changes are persisted with the next (hard) commit.<p>
+     *
+     * @throws IOException if something goes wrong
+     */
+    public void softCommit() throws IOException {
+
+        if ((m_server != null) && (m_index != null)) {
+            try {
+                LOG.info(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_SOLR_WRITER_SOFT_COMMIT_2,
+                        m_index.getName(),
+                        m_index.getPath()));
+                m_server.commit(false, true, true);
+                m_index.clearResultCache();
+            } catch (SolrServerException e) {
+                throw new IOException(e.getLocalizedMessage(), e);
+            }
+        }
+    }
+
     /**
      * @see org.opencms.search.I_CmsIndexWriter#updateDocument(java.lang.String, org.opencms.search.I_CmsSearchDocument)
      */
@@ -109,6 +109,31 @@ public class CmsSolrResultList extends ArrayList<CmsSearchResource> {
         m_highlighting = transformHighlighting();
     }
 
+    /**
+     * Creates a copy of the given result list.<p>
+     *
+     * The Solr query response and documents are shared with the original list.<p>
+     *
+     * @param result the result list to copy
+     */
+    CmsSolrResultList(CmsSolrResultList result) {
+
+        super(result);
+
+        m_query = result.m_query;
+        m_startTime = result.m_startTime;
+        m_highlightEndTime = result.m_highlightEndTime;
+        m_rows = result.m_rows;
+        m_end = result.m_end;
+        m_page = result.m_page;
+        m_visibleHitCount = result.m_visibleHitCount;
+
+        m_resultDocuments = result.m_resultDocuments;
+        m_queryResponse = result.m_queryResponse;
+
+        m_highlighting = result.m_highlighting;
+    }
+
     /**
      * Returns the last index of documents to display.<p>
      *
@@ -46,6 +46,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_SOLR_ERR_CONFIG_XML_NOT_READABLE_1 = "LOG_SOLR_ERR_CONFIG_XML_NOT_READABLE_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_SOLR_ERR_INVALID_PARAM_3 = "LOG_SOLR_ERR_INVALID_PARAM_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_SOLR_ERR_POST_PROCESSOR_NOT_EXIST_1 = "LOG_SOLR_ERR_POST_PROCESSOR_NOT_EXIST_1";
 
@@ -67,6 +70,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_SOLR_FIELD_NOT_FOUND_1 = "LOG_SOLR_FIELD_NOT_FOUND_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_SOLR_READ_PRINCIPAL_FIELDS_MISSING_1 = "LOG_SOLR_READ_PRINCIPAL_FIELDS_MISSING_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_SOLR_SEARCH_EXECUTED_5 = "LOG_SOLR_SEARCH_EXECUTED_5";
 
@@ -85,6 +91,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_SOLR_WRITER_DOC_UPDATE_3 = "LOG_SOLR_WRITER_DOC_UPDATE_3";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_SOLR_WRITER_SOFT_COMMIT_2 = "LOG_SOLR_WRITER_SOFT_COMMIT_2";
+
     /** Name of the used resource bundle. */
     private static final String BUNDLE_NAME = "org.opencms.search.solr.messages";
 
@@ -29,6 +29,8 @@ package org.opencms.security;
 
 import org.opencms.file.CmsGroup;
 import org.opencms.file.CmsUser;
+import org.opencms.monitor.CmsMemoryMonitor;
+import org.opencms.monitor.I_CmsMemoryMonitorable;
 import org.opencms.util.CmsUUID;
 
 import java.util.ArrayList;
@@ -55,7 +57,7 @@ import java.util.Map;
  *
  * @since 6.0.0
  */
-public class CmsAccessControlList {
+public class CmsAccessControlList implements I_CmsMemoryMonitorable {
 
     /**
      * Collected permissions of a principal on this resource .
@@ -103,6 +105,20 @@ public class CmsAccessControlList {
         return acl;
     }
 
+    /**
+     * @see org.opencms.monitor.I_CmsMemoryMonitorable#getMemorySize()
+     */
+    public int getMemorySize() {
+
+        // the list object and the hash map
+        int size = 64;
+        for (CmsUUID principal : m_permissions.keySet()) {
+            // map entry and the permission set with two ints
+            size += 32 + 24 + CmsMemoryMonitor.getMemorySize(principal);
+        }
+        return size;
+    }
+
     /**
      * Returns the permission map of this access control list.<p>
      *
@@ -0,0 +1,266 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A single byte range of a HTTP "Range" request header.<p>
+ *
+ * Use {@link #parse(String, long)} to read all ranges of a request header.
+ * Overlapping and adjacent ranges are coalesced, so the result can directly be used
+ * to create a "206 - Partial Content" response.<p>
+ *
+ * @since 10.0.0
+ */
+public final class CmsByteRange implements Comparable<CmsByteRange> {
+
+    /** The maximum number of ranges in a single header, if more ranges are requested the header is ignored. */
+    public static final int MAX_RANGES = 16;
+
+    /** The "bytes" range unit prefix, the only unit supported. */
+    public static final String UNIT_BYTES = "bytes=";
+
+    /** The last byte position of this range (inclusive). */
+    private final long m_end;
+
+    /** The first byte position of this range. */
+    private final long m_start;
+
+    /**
+     * Creates a new byte range.<p>
+     *
+     * @param start the first byte position of the range
+     * @param end the last byte position of the range (inclusive)
+     */
+    public CmsByteRange(long start, long end) {
+
+        if ((start < 0) || (end < start)) {
+            throw new IllegalArgumentException(start + "-" + end);
+        }
+        m_start = start;
+        m_end = end;
+    }
+
+    /**
+     * Returns the value for a "Content-Range" header of a "416 - Range Not Satisfiable" response.<p>
+     *
+     * @param contentLength the length of the complete content
+     *
+     * @return the value for a "Content-Range" header of a "416 - Range Not Satisfiable" response
+     */
+    public static String getUnsatisfiableContentRange(long contentLength) {
+
+        return "bytes */" + contentLength;
+    }
+
+    /**
+     * Parses the given "Range" header value for a content of the given length.<p>
+     *
+     * Returns <code>null</code> if the header is not present, uses another unit than "bytes",
+     * is syntactically invalid or requests more than {@link #MAX_RANGES} ranges.
+     * In all these cases the header must be ignored and the full content is delivered.<p>
+     *
+     * Returns an empty list if the header is valid, but none of the ranges can be satisfied.
+     * In this case a "416 - Range Not Satisfiable" response is sent.<p>
+     *
+     * @param header the value of the "Range" header, may be <code>null</code>
+     * @param contentLength the length of the complete content
+     *
+     * @return the sorted and coalesced list of satisfiable ranges, or <code>null</code>
+     */
+    public static List<CmsByteRange> parse(String header, long contentLength) {
+
+        if ((header == null) || !header.startsWith(UNIT_BYTES)) {
+            return null;
+        }
+        List<String> specs = CmsStringUtil.splitAsList(header.substring(UNIT_BYTES.length()), ',', true);
+        if (specs.isEmpty() || (specs.size() > MAX_RANGES)) {
+            return null;
+        }
+        List<CmsByteRange> ranges = new ArrayList<CmsByteRange>(specs.size());
+        for (String spec : specs) {
+            int dashPos = spec.indexOf('-');
+            if (dashPos < 0) {
+                return null;
+            }
+            long start;
+            long end;
+            try {
+                if (dashPos == 0) {
+                    // suffix range, this requests the last n bytes
+                    long suffix = Long.parseLong(spec.substring(1));
+                    if (suffix < 0) {
+                        return null;
+                    }
+                    start = Math.max(0, contentLength - suffix);
+                    end = (suffix == 0) ? -1 : contentLength - 1;
+                } else {
+                    start = Long.parseLong(spec.substring(0, dashPos));
+                    if (start < 0) {
+                        return null;
+                    }
+                    if (dashPos == (spec.length() - 1)) {
+                        // open range, this requests everything from the start position
+                        end = contentLength - 1;
+                    } else {
+                        end = Long.parseLong(spec.substring(dashPos + 1));
+                        if (end < start) {
+                            return null;
+                        }
+                        end = Math.min(end, contentLength - 1);
+                    }
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if ((start < contentLength) && (start <= end)) {
+                ranges.add(new CmsByteRange(start, end));
+            }
+        }
+        return coalesce(ranges);
+    }
+
+    /**
+     * @see java.lang.Comparable#compareTo(java.lang.Object)
+     */
+    public int compareTo(CmsByteRange other) {
+
+        if (m_start != other.m_start) {
+            return m_start < other.m_start ? -1 : 1;
+        }
+        return m_end < other.m_end ? -1 : (m_end == other.m_end ? 0 : 1);
+    }
+
+    /**
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+
+        if (obj == this) {
+            return true;
+        }
+        if (obj instanceof CmsByteRange) {
+            CmsByteRange other = (CmsByteRange)obj;
+            return (m_start == other.m_start) && (m_end == other.m_end);
+        }
+        return false;
+    }
+
+    /**
+     * Returns the value for the "Content-Range" header of this range.<p>
+     *
+     * @param contentLength the length of the complete content
+     *
+     * @return the value for the "Content-Range" header of this range
+     */
+    public String getContentRange(long contentLength) {
+
+        return "bytes " + m_start + "-" + m_end + "/" + contentLength;
+    }
+
+    /**
+     * Returns the last byte position of this range (inclusive).<p>
+     *
+     * @return the last byte position of this range
+     */
+    public long getEnd() {
+
+        return m_end;
+    }
+
+    /**
+     * Returns the number of bytes in this range.<p>
+     *
+     * @return the number of bytes in this range
+     */
+    public long getLength() {
+
+        return (m_end - m_start) + 1;
+    }
+
+    /**
+     * Returns the first byte position of this range.<p>
+     *
+     * @return the first byte position of this range
+     */
+    public long getStart() {
+
+        return m_start;
+    }
+
+    /**
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+
+        return (int)((m_start * 31) + m_end);
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return m_start + "-" + m_end;
+    }
+
+    /**
+     * Sorts the given ranges and merges all ranges that overlap or are adjacent.<p>
+     *
+     * @param ranges the ranges to coalesce
+     *
+     * @return the sorted and coalesced ranges
+     */
+    private static List<CmsByteRange> coalesce(List<CmsByteRange> ranges) {
+
+        if (ranges.size() < 2) {
+            return ranges;
+        }
+        Collections.sort(ranges);
+        List<CmsByteRange> result = new ArrayList<CmsByteRange>(ranges.size());
+        CmsByteRange current = ranges.get(0);
+        for (int i = 1; i < ranges.size(); i++) {
+            CmsByteRange next = ranges.get(i);
+            if (next.m_start <= (current.m_end + 1)) {
+                current = new CmsByteRange(current.m_start, Math.max(current.m_end, next.m_end));
+            } else {
+                result.add(current);
+                current = next;
+            }
+        }
+        result.add(current);
+        return result;
+    }
+}
@@ -79,6 +79,9 @@ public final class CmsRequestUtil {
     /** HTTP Accept-Language Header for internal requests used during static export. */
     public static final String HEADER_ACCEPT_LANGUAGE = "Accept-Language";
 
+    /** HTTP Header "Accept-Ranges". */
+    public static final String HEADER_ACCEPT_RANGES = "Accept-Ranges";
+
     /** HTTP Header "Cache-Control". */
     public static final String HEADER_CACHE_CONTROL = "Cache-Control";
 
@@ -88,15 +91,30 @@ public final class CmsRequestUtil {
     /** The "Content-Disposition" http header. */
     public static final String HEADER_CONTENT_DISPOSITION = "Content-Disposition";
 
+    /** HTTP Header "Content-Length". */
+    public static final String HEADER_CONTENT_LENGTH = "Content-Length";
+
+    /** HTTP Header "Content-Range". */
+    public static final String HEADER_CONTENT_RANGE = "Content-Range";
+
     /** The "Content-Type" http header. */
     public static final String HEADER_CONTENT_TYPE = "Content-Type";
 
+    /** HTTP Header "ETag". */
+    public static final String HEADER_ETAG = "ETag";
+
     /** HTTP Header "Expires". */
     public static final String HEADER_EXPIRES = "Expires";
 
     /** HTTP Header "If-Modified-Since". */
     public static final String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
 
+    /** HTTP Header "If-None-Match". */
+    public static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+
+    /** HTTP Header "If-Range". */
+    public static final String HEADER_IF_RANGE = "If-Range";
+
     /** The Header that stores the session id (used by OpenCms upload applet). */
     public static final String HEADER_JSESSIONID = "JSESSIONID";
 
@@ -112,6 +130,9 @@ public final class CmsRequestUtil {
     /** HTTP Header "Pragma". */
     public static final String HEADER_PRAGMA = "Pragma";
 
+    /** HTTP Header "Range". */
+    public static final String HEADER_RANGE = "Range";
+
     /** HTTP Header "Server". */
     public static final String HEADER_SERVER = "Server";
 
@@ -130,6 +151,9 @@ public final class CmsRequestUtil {
     /** HTTP Header value "no-store" (for "Cache-Control"). */
     public static final String HEADER_VALUE_NO_STORE = "no-store";
 
+    /** HTTP Header "Vary". */
+    public static final String HEADER_VARY = "Vary";
+
     /** HTTP Header "WWW-Authenticate". */
     public static final String HEADER_WWW_AUTHENTICATE = "WWW-Authenticate";
 
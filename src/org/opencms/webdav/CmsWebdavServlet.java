@@ -101,6 +101,7 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.codec.net.URLCodec;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.logging.Log;
 
 import org.dom4j.Document;
@@ -523,7 +524,7 @@ public class CmsWebdavServlet extends HttpServlet {
 
         InputStream resourceInputStream = null;
         if (!item.isCollection()) {
-            resourceInputStream = new ByteArrayInputStream(item.getContent());
+            resourceInputStream = item.getContentStream();
         } else {
             resourceInputStream = is;
         }
@@ -564,15 +565,9 @@ public class CmsWebdavServlet extends HttpServlet {
         IOException exception = null;
         InputStream resourceInputStream = null;
 
-        // Optimization: If the binary content has already been loaded, send
-        // it directly
+        // stream the content, so large files are not read into memory
         if (!item.isCollection()) {
-            byte[] buffer = item.getContent();
-            if (buffer != null) {
-                ostream.write(buffer, 0, buffer.length);
-                return;
-            }
-            resourceInputStream = new ByteArrayInputStream(item.getContent());
+            resourceInputStream = item.getContentStream();
         } else {
             resourceInputStream = is;
         }
@@ -612,7 +607,7 @@ public class CmsWebdavServlet extends HttpServlet {
 
         IOException exception = null;
 
-        InputStream resourceInputStream = new ByteArrayInputStream(item.getContent());
+        InputStream resourceInputStream = item.getContentStream();
 
         Reader reader = new InputStreamReader(resourceInputStream);
         exception = copyRange(reader, writer, range.getStart(), range.getEnd());
@@ -654,7 +649,7 @@ public class CmsWebdavServlet extends HttpServlet {
 
         while ((exception == null) && (ranges.hasNext())) {
 
-            InputStream resourceInputStream = new ByteArrayInputStream(item.getContent());
+            InputStream resourceInputStream = item.getContentStream();
 
             Reader reader = new InputStreamReader(resourceInputStream);
             CmsWebdavRange currentRange = ranges.next();
@@ -712,7 +707,7 @@ public class CmsWebdavServlet extends HttpServlet {
 
         IOException exception = null;
 
-        InputStream resourceInputStream = new ByteArrayInputStream(item.getContent());
+        InputStream resourceInputStream = item.getContentStream();
         InputStream istream = new BufferedInputStream(resourceInputStream, m_input);
         exception = copyRange(istream, ostream, range.getStart(), range.getEnd());
 
@@ -753,7 +748,7 @@ public class CmsWebdavServlet extends HttpServlet {
 
         while ((exception == null) && (ranges.hasNext())) {
 
-            InputStream resourceInputStream = new ByteArrayInputStream(item.getContent());
+            InputStream resourceInputStream = item.getContentStream();
             InputStream istream = new BufferedInputStream(resourceInputStream, m_input);
 
             CmsWebdavRange currentRange = ranges.next();
@@ -846,7 +841,8 @@ public class CmsWebdavServlet extends HttpServlet {
         }
 
         try {
-            istream.skip(start);
+            // a stream may skip less than requested in one call
+            IOUtils.skipFully(istream, start);
         } catch (IOException e) {
             return e;
         }
@@ -855,23 +851,16 @@ public class CmsWebdavServlet extends HttpServlet {
         long bytesToRead = (end - start) + 1;
 
         byte[] buffer = new byte[m_input];
-        int len = buffer.length;
-        while ((bytesToRead > 0) && (len >= buffer.length)) {
+        while (bytesToRead > 0) {
             try {
-                len = istream.read(buffer);
-                if (bytesToRead >= len) {
-                    ostream.write(buffer, 0, len);
-                    bytesToRead -= len;
-                } else {
-                    ostream.write(buffer, 0, (int)bytesToRead);
-                    bytesToRead = 0;
+                int len = istream.read(buffer, 0, (int)Math.min(buffer.length, bytesToRead));
+                if (len == -1) {
+                    break;
                 }
+                ostream.write(buffer, 0, len);
+                bytesToRead -= len;
             } catch (IOException e) {
                 exception = e;
-                len = -1;
-            }
-
-            if (len < buffer.length) {
                 break;
             }
         }
@@ -926,7 +915,8 @@ public class CmsWebdavServlet extends HttpServlet {
     protected IOException copyRange(Reader reader, PrintWriter writer, long start, long end) {
 
         try {
-            reader.skip(start);
+            // a stream may skip less than requested in one call
+            IOUtils.skipFully(reader, start);
         } catch (IOException e) {
             return e;
         }
@@ -935,23 +925,16 @@ public class CmsWebdavServlet extends HttpServlet {
         long bytesToRead = (end - start) + 1;
 
         char[] buffer = new char[m_input];
-        int len = buffer.length;
-        while ((bytesToRead > 0) && (len >= buffer.length)) {
+        while (bytesToRead > 0) {
             try {
-                len = reader.read(buffer);
-                if (bytesToRead >= len) {
-                    writer.write(buffer, 0, len);
-                    bytesToRead -= len;
-                } else {
-                    writer.write(buffer, 0, (int)bytesToRead);
-                    bytesToRead = 0;
+                int len = reader.read(buffer, 0, (int)Math.min(buffer.length, bytesToRead));
+                if (len == -1) {
+                    break;
                 }
+                writer.write(buffer, 0, len);
+                bytesToRead -= len;
             } catch (IOException e) {
                 exception = e;
-                len = -1;
-            }
-
-            if (len < buffer.length) {
                 break;
             }
         }
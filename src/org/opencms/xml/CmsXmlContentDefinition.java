@@ -35,6 +35,8 @@ import org.opencms.file.types.I_CmsResourceType;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor;
+import org.opencms.monitor.I_CmsMemoryMonitorable;
 import org.opencms.relations.CmsRelation;
 import org.opencms.relations.CmsRelationFilter;
 import org.opencms.relations.CmsRelationType;
@@ -79,7 +81,7 @@ import org.xml.sax.SAXException;
  *
  * @since 6.0.0
  */
-public class CmsXmlContentDefinition implements Cloneable {
+public class CmsXmlContentDefinition implements I_CmsMemoryMonitorable, Cloneable {
 
     /**
      * Enumeration of possible sequence types in a content definition.
@@ -827,6 +829,32 @@ public class CmsXmlContentDefinition implements Cloneable {
         return null;
     }
 
+    /**
+     * Returns an estimate of the heap memory used by the given dom4j element and its children, in bytes.<p>
+     *
+     * @param element the element to weigh
+     *
+     * @return the estimated memory size of the element tree
+     */
+    private static int getElementMemorySize(Element element) {
+
+        if (element == null) {
+            return 0;
+        }
+        int size = 128 + CmsMemoryMonitor.getMemorySize(element.getName());
+        for (int i = 0; i < element.attributeCount(); i++) {
+            size += 64 + CmsMemoryMonitor.getMemorySize(element.attribute(i).getValue());
+        }
+        String text = element.getTextTrim();
+        if (text.length() > 0) {
+            size += CmsMemoryMonitor.getMemorySize(text);
+        }
+        for (Element child : CmsXmlGenericWrapper.elements(element)) {
+            size += getElementMemorySize(child);
+        }
+        return size;
+    }
+
     /**
      * Translates the XSD schema location.<p>
      *
@@ -1267,6 +1295,33 @@ public class CmsXmlContentDefinition implements Cloneable {
         return m_innerName;
     }
 
+    /**
+     * Returns an estimate of the heap memory used by this content definition, in bytes.<p>
+     *
+     * The estimate covers the names, the type sequence, the content handler
+     * and the schema document this definition was unmarshalled from.<p>
+     *
+     * @see org.opencms.monitor.I_CmsMemoryMonitorable#getMemorySize()
+     */
+    public int getMemorySize() {
+
+        int size = 256;
+        size += CmsMemoryMonitor.getMemorySize(m_innerName);
+        size += CmsMemoryMonitor.getMemorySize(m_outerName);
+        size += CmsMemoryMonitor.getMemorySize(m_schemaLocation);
+        size += CmsMemoryMonitor.getMemorySize(m_typeName);
+        // each schema type is held in the sequence, the type map and the element type map
+        size += m_typeSequence.size() * 256;
+        if (m_contentHandler != null) {
+            // content handlers are shared per schema and carry the parsed appinfo settings
+            size += 4096;
+        }
+        if (m_schemaDocument != null) {
+            size += getElementMemorySize(m_schemaDocument.getRootElement());
+        }
+        return size;
+    }
+
     /**
      * Returns the outer element name of this content definition.<p>
      *
@@ -192,6 +192,7 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
             new int[] {
                 I_CmsEventListener.EVENT_CLEAR_CACHES,
                 I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+                I_CmsEventListener.EVENT_REMOTE_PUBLISH_PROJECT,
                 I_CmsEventListener.EVENT_RESOURCE_MODIFIED,
                 I_CmsEventListener.EVENT_RESOURCE_MOVED,
                 I_CmsEventListener.EVENT_RESOURCE_DELETED});
@@ -294,6 +295,7 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
         CmsResource resource;
         switch (event.getType()) {
             case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
+            case I_CmsEventListener.EVENT_REMOTE_PUBLISH_PROJECT:
                 // only flush cache if a schema definition where published
                 CmsUUID publishHistoryId = new CmsUUID((String)event.getData().get(I_CmsEventListener.KEY_PUBLISHID));
                 if (isSchemaDefinitionInPublishList(publishHistoryId)) {
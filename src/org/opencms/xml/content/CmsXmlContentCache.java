@@ -0,0 +1,469 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.xml.content;
+
+import org.opencms.cache.CmsVfsCache;
+import org.opencms.cache.CmsVfsDiskCache;
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.history.I_CmsHistoryResource;
+import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor;
+import org.opencms.monitor.I_CmsMemoryMonitorable;
+import org.opencms.util.CmsUUID;
+import org.opencms.xml.CmsXmlEntityResolver;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.dom4j.Document;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+
+/**
+ * Caches parsed XML contents across requests, separately for the online and the offline project.<p>
+ *
+ * The cache keeps an immutable snapshot of the parsed XML document for each content,
+ * keyed by the structure id and the date of last modification of the resource.
+ * The snapshots are never handed out. Every lookup returns a new {@link CmsXmlContent}
+ * created from a private copy of the cached document, so callers can modify the returned content,
+ * and the link validation is done for the current user. Reading the file content from the VFS
+ * and parsing the XML is avoided for all cache hits. Since the file is not read for a cache hit,
+ * the resource is added to the dependencies of the current request context instead.<p>
+ *
+ * The size of the caches is limited by the estimated memory used by the entries, which is derived
+ * from the length of the file content. The limits can be set with the runtime properties
+ * {@link #PARAM_ONLINE_MAX_BYTES} and {@link #PARAM_OFFLINE_MAX_BYTES}.<p>
+ *
+ * Online entries are flushed when a project is published, offline entries are removed
+ * when the resource is modified.<p>
+ *
+ * Optionally, the cache also stores {@link CmsXmlContentSnapshot} instances in a disk cache below
+ * the <code>WEB-INF</code> folder, so value lookups can be done without building a DOM even
+ * after a restart. This is enabled with the runtime property {@link #PARAM_SNAPSHOTS_ENABLED}.
+ * Snapshots are validated against the date of last modification of the resource when read,
+ * and like for a cached content, the resource is added to the dependencies of the current request context.<p>
+ *
+ * @since 10.0.0
+ */
+public final class CmsXmlContentCache extends CmsVfsCache {
+
+    /** The default maximum number of bytes used by the offline cache. */
+    public static final long DEFAULT_OFFLINE_MAX_BYTES = 8 * 1024 * 1024;
+
+    /** The default maximum number of bytes used by the online cache. */
+    public static final long DEFAULT_ONLINE_MAX_BYTES = 32 * 1024 * 1024;
+
+    /** Name of the runtime property for the maximum number of bytes used by the offline cache. */
+    public static final String PARAM_OFFLINE_MAX_BYTES = "xmlcontent.cache.offline.maxbytes";
+
+    /** Name of the runtime property for the maximum number of bytes used by the online cache. */
+    public static final String PARAM_ONLINE_MAX_BYTES = "xmlcontent.cache.online.maxbytes";
+
+    /** Name of the runtime property to enable the disk cache for XML content snapshots. */
+    public static final String PARAM_SNAPSHOTS_ENABLED = "xmlcontent.snapshots.enabled";
+
+    /** The name of the disk cache folder for XML content snapshots, relative to the <code>WEB-INF</code> folder. */
+    public static final String SNAPSHOT_REPOSITORY_FOLDER = "xmlsnapshots";
+
+    /** The estimated size of a parsed XML document relative to the length of the file content. */
+    private static final int DOCUMENT_SIZE_FACTOR = 4;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsXmlContentCache.class);
+
+    /** The singleton instance of the cache. */
+    private static CmsXmlContentCache m_instance;
+
+    /** Cache for offline contents. */
+    private Map<String, CachedContent> m_contentsOffline;
+
+    /** Cache for online contents. */
+    private Map<String, CachedContent> m_contentsOnline;
+
+    /** The disk cache for XML content snapshots, <code>null</code> if snapshots are disabled. */
+    private CmsVfsDiskCache m_snapshotCache;
+
+    /**
+     * Immutable snapshot of a parsed XML content.<p>
+     */
+    private static final class CachedContent implements I_CmsMemoryMonitorable {
+
+        /** The raw file content the document was parsed from. */
+        final byte[] m_contents;
+
+        /** The parsed XML document, this must never be modified. */
+        final Document m_document;
+
+        /** The encoding used for the content. */
+        final String m_encoding;
+
+        /** The estimated memory used by the content and the document. */
+        final int m_memorySize;
+
+        /** The resource id of the content file. */
+        final CmsUUID m_resourceId;
+
+        /**
+         * Creates a new cached content.<p>
+         *
+         * @param file the file the document was parsed from
+         * @param document the parsed XML document
+         * @param encoding the encoding used for the content
+         */
+        CachedContent(CmsFile file, Document document, String encoding) {
+
+            // copy the content, the file content array may be changed by the caller
+            m_contents = file.getContents().clone();
+            m_document = document;
+            m_encoding = encoding;
+            m_memorySize = (int)Math.min(
+                Integer.MAX_VALUE,
+                (long)m_contents.length * (1 + DOCUMENT_SIZE_FACTOR));
+            m_resourceId = file.getResourceId();
+        }
+
+        /**
+         * @see org.opencms.monitor.I_CmsMemoryMonitorable#getMemorySize()
+         */
+        public int getMemorySize() {
+
+            return m_memorySize;
+        }
+    }
+
+    /**
+     * Creates a new XML content cache.<p>
+     *
+     * @param onlineMaxBytes the maximum number of bytes used by the cached online contents
+     * @param offlineMaxBytes the maximum number of bytes used by the cached offline contents
+     */
+    private CmsXmlContentCache(long onlineMaxBytes, long offlineMaxBytes) {
+
+        m_contentsOnline = createCache(onlineMaxBytes);
+        m_contentsOffline = createCache(offlineMaxBytes);
+
+        CmsMemoryMonitor memMonitor = OpenCms.getMemoryMonitor();
+        if (memMonitor != null) {
+            memMonitor.register(CmsXmlContentCache.class.getName() + ".contentsOnline", m_contentsOnline);
+            memMonitor.register(CmsXmlContentCache.class.getName() + ".contentsOffline", m_contentsOffline);
+        }
+        if (Boolean.parseBoolean((String)OpenCms.getRuntimeProperty(PARAM_SNAPSHOTS_ENABLED))) {
+            m_snapshotCache = new CmsVfsDiskCache(
+                OpenCms.getSystemInfo().getWebInfRfsPath(),
+                SNAPSHOT_REPOSITORY_FOLDER);
+        }
+        registerEventListener();
+    }
+
+    /**
+     * Returns the XML content cache.<p>
+     *
+     * @return the XML content cache
+     */
+    public static synchronized CmsXmlContentCache getInstance() {
+
+        if (m_instance == null) {
+            m_instance = new CmsXmlContentCache(
+                getMaxBytes(PARAM_ONLINE_MAX_BYTES, DEFAULT_ONLINE_MAX_BYTES),
+                getMaxBytes(PARAM_OFFLINE_MAX_BYTES, DEFAULT_OFFLINE_MAX_BYTES));
+        }
+        return m_instance;
+    }
+
+    /**
+     * Returns a new XML content for the given resource created from the cache,
+     * or <code>null</code> if the content is not cached.<p>
+     *
+     * If the given resource is a file with content, the cached content is only used if the
+     * file content is unchanged. Otherwise the returned content uses a new file with the cached content,
+     * so the file content does not need to be read from the VFS. In this case the resource is added
+     * to the dependencies of the current request context, like reading the file would do.<p>
+     *
+     * @param cms the current users OpenCms context
+     * @param resource the XML content resource
+     * @param keepEncoding if the encoding specified in the XML header was used for unmarshalling
+     *
+     * @return a new XML content created from the cache, or <code>null</code> if not cached
+     */
+    public CmsXmlContent getContent(CmsObject cms, CmsResource resource, boolean keepEncoding) {
+
+        if (resource instanceof I_CmsHistoryResource) {
+            return null;
+        }
+        CachedContent cached = getCache(cms).get(getCacheKey(resource, keepEncoding));
+        if (cached == null) {
+            return null;
+        }
+        CmsFile file;
+        if ((resource instanceof CmsFile) && (((CmsFile)resource).getContents() != null)) {
+            file = (CmsFile)resource;
+            if (!Arrays.equals(file.getContents(), cached.m_contents)) {
+                // the file content has been changed in memory
+                return null;
+            }
+        } else {
+            file = new CmsFile(resource);
+            file.setContents(cached.m_contents.clone());
+            // the file is not read, but the Flex cache must know that the output depends on it
+            cms.updateContextDependency(resource);
+        }
+        CmsXmlContent content = new CmsXmlContent(
+            cms,
+            (Document)cached.m_document.clone(),
+            cached.m_encoding,
+            new CmsXmlEntityResolver(cms));
+        content.setFile(file);
+        return content.getHandler().prepareForUse(cms, content);
+    }
+
+    /**
+     * Returns the number of cached offline contents.<p>
+     *
+     * @return the number of cached offline contents
+     */
+    public int getOfflineSize() {
+
+        return m_contentsOffline.size();
+    }
+
+    /**
+     * Returns the number of cached online contents.<p>
+     *
+     * @return the number of cached online contents
+     */
+    public int getOnlineSize() {
+
+        return m_contentsOnline.size();
+    }
+
+    /**
+     * Returns the snapshot of the given XML content resource from the disk cache,
+     * or <code>null</code> if no valid snapshot is cached for the site of the current user.<p>
+     *
+     * @param cms the current users OpenCms context
+     * @param resource the XML content resource
+     *
+     * @return the cached snapshot, or <code>null</code>
+     */
+    public CmsXmlContentSnapshot getSnapshot(CmsObject cms, CmsResource resource) {
+
+        if ((m_snapshotCache == null) || (resource instanceof I_CmsHistoryResource)) {
+            return null;
+        }
+        String rfsName = getSnapshotRfsName(cms, resource);
+        byte[] data = m_snapshotCache.getCacheContent(rfsName, resource.getDateLastModified());
+        if (data == null) {
+            return null;
+        }
+        try {
+            CmsXmlContentSnapshot snapshot = CmsXmlContentSnapshot.fromByteArray(data);
+            if ((snapshot != null)
+                && (snapshot.getDateLastModified() == resource.getDateLastModified())
+                && snapshot.getSiteRoot().equals(cms.getRequestContext().getSiteRoot())) {
+                // the file is not read, but the Flex cache must know that the output depends on it
+                cms.updateContextDependency(resource);
+                return snapshot;
+            }
+        } catch (IOException e) {
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_XMLCONTENT_SNAPSHOT_READ_FAILED_1, rfsName), e);
+        }
+        return null;
+    }
+
+    /**
+     * Returns if the disk cache for XML content snapshots is enabled.<p>
+     *
+     * @return <code>true</code> if the disk cache for XML content snapshots is enabled
+     */
+    public boolean isSnapshotsEnabled() {
+
+        return m_snapshotCache != null;
+    }
+
+    /**
+     * Caches the given parsed XML document for the given file.<p>
+     *
+     * The document must not be used or modified by the caller after it has been cached,
+     * pass a copy if the document is used for a XML content.<p>
+     *
+     * @param cms the current users OpenCms context
+     * @param file the file the document was parsed from
+     * @param keepEncoding if the encoding specified in the XML header was used for unmarshalling
+     * @param document the parsed XML document
+     * @param encoding the encoding used for the content
+     */
+    public void putContent(CmsObject cms, CmsFile file, boolean keepEncoding, Document document, String encoding) {
+
+        if ((file instanceof I_CmsHistoryResource) || (file.getContents() == null)) {
+            return;
+        }
+        getCache(cms).put(getCacheKey(file, keepEncoding), new CachedContent(file, document, encoding));
+    }
+
+    /**
+     * Stores the snapshot of the given XML content resource in the disk cache.<p>
+     *
+     * Does nothing if the disk cache for snapshots is disabled.<p>
+     *
+     * @param cms the current users OpenCms context, the snapshot must have been created for its site root
+     * @param resource the XML content resource
+     * @param snapshot the snapshot to store
+     */
+    public void putSnapshot(CmsObject cms, CmsResource resource, CmsXmlContentSnapshot snapshot) {
+
+        if ((m_snapshotCache == null) || (resource instanceof I_CmsHistoryResource)) {
+            return;
+        }
+        String rfsName = getSnapshotRfsName(cms, resource);
+        try {
+            m_snapshotCache.saveCacheFile(rfsName, snapshot.toByteArray(), resource.getDateLastModified());
+        } catch (IOException e) {
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_XMLCONTENT_SNAPSHOT_WRITE_FAILED_1, rfsName), e);
+        }
+    }
+
+    /**
+     * @see org.opencms.cache.CmsVfsCache#flush(boolean)
+     */
+    @Override
+    protected void flush(boolean online) {
+
+        if (online) {
+            m_contentsOnline.clear();
+        } else {
+            m_contentsOffline.clear();
+        }
+    }
+
+    /**
+     * @see org.opencms.cache.CmsVfsCache#uncacheResource(org.opencms.file.CmsResource)
+     */
+    @Override
+    protected void uncacheResource(CmsResource resource) {
+
+        if (resource == null) {
+            return;
+        }
+        String prefix = resource.getStructureId().toString();
+        Iterator<Map.Entry<String, CachedContent>> it = m_contentsOffline.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, CachedContent> entry = it.next();
+            if (entry.getKey().startsWith(prefix) || entry.getValue().m_resourceId.equals(resource.getResourceId())) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Creates a cache map that is limited by the estimated memory used by the cached contents.<p>
+     *
+     * @param maxBytes the maximum number of bytes used by the cached contents
+     *
+     * @return the cache map
+     */
+    private static Map<String, CachedContent> createCache(long maxBytes) {
+
+        return CacheBuilder.newBuilder().maximumWeight(maxBytes).weigher(new Weigher<String, CachedContent>() {
+
+            public int weigh(String key, CachedContent value) {
+
+                return value.getMemorySize();
+            }
+        }).<String, CachedContent> build().asMap();
+    }
+
+    /**
+     * Returns the maximum number of bytes for a cache from the given runtime property.<p>
+     *
+     * @param param the name of the runtime property
+     * @param defaultValue the value used if the property is not set or invalid
+     *
+     * @return the maximum number of bytes for the cache
+     */
+    private static long getMaxBytes(String param, long defaultValue) {
+
+        String value = (String)OpenCms.getRuntimeProperty(param);
+        if (value != null) {
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                LOG.warn(e.getLocalizedMessage(), e);
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Returns the online or offline cache map, depending on the current project.<p>
+     *
+     * @param cms the current users OpenCms context
+     *
+     * @return the online or offline cache map
+     */
+    private Map<String, CachedContent> getCache(CmsObject cms) {
+
+        return cms.getRequestContext().getCurrentProject().isOnlineProject() ? m_contentsOnline : m_contentsOffline;
+    }
+
+    /**
+     * Returns the cache key for the given resource.<p>
+     *
+     * @param resource the resource
+     * @param keepEncoding if the encoding specified in the XML header was used for unmarshalling
+     *
+     * @return the cache key for the given resource
+     */
+    private String getCacheKey(CmsResource resource, boolean keepEncoding) {
+
+        return resource.getStructureId().toString() + "_" + resource.getDateLastModified() + "_" + keepEncoding;
+    }
+
+    /**
+     * Returns the RFS name of the disk cache file for the snapshot of the given resource.<p>
+     *
+     * @param cms the current users OpenCms context
+     * @param resource the XML content resource
+     *
+     * @return the RFS name of the disk cache file
+     */
+    private String getSnapshotRfsName(CmsObject cms, CmsResource resource) {
+
+        return m_snapshotCache.getCacheName(
+            cms.getRequestContext().getCurrentProject().isOnlineProject(),
+            resource.getRootPath(),
+            cms.getRequestContext().getSiteRoot());
+    }
+}
@@ -136,6 +136,48 @@ public final class CmsXmlContentFactory {
         return content.getHandler().prepareForUse(cms, content);
     }
 
+    /**
+     * Creates a snapshot of the given XML content, which is also stored in the disk cache
+     * of the {@link CmsXmlContentCache} if enabled.<p>
+     *
+     * @param cms the current OpenCms context, the String values of the snapshot are created for its site
+     * @param content the XML content
+     *
+     * @return the snapshot of the XML content
+     */
+    public static CmsXmlContentSnapshot createSnapshot(CmsObject cms, CmsXmlContent content) {
+
+        CmsXmlContentSnapshot snapshot = CmsXmlContentSnapshot.create(cms, content);
+        if (content.getFile() != null) {
+            CmsXmlContentCache.getInstance().putSnapshot(cms, content.getFile(), snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the snapshot of the values of the given XML content resource,
+     * from the disk cache if possible.<p>
+     *
+     * If the snapshot is not cached, the XML content is unmarshalled and a new snapshot is created.<p>
+     *
+     * @param cms the current OpenCms context
+     * @param resource the XML content resource
+     *
+     * @return the snapshot of the values of the XML content
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see #createSnapshot(CmsObject, CmsXmlContent)
+     */
+    public static CmsXmlContentSnapshot getSnapshot(CmsObject cms, CmsResource resource) throws CmsException {
+
+        CmsXmlContentSnapshot snapshot = CmsXmlContentCache.getInstance().getSnapshot(cms, resource);
+        if (snapshot == null) {
+            snapshot = createSnapshot(cms, unmarshal(cms, cms.readFile(resource)));
+        }
+        return snapshot;
+    }
+
     /**
      * Factory method to unmarshal (generate) a XML content instance from a byte array
      * that contains XML data.<p>
@@ -208,6 +250,12 @@ public final class CmsXmlContentFactory {
      */
     public static CmsXmlContent unmarshal(CmsObject cms, CmsFile file, boolean keepEncoding) throws CmsXmlException {
 
+        // check the cache
+        CmsXmlContent content = CmsXmlContentCache.getInstance().getContent(cms, file, keepEncoding);
+        if (content != null) {
+            return content;
+        }
+
         byte[] contentBytes = file.getContents();
         String filename = cms.getSitePath(file);
 
@@ -229,24 +277,29 @@ public final class CmsXmlContentFactory {
             }
         }
 
-        CmsXmlContent content;
         if (contentBytes.length > 0) {
             // content is initialized
+            EntityResolver resolver = new CmsXmlEntityResolver(cms);
+            Document document;
             if (keepEncoding) {
                 // use the encoding from the content
-                content = unmarshal(cms, contentBytes, encoding, new CmsXmlEntityResolver(cms));
+                document = CmsXmlUtils.unmarshalHelper(contentBytes, resolver);
             } else {
                 // use the encoding from the file property
                 // this usually only triggered by a save operation
                 try {
                     String contentStr = new String(contentBytes, encoding);
-                    content = unmarshal(cms, contentStr, encoding, new CmsXmlEntityResolver(cms));
+                    document = CmsXmlUtils.unmarshalHelper(contentStr, resolver);
                 } catch (UnsupportedEncodingException e) {
                     // this will not happen since the encodig has already been validated
                     throw new CmsXmlException(
                         Messages.get().container(Messages.ERR_XMLCONTENT_INVALID_ENC_1, filename), e);
                 }
             }
+            // keep an unmodified copy of the document, the content may change it during link validation
+            Document cacheDocument = (Document)document.clone();
+            content = unmarshal(cms, document, encoding, resolver);
+            CmsXmlContentCache.getInstance().putContent(cms, file, keepEncoding, cacheDocument, encoding);
         } else {
             // content is empty
             content = new CmsXmlContent(cms, DocumentHelper.createDocument(), encoding, new CmsXmlEntityResolver(cms));
@@ -260,7 +313,7 @@ public final class CmsXmlContentFactory {
 
     /**
      * Factory method to unmarshal (read) a XML content instance from
-     * a resource, using the request attributes as cache.<p>
+     * a resource, using the request attributes and the {@link CmsXmlContentCache} as cache.<p>
      *
      * @param cms the current OpenCms context object
      * @param resource the resource to unmarshal
@@ -288,9 +341,13 @@ public final class CmsXmlContentFactory {
         CmsXmlContent content = (CmsXmlContent)req.getAttribute(rootPath);
 
         if (content == null) {
-            // unmarshal XML structure from the file content
-            CmsFile file = resource instanceof CmsFile ? (CmsFile)resource : cms.readFile(resource);
-            content = unmarshal(cms, file);
+            // check the cache, this avoids reading the file content
+            content = CmsXmlContentCache.getInstance().getContent(cms, resource, true);
+            if (content == null) {
+                // unmarshal XML structure from the file content
+                CmsFile file = resource instanceof CmsFile ? (CmsFile)resource : cms.readFile(resource);
+                content = unmarshal(cms, file);
+            }
             // store the content as request attribute for future read requests
             req.setAttribute(rootPath, content);
         }
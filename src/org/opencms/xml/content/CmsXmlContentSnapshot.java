@@ -0,0 +1,578 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.xml.content;
+
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsObject;
+import org.opencms.i18n.CmsEncoder;
+import org.opencms.i18n.CmsLocaleManager;
+import org.opencms.xml.CmsXmlUtils;
+import org.opencms.xml.types.CmsXmlCategoryValue;
+import org.opencms.xml.types.CmsXmlHtmlValue;
+import org.opencms.xml.types.CmsXmlVarLinkValue;
+import org.opencms.xml.types.CmsXmlVfsFileValue;
+import org.opencms.xml.types.I_CmsXmlContentValue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable, DOM free snapshot of the values of an XML content, with a compact binary representation.<p>
+ *
+ * The snapshot contains all value paths of the XML content for every locale, together with the
+ * type name and, for simple types, the String value as returned by
+ * {@link I_CmsXmlContentValue#getStringValue(CmsObject)}. A snapshot is only valid for the site root
+ * it was created with.<p>
+ *
+ * The String values of values that contain links are not stored, since they depend on the current state
+ * of the link targets, which may change without changing the XML content. Use {@link #isLinkValue(String, Locale)}
+ * to check if a value must be read from the XML content instead.<p>
+ *
+ * Snapshots can be stored with {@link #toByteArray()} and restored with {@link #fromByteArray(byte[])},
+ * which is much cheaper than parsing the XML and building the DOM of the content.<p>
+ *
+ * @since 10.0.0
+ *
+ * @see CmsXmlContentFactory#getSnapshot(CmsObject, org.opencms.file.CmsResource)
+ */
+public final class CmsXmlContentSnapshot {
+
+    /** The magic number that starts the binary representation of a snapshot. */
+    public static final int FORMAT_MAGIC = 0x4F43584D;
+
+    /** The version of the binary format, snapshots with other versions are ignored. */
+    public static final byte FORMAT_VERSION = 2;
+
+    /** The charset used for the Strings in the binary representation. */
+    private static final Charset UTF_8 = Charset.forName(CmsEncoder.ENCODING_UTF_8);
+
+    /** The date of last modification of the XML content file. */
+    private long m_dateLastModified;
+
+    /** The encoding of the XML content. */
+    private String m_encoding;
+
+    /** The site root the String values have been created for. */
+    private String m_siteRoot;
+
+    /** The values of the XML content, by locale and path. */
+    private Map<Locale, Map<String, SnapshotValue>> m_values;
+
+    /**
+     * A single value of the snapshot.<p>
+     */
+    private static final class SnapshotValue {
+
+        /** Indicates if the value contains links. */
+        final boolean m_link;
+
+        /** The type name of the value. */
+        final String m_typeName;
+
+        /** The String value, or <code>null</code> for nested values and values that contain links. */
+        final String m_value;
+
+        /**
+         * Creates a new snapshot value.<p>
+         *
+         * @param typeName the type name of the value
+         * @param value the String value, or <code>null</code> for nested values and values that contain links
+         * @param link indicates if the value contains links
+         */
+        SnapshotValue(String typeName, String value, boolean link) {
+
+            m_typeName = typeName;
+            m_value = value;
+            m_link = link;
+        }
+    }
+
+    /**
+     * Creates a new snapshot.<p>
+     *
+     * @param dateLastModified the date of last modification of the XML content file
+     * @param encoding the encoding of the XML content
+     * @param siteRoot the site root the String values have been created for
+     * @param values the values of the XML content, by locale and path
+     */
+    private CmsXmlContentSnapshot(
+        long dateLastModified,
+        String encoding,
+        String siteRoot,
+        Map<Locale, Map<String, SnapshotValue>> values) {
+
+        m_dateLastModified = dateLastModified;
+        m_encoding = encoding;
+        m_siteRoot = siteRoot;
+        m_values = values;
+    }
+
+    /**
+     * Creates a snapshot of the given XML content.<p>
+     *
+     * The String values are created with the given OpenCms context,
+     * so the snapshot is only valid for the site root of this context.<p>
+     *
+     * @param cms the current users OpenCms context
+     * @param content the XML content
+     *
+     * @return the snapshot of the XML content
+     */
+    public static CmsXmlContentSnapshot create(CmsObject cms, CmsXmlContent content) {
+
+        Map<Locale, Map<String, SnapshotValue>> values = new LinkedHashMap<Locale, Map<String, SnapshotValue>>();
+        for (Locale locale : content.getLocales()) {
+            Map<String, SnapshotValue> localeValues = new LinkedHashMap<String, SnapshotValue>();
+            for (I_CmsXmlContentValue value : content.getValues(locale)) {
+                boolean link = containsLinks(value);
+                String stringValue = (value.isSimpleType() && !link) ? value.getStringValue(cms) : null;
+                localeValues.put(value.getPath(), new SnapshotValue(value.getTypeName(), stringValue, link));
+            }
+            values.put(locale, localeValues);
+        }
+        CmsFile file = content.getFile();
+        return new CmsXmlContentSnapshot(
+            file != null ? file.getDateLastModified() : 0L,
+            content.getEncoding(),
+            cms != null ? cms.getRequestContext().getSiteRoot() : "",
+            values);
+    }
+
+    /**
+     * Restores a snapshot from its binary representation.<p>
+     *
+     * @param data the binary representation, as created by {@link #toByteArray()}
+     *
+     * @return the restored snapshot, or <code>null</code> if the data was written with another format version
+     *
+     * @throws IOException if the data is not a valid snapshot
+     */
+    public static CmsXmlContentSnapshot fromByteArray(byte[] data) throws IOException {
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            if (buffer.getInt() != FORMAT_MAGIC) {
+                throw new IOException("Invalid XML content snapshot");
+            }
+            if (buffer.get() != FORMAT_VERSION) {
+                return null;
+            }
+            long dateLastModified = buffer.getLong();
+            String encoding = readString(buffer);
+            String siteRoot = readString(buffer);
+
+            // the table with all paths and type names
+            String[] strings = new String[readVarInt(buffer)];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = readString(buffer);
+            }
+
+            int localeCount = readVarInt(buffer);
+            Map<Locale, Map<String, SnapshotValue>> values = new LinkedHashMap<Locale, Map<String, SnapshotValue>>();
+            for (int i = 0; i < localeCount; i++) {
+                Locale locale = CmsLocaleManager.getLocale(readString(buffer));
+                int valueCount = readVarInt(buffer);
+                Map<String, SnapshotValue> localeValues = new LinkedHashMap<String, SnapshotValue>(
+                    (valueCount * 4) / 3 + 1);
+                for (int j = 0; j < valueCount; j++) {
+                    String path = strings[readVarInt(buffer)];
+                    String typeName = strings[readVarInt(buffer)];
+                    boolean link = buffer.get() != 0;
+                    localeValues.put(path, new SnapshotValue(typeName, readNullableString(buffer), link));
+                }
+                values.put(locale, localeValues);
+            }
+            return new CmsXmlContentSnapshot(dateLastModified, encoding, siteRoot, values);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated XML content snapshot", e);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Invalid XML content snapshot", e);
+        }
+    }
+
+    /**
+     * Returns the date of last modification of the XML content file the snapshot was created from.<p>
+     *
+     * @return the date of last modification of the XML content file
+     */
+    public long getDateLastModified() {
+
+        return m_dateLastModified;
+    }
+
+    /**
+     * Returns the encoding of the XML content.<p>
+     *
+     * @return the encoding of the XML content
+     */
+    public String getEncoding() {
+
+        return m_encoding;
+    }
+
+    /**
+     * Returns the locales available in the XML content.<p>
+     *
+     * @return the locales available in the XML content
+     *
+     * @see org.opencms.xml.I_CmsXmlDocument#getLocales()
+     */
+    public List<Locale> getLocales() {
+
+        return new ArrayList<Locale>(m_values.keySet());
+    }
+
+    /**
+     * Returns all value paths of the XML content in the given locale.<p>
+     *
+     * @param locale the locale
+     *
+     * @return all value paths of the XML content in the given locale
+     *
+     * @see org.opencms.xml.I_CmsXmlDocument#getNames(Locale)
+     */
+    public List<String> getNames(Locale locale) {
+
+        Map<String, SnapshotValue> localeValues = m_values.get(locale);
+        if (localeValues == null) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<String>(localeValues.keySet());
+    }
+
+    /**
+     * Returns the site root the String values of this snapshot have been created for.<p>
+     *
+     * @return the site root the String values have been created for
+     */
+    public String getSiteRoot() {
+
+        return m_siteRoot;
+    }
+
+    /**
+     * Returns the String value for the given path in the given locale.<p>
+     *
+     * @param path the path of the value
+     * @param locale the locale
+     *
+     * @return the String value, or <code>null</code> if the value does not exist, is a nested value
+     *      or contains links
+     *
+     * @see org.opencms.xml.I_CmsXmlDocument#getStringValue(CmsObject, String, Locale)
+     */
+    public String getStringValue(String path, Locale locale) {
+
+        SnapshotValue value = getValue(path, locale);
+        return value != null ? value.m_value : null;
+    }
+
+    /**
+     * Returns the type name of the value for the given path in the given locale.<p>
+     *
+     * @param path the path of the value
+     * @param locale the locale
+     *
+     * @return the type name, or <code>null</code> if the value does not exist
+     */
+    public String getTypeName(String path, Locale locale) {
+
+        SnapshotValue value = getValue(path, locale);
+        return value != null ? value.m_typeName : null;
+    }
+
+    /**
+     * Checks if the given locale is available in the XML content.<p>
+     *
+     * @param locale the locale to check
+     *
+     * @return <code>true</code> if the given locale is available
+     *
+     * @see org.opencms.xml.I_CmsXmlDocument#hasLocale(Locale)
+     */
+    public boolean hasLocale(Locale locale) {
+
+        return m_values.containsKey(locale);
+    }
+
+    /**
+     * Checks if a value exists for the given path in the given locale.<p>
+     *
+     * @param path the path of the value
+     * @param locale the locale
+     *
+     * @return <code>true</code> if a value exists for the given path
+     *
+     * @see org.opencms.xml.I_CmsXmlDocument#hasValue(String, Locale)
+     */
+    public boolean hasValue(String path, Locale locale) {
+
+        return getValue(path, locale) != null;
+    }
+
+    /**
+     * Checks if the value for the given path in the given locale contains links.<p>
+     *
+     * The String values of these values are not stored in the snapshot and must be read from the XML content.<p>
+     *
+     * @param path the path of the value
+     * @param locale the locale
+     *
+     * @return <code>true</code> if the value exists and contains links
+     */
+    public boolean isLinkValue(String path, Locale locale) {
+
+        SnapshotValue value = getValue(path, locale);
+        return (value != null) && value.m_link;
+    }
+
+    /**
+     * Returns the binary representation of this snapshot.<p>
+     *
+     * Paths and type names are written only once to a String table and referenced by index.<p>
+     *
+     * @return the binary representation of this snapshot
+     */
+    public byte[] toByteArray() {
+
+        // collect the paths and type names for the String table
+        Map<String, Integer> strings = new HashMap<String, Integer>();
+        List<String> table = new ArrayList<String>();
+        for (Map<String, SnapshotValue> localeValues : m_values.values()) {
+            for (Map.Entry<String, SnapshotValue> entry : localeValues.entrySet()) {
+                addString(strings, table, entry.getKey());
+                addString(strings, table, entry.getValue().m_typeName);
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(FORMAT_MAGIC);
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(m_dateLastModified);
+            writeString(out, m_encoding);
+            writeString(out, m_siteRoot);
+            writeVarInt(out, table.size());
+            for (String string : table) {
+                writeString(out, string);
+            }
+            writeVarInt(out, m_values.size());
+            for (Map.Entry<Locale, Map<String, SnapshotValue>> localeEntry : m_values.entrySet()) {
+                writeString(out, localeEntry.getKey().toString());
+                writeVarInt(out, localeEntry.getValue().size());
+                for (Map.Entry<String, SnapshotValue> entry : localeEntry.getValue().entrySet()) {
+                    writeVarInt(out, strings.get(entry.getKey()).intValue());
+                    writeVarInt(out, strings.get(entry.getValue().m_typeName).intValue());
+                    out.writeBoolean(entry.getValue().m_link);
+                    writeNullableString(out, entry.getValue().m_value);
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            // should never happen when writing to a byte array
+            throw new RuntimeException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Adds a String to the String table, if not already contained.<p>
+     *
+     * @param strings the indexes of the Strings already contained in the table
+     * @param table the String table
+     * @param value the String to add
+     */
+    private static void addString(Map<String, Integer> strings, List<String> table, String value) {
+
+        if (!strings.containsKey(value)) {
+            strings.put(value, Integer.valueOf(table.size()));
+            table.add(value);
+        }
+    }
+
+    /**
+     * Checks if the given value contains links, like file references or HTML with links.<p>
+     *
+     * @param value the value to check
+     *
+     * @return <code>true</code> if the given value contains links
+     */
+    private static boolean containsLinks(I_CmsXmlContentValue value) {
+
+        return (value instanceof CmsXmlVfsFileValue)
+            || (value instanceof CmsXmlVarLinkValue)
+            || (value instanceof CmsXmlHtmlValue)
+            || (value instanceof CmsXmlCategoryValue);
+    }
+
+    /**
+     * Returns the snapshot value for the given path in the given locale.<p>
+     *
+     * @param path the path of the value, the index may be omitted for the first value
+     * @param locale the locale
+     *
+     * @return the snapshot value, or <code>null</code> if the value does not exist
+     */
+    private SnapshotValue getValue(String path, Locale locale) {
+
+        Map<String, SnapshotValue> localeValues = m_values.get(locale);
+        if (localeValues == null) {
+            return null;
+        }
+        return localeValues.get(CmsXmlUtils.createXpath(path, 1));
+    }
+
+    /**
+     * Reads a String that may be <code>null</code> from the buffer.<p>
+     *
+     * @param buffer the buffer to read from
+     *
+     * @return the String, or <code>null</code>
+     */
+    private static String readNullableString(ByteBuffer buffer) {
+
+        int length = readVarInt(buffer);
+        if (length == 0) {
+            return null;
+        }
+        return readString(buffer, length - 1);
+    }
+
+    /**
+     * Reads a String from the buffer.<p>
+     *
+     * @param buffer the buffer to read from
+     *
+     * @return the String
+     */
+    private static String readString(ByteBuffer buffer) {
+
+        return readString(buffer, readVarInt(buffer));
+    }
+
+    /**
+     * Reads a String with the given length in bytes from the buffer.<p>
+     *
+     * @param buffer the buffer to read from
+     * @param length the length of the String in bytes
+     *
+     * @return the String
+     */
+    private static String readString(ByteBuffer buffer, int length) {
+
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String result = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, UTF_8);
+        buffer.position(buffer.position() + length);
+        return result;
+    }
+
+    /**
+     * Reads a variable length encoded int from the buffer.<p>
+     *
+     * @param buffer the buffer to read from
+     *
+     * @return the int value
+     */
+    private static int readVarInt(ByteBuffer buffer) {
+
+        int result = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            result |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return result;
+    }
+
+    /**
+     * Writes a String that may be <code>null</code> to the output.<p>
+     *
+     * @param out the output to write to
+     * @param value the String to write, may be <code>null</code>
+     *
+     * @throws IOException in case of write errors
+     */
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+
+        if (value == null) {
+            writeVarInt(out, 0);
+        } else {
+            byte[] bytes = value.getBytes(UTF_8);
+            writeVarInt(out, bytes.length + 1);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Writes a String to the output.<p>
+     *
+     * @param out the output to write to
+     * @param value the String to write
+     *
+     * @throws IOException in case of write errors
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+
+        byte[] bytes = value.getBytes(UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+    /**
+     * Writes a variable length encoded int to the output.<p>
+     *
+     * @param out the output to write to
+     * @param value the value to write, must not be negative
+     *
+     * @throws IOException in case of write errors
+     */
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+}
@@ -181,6 +181,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_XMLCONTENT_RESOLVE_MAPPING_1 = "LOG_XMLCONTENT_RESOLVE_MAPPING_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_XMLCONTENT_SNAPSHOT_READ_FAILED_1 = "LOG_XMLCONTENT_SNAPSHOT_READ_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_XMLCONTENT_SNAPSHOT_WRITE_FAILED_1 = "LOG_XMLCONTENT_SNAPSHOT_WRITE_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_XMLCONTENT_VALIDATION_ERR_2 = "LOG_XMLCONTENT_VALIDATION_ERR_2";
 
@@ -59,6 +59,8 @@ public final class AllTests {
         OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
         //$JUnit-BEGIN$
         suite.addTest(TestCache.suite());
+        suite.addTest(new TestSuite(TestCmsCacheInvalidationBus.class));
+        suite.addTest(new TestSuite(TestCmsConcurrentLruCache.class));
         //$JUnit-END$
         return suite;
     }
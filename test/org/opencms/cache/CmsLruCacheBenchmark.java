@@ -0,0 +1,176 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark comparing the LRU cache engines with 1, 8 and 32 threads.<p>
+ *
+ * The workload mimics the access pattern of the Flex cache: 90% of the operations touch an object,
+ * 10% add an object, which causes evictions since only about half of the objects fit into the cache.<p>
+ *
+ * Run with <code>gradle jmh -PjmhInclude=CmsLruCacheBenchmark</code>.<p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CmsLruCacheBenchmark {
+
+    /**
+     * Per thread state with a simple pseudo random generator.<p>
+     */
+    @State(Scope.Thread)
+    public static class ThreadState {
+
+        /** The current random value. */
+        int m_seed = (int)System.nanoTime() | 1;
+
+        /**
+         * Returns the next pseudo random value.<p>
+         *
+         * @return the next pseudo random value
+         */
+        int next() {
+
+            // xorshift
+            m_seed ^= m_seed << 13;
+            m_seed ^= m_seed >>> 17;
+            m_seed ^= m_seed << 5;
+            return m_seed & Integer.MAX_VALUE;
+        }
+    }
+
+    /** The number of objects used by the benchmark, must be a power of 2. */
+    private static final int OBJECT_COUNT = 1 << 14;
+
+    /** The costs of a single object. */
+    private static final int OBJECT_COSTS = 100;
+
+    /** The cache engine class to benchmark. */
+    @Param({"org.opencms.cache.CmsLruCache", "org.opencms.cache.CmsConcurrentLruCache"})
+    public String m_engine;
+
+    /** The cache. */
+    private I_CmsLruCache m_cache;
+
+    /** The objects to cache. */
+    private CmsTestLruCacheObject[] m_objects;
+
+    /**
+     * Creates the cache and fills it with half of the objects.<p>
+     */
+    @Setup
+    public void setUp() {
+
+        long maxCosts = (OBJECT_COUNT * OBJECT_COSTS) / 2;
+        m_cache = CmsLruCache.createCache(m_engine, maxCosts, (maxCosts * 4) / 5, OBJECT_COSTS * 10);
+        m_objects = new CmsTestLruCacheObject[OBJECT_COUNT];
+        for (int i = 0; i < OBJECT_COUNT; i++) {
+            m_objects[i] = new CmsTestLruCacheObject(Integer.valueOf(i), OBJECT_COSTS);
+            if ((i % 2) == 0) {
+                m_cache.add(m_objects[i]);
+            }
+        }
+    }
+
+    /**
+     * Benchmark with a single thread.<p>
+     *
+     * @param state the thread state
+     *
+     * @return the result of the cache operation
+     */
+    @Benchmark
+    @Threads(1)
+    public boolean threads01(ThreadState state) {
+
+        return access(state);
+    }
+
+    /**
+     * Benchmark with 8 threads.<p>
+     *
+     * @param state the thread state
+     *
+     * @return the result of the cache operation
+     */
+    @Benchmark
+    @Threads(8)
+    public boolean threads08(ThreadState state) {
+
+        return access(state);
+    }
+
+    /**
+     * Benchmark with 32 threads.<p>
+     *
+     * @param state the thread state
+     *
+     * @return the result of the cache operation
+     */
+    @Benchmark
+    @Threads(32)
+    public boolean threads32(ThreadState state) {
+
+        return access(state);
+    }
+
+    /**
+     * Performs a single cache operation.<p>
+     *
+     * @param state the thread state
+     *
+     * @return the result of the cache operation
+     */
+    private boolean access(ThreadState state) {
+
+        int random = state.next();
+        CmsTestLruCacheObject cacheObject = m_objects[random & (OBJECT_COUNT - 1)];
+        if ((random % 10) == 0) {
+            return m_cache.add(cacheObject);
+        }
+        return m_cache.touch(cacheObject);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+/**
+ * Simple LRU cache object with fixed costs, used for testing the LRU cache implementations.<p>
+ */
+public class CmsTestLruCacheObject implements I_CmsLruCacheObject {
+
+    /** The cache costs of this object. */
+    private int m_costs;
+
+    /** Indicates if this object is currently in the cache. */
+    private volatile boolean m_inCache;
+
+    /** The next object in the LRU list. */
+    private I_CmsLruCacheObject m_next;
+
+    /** The previous object in the LRU list. */
+    private I_CmsLruCacheObject m_previous;
+
+    /** The value of this object. */
+    private Object m_value;
+
+    /**
+     * Creates a new cache object.<p>
+     *
+     * @param value the value of the object
+     * @param costs the cache costs of the object
+     */
+    public CmsTestLruCacheObject(Object value, int costs) {
+
+        m_value = value;
+        m_costs = costs;
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCacheObject#addToLruCache()
+     */
+    public void addToLruCache() {
+
+        m_inCache = true;
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCacheObject#getLruCacheCosts()
+     */
+    public int getLruCacheCosts() {
+
+        return m_costs;
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCacheObject#getNextLruObject()
+     */
+    public I_CmsLruCacheObject getNextLruObject() {
+
+        return m_next;
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCacheObject#getPreviousLruObject()
+     */
+    public I_CmsLruCacheObject getPreviousLruObject() {
+
+        return m_previous;
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCacheObject#getValue()
+     */
+    public Object getValue() {
+
+        return m_value;
+    }
+
+    /**
+     * Returns if this object has been notified that it was added to the cache and not removed since.<p>
+     *
+     * @return true if this object is in the cache
+     */
+    public boolean isInCache() {
+
+        return m_inCache;
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCacheObject#removeFromLruCache()
+     */
+    public void removeFromLruCache() {
+
+        m_inCache = false;
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCacheObject#setNextLruObject(org.opencms.cache.I_CmsLruCacheObject)
+     */
+    public void setNextLruObject(I_CmsLruCacheObject theNextObject) {
+
+        m_next = theNextObject;
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsLruCacheObject#setPreviousLruObject(org.opencms.cache.I_CmsLruCacheObject)
+     */
+    public void setPreviousLruObject(I_CmsLruCacheObject thePreviousObject) {
+
+        m_previous = thePreviousObject;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return String.valueOf(m_value);
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.opencms.db.CmsDbContext;
+import org.opencms.flex.CmsFlexCache;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.CmsEventManager;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Test cases for the cluster cache invalidation bus.<p>
+ */
+public class TestCmsCacheInvalidationBus extends TestCase {
+
+    /**
+     * Event listener that collects the received events.<p>
+     */
+    private static class CmsCollectingListener implements I_CmsEventListener {
+
+        /** The received events. */
+        List<CmsEvent> m_events = new ArrayList<CmsEvent>();
+
+        /**
+         * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+         */
+        public void cmsEvent(CmsEvent event) {
+
+            m_events.add(event);
+        }
+    }
+
+    /**
+     * Tests the encoding and decoding of the event data.<p>
+     */
+    public void testEventData() {
+
+        CmsUUID projectId = new CmsUUID();
+        Map<String, Object> data = new HashMap<String, Object>();
+        data.put(I_CmsEventListener.KEY_PUBLISHID, "publish|id=with:separators");
+        data.put(I_CmsEventListener.KEY_PROJECTID, projectId);
+        data.put("action", Integer.valueOf(CmsFlexCache.CLEAR_ENTRIES));
+        data.put("time", Long.valueOf(4711L));
+        data.put("flag", Boolean.TRUE);
+        // not a simple value, is not transferred
+        data.put(I_CmsEventListener.KEY_DBCONTEXT, new CmsDbContext());
+
+        CmsCacheInvalidationEvent event = CmsCacheInvalidationEvent.fromCmsEvent(
+            "node",
+            new CmsEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT, data));
+        assertEquals("node", event.getNodeId());
+        assertEquals(I_CmsEventListener.EVENT_PUBLISH_PROJECT, event.getType());
+
+        Map<String, Object> decoded = event.getEventData();
+        assertEquals(5, decoded.size());
+        assertEquals("publish|id=with:separators", decoded.get(I_CmsEventListener.KEY_PUBLISHID));
+        assertEquals(projectId, decoded.get(I_CmsEventListener.KEY_PROJECTID));
+        assertEquals(Integer.valueOf(CmsFlexCache.CLEAR_ENTRIES), decoded.get("action"));
+        assertEquals(Long.valueOf(4711L), decoded.get("time"));
+        assertEquals(Boolean.TRUE, decoded.get("flag"));
+    }
+
+    /**
+     * Tests that events are delivered to the other nodes of a cluster, but not back to the sender.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testEventDelivery() throws Exception {
+
+        CmsEventManager managerA = new CmsEventManager();
+        CmsEventManager managerB = new CmsEventManager();
+        CmsCacheInvalidationBus busA = new CmsCacheInvalidationBus(createTransport(), managerA);
+        CmsCacheInvalidationBus busB = new CmsCacheInvalidationBus(createTransport(), managerB);
+        busA.initialize();
+        busB.initialize();
+        try {
+            CmsCollectingListener listenerA = new CmsCollectingListener();
+            CmsCollectingListener listenerB = new CmsCollectingListener();
+            managerA.addCmsEventListener(listenerA, CmsCacheInvalidationBus.EVENT_TYPES);
+            managerB.addCmsEventListener(listenerB, CmsCacheInvalidationBus.EVENT_TYPES);
+            managerA.addCmsEventListener(listenerA, new int[] {I_CmsEventListener.EVENT_REMOTE_PUBLISH_PROJECT});
+            managerB.addCmsEventListener(listenerB, new int[] {I_CmsEventListener.EVENT_REMOTE_PUBLISH_PROJECT});
+
+            // publish on node A
+            CmsUUID publishId = new CmsUUID();
+            Map<String, Object> data = new HashMap<String, Object>();
+            data.put(I_CmsEventListener.KEY_PUBLISHID, publishId.toString());
+            managerA.fireEvent(new CmsEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT, data));
+
+            assertEquals(1, listenerA.m_events.size());
+            assertEquals(1, listenerB.m_events.size());
+            assertEquals(I_CmsEventListener.EVENT_PUBLISH_PROJECT, listenerA.m_events.get(0).getType());
+            // the other node only updates its caches
+            CmsEvent received = listenerB.m_events.get(0);
+            assertEquals(I_CmsEventListener.EVENT_REMOTE_PUBLISH_PROJECT, received.getType());
+            assertEquals(publishId.toString(), received.getData().get(I_CmsEventListener.KEY_PUBLISHID));
+            assertEquals(busA.getNodeId(), received.getData().get(I_CmsEventListener.KEY_CLUSTER_NODE));
+            assertNull(received.getData().get(I_CmsEventListener.KEY_DBCONTEXT));
+
+            // flex cache clear on node B
+            data = new HashMap<String, Object>();
+            data.put("action", Integer.valueOf(CmsFlexCache.CLEAR_ONLINE_ALL));
+            managerB.fireEvent(new CmsEvent(I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR, data));
+
+            assertEquals(2, listenerA.m_events.size());
+            assertEquals(2, listenerB.m_events.size());
+            received = listenerA.m_events.get(1);
+            assertEquals(I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR, received.getType());
+            assertEquals(Integer.valueOf(CmsFlexCache.CLEAR_ONLINE_ALL), received.getData().get("action"));
+            assertEquals(busB.getNodeId(), received.getData().get(I_CmsEventListener.KEY_CLUSTER_NODE));
+
+            // events that are not cache related are not sent
+            managerA.fireEvent(I_CmsEventListener.EVENT_LOGIN_USER, new HashMap<String, Object>());
+            assertEquals(2, listenerB.m_events.size());
+        } finally {
+            busA.shutDown();
+            busB.shutDown();
+        }
+
+        // after the shutdown no more events are delivered
+        CmsCollectingListener listenerB = new CmsCollectingListener();
+        managerB.addCmsEventListener(listenerB, CmsCacheInvalidationBus.EVENT_TYPES);
+        managerA.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES, new HashMap<String, Object>());
+        assertTrue(listenerB.m_events.isEmpty());
+    }
+
+    /**
+     * Creates a local transport on a channel only used by this test.<p>
+     *
+     * @return the transport
+     */
+    private I_CmsCacheInvalidationTransport createTransport() {
+
+        CmsLocalCacheInvalidationTransport transport = new CmsLocalCacheInvalidationTransport();
+        transport.addConfigurationParameter(CmsLocalCacheInvalidationTransport.PARAM_CHANNEL, getName());
+        transport.initConfiguration();
+        return transport;
+    }
+}
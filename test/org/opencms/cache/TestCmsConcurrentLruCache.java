@@ -0,0 +1,235 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import junit.framework.TestCase;
+
+/**
+ * Test cases for the LRU cache engines.<p>
+ */
+public class TestCmsConcurrentLruCache extends TestCase {
+
+    /**
+     * Tests adding, touching and removing objects.<p>
+     */
+    public void testAddTouchRemove() {
+
+        checkAddTouchRemove(new CmsLruCache(1000, 500, 200));
+        checkAddTouchRemove(new CmsConcurrentLruCache(1000, 500, 200));
+    }
+
+    /**
+     * Tests concurrent access to the concurrent cache keeps the cache statistics consistent.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testConcurrentAccess() throws Exception {
+
+        final CmsConcurrentLruCache cache = new CmsConcurrentLruCache(50000, 40000, 200);
+        final CmsTestLruCacheObject[] objects = new CmsTestLruCacheObject[1000];
+        for (int i = 0; i < objects.length; i++) {
+            objects[i] = new CmsTestLruCacheObject(Integer.valueOf(i), 100);
+        }
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            final long seed = t;
+            threads.add(new Thread() {
+
+                @Override
+                public void run() {
+
+                    Random random = new Random(seed);
+                    for (int i = 0; i < 100000; i++) {
+                        CmsTestLruCacheObject cacheObject = objects[random.nextInt(objects.length)];
+                        int operation = random.nextInt(10);
+                        if (operation == 0) {
+                            cache.remove(cacheObject);
+                        } else if (operation < 3) {
+                            cache.add(cacheObject);
+                        } else {
+                            cache.touch(cacheObject);
+                        }
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        int count = 0;
+        for (CmsTestLruCacheObject cacheObject : objects) {
+            if (cacheObject.isInCache()) {
+                count++;
+            }
+        }
+        assertEquals(count, cache.size());
+        assertEquals(count * 100, cache.getObjectCosts());
+        assertTrue(cache.getObjectCosts() <= cache.getMaxCacheCosts());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getObjectCosts());
+        for (CmsTestLruCacheObject cacheObject : objects) {
+            assertFalse(cacheObject.isInCache());
+        }
+    }
+
+    /**
+     * Tests that the read buffers are fully drained again after a recording thread has written a claimed slot late.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testDelayedReadBufferWrite() throws Exception {
+
+        final CmsConcurrentLruCache cache = new CmsConcurrentLruCache(100000, 50000, 200);
+        final CmsTestLruCacheObject delayed = new CmsTestLruCacheObject("delayed", 100);
+        CmsTestLruCacheObject[] objects = new CmsTestLruCacheObject[10];
+        cache.add(delayed);
+        for (int i = 0; i < objects.length; i++) {
+            objects[i] = new CmsTestLruCacheObject(Integer.valueOf(i), 100);
+            cache.add(objects[i]);
+        }
+
+        // the writer claims a slot, but writes it only after the other accesses have been recorded
+        final long slot = cache.claimReadBufferSlot(0);
+        final CountDownLatch latch = new CountDownLatch(1);
+        Thread writer = new Thread() {
+
+            @Override
+            public void run() {
+
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                cache.recordAccess(0, slot, delayed);
+            }
+        };
+        writer.start();
+
+        // enough accesses to trigger drains, but less than a full buffer
+        int count = 40;
+        for (int i = 0; i < count; i++) {
+            cache.recordAccess(0, cache.claimReadBufferSlot(0), objects[i % objects.length]);
+        }
+        // draining must wait for the unwritten slot
+        assertEquals(count + 1, cache.getPendingAccesses(0));
+
+        latch.countDown();
+        writer.join();
+        // adding an object drains the read buffers
+        cache.add(new CmsTestLruCacheObject("trigger", 100));
+        assertEquals(0, cache.getPendingAccesses(0));
+    }
+
+    /**
+     * Tests that the last recently used objects are evicted first.<p>
+     */
+    public void testEvictionOrder() {
+
+        checkEvictionOrder(new CmsLruCache(1000, 500, 200));
+        checkEvictionOrder(new CmsConcurrentLruCache(1000, 500, 200));
+    }
+
+    /**
+     * Checks adding, touching and removing objects.<p>
+     *
+     * @param cache the cache to check
+     */
+    private void checkAddTouchRemove(I_CmsLruCache cache) {
+
+        CmsTestLruCacheObject a = new CmsTestLruCacheObject("a", 100);
+        CmsTestLruCacheObject b = new CmsTestLruCacheObject("b", 150);
+        CmsTestLruCacheObject tooBig = new CmsTestLruCacheObject("big", 300);
+
+        assertFalse(cache.add(null));
+        assertFalse(cache.add(tooBig));
+        assertFalse(tooBig.isInCache());
+        assertFalse(cache.touch(a));
+
+        assertTrue(cache.add(a));
+        assertTrue(cache.add(b));
+        // adding the same object twice touches it
+        assertTrue(cache.add(a));
+        assertEquals(2, cache.size());
+        assertEquals(250, cache.getObjectCosts());
+        assertTrue(a.isInCache());
+        assertTrue(cache.touch(b));
+
+        assertSame(a, cache.remove(a));
+        assertNull(cache.remove(a));
+        assertFalse(a.isInCache());
+        assertEquals(1, cache.size());
+        assertEquals(150, cache.getObjectCosts());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getObjectCosts());
+        assertFalse(b.isInCache());
+    }
+
+    /**
+     * Checks that the last recently used objects are evicted first.<p>
+     *
+     * @param cache the cache to check
+     */
+    private void checkEvictionOrder(I_CmsLruCache cache) {
+
+        CmsTestLruCacheObject[] objects = new CmsTestLruCacheObject[11];
+        for (int i = 0; i < objects.length; i++) {
+            objects[i] = new CmsTestLruCacheObject(Integer.valueOf(i), 100);
+        }
+        for (int i = 0; i < 10; i++) {
+            cache.add(objects[i]);
+        }
+        assertEquals(1000, cache.getObjectCosts());
+        cache.touch(objects[0]);
+
+        // exceeds the max. costs, so the cache is reduced below the avg. costs
+        cache.add(objects[10]);
+        assertEquals(400, cache.getObjectCosts());
+        assertEquals(4, cache.size());
+        assertTrue(objects[0].isInCache());
+        assertTrue(objects[8].isInCache());
+        assertTrue(objects[9].isInCache());
+        assertTrue(objects[10].isInCache());
+        for (int i = 1; i < 8; i++) {
+            assertFalse(objects[i].isInCache());
+        }
+    }
+}
@@ -65,6 +65,8 @@ public final class AllTests {
         suite.addTest(TestSubscriptionManager.suite());
         suite.addTest(TestAliases.suite());
         suite.addTest(TestUrlNameMapping.suite());
+        suite.addTest(new TestSuite(TestCmsConnectionPool.class));
+        suite.addTest(new TestSuite(TestCmsPublishList.class));
         // $JUnit-END$
         return suite;
     }
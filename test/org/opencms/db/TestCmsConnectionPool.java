@@ -0,0 +1,297 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Test cases for the default JDBC connection pool.<p>
+ */
+public class TestCmsConnectionPool extends TestCase {
+
+    /**
+     * Connection pool which hands out dummy connections instead of connecting to a database.<p>
+     */
+    private static class CmsTestPool extends CmsConnectionPool {
+
+        /** The number of physical connections closed. */
+        AtomicInteger m_closed = new AtomicInteger();
+
+        /** The number of physical connections opened. */
+        AtomicInteger m_opened = new AtomicInteger();
+
+        /**
+         * Creates and starts a new test pool.<p>
+         *
+         * @param maxActive the maximum number of connections
+         * @param minIdle the minimum number of idle connections
+         * @param maxWait the maximum time to wait for a connection
+         * @param leakDetectionThreshold the leak detection threshold
+         */
+        CmsTestPool(int maxActive, int minIdle, long maxWait, long leakDetectionThreshold) {
+
+            init("opencms:test", "jdbc:test", new Properties(), maxActive, maxActive, minIdle, maxWait);
+            setLeakDetectionThreshold(leakDetectionThreshold);
+            start();
+        }
+
+        /**
+         * @see org.opencms.db.CmsConnectionPool#createConnection()
+         */
+        @Override
+        protected Connection createConnection() {
+
+            m_opened.incrementAndGet();
+            return (Connection)Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[] {Connection.class},
+                new InvocationHandler() {
+
+                    private boolean m_isClosed;
+
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+
+                        String name = method.getName();
+                        if ("close".equals(name)) {
+                            if (!m_isClosed) {
+                                m_isClosed = true;
+                                m_closed.incrementAndGet();
+                            }
+                            return null;
+                        } else if ("isClosed".equals(name)) {
+                            return Boolean.valueOf(m_isClosed);
+                        } else if ("isValid".equals(name)) {
+                            return Boolean.valueOf(!m_isClosed);
+                        } else if ("getAutoCommit".equals(name)) {
+                            return Boolean.TRUE;
+                        } else if ("createStatement".equals(name) || "prepareStatement".equals(name)) {
+                            return Proxy.newProxyInstance(
+                                getClass().getClassLoader(),
+                                new Class<?>[] {PreparedStatement.class},
+                                new InvocationHandler() {
+
+                                    public Object invoke(Object stmt, Method stmtMethod, Object[] stmtArgs) {
+
+                                        return null;
+                                    }
+                                });
+                        }
+                        return null;
+                    }
+                });
+        }
+    }
+
+    /**
+     * Tests borrowing and returning a connection.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testBorrowAndRelease() throws Exception {
+
+        CmsTestPool pool = new CmsTestPool(2, 1, 1000, 0);
+        try {
+            assertEquals(1, pool.getNumIdle());
+            assertEquals(0, pool.getNumActive());
+
+            Connection con = pool.getConnection();
+            assertEquals(0, pool.getNumIdle());
+            assertEquals(1, pool.getNumActive());
+            con.createStatement();
+            con.close();
+            // closing twice is allowed
+            con.close();
+            assertTrue(con.isClosed());
+            assertEquals(1, pool.getNumIdle());
+            assertEquals(0, pool.getNumActive());
+
+            try {
+                con.createStatement();
+                fail("Closed pooled connection must not be usable");
+            } catch (SQLException e) {
+                // expected
+            }
+
+            // the physical connection is reused
+            pool.getConnection().close();
+            assertEquals(1, pool.m_opened.get());
+            assertEquals(0, pool.m_closed.get());
+            assertEquals(2, pool.getStatistics().getBorrowCount());
+        } finally {
+            pool.close();
+        }
+        assertEquals(1, pool.m_closed.get());
+    }
+
+    /**
+     * Tests concurrent borrowing from a pool smaller than the number of threads.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testConcurrentBorrow() throws Exception {
+
+        final CmsTestPool pool = new CmsTestPool(4, 0, 10000, 0);
+        final int loops = 2000;
+        final List<Throwable> errors = new ArrayList<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+        try {
+            for (int i = 0; i < 8; i++) {
+                Thread thread = new Thread(new Runnable() {
+
+                    public void run() {
+
+                        try {
+                            for (int j = 0; j < loops; j++) {
+                                pool.getConnection().close();
+                            }
+                        } catch (Throwable t) {
+                            synchronized (errors) {
+                                errors.add(t);
+                            }
+                        }
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertTrue(errors.toString(), errors.isEmpty());
+            assertTrue(pool.m_opened.get() <= 4);
+            assertEquals(0, pool.getNumActive());
+            assertEquals(8 * loops, pool.getStatistics().getBorrowCount());
+            assertEquals(0, pool.getStatistics().getTimeoutCount());
+        } finally {
+            pool.close();
+        }
+    }
+
+    /**
+     * Tests that the query of a failed statement can be read, and that statements return the pooled connection.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testErrorQuery() throws Exception {
+
+        CmsTestPool pool = new CmsTestPool(1, 0, 1000, 0);
+        try {
+            Connection con = pool.getConnection();
+            PreparedStatement stmt = con.prepareStatement("SELECT * FROM CMS_ONLINE_RESOURCES");
+            assertEquals("SELECT * FROM CMS_ONLINE_RESOURCES", CmsDbSqlException.getErrorQuery(stmt));
+            // closing the connection of the statement must return it to the pool
+            assertSame(con, stmt.getConnection());
+            stmt.getConnection().close();
+            assertEquals(0, pool.getNumActive());
+            assertEquals(0, pool.m_closed.get());
+        } finally {
+            pool.close();
+        }
+    }
+
+    /**
+     * Tests the timeout when the pool is exhausted and the hand-off to a waiting thread.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testExhausted() throws Exception {
+
+        final CmsTestPool pool = new CmsTestPool(1, 0, 100, 0);
+        try {
+            final Connection con = pool.getConnection();
+            long start = System.currentTimeMillis();
+            try {
+                pool.getConnection();
+                fail("Exhausted pool must not hand out a connection");
+            } catch (SQLException e) {
+                // expected
+            }
+            assertTrue((System.currentTimeMillis() - start) >= 90);
+            assertEquals(1, pool.getStatistics().getTimeoutCount());
+
+            Thread releaser = new Thread(new Runnable() {
+
+                public void run() {
+
+                    try {
+                        Thread.sleep(50);
+                        con.close();
+                    } catch (Exception e) {
+                        // ignore
+                    }
+                }
+            });
+            releaser.start();
+            Connection con2 = pool.getConnection();
+            con2.close();
+            releaser.join();
+            assertEquals(1, pool.m_opened.get());
+        } finally {
+            pool.close();
+        }
+    }
+
+    /**
+     * Tests the leak detection.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testLeakDetection() throws Exception {
+
+        CmsTestPool pool = new CmsTestPool(2, 0, 1000, 20);
+        try {
+            Connection con = pool.getConnection();
+            pool.housekeeping();
+            assertEquals(0, pool.getStatistics().getLeakCount());
+            Thread.sleep(50);
+            pool.housekeeping();
+            assertEquals(1, pool.getStatistics().getLeakCount());
+            // a leak is only reported once per borrow
+            pool.housekeeping();
+            assertEquals(1, pool.getStatistics().getLeakCount());
+            con.close();
+            Thread.sleep(50);
+            pool.housekeeping();
+            assertEquals(1, pool.getStatistics().getLeakCount());
+        } finally {
+            pool.close();
+        }
+    }
+}
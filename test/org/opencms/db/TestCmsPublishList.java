@@ -0,0 +1,208 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.file.CmsResource;
+import org.opencms.main.CmsIllegalArgumentException;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Test cases for adding and removing resources to and from a {@link CmsPublishList}.<p>
+ */
+public class TestCmsPublishList extends TestCase {
+
+    /**
+     * Tests adding resources, including duplicates and unchanged resources.<p>
+     */
+    public void testAdd() {
+
+        CmsPublishList publishList = createPublishList();
+        CmsResource folder = createResource("/sites/default/folder/", true, CmsResourceState.STATE_NEW);
+        CmsResource deletedFolder = createResource("/sites/default/deleted/", true, CmsResourceState.STATE_DELETED);
+        CmsResource file = createResource("/sites/default/folder/index.html", false, CmsResourceState.STATE_CHANGED);
+        publishList.addAll(Arrays.asList(folder, deletedFolder, file), true);
+
+        assertEquals(Collections.singletonList(folder), publishList.getFolderList());
+        assertEquals(Collections.singletonList(deletedFolder), publishList.getDeletedFolderList());
+        assertEquals(Collections.singletonList(file), publishList.getFileList());
+        assertTrue(publishList.containsResource(folder));
+        assertTrue(publishList.containsResource(deletedFolder));
+        assertTrue(publishList.containsResource(file));
+
+        // adding the same resource again, e.g. as sibling, must not duplicate it
+        publishList.add(file, true);
+        publishList.add(
+            createResource(
+                file.getStructureId(),
+                "/sites/default/folder/index.html",
+                false,
+                CmsResourceState.STATE_CHANGED),
+            true);
+        assertEquals(1, publishList.getFileList().size());
+        assertEquals(3, publishList.size());
+
+        // unchanged resources must not be added
+        CmsResource unchanged = createResource(
+            "/sites/default/unchanged.html",
+            false,
+            CmsResourceState.STATE_UNCHANGED);
+        try {
+            publishList.add(unchanged, true);
+            fail("unchanged resource added");
+        } catch (CmsIllegalArgumentException e) {
+            // expected
+        }
+        assertFalse(publishList.containsResource(unchanged));
+    }
+
+    /**
+     * Tests adding and removing a large number of resources.<p>
+     */
+    public void testLargePublishList() {
+
+        int count = 100000;
+        CmsPublishList publishList = createPublishList();
+        List<CmsResource> files = new ArrayList<CmsResource>(count);
+        for (int i = 0; i < count; i++) {
+            files.add(createResource("/sites/default/files/file" + i + ".html", false, CmsResourceState.STATE_NEW));
+        }
+        publishList.addAll(files, true);
+        // add all again, as done when collecting siblings
+        publishList.addAll(files, true);
+        assertEquals(count, publishList.size());
+
+        // remove every other file
+        List<CmsResource> removed = new ArrayList<CmsResource>(count / 2);
+        for (int i = 0; i < count; i += 2) {
+            removed.add(files.get(i));
+        }
+        assertTrue(publishList.removeAll(removed));
+        assertEquals(count / 2, publishList.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals((i % 2) != 0, publishList.containsResource(files.get(i)));
+        }
+        // the remaining files must keep their order
+        List<CmsResource> fileList = publishList.getFileList();
+        assertEquals(count / 2, fileList.size());
+        for (int i = 0; i < fileList.size(); i++) {
+            assertSame(files.get((2 * i) + 1), fileList.get(i));
+        }
+    }
+
+    /**
+     * Tests removing resources.<p>
+     */
+    public void testRemove() {
+
+        CmsPublishList publishList = createPublishList();
+        CmsResource folder = createResource("/sites/default/folder/", true, CmsResourceState.STATE_CHANGED);
+        CmsResource file1 = createResource("/sites/default/folder/a.html", false, CmsResourceState.STATE_NEW);
+        CmsResource file2 = createResource("/sites/default/folder/b.html", false, CmsResourceState.STATE_NEW);
+        CmsResource file3 = createResource("/sites/default/folder/c.html", false, CmsResourceState.STATE_DELETED);
+        publishList.addAll(Arrays.asList(folder, file1, file2, file3), true);
+
+        assertTrue(publishList.remove(file2));
+        assertFalse(publishList.remove(file2));
+        assertFalse(publishList.containsResource(file2));
+        assertEquals(Arrays.asList(file1, file3), publishList.getFileList());
+
+        assertTrue(publishList.removeAll(Arrays.asList(folder, file3, file2)));
+        assertFalse(publishList.removeAll(Arrays.asList(folder, file3)));
+        assertEquals(Collections.singletonList(file1), publishList.getFileList());
+        assertTrue(publishList.getFolderList().isEmpty());
+
+        // a removed resource can be added again
+        publishList.add(file2, true);
+        assertEquals(Arrays.asList(file1, file2), publishList.getFileList());
+    }
+
+    /**
+     * Creates an empty publish list.<p>
+     *
+     * @return an empty publish list
+     */
+    private CmsPublishList createPublishList() {
+
+        return new CmsPublishList(Collections.<CmsResource> emptyList(), false);
+    }
+
+    /**
+     * Creates a test resource.<p>
+     *
+     * @param structureId the structure id
+     * @param rootPath the root path
+     * @param isFolder if the resource is a folder
+     * @param state the resource state
+     *
+     * @return the test resource
+     */
+    private CmsResource createResource(CmsUUID structureId, String rootPath, boolean isFolder, CmsResourceState state) {
+
+        long now = System.currentTimeMillis();
+        return new CmsResource(
+            structureId,
+            new CmsUUID(),
+            rootPath,
+            isFolder ? 0 : 1,
+            isFolder,
+            0,
+            new CmsUUID(),
+            state,
+            now,
+            new CmsUUID(),
+            now,
+            new CmsUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            0,
+            now,
+            0);
+    }
+
+    /**
+     * Creates a test resource with a new structure id.<p>
+     *
+     * @param rootPath the root path
+     * @param isFolder if the resource is a folder
+     * @param state the resource state
+     *
+     * @return the test resource
+     */
+    private CmsResource createResource(String rootPath, boolean isFolder, CmsResourceState state) {
+
+        return createResource(new CmsUUID(), rootPath, isFolder, state);
+    }
+}
@@ -27,18 +27,23 @@
 
 package org.opencms.db;
 
+import org.opencms.db.generic.CmsProjectDriver;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypeFolder;
 import org.opencms.file.types.CmsResourceTypePlain;
 import org.opencms.main.CmsEvent;
 import org.opencms.main.CmsException;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
+import org.opencms.report.CmsShellReport;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
 import org.opencms.util.CmsUUID;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import junit.extensions.TestSetup;
 import junit.framework.Test;
@@ -84,6 +89,7 @@ public class TestPublishHistory extends OpenCmsTestCase implements I_CmsEventLis
         suite.addTest(new TestPublishHistory("testPublishChangedFile"));
         suite.addTest(new TestPublishHistory("testPublishMovedFile"));
         suite.addTest(new TestPublishHistory("testPublishDeletedFile"));
+        suite.addTest(new TestPublishHistory("testPublishManyFiles"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -218,6 +224,53 @@ public class TestPublishHistory extends OpenCmsTestCase implements I_CmsEventLis
         OpenCms.getPublishManager().waitWhileRunning();
     }
 
+    /**
+     * Test the publish history for more files than written with a single batch.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testPublishManyFiles() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing publish history for many files");
+
+        // the event listener only checks the single file test cases
+        OpenCms.removeCmsEventListener(this);
+
+        String folder = "/folder_many/";
+        int count = CmsProjectDriver.PUBLISH_HISTORY_BATCH_SIZE + 10;
+        Set<CmsUUID> createdIds = new HashSet<CmsUUID>();
+        createdIds.add(cms.createResource(folder, CmsResourceTypeFolder.getStaticTypeId()).getStructureId());
+        for (int i = 0; i < count; i++) {
+            createdIds.add(
+                cms.createResource(
+                    folder + "file" + i + ".txt",
+                    CmsResourceTypePlain.getStaticTypeId()).getStructureId());
+        }
+        cms.unlockResource(folder);
+
+        CmsPublishList publishList = OpenCms.getPublishManager().getPublishList(cms, cms.readResource(folder), false);
+        OpenCms.getPublishManager().publishProject(
+            cms,
+            new CmsShellReport(cms.getRequestContext().getLocale()),
+            publishList);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        // all files and the folder must be in the publish history exactly once, also across batch boundaries
+        List<CmsPublishedResource> publishedResources = cms.readPublishedResources(
+            publishList.getPublishHistoryId());
+        assertEquals(count + 1, publishedResources.size());
+        Set<CmsUUID> publishedIds = new HashSet<CmsUUID>();
+        int publishTag = publishedResources.get(0).getPublishTag();
+        for (CmsPublishedResource pubRes : publishedResources) {
+            assertTrue(publishedIds.add(pubRes.getStructureId()));
+            assertEquals(CmsResource.STATE_NEW, pubRes.getState());
+            assertEquals(publishTag, pubRes.getPublishTag());
+            assertTrue(pubRes.getRootPath().startsWith(cms.getRequestContext().addSiteRoot(folder)));
+        }
+        assertEquals(createdIds, publishedIds);
+    }
+
     /**
      * Test the publish history for a moved file.<p>
      *
@@ -0,0 +1,219 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db.generic;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.db.CmsResourceState;
+import org.opencms.util.CmsUUID;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark comparing writing the publish history with one statement per entry,
+ * as done outside of publishing, with the JDBC batches used while publishing.<p>
+ *
+ * The entries are written to the publish history table of an in-memory HSQLDB database, the database
+ * used by the tests, with the statement from the generic query properties. There are no network round trips,
+ * so the difference is smaller than with a database server.<p>
+ *
+ * Run with <code>gradle jmh -PjmhInclude=CmsPublishHistoryBatchBenchmark</code>.<p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CmsPublishHistoryBatchBenchmark {
+
+    /** The publish history table, like in the HSQLDB setup scripts. */
+    private static final String CREATE_TABLE = "CREATE TABLE CMS_PUBLISH_HISTORY ("
+        + "HISTORY_ID VARCHAR(36) NOT NULL, "
+        + "PUBLISH_TAG INT NOT NULL, "
+        + "STRUCTURE_ID VARCHAR(36) NOT NULL, "
+        + "RESOURCE_ID VARCHAR(36) NOT NULL, "
+        + "RESOURCE_PATH VARCHAR(1024) NOT NULL, "
+        + "RESOURCE_STATE INT NOT NULL, "
+        + "RESOURCE_TYPE INT NOT NULL, "
+        + "SIBLING_COUNT INT NOT NULL, "
+        + "UNIQUE (HISTORY_ID, PUBLISH_TAG, STRUCTURE_ID, RESOURCE_PATH))";
+
+    /** The number of publish history entries written per operation. */
+    @Param({"100", "5000"})
+    public int m_entries;
+
+    /** The database connection. */
+    private Connection m_connection;
+
+    /** The project driver used to set the statement parameters. */
+    private CmsProjectDriver m_driver;
+
+    /** The statement to write a publish history entry. */
+    private String m_insert;
+
+    /** The published resources. */
+    private CmsPublishedResource[] m_resources;
+
+    /**
+     * Writes the publish history entries with JDBC batches.<p>
+     *
+     * @return the number of written entries
+     *
+     * @throws SQLException in case something goes wrong
+     */
+    @Benchmark
+    public int batch() throws SQLException {
+
+        CmsUUID publishId = new CmsUUID();
+        int count = 0;
+        PreparedStatement stmt = m_connection.prepareStatement(m_insert);
+        try {
+            for (int i = 0; i < m_resources.length; i++) {
+                m_driver.setPublishHistoryParameters(stmt, publishId, m_resources[i]);
+                stmt.addBatch();
+                if ((((i + 1) % CmsProjectDriver.PUBLISH_HISTORY_BATCH_SIZE) == 0) || (i == (m_resources.length - 1))) {
+                    count += stmt.executeBatch().length;
+                }
+            }
+        } finally {
+            stmt.close();
+        }
+        return count;
+    }
+
+    /**
+     * Removes the entries written during the last iteration.<p>
+     *
+     * @throws SQLException in case something goes wrong
+     */
+    @Setup(Level.Iteration)
+    public void clear() throws SQLException {
+
+        execute("DELETE FROM CMS_PUBLISH_HISTORY");
+    }
+
+    /**
+     * Creates the database and the published resources.<p>
+     *
+     * @throws Exception in case something goes wrong
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        Class.forName("org.hsqldb.jdbcDriver");
+        m_connection = DriverManager.getConnection("jdbc:hsqldb:mem:publishhistory", "sa", "");
+        execute(CREATE_TABLE);
+        m_insert = new CmsSqlManager().readQuery("C_RESOURCES_WRITE_PUBLISH_HISTORY");
+        m_driver = new CmsProjectDriver();
+        m_resources = new CmsPublishedResource[m_entries];
+        for (int i = 0; i < m_entries; i++) {
+            m_resources[i] = new CmsPublishedResource(
+                new CmsUUID(),
+                new CmsUUID(),
+                1,
+                "/sites/default/folder" + (i / 100) + "/file" + i + ".html",
+                1,
+                false,
+                CmsResourceState.STATE_NEW,
+                1);
+        }
+    }
+
+    /**
+     * Writes the publish history entries with one statement per entry.<p>
+     *
+     * @return the number of written entries
+     *
+     * @throws SQLException in case something goes wrong
+     */
+    @Benchmark
+    public int singleStatements() throws SQLException {
+
+        CmsUUID publishId = new CmsUUID();
+        int count = 0;
+        for (int i = 0; i < m_resources.length; i++) {
+            PreparedStatement stmt = m_connection.prepareStatement(m_insert);
+            try {
+                m_driver.setPublishHistoryParameters(stmt, publishId, m_resources[i]);
+                count += stmt.executeUpdate();
+            } finally {
+                stmt.close();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Shuts the database down.<p>
+     *
+     * @throws SQLException in case something goes wrong
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+
+        execute("SHUTDOWN");
+        m_connection.close();
+    }
+
+    /**
+     * Executes the given SQL statement.<p>
+     *
+     * @param sql the SQL statement
+     *
+     * @throws SQLException in case something goes wrong
+     */
+    private void execute(String sql) throws SQLException {
+
+        Statement stmt = m_connection.createStatement();
+        try {
+            stmt.execute(sql);
+        } finally {
+            stmt.close();
+        }
+    }
+}
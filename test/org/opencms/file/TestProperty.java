@@ -35,6 +35,7 @@ import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
 import org.opencms.test.OpenCmsTestResourceFilter;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -90,6 +91,7 @@ public class TestProperty extends OpenCmsTestCase {
         suite.addTest(new TestProperty("testDefaultPropertyCreation"));
         suite.addTest(new TestProperty("testCaseSensitiveProperties"));
         suite.addTest(new TestProperty("testReadResourcesWithProperty"));
+        suite.addTest(new TestProperty("testReadPropertyObjectsForResources"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -575,6 +577,51 @@ public class TestProperty extends OpenCmsTestCase {
         writeProperty(this, cms, "/folder2/", property10);
     }
 
+    /**
+     * Tests reading the properties of several resources at once.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testReadPropertyObjectsForResources() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing reading the properties of several resources at once");
+
+        // create a sibling with a shared and an individual property value
+        String source = "/folder1/page2.html";
+        String sibling = "/folder1/sibling_props.html";
+        cms.createSibling(source, sibling, null);
+        cms.lockResource(source);
+        cms.writePropertyObject(
+            source,
+            new CmsProperty(CmsPropertyDefinition.PROPERTY_DESCRIPTION, "individual", "shared"));
+
+        List<CmsResource> resources = cms.readResources("/folder1/", CmsResourceFilter.ALL);
+        Map<CmsUUID, List<CmsProperty>> properties = cms.readPropertyObjects(resources, false);
+        Map<CmsUUID, List<CmsProperty>> searchedProperties = cms.readPropertyObjects(resources, true);
+        assertEquals(resources.size(), properties.size());
+        assertEquals(resources.size(), searchedProperties.size());
+        for (CmsResource resource : resources) {
+            assertEquals(
+                CmsProperty.toMap(cms.readPropertyObjects(resource, false)),
+                CmsProperty.toMap(properties.get(resource.getStructureId())));
+            assertEquals(
+                CmsProperty.toMap(cms.readPropertyObjects(resource, true)),
+                CmsProperty.toMap(searchedProperties.get(resource.getStructureId())));
+        }
+
+        Map<String, CmsProperty> sourceProperties = CmsProperty.toObjectMap(
+            properties.get(cms.readResource(source).getStructureId()));
+        Map<String, CmsProperty> siblingProperties = CmsProperty.toObjectMap(
+            properties.get(cms.readResource(sibling).getStructureId()));
+        CmsProperty sourceProperty = sourceProperties.get(CmsPropertyDefinition.PROPERTY_DESCRIPTION);
+        assertEquals("individual", sourceProperty.getStructureValue());
+        assertEquals("shared", sourceProperty.getResourceValue());
+        CmsProperty siblingProperty = siblingProperties.get(CmsPropertyDefinition.PROPERTY_DESCRIPTION);
+        assertNull(siblingProperty.getStructureValue());
+        assertEquals("shared", siblingProperty.getResourceValue());
+    }
+
     /**
      * Tests the writePropertyObject method for writing of a property on a folder.<p>
      *
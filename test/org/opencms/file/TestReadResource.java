@@ -33,6 +33,10 @@ import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
 import org.opencms.util.CmsUUID;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import junit.extensions.TestSetup;
 import junit.framework.Test;
 import junit.framework.TestSuite;
@@ -72,6 +76,7 @@ public class TestReadResource extends OpenCmsTestCase {
         suite.addTest(new TestReadResource("testReadInValidTimeRangeIgnore"));
         suite.addTest(new TestReadResource("testReadAfterExpirationDateIgnore"));
         suite.addTest(new TestReadResource("testReadWithResourceID"));
+        suite.addTest(new TestReadResource("testReadWithResourceIDs"));
         suite.addTest(new TestReadResource("testReadWithWrongResourceID"));
         suite.addTest(new TestReadResource("testReadFileWithResourceID"));
 
@@ -323,6 +328,52 @@ public class TestReadResource extends OpenCmsTestCase {
         assertEquals(resourceByPath.hashCode(), resourceById.hashCode());
     }
 
+    /**
+     * Test reading several resources with their structure IDs at once.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testReadWithResourceIDs() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing reading several resources by their structure IDs");
+
+        List<CmsResource> expected = cms.readResources("/folder1/", CmsResourceFilter.ALL);
+        assertTrue(expected.size() > 2);
+        List<CmsUUID> ids = new ArrayList<CmsUUID>();
+        for (CmsResource resource : expected) {
+            ids.add(resource.getStructureId());
+        }
+        // unknown ids are ignored
+        ids.add(1, new CmsUUID());
+        // duplicate ids are only read once
+        ids.add(expected.get(0).getStructureId());
+
+        List<CmsResource> result = cms.readResources(ids, CmsResourceFilter.ALL);
+        assertEquals(expected.size(), result.size());
+        for (int i = 0; i < expected.size(); i++) {
+            CmsResource resourceByPath = expected.get(i);
+            CmsResource resourceById = result.get(i);
+            assertEquals(resourceByPath.getStructureId(), resourceById.getStructureId());
+            assertEquals(resourceByPath.getResourceId(), resourceById.getResourceId());
+            assertEquals(resourceByPath.getRootPath(), resourceById.getRootPath());
+            assertEquals(resourceByPath.getState(), resourceById.getState());
+            assertEquals(resourceByPath.getDateLastModified(), resourceById.getDateLastModified());
+            assertEquals(resourceByPath.getLength(), resourceById.getLength());
+        }
+
+        // deleted resources are only read if the filter includes them
+        String path = "/folder1/page1.html";
+        CmsResource deleted = cms.readResource(path);
+        cms.lockResource(path);
+        cms.deleteResource(path, CmsResource.DELETE_PRESERVE_SIBLINGS);
+        List<CmsUUID> deletedIds = Collections.singletonList(deleted.getStructureId());
+        assertEquals(1, cms.readResources(deletedIds, CmsResourceFilter.ALL).size());
+        assertTrue(cms.readResources(deletedIds, CmsResourceFilter.DEFAULT).isEmpty());
+        cms.undeleteResource(path, false);
+        assertEquals(1, cms.readResources(deletedIds, CmsResourceFilter.DEFAULT).size());
+    }
+
     /**
      * Test readResource whether an incorrect structureID throws an exception.<p>
      *
@@ -0,0 +1,245 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.db.CmsResourceState;
+import org.opencms.file.CmsResource;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tests for the CmsFlexCacheDependencyIndex.<p>
+ */
+public class TestCmsFlexCacheDependencyIndex extends OpenCmsTestCase {
+
+    /**
+     * Tests that entries with the same dependencies can be added and removed concurrently.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testConcurrentUpdates() throws Exception {
+
+        final CmsFlexCacheDependencyIndex index = new CmsFlexCacheDependencyIndex();
+        final String path = "/sites/default/shared.html";
+        List<Thread> threads = new ArrayList<Thread>();
+        final List<CmsFlexCacheEntry> kept = Collections.synchronizedList(new ArrayList<CmsFlexCacheEntry>());
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread() {
+
+                @SuppressWarnings("synthetic-access")
+                @Override
+                public void run() {
+
+                    for (int i = 0; i < 500; i++) {
+                        CmsFlexRequestContextInfo info = new CmsFlexRequestContextInfo(true);
+                        info.addDependency(path);
+                        CmsFlexCacheEntry entry = createEntry(info);
+                        index.add(entry);
+                        if ((i % 2) == 0) {
+                            index.remove(entry);
+                        } else {
+                            kept.add(entry);
+                        }
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(kept.size(), index.size());
+        Set<CmsFlexCacheEntry> result = index.getDependentEntries(
+            Collections.singletonList(createPublishedResource(new CmsUUID(), path)));
+        assertEquals(kept.size(), result.size());
+        assertTrue(result.containsAll(kept));
+
+        index.clear();
+        assertEquals(0, index.size());
+        result = index.getDependentEntries(Collections.singletonList(createPublishedResource(new CmsUUID(), path)));
+        assertTrue(result.isEmpty());
+    }
+
+    /**
+     * Tests that entries are found by the folders whose contents they have listed.<p>
+     */
+    public void testFolderDependencies() {
+
+        CmsFlexCacheDependencyIndex index = new CmsFlexCacheDependencyIndex();
+        CmsFlexRequestContextInfo info = new CmsFlexRequestContextInfo(true);
+        info.addFolderDependency("/sites/default/news");
+        CmsFlexCacheEntry entry = createEntry(info);
+        index.add(entry);
+
+        // a new resource somewhere below the listed folder
+        Set<CmsFlexCacheEntry> result = index.getDependentEntries(
+            Collections.singletonList(createPublishedResource(new CmsUUID(), "/sites/default/news/2016/a.html")));
+        assertTrue(result.contains(entry));
+
+        // a resource in another folder
+        result = index.getDependentEntries(
+            Collections.singletonList(createPublishedResource(new CmsUUID(), "/sites/default/events/a.html")));
+        assertFalse(result.contains(entry));
+    }
+
+    /**
+     * Tests that entries are found by the structure id and the root path of the resources they have read.<p>
+     */
+    public void testResourceDependencies() {
+
+        CmsFlexCacheDependencyIndex index = new CmsFlexCacheDependencyIndex();
+        CmsUUID structureId = new CmsUUID();
+        CmsFlexRequestContextInfo info = new CmsFlexRequestContextInfo(true);
+        info.updateFromResource(createResource(structureId, "/sites/default/a/index.html"));
+        info.addDependency("/sites/default/b/missing.html");
+        CmsFlexCacheEntry entry = createEntry(info);
+        index.add(entry);
+        assertEquals(1, index.size());
+
+        // the resource has been moved
+        Set<CmsFlexCacheEntry> result = index.getDependentEntries(
+            Collections.singletonList(createPublishedResource(structureId, "/sites/default/c/index.html")));
+        assertTrue(result.contains(entry));
+
+        // a resource that has been looked up before it existed
+        result = index.getDependentEntries(
+            Collections.singletonList(createPublishedResource(new CmsUUID(), "/sites/default/b/missing.html")));
+        assertTrue(result.contains(entry));
+
+        // the parent folder, since properties may be inherited
+        result = index.getDependentEntries(
+            Collections.singletonList(createPublishedResource(new CmsUUID(), "/sites/default/a/")));
+        assertTrue(result.contains(entry));
+
+        // an unrelated resource
+        result = index.getDependentEntries(
+            Collections.singletonList(createPublishedResource(new CmsUUID(), "/sites/default/d/index.html")));
+        assertFalse(result.contains(entry));
+
+        index.remove(entry);
+        assertEquals(0, index.size());
+        result = index.getDependentEntries(
+            Collections.singletonList(createPublishedResource(structureId, "/sites/default/a/index.html")));
+        assertTrue(result.isEmpty());
+    }
+
+    /**
+     * Tests that entries without tracked dependencies are always found.<p>
+     */
+    public void testUntrackedEntries() {
+
+        CmsFlexCacheDependencyIndex index = new CmsFlexCacheDependencyIndex();
+        CmsFlexCacheEntry entry = createEntry(new CmsFlexRequestContextInfo());
+        index.add(entry);
+        assertFalse(entry.hasDependencies());
+
+        Set<CmsFlexCacheEntry> result = index.getDependentEntries(
+            Collections.singletonList(createPublishedResource(new CmsUUID(), "/sites/default/index.html")));
+        assertTrue(result.contains(entry));
+
+        // removing the entry from the LRU cache also removes it from the index
+        entry.removeFromLruCache();
+        assertEquals(0, index.size());
+    }
+
+    /**
+     * Creates a completed cache entry with the dependencies of the given context info.<p>
+     *
+     * @param info the context info
+     *
+     * @return the cache entry
+     */
+    private CmsFlexCacheEntry createEntry(CmsFlexRequestContextInfo info) {
+
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        entry.complete();
+        entry.setDependencies(info);
+        return entry;
+    }
+
+    /**
+     * Creates a published resource.<p>
+     *
+     * @param structureId the structure id
+     * @param rootPath the root path
+     *
+     * @return the published resource
+     */
+    private CmsPublishedResource createPublishedResource(CmsUUID structureId, String rootPath) {
+
+        return new CmsPublishedResource(
+            structureId,
+            new CmsUUID(),
+            1,
+            rootPath,
+            1,
+            rootPath.endsWith("/"),
+            CmsResourceState.STATE_CHANGED,
+            1);
+    }
+
+    /**
+     * Creates a resource.<p>
+     *
+     * @param structureId the structure id
+     * @param rootPath the root path
+     *
+     * @return the resource
+     */
+    private CmsResource createResource(CmsUUID structureId, String rootPath) {
+
+        long now = System.currentTimeMillis();
+        return new CmsResource(
+            structureId,
+            new CmsUUID(),
+            rootPath,
+            1,
+            false,
+            0,
+            new CmsUUID(),
+            CmsResourceState.STATE_UNCHANGED,
+            now,
+            new CmsUUID(),
+            now,
+            new CmsUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            0,
+            now,
+            0);
+    }
+}
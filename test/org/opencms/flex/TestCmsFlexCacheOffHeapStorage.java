@@ -0,0 +1,123 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Tests for the CmsFlexCacheOffHeapStorage.<p>
+ */
+public class TestCmsFlexCacheOffHeapStorage extends OpenCmsTestCase {
+
+    /**
+     * Tests moving the output of a cache entry to the off-heap storage and releasing it.<p>
+     */
+    public void testMoveEntryToOffHeap() {
+
+        CmsFlexCacheOffHeapStorage storage = new CmsFlexCacheOffHeapStorage(100000, 1000);
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        entry.add(new byte[100]);
+        entry.add(new byte[20000]);
+        entry.complete();
+        int heapCosts = entry.getLruCacheCosts();
+
+        entry.moveToOffHeap(storage);
+        // the block is stored in a direct buffer with the next power of two as capacity
+        assertEquals(32768, entry.getOffHeapSize());
+        assertEquals(32768, storage.getOffHeapSize());
+        assertEquals(1, storage.getOffHeapBlockCount());
+        assertTrue(entry.getLruCacheCosts() < heapCosts);
+        // the small block is kept on the heap
+        assertTrue(entry.elements().get(0) instanceof byte[]);
+        assertTrue(entry.elements().get(1) instanceof ByteBuffer);
+
+        // removing the entry from the cache releases the block, the direct buffer is kept for reuse
+        entry.removeFromLruCache();
+        assertEquals(0, entry.getOffHeapSize());
+        assertEquals(32768, storage.getOffHeapSize());
+        assertEquals(0, storage.getOffHeapBlockCount());
+        // releasing twice has no effect
+        entry.releaseOffHeap();
+        assertEquals(0, storage.getOffHeapBlockCount());
+    }
+
+    /**
+     * Tests that released direct buffers are reused for blocks of the same size class.<p>
+     */
+    public void testReuseReleasedBlocks() {
+
+        assertEquals(4096, CmsFlexCacheOffHeapStorage.getCapacity(4096));
+        assertEquals(8192, CmsFlexCacheOffHeapStorage.getCapacity(4097));
+
+        CmsFlexCacheOffHeapStorage storage = new CmsFlexCacheOffHeapStorage(20000, 100);
+        ByteBuffer block = storage.store(new byte[5000]);
+        storage.release(block);
+
+        byte[] bytes = new byte[7000];
+        bytes[6999] = 42;
+        ByteBuffer reused = storage.store(bytes);
+        assertSame(block, reused);
+        assertEquals(7000, reused.remaining());
+        assertEquals(42, reused.get(6999));
+        assertEquals(8192, storage.getOffHeapSize());
+        assertEquals(1, storage.getOffHeapBlockCount());
+
+        // a block of another size class needs a new direct buffer
+        assertNotNull(storage.store(new byte[1000]));
+        assertEquals(8192 + 1024, storage.getOffHeapSize());
+    }
+
+    /**
+     * Tests that the storage respects the configured limits.<p>
+     */
+    public void testStorageLimits() {
+
+        CmsFlexCacheOffHeapStorage storage = new CmsFlexCacheOffHeapStorage(10000, 100);
+        assertNull(storage.store(new byte[50]));
+
+        byte[] bytes = new byte[6000];
+        bytes[5999] = 42;
+        ByteBuffer block = storage.store(bytes);
+        assertNotNull(block);
+        assertTrue(block.isDirect());
+        assertEquals(6000, block.remaining());
+        assertEquals(42, block.get(5999));
+        assertEquals(8192, storage.getOffHeapSize());
+
+        // the limit would be exceeded
+        assertNull(storage.store(new byte[6000]));
+
+        // the released buffer is reused, so the limit is not exceeded
+        storage.release(block);
+        assertEquals(0, storage.getOffHeapBlockCount());
+        assertNotNull(storage.store(new byte[6000]));
+        assertEquals(8192, storage.getOffHeapSize());
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.flex;
+
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsResource;
+import org.opencms.main.OpenCms;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.util.CmsRequestUtil;
+import org.opencms.xml.content.CmsXmlContentCache;
+import org.opencms.xml.content.CmsXmlContentFactory;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the dependencies of Flex cache entries on XML contents read from the XML content cache.<p>
+ */
+public class TestCmsFlexCacheXmlContent extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsFlexCacheXmlContent(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsFlexCacheXmlContent.class.getName());
+
+        suite.addTest(new TestCmsFlexCacheXmlContent("testPublishCachedContent"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that publishing a content read from the XML content cache removes the Flex cache entries using it.<p>
+     *
+     * @throws Exception in case something goes wrong
+     */
+    public void testPublishCachedContent() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the Flex cache dependencies of cached XML contents");
+
+        String filename = "/xmlcontent/article_0003.html";
+        CmsFlexCacheConfiguration configuration = new CmsFlexCacheConfiguration();
+        configuration.setCacheEnabled(true);
+        configuration.setPublishInvalidation(CmsFlexCacheConfiguration.PUBLISH_INVALIDATION_DEPENDENCIES);
+        configuration.setMaxCacheBytes(1024 * 1024);
+        configuration.setAvgCacheBytes(512 * 1024);
+        configuration.setMaxEntryBytes(64 * 1024);
+        configuration.setMaxKeys(100);
+        CmsFlexCache flexCache = new CmsFlexCache(configuration);
+
+        CmsObject onlineCms = OpenCms.initCmsObject(cms);
+        onlineCms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        // the resource is read before the dependencies are tracked, only the cache hit may add it
+        CmsResource resource = onlineCms.readResource(filename);
+        CmsXmlContentFactory.unmarshal(onlineCms, onlineCms.readFile(resource));
+
+        CmsFlexRequestContextInfo info = new CmsFlexRequestContextInfo(true);
+        onlineCms.getRequestContext().setAttribute(CmsRequestUtil.HEADER_LAST_MODIFIED, info);
+        assertNotNull(CmsXmlContentCache.getInstance().getContent(onlineCms, resource, true));
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        entry.complete();
+        entry.setDependencies(info);
+        assertTrue(entry.getDependencyIds().contains(resource.getStructureId()));
+
+        CmsFlexCacheEntry otherEntry = new CmsFlexCacheEntry();
+        CmsFlexRequestContextInfo otherInfo = new CmsFlexRequestContextInfo(true);
+        otherInfo.addDependency("/sites/default/xmlcontent/unrelated.html");
+        otherEntry.complete();
+        otherEntry.setDependencies(otherInfo);
+
+        assertTrue(flexCache.put(new CmsFlexCacheKey("/sites/default/a.jsp", "always", true), entry, "a"));
+        assertTrue(flexCache.put(new CmsFlexCacheKey("/sites/default/b.jsp", "always", true), otherEntry, "b"));
+        assertEquals(2, flexCache.size());
+
+        cms.lockResource(filename);
+        CmsFile file = cms.readFile(filename);
+        cms.writeFile(file);
+        cms.unlockResource(filename);
+        OpenCms.getPublishManager().publishResource(cms, filename);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        // only the entry using the published content must have been removed
+        assertEquals(1, flexCache.size());
+        assertTrue(
+            flexCache.getCachedVariations(CmsFlexCacheKey.getKeyName("/sites/default/b.jsp", true), cms).contains("b"));
+    }
+}
@@ -58,6 +58,8 @@ public final class AllTests {
         OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
         //$JUnit-BEGIN$
         suite.addTest(new TestSuite(TestCmsImageScaler.class));
+        suite.addTest(new TestSuite(TestCmsImageScalingExecutor.class));
+        suite.addTest(new TestSuite(TestCmsImageVariantGenerator.class));
         suite.addTest(new TestSuite(TestCmsDefaultFileNameGenerator.class));
         //$JUnit-END$
         return suite;
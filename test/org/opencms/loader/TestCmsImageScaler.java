@@ -110,6 +110,39 @@ public class TestCmsImageScaler extends OpenCmsTestCase {
         assertTrue(image.isDownScaleRequired(downScaler));
     }
 
+    /**
+     * Tests writing the scaled image in a different output format.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testOutputFormat() throws Exception {
+
+        assertTrue(CmsImageScaler.isOutputFormatSupported("png"));
+        assertFalse(CmsImageScaler.isOutputFormatSupported("no-such-format"));
+        assertFalse(CmsImageScaler.isOutputFormatSupported(null));
+
+        String img01 = "org/opencms/loader/img_01.jpg";
+        byte[] content = CmsFileUtil.readFile(img01);
+
+        CmsImageScaler scaler = new CmsImageScaler("w:400,h:300");
+        scaler.setOutputFormat("png");
+        byte[] scaled = scaler.scaleImage(content, img01);
+        // check the PNG signature
+        assertEquals((byte)0x89, scaled[0]);
+        assertEquals('P', scaled[1]);
+        assertEquals('N', scaled[2]);
+        assertEquals('G', scaled[3]);
+
+        // the format must also be changed if the size is unchanged
+        scaler = new CmsImageScaler("w:800,h:600,t:2");
+        scaler.setOutputFormat("png");
+        scaled = scaler.scaleImage(content, img01);
+        assertEquals('P', scaled[1]);
+        CmsImageScaler scaledImage = new CmsImageScaler(scaled, img01);
+        assertEquals(800, scaledImage.getWidth());
+        assertEquals(600, scaledImage.getHeight());
+    }
+
     /**
      * Tests the image scaling type 5.<p>
      *
@@ -235,4 +268,36 @@ public class TestCmsImageScaler extends OpenCmsTestCase {
         assertTrue(resultScaler.isCropping());
         assertEquals(5, resultScaler.getType());
     }
+
+    /**
+     * Tests that large images are subsampled when reading them for a small target size.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testSubsampling() throws Exception {
+
+        assertEquals(1, CmsImageScaler.calculateSubsampling(800, 600, 400, 300));
+        assertEquals(1, CmsImageScaler.calculateSubsampling(800, 600, 300, 300));
+        assertEquals(2, CmsImageScaler.calculateSubsampling(800, 600, 200, 150));
+        assertEquals(4, CmsImageScaler.calculateSubsampling(800, 600, 100, 75));
+        assertEquals(2, CmsImageScaler.calculateSubsampling(8000, 600, 100, 150));
+        assertEquals(1, CmsImageScaler.calculateSubsampling(800, 600, -1, -1));
+
+        String img01 = "org/opencms/loader/img_01.jpg";
+        byte[] content = CmsFileUtil.readFile(img01);
+        for (String params : new String[] {"w:100,h:75", "w:100,h:100,t:2", "w:120,h:60,t:3"}) {
+            CmsImageScaler scaler = new CmsImageScaler(params);
+            byte[] scaled = scaler.scaleImage(content, img01);
+            CmsImageScaler scaledImage = new CmsImageScaler(scaled, img01);
+            CmsImageScaler expected = new CmsImageScaler(params);
+            if (expected.getType() == 3) {
+                // proportions are kept, the height is the limit
+                assertEquals(80, scaledImage.getWidth());
+                assertEquals(60, scaledImage.getHeight());
+            } else {
+                assertEquals(expected.getWidth(), scaledImage.getWidth());
+                assertEquals(expected.getHeight(), scaledImage.getHeight());
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,287 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.loader;
+
+import org.opencms.cache.CmsVfsNameBasedDiskCache;
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsUUID;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the bounded image scaling executor.<p>
+ */
+public class TestCmsImageScalingExecutor extends OpenCmsTestCase {
+
+    /**
+     * Image scaler that counts the scale operations and blocks until released.<p>
+     */
+    static class BlockingScaler extends CmsImageScaler {
+
+        /** The number of scale operations. */
+        AtomicInteger m_count = new AtomicInteger();
+
+        /** Latch to release the scale operations. */
+        CountDownLatch m_release = new CountDownLatch(1);
+
+        /**
+         * Creates a new blocking scaler.<p>
+         */
+        BlockingScaler() {
+
+            super("w:200,h:150");
+        }
+
+        /**
+         * @see org.opencms.loader.CmsImageScaler#scaleImage(org.opencms.file.CmsFile)
+         */
+        @Override
+        public byte[] scaleImage(CmsFile file) {
+
+            m_count.incrementAndGet();
+            try {
+                m_release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.scaleImage(file);
+        }
+    }
+
+    /** The disk cache used for the tests. */
+    private CmsVfsNameBasedDiskCache m_diskCache;
+
+    /**
+     * Tests that concurrent requests for the same variant share a single read and scale operation.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testCoalescing() throws Exception {
+
+        final CmsImageScalingExecutor executor = new CmsImageScalingExecutor(getDiskCache(), 2, 4, 10000);
+        final BlockingScaler scaler = new BlockingScaler();
+        final CmsFile file = createImageFile();
+        final String cacheName = m_diskCache.getRepositoryPath() + "coalescing_200x150.jpg";
+        new File(cacheName).delete();
+        // the requests only pass the resource, the content is read by the scale operation
+        final CmsResource resource = new CmsResource(
+            file.getStructureId(),
+            file.getResourceId(),
+            file.getRootPath(),
+            file.getTypeId(),
+            false,
+            file.getFlags(),
+            file.getProjectLastModified(),
+            file.getState(),
+            0,
+            CmsUUID.getNullUUID(),
+            0,
+            CmsUUID.getNullUUID(),
+            file.getDateReleased(),
+            file.getDateExpired(),
+            1,
+            file.getLength(),
+            0,
+            0);
+        final AtomicInteger reads = new AtomicInteger();
+        final CmsObject cms = new CmsObject(null, null) {
+
+            @Override
+            public CmsFile readFile(CmsResource res) {
+
+                reads.incrementAndGet();
+                return file;
+            }
+        };
+
+        ExecutorService requests = Executors.newFixedThreadPool(8);
+        List<Future<byte[]>> results = new ArrayList<Future<byte[]>>();
+        for (int i = 0; i < 8; i++) {
+            results.add(requests.submit(new Callable<byte[]>() {
+
+                public byte[] call() throws Exception {
+
+                    return executor.scale(cacheName, scaler, cms, resource);
+                }
+            }));
+        }
+        // wait until the scale operation has started, then give the other requests some time to arrive
+        while (scaler.m_count.get() == 0) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(200);
+        scaler.m_release.countDown();
+
+        byte[] first = results.get(0).get();
+        assertNotNull(first);
+        for (Future<byte[]> result : results) {
+            assertSame(first, result.get());
+        }
+        assertEquals(1, scaler.m_count.get());
+        assertEquals(1, reads.get());
+        assertEquals(0, executor.getPendingCount());
+        assertNotNull(m_diskCache.getCacheContent(cacheName));
+
+        CmsImageScaler scaled = new CmsImageScaler(first, file.getRootPath());
+        assertEquals(200, scaled.getWidth());
+        assertEquals(150, scaled.getHeight());
+
+        requests.shutdown();
+        executor.shutdown();
+    }
+
+    /**
+     * Tests that <code>null</code> is returned if the executor is saturated.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testSaturation() throws Exception {
+
+        final CmsImageScalingExecutor executor = new CmsImageScalingExecutor(getDiskCache(), 1, 1, 10000);
+        final BlockingScaler scaler = new BlockingScaler();
+        final CmsFile file = createImageFile();
+        final String path = m_diskCache.getRepositoryPath();
+
+        ExecutorService requests = Executors.newFixedThreadPool(2);
+        // the first request blocks the only worker thread, the second one fills the queue
+        Future<byte[]> running = requests.submit(new Callable<byte[]>() {
+
+            public byte[] call() throws Exception {
+
+                return executor.scale(path + "saturation_1.jpg", scaler, null, file);
+            }
+        });
+        while (scaler.m_count.get() == 0) {
+            Thread.sleep(10);
+        }
+        Future<byte[]> queued = requests.submit(new Callable<byte[]>() {
+
+            public byte[] call() throws Exception {
+
+                return executor.scale(path + "saturation_2.jpg", scaler, null, file);
+            }
+        });
+        while (executor.getPendingCount() < 2) {
+            Thread.sleep(10);
+        }
+
+        // the queue is full now, so the next variant must be rejected
+        assertNull(executor.scale(path + "saturation_3.jpg", scaler, null, file));
+        assertEquals(2, executor.getPendingCount());
+
+        scaler.m_release.countDown();
+        assertNotNull(running.get());
+        assertNotNull(queued.get());
+
+        requests.shutdown();
+        executor.shutdown();
+    }
+
+    /**
+     * Tests that <code>null</code> is returned if the scale operation does not finish in time.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testTimeout() throws Exception {
+
+        CmsImageScalingExecutor executor = new CmsImageScalingExecutor(getDiskCache(), 1, 1, 100);
+        BlockingScaler scaler = new BlockingScaler();
+        String cacheName = m_diskCache.getRepositoryPath() + "timeout.jpg";
+
+        assertNull(executor.scale(cacheName, scaler, null, createImageFile()));
+
+        // the scale operation still finishes in the background and fills the cache
+        scaler.m_release.countDown();
+        while (executor.getPendingCount() > 0) {
+            Thread.sleep(10);
+        }
+        assertNotNull(m_diskCache.getCacheContent(cacheName));
+
+        executor.shutdown();
+    }
+
+    /**
+     * Creates a file with the content of a test image.<p>
+     *
+     * @return a file with the content of a test image
+     *
+     * @throws Exception in case something goes wrong
+     */
+    static CmsFile createImageFile() throws Exception {
+
+        byte[] content = CmsFileUtil.readFile("org/opencms/loader/img_01.jpg");
+        return new CmsFile(
+            CmsUUID.getNullUUID(),
+            CmsUUID.getNullUUID(),
+            "/img_01.jpg",
+            0,
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.STATE_NEW,
+            0,
+            CmsUUID.getNullUUID(),
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            content.length,
+            0,
+            0,
+            content);
+    }
+
+    /**
+     * Returns the disk cache used for the tests.<p>
+     *
+     * @return the disk cache used for the tests
+     */
+    private CmsVfsNameBasedDiskCache getDiskCache() {
+
+        if (m_diskCache == null) {
+            m_diskCache = new CmsVfsNameBasedDiskCache(
+                System.getProperty("java.io.tmpdir") + File.separatorChar,
+                "opencms-imagescaling");
+        }
+        return m_diskCache;
+    }
+}
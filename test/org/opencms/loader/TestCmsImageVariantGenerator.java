@@ -0,0 +1,103 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+import org.opencms.cache.CmsVfsNameBasedDiskCache;
+import org.opencms.file.CmsFile;
+import org.opencms.test.OpenCmsTestCase;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests the creation of image variants after publishing.<p>
+ */
+public class TestCmsImageVariantGenerator extends OpenCmsTestCase {
+
+    /**
+     * Tests that the configured variants are saved in the disk cache in the source format and in all
+     * configured output formats, and are only created once.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testGenerateVariants() throws Exception {
+
+        CmsVfsNameBasedDiskCache diskCache = new CmsVfsNameBasedDiskCache(
+            System.getProperty("java.io.tmpdir") + File.separatorChar,
+            "opencms-imagevariants");
+        List<CmsImageScaler> variants = CmsImageVariantGenerator.parseVariants("w:200,h:150|w:100,h:75", 1500);
+        CmsImageVariantGenerator generator = new CmsImageVariantGenerator(
+            diskCache,
+            variants,
+            Collections.singletonList("png"),
+            null,
+            0);
+        CmsFile file = TestCmsImageScalingExecutor.createImageFile();
+        // the cache names must match the ones used by the image loader for the negotiated output format
+        List<CmsImageScaler> scalers = new ArrayList<CmsImageScaler>();
+        for (CmsImageScaler variant : variants) {
+            scalers.add(variant);
+            CmsImageScaler png = (CmsImageScaler)variant.clone();
+            png.setOutputFormat("png");
+            scalers.add(png);
+        }
+        for (CmsImageScaler scaler : scalers) {
+            new File(diskCache.getCacheName(file, CmsImageLoader.getCacheParam(scaler))).delete();
+        }
+
+        assertEquals(4, generator.generateVariants(file));
+        for (CmsImageScaler scaler : scalers) {
+            byte[] content = diskCache.getCacheContent(
+                diskCache.getCacheName(file, CmsImageLoader.getCacheParam(scaler)));
+            assertNotNull(content);
+            CmsImageScaler scaled = new CmsImageScaler(content, file.getRootPath());
+            assertEquals(scaler.getWidth(), scaled.getWidth());
+            assertEquals(scaler.getHeight(), scaled.getHeight());
+        }
+        // the variants are already in the cache now
+        assertEquals(0, generator.generateVariants(file));
+
+        generator.shutdown();
+    }
+
+    /**
+     * Tests parsing the configured variants.<p>
+     */
+    public void testParseVariants() {
+
+        // empty, too large and incomplete variants are ignored
+        List<CmsImageScaler> variants = CmsImageVariantGenerator.parseVariants(
+            " w:400,h:300 | | w:4000,h:3000 |w:100",
+            1500);
+        assertEquals(1, variants.size());
+        assertEquals(400, variants.get(0).getWidth());
+        assertTrue(CmsImageVariantGenerator.parseVariants(null, 1500).isEmpty());
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import org.opencms.file.CmsProperty;
+import org.opencms.monitor.CmsMemoryMonitor.CacheType;
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for the memory monitor cache backends.<p>
+ */
+public class TestCmsMemoryCacheBackend extends OpenCmsTestCase {
+
+    /**
+     * Tests selecting the cache backend for a cache type.<p>
+     */
+    public void testBackendSelection() {
+
+        CmsMemoryMonitorConfiguration config = new CmsMemoryMonitorConfiguration();
+        assertNull(config.getCacheBackend(CacheType.RESOURCE));
+
+        CmsLruMemoryCacheBackend lruBackend = new CmsLruMemoryCacheBackend();
+        lruBackend.setCacheTypes("permission, acl, unknown");
+        lruBackend.initConfiguration();
+        config.addCacheBackend(lruBackend);
+        assertEquals(2, lruBackend.getCacheTypes().size());
+        assertNull(config.getCacheBackend(CacheType.RESOURCE));
+        assertSame(lruBackend, config.getCacheBackend(CacheType.PERMISSION));
+
+        CmsConcurrentMemoryCacheBackend defaultBackend = new CmsConcurrentMemoryCacheBackend();
+        defaultBackend.initConfiguration();
+        config.addCacheBackend(defaultBackend);
+        assertSame(defaultBackend, config.getCacheBackend(CacheType.RESOURCE));
+        assertSame(lruBackend, config.getCacheBackend(CacheType.ACL));
+    }
+
+    /**
+     * Tests the metrics of a cache registered with the memory monitor.<p>
+     */
+    public void testCacheMetrics() {
+
+        CmsLruMemoryCacheBackend backend = new CmsLruMemoryCacheBackend();
+        backend.initConfiguration();
+        Map<String, String> cache = backend.createCache(CacheType.PROPERTY, 20);
+        cache.put("a", "A");
+        cache.get("a");
+        cache.get("b");
+
+        CmsMemoryMonitor monitor = new CmsMemoryMonitor();
+        monitor.register("test.cache", cache);
+        monitor.register("test.plain", new HashMap<String, String>());
+        List<CmsMemoryCacheMetrics> metrics = monitor.getCacheMetrics();
+        assertEquals(2, metrics.size());
+
+        CmsMemoryCacheMetrics cacheMetrics = metrics.get(0);
+        assertEquals("test.cache", cacheMetrics.getCacheName());
+        assertEquals(1, cacheMetrics.getEntries());
+        assertEquals(20, cacheMetrics.getLimit());
+        assertEquals(1, cacheMetrics.getHitCount());
+        assertEquals(1, cacheMetrics.getMissCount());
+        assertEquals(0.5, cacheMetrics.getHitRatio(), 0.001);
+        assertTrue(cacheMetrics.getWeightedSize() > 0);
+
+        // a plain map only reports its size
+        CmsMemoryCacheMetrics plainMetrics = metrics.get(1);
+        assertEquals(0, plainMetrics.getEntries());
+        assertEquals(-1, plainMetrics.getLimit());
+        assertEquals(-1, plainMetrics.getHitCount());
+    }
+
+    /**
+     * Tests the concurrent cache backend.<p>
+     */
+    public void testConcurrentBackend() {
+
+        CmsConcurrentMemoryCacheBackend backend = new CmsConcurrentMemoryCacheBackend();
+        backend.addConfigurationParameter(CmsConcurrentMemoryCacheBackend.PARAM_CONCURRENCY_LEVEL, "1");
+        backend.initConfiguration();
+        checkCache(backend.<String> createCache(CacheType.RESOURCE, 10), 10);
+
+        Map<String, String> cache = backend.createCache(CacheType.RESOURCE, 10);
+        cache.put("a", "A");
+        // null values are not stored
+        cache.put("a", null);
+        assertFalse(cache.containsKey("a"));
+    }
+
+    /**
+     * Tests the LRU map cache backend.<p>
+     */
+    public void testLruBackend() {
+
+        CmsLruMemoryCacheBackend backend = new CmsLruMemoryCacheBackend();
+        backend.initConfiguration();
+        checkCache(backend.<String> createCache(CacheType.RESOURCE, 10), 10);
+    }
+
+    /**
+     * Tests weighing cached objects.<p>
+     */
+    public void testWeigher() {
+
+        CmsProperty small = new CmsProperty("Title", "a", null);
+        CmsProperty large = new CmsProperty("Title", "a much longer title for the same property", "and a value");
+        assertEquals(small.getMemorySize(), CmsMemoryWeigher.weigh(small));
+        assertTrue(CmsMemoryWeigher.weigh(large) > CmsMemoryWeigher.weigh(small));
+
+        List<CmsProperty> properties = new ArrayList<CmsProperty>();
+        properties.add(small);
+        properties.add(large);
+        assertTrue(
+            CmsMemoryWeigher.weigh(properties) > (CmsMemoryWeigher.weigh(small) + CmsMemoryWeigher.weigh(large)));
+        assertTrue(CmsMemoryWeigher.weigh("key", small) > CmsMemoryWeigher.weigh(small));
+        assertEquals(0, CmsMemoryWeigher.weigh(null));
+    }
+
+    /**
+     * Checks the size bound and the statistics of a cache.<p>
+     *
+     * @param cache the cache to check
+     * @param maxSize the maximum size of the cache
+     */
+    private void checkCache(Map<String, String> cache, int maxSize) {
+
+        assertTrue(cache instanceof I_CmsMemoryCacheStatistics);
+        I_CmsMemoryCacheStatistics stats = (I_CmsMemoryCacheStatistics)cache;
+        assertEquals(maxSize, stats.getMaxSize());
+
+        cache.put("key", "value");
+        assertEquals("value", cache.get("key"));
+        assertNull(cache.get("missing"));
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(0, stats.getLoadCount());
+
+        // putting the missed key in the same thread completes a load
+        cache.put("missing", "loaded");
+        assertEquals(1, stats.getLoadCount());
+        assertTrue(stats.getTotalLoadTime() >= 0);
+        cache.put("other", "value");
+        assertEquals(1, stats.getLoadCount());
+
+        for (int i = 0; i < (maxSize * 3); i++) {
+            cache.put("key" + i, "value" + i);
+        }
+        assertTrue(cache.size() <= maxSize);
+        assertTrue(stats.getEvictionCount() > 0);
+
+        // the running total matches the weight of the remaining entries
+        assertEquals(getWeight(cache), stats.getWeightedSize());
+        cache.put("key0", "replaced value");
+        cache.remove("key" + ((maxSize * 3) - 1));
+        assertEquals(getWeight(cache), stats.getWeightedSize());
+        cache.clear();
+        assertEquals(0, stats.getWeightedSize());
+    }
+
+    /**
+     * Returns the weight of all entries of a cache.<p>
+     *
+     * @param cache the cache
+     *
+     * @return the weight of all entries
+     */
+    private long getWeight(Map<String, String> cache) {
+
+        long weight = 0;
+        for (Map.Entry<String, String> entry : new HashMap<String, String>(cache).entrySet()) {
+            weight += CmsMemoryWeigher.weigh(entry.getKey(), entry.getValue());
+        }
+        return weight;
+    }
+}
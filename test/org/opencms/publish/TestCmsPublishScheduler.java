@@ -0,0 +1,293 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.publish;
+
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import junit.framework.TestCase;
+
+/**
+ * Test cases for the selection of concurrently running publish jobs by the {@link CmsPublishScheduler}.<p>
+ */
+public class TestCmsPublishScheduler extends TestCase {
+
+    /**
+     * Publish scheduler using fixed root paths and resource ids for the test jobs.<p>
+     */
+    private static class CmsTestPublishScheduler extends CmsPublishScheduler {
+
+        /** The online root paths of the moved resources of the test jobs. */
+        private Map<CmsPublishJobInfoBean, Set<String>> m_onlinePaths;
+
+        /** The resource ids of the test jobs. */
+        private Map<CmsPublishJobInfoBean, Set<CmsUUID>> m_resourceIds;
+
+        /** The root paths of the test jobs. */
+        private Map<CmsPublishJobInfoBean, Set<String>> m_rootPaths = new HashMap<CmsPublishJobInfoBean, Set<String>>();
+
+        /**
+         * Creates a new test scheduler.<p>
+         *
+         * @param maxThreads the maximum number of concurrently running publish jobs
+         * @param bulkJobSize the number of resources above which a publish job is a bulk job
+         */
+        protected CmsTestPublishScheduler(int maxThreads, int bulkJobSize) {
+
+            super(maxThreads, bulkJobSize);
+            m_onlinePaths = new HashMap<CmsPublishJobInfoBean, Set<String>>();
+            m_resourceIds = new HashMap<CmsPublishJobInfoBean, Set<CmsUUID>>();
+        }
+
+        /**
+         * Creates a new test job publishing the given root paths.<p>
+         *
+         * @param size the number of resources of the job
+         * @param rootPaths the root paths published by the job
+         *
+         * @return the new test job
+         */
+        public CmsPublishJobInfoBean createJob(int size, String... rootPaths) {
+
+            CmsPublishJobInfoBean publishJob = new CmsPublishJobInfoBean(
+                new CmsUUID(),
+                new CmsUUID(),
+                "test",
+                new CmsUUID(),
+                "en",
+                0,
+                size,
+                System.currentTimeMillis(),
+                0,
+                0);
+            m_rootPaths.put(publishJob, new TreeSet<String>(Arrays.asList(rootPaths)));
+            m_resourceIds.put(publishJob, new HashSet<CmsUUID>());
+            m_onlinePaths.put(publishJob, new TreeSet<String>());
+            return publishJob;
+        }
+
+        /**
+         * Sets the online root paths of the resources a test job has moved.<p>
+         *
+         * @param publishJob the test job
+         * @param onlinePaths the online root paths of the moved resources
+         */
+        public void setOnlineRootPaths(CmsPublishJobInfoBean publishJob, String... onlinePaths) {
+
+            m_onlinePaths.put(publishJob, new TreeSet<String>(Arrays.asList(onlinePaths)));
+        }
+
+        /**
+         * Sets the resource ids published by a test job.<p>
+         *
+         * @param publishJob the test job
+         * @param resourceIds the resource ids
+         */
+        public void setResourceIds(CmsPublishJobInfoBean publishJob, CmsUUID... resourceIds) {
+
+            m_resourceIds.put(publishJob, new HashSet<CmsUUID>(Arrays.asList(resourceIds)));
+        }
+
+        /**
+         * @see org.opencms.publish.CmsPublishScheduler#getOnlineRootPaths(org.opencms.publish.CmsPublishJobInfoBean)
+         */
+        @Override
+        protected Set<String> getOnlineRootPaths(CmsPublishJobInfoBean publishJob) {
+
+            return m_onlinePaths.get(publishJob);
+        }
+
+        /**
+         * @see org.opencms.publish.CmsPublishScheduler#getPublishedRootPaths(org.opencms.publish.CmsPublishJobInfoBean)
+         */
+        @Override
+        protected Set<String> getPublishedRootPaths(CmsPublishJobInfoBean publishJob) {
+
+            return new TreeSet<String>(m_rootPaths.get(publishJob));
+        }
+
+        /**
+         * @see org.opencms.publish.CmsPublishScheduler#getResourceIds(org.opencms.publish.CmsPublishJobInfoBean)
+         */
+        @Override
+        protected Set<CmsUUID> getResourceIds(CmsPublishJobInfoBean publishJob) {
+
+            return m_resourceIds.get(publishJob);
+        }
+    }
+
+    /**
+     * Tests that bulk jobs never occupy all publish threads.<p>
+     */
+    public void testBulkJobs() {
+
+        CmsTestPublishScheduler scheduler = new CmsTestPublishScheduler(3, 100);
+        CmsPublishJobInfoBean bulk1 = scheduler.createJob(5000, "/sites/a/");
+        CmsPublishJobInfoBean bulk2 = scheduler.createJob(5000, "/sites/b/");
+        CmsPublishJobInfoBean bulk3 = scheduler.createJob(5000, "/sites/c/");
+        CmsPublishJobInfoBean small = scheduler.createJob(1, "/sites/d/index.html");
+
+        List<CmsPublishJobInfoBean> queue = new ArrayList<CmsPublishJobInfoBean>(
+            Arrays.asList(bulk1, bulk2, bulk3, small));
+        List<CmsPublishJobInfoBean> running = new ArrayList<CmsPublishJobInfoBean>();
+        CmsPublishJobInfoBean next = scheduler.selectNextJob(queue, running);
+        while (next != null) {
+            queue.remove(next);
+            running.add(next);
+            next = scheduler.selectNextJob(queue, running);
+        }
+        // the third bulk job has to wait, the small job overtakes it
+        assertEquals(Arrays.asList(bulk1, bulk2, small), running);
+        assertEquals(Collections.singletonList(bulk3), queue);
+
+        // with a single thread, bulk jobs are published as before
+        scheduler = new CmsTestPublishScheduler(1, 100);
+        bulk1 = scheduler.createJob(5000, "/sites/a/");
+        assertSame(
+            bulk1,
+            scheduler.selectNextJob(
+                Collections.singletonList(bulk1),
+                Collections.<CmsPublishJobInfoBean> emptyList()));
+    }
+
+    /**
+     * Tests that a job publishing a moved resource overlaps with jobs publishing the old online location.<p>
+     */
+    public void testMovedResources() {
+
+        CmsTestPublishScheduler scheduler = new CmsTestPublishScheduler(4, 100);
+        // the folder has been moved from /sites/a/old/ to /sites/b/new/
+        CmsPublishJobInfoBean move = scheduler.createJob(1, "/sites/b/new/");
+        scheduler.setOnlineRootPaths(move, "/sites/a/old/");
+        CmsPublishJobInfoBean oldChild = scheduler.createJob(1, "/sites/a/old/page.html");
+        CmsPublishJobInfoBean unrelated = scheduler.createJob(1, "/sites/a/other.html");
+
+        List<CmsPublishJobInfoBean> running = Collections.singletonList(move);
+        assertSame(unrelated, scheduler.selectNextJob(Arrays.asList(oldChild, unrelated), running));
+        // the moved job also blocks a running job at the old location
+        running = Collections.singletonList(oldChild);
+        assertNull(scheduler.selectNextJob(Collections.singletonList(move), running));
+        assertTrue(scheduler.getRootPaths(move).contains("/sites/a/old/"));
+        assertTrue(scheduler.getRootPaths(move).contains("/sites/b/new/"));
+    }
+
+    /**
+     * Tests the detection of overlapping root paths.<p>
+     */
+    public void testOverlaps() {
+
+        TreeSet<String> paths = new TreeSet<String>(Arrays.asList("/sites/a/page.html", "/sites/b/"));
+        // same resource
+        assertTrue(CmsPublishScheduler.overlaps(Collections.singleton("/sites/a/page.html"), paths));
+        // parent folder of a published resource
+        assertTrue(CmsPublishScheduler.overlaps(Collections.singleton("/sites/a/"), paths));
+        assertTrue(CmsPublishScheduler.overlaps(Collections.singleton("/"), paths));
+        // resource in a published folder
+        assertTrue(CmsPublishScheduler.overlaps(Collections.singleton("/sites/b/c/page.html"), paths));
+        // unrelated resources
+        assertFalse(CmsPublishScheduler.overlaps(Collections.singleton("/sites/a/other.html"), paths));
+        assertFalse(CmsPublishScheduler.overlaps(Collections.singleton("/sites/c/"), paths));
+        assertFalse(CmsPublishScheduler.overlaps(Collections.singleton("/sites/bb/page.html"), paths));
+        assertFalse(CmsPublishScheduler.overlaps(Collections.singleton("/sites/a/"), new TreeSet<String>()));
+    }
+
+    /**
+     * Tests that only non-overlapping jobs run concurrently, and that jobs never overtake overlapping earlier jobs.<p>
+     */
+    public void testSelectNextJob() {
+
+        CmsTestPublishScheduler scheduler = new CmsTestPublishScheduler(4, 100);
+        CmsPublishJobInfoBean job1 = scheduler.createJob(2, "/sites/a/", "/sites/a/page.html");
+        CmsPublishJobInfoBean job2 = scheduler.createJob(1, "/sites/a/page.html");
+        CmsPublishJobInfoBean job3 = scheduler.createJob(1, "/sites/b/page.html");
+        CmsPublishJobInfoBean job4 = scheduler.createJob(1, "/sites/b/");
+        CmsPublishJobInfoBean job5 = scheduler.createJob(1, "/sites/c/page.html");
+
+        List<CmsPublishJobInfoBean> queue = Arrays.asList(job1, job2, job3, job4, job5);
+        List<CmsPublishJobInfoBean> running = new ArrayList<CmsPublishJobInfoBean>();
+        assertSame(job1, scheduler.selectNextJob(queue, running));
+        running.add(job1);
+        queue = Arrays.asList(job2, job3, job4, job5);
+        // job 2 overlaps with running job 1, job 3 does not
+        assertSame(job3, scheduler.selectNextJob(queue, running));
+        running.add(job3);
+        queue = Arrays.asList(job2, job4, job5);
+        // job 4 overlaps with running job 3
+        assertSame(job5, scheduler.selectNextJob(queue, running));
+        running.add(job5);
+        queue = Arrays.asList(job2, job4);
+        assertNull(scheduler.selectNextJob(queue, running));
+
+        // job 1 finished, job 2 can be started now
+        running.remove(job1);
+        assertSame(job2, scheduler.selectNextJob(queue, running));
+
+        // a later job must not overtake an earlier waiting job it overlaps with
+        running = Collections.singletonList(job3);
+        queue = Arrays.asList(job4, scheduler.createJob(1, "/sites/b/other.html"));
+        assertNull(scheduler.selectNextJob(queue, running));
+
+        // no free thread
+        scheduler = new CmsTestPublishScheduler(1, 100);
+        job1 = scheduler.createJob(1, "/sites/a/page.html");
+        job2 = scheduler.createJob(1, "/sites/b/page.html");
+        assertNull(scheduler.selectNextJob(Collections.singletonList(job2), Collections.singletonList(job1)));
+    }
+
+    /**
+     * Tests that jobs publishing different siblings of the same resource do not run concurrently.<p>
+     */
+    public void testSiblings() {
+
+        CmsTestPublishScheduler scheduler = new CmsTestPublishScheduler(4, 100);
+        CmsUUID resourceId = new CmsUUID();
+        CmsPublishJobInfoBean sibling1 = scheduler.createJob(1, "/sites/a/page.html");
+        scheduler.setResourceIds(sibling1, resourceId);
+        CmsPublishJobInfoBean sibling2 = scheduler.createJob(1, "/sites/b/page.html");
+        scheduler.setResourceIds(sibling2, resourceId);
+        CmsPublishJobInfoBean other = scheduler.createJob(1, "/sites/c/page.html");
+        scheduler.setResourceIds(other, new CmsUUID());
+
+        List<CmsPublishJobInfoBean> running = Collections.singletonList(sibling1);
+        assertSame(other, scheduler.selectNextJob(Arrays.asList(sibling2, other), running));
+        assertNull(scheduler.selectNextJob(Collections.singletonList(sibling2), running));
+
+        // the second sibling can be published once the first one has finished
+        running = Collections.singletonList(other);
+        assertSame(sibling2, scheduler.selectNextJob(Collections.singletonList(sibling2), running));
+    }
+}
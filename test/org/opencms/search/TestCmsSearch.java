@@ -155,6 +155,7 @@ public class TestCmsSearch extends OpenCmsTestCase {
         suite.setName(TestCmsSearch.class.getName());
 
         suite.addTest(new TestCmsSearch("testCmsSearchIndexer"));
+        suite.addTest(new TestCmsSearch("testCmsSearchIndexerParallel"));
         suite.addTest(new TestCmsSearch("testCmsSearchUppercaseFolderName"));
         suite.addTest(new TestCmsSearch("testCmsSearchDocumentTypes"));
         suite.addTest(new TestCmsSearch("testCmsSearchXmlContent"));
@@ -219,6 +220,35 @@ public class TestCmsSearch extends OpenCmsTestCase {
         OpenCms.getSearchManager().rebuildAllIndexes(report);
     }
 
+    /**
+     * Tests the cms search indexer with document extraction in multiple threads.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testCmsSearchIndexerParallel() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the search indexer with parallel document extraction");
+
+        int threads = OpenCms.getSearchManager().getIndexingThreads();
+        try {
+            OpenCms.getSearchManager().setIndexingThreads(4);
+            I_CmsReport report = new CmsShellReport(Locale.ENGLISH);
+            OpenCms.getSearchManager().rebuildIndex(INDEX_OFFLINE, report);
+        } finally {
+            OpenCms.getSearchManager().setIndexingThreads(threads);
+        }
+
+        CmsSearch cmsSearchBean = new CmsSearch();
+        cmsSearchBean.init(cms);
+        cmsSearchBean.setIndex(INDEX_OFFLINE);
+        cmsSearchBean.setSearchRoot("/types/");
+        cmsSearchBean.setQuery("+Alkacon +OpenCms +Text");
+        List<CmsSearchResult> results = cmsSearchBean.getSearchResult();
+        assertEquals(1, results.size());
+        assertEquals("/sites/default/types/text.txt", (results.get(0)).getPath());
+    }
+
     /**
      * Tests the cms search with a larger result set.<p>
      *
@@ -78,6 +78,7 @@ public class TestCmsSearchOffline extends OpenCmsTestCase {
 
         suite.addTest(new TestCmsSearchOffline("testSearchIndexSetup"));
         suite.addTest(new TestCmsSearchOffline("testIndexUpdateOnModification"));
+        suite.addTest(new TestCmsSearchOffline("testIndexUpdateQueue"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -252,4 +253,54 @@ public class TestCmsSearchOffline extends OpenCmsTestCase {
 
         echo("Move Test - end");
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that changes are queued and indexed after the debounce time without waiting for the update frequency.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testIndexUpdateQueue() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the debounced offline index update queue");
+
+        CmsSearchManager searchManager = OpenCms.getSearchManager();
+        long frequency = searchManager.getOfflineUpdateFrequency();
+        long debounce = searchManager.getOfflineUpdateDebounce();
+        try {
+            searchManager.setOfflineUpdateDebounce(500);
+            searchManager.setOfflineUpdateFrequency(60000);
+
+            String fileName = "/test/queue.txt";
+            String text = "Alkacon OpenCms queued Nightingale";
+            cms.createResource(fileName, CmsResourceTypePlain.getStaticTypeId(), text.getBytes(), null);
+            // a second change of the same resource must not add another queue entry
+            cms.writePropertyObject(
+                fileName,
+                new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "Queued Nightingale", ""));
+            assertEquals(1, searchManager.getOfflineIndexQueueSize());
+            assertTrue(searchManager.getOfflineIndexLag() >= 0);
+
+            // the debounced update must be finished long before the update frequency has passed
+            long deadline = System.currentTimeMillis() + 20000;
+            while (((searchManager.getOfflineIndexQueueSize() > 0) || (searchManager.getOfflineIndexLag() > 0))
+                && (System.currentTimeMillis() < deadline)) {
+                Thread.sleep(100);
+            }
+            assertEquals(0, searchManager.getOfflineIndexQueueSize());
+            assertEquals(0, searchManager.getOfflineIndexLag());
+
+            CmsSearch cmsSearchBean = new CmsSearch();
+            cmsSearchBean.setIndex(INDEX_SPECIAL);
+            cmsSearchBean.setSearchRoot("/");
+            cmsSearchBean.setQuery("+Nightingale");
+            cmsSearchBean.init(cms);
+            List<CmsSearchResult> results = cmsSearchBean.getSearchResult();
+            assertEquals(1, results.size());
+            assertEquals("/sites/default/test/queue.txt", results.get(0).getPath());
+        } finally {
+            searchManager.setOfflineUpdateDebounce(debounce);
+            searchManager.setOfflineUpdateFrequency(frequency);
+        }
+    }
+}
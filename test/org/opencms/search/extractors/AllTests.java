@@ -65,6 +65,7 @@ public final class AllTests {
         suite.addTest(new TestSuite(TestPdfExtraction.class));
         suite.addTest(new TestSuite(TestMsExcelExtraction.class));
         suite.addTest(TestXmlDocumentExtraction.suite());
+        suite.addTest(new TestSuite(TestCmsExtractionResult.class));
         //$JUnit-END$
         return suite;
     }
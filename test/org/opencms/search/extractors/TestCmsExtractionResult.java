@@ -0,0 +1,125 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search.extractors;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Tests the serialization of extraction results.<p>
+ */
+public class TestCmsExtractionResult extends OpenCmsTestCase {
+
+    /**
+     * Tests reading an extraction result that was written with Java serialization.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testJavaSerializedResult() throws Exception {
+
+        Map<String, String> items = new HashMap<String, String>();
+        items.put(I_CmsExtractionResult.ITEM_TITLE, "Alkacon Software");
+        CmsExtractionResult result = new CmsExtractionResult("Some content here.", items);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ObjectOutputStream oout = new ObjectOutputStream(out);
+        oout.writeObject(result);
+        oout.close();
+
+        CmsExtractionResult read = CmsExtractionResult.fromBytes(out.toByteArray());
+        assertNotNull(read);
+        assertEquals("Some content here.", read.getContent());
+        assertEquals("Alkacon Software", read.getContentItems().get(I_CmsExtractionResult.ITEM_TITLE));
+    }
+
+    /**
+     * Tests the compact format with a multilingual extraction result.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testMultilingualResult() throws Exception {
+
+        Map<Locale, Map<String, String>> contentItems = new HashMap<Locale, Map<String, String>>();
+        Map<String, String> english = new HashMap<String, String>();
+        english.put(I_CmsExtractionResult.ITEM_CONTENT, "Some content here.");
+        contentItems.put(Locale.ENGLISH, english);
+        Map<String, String> german = new HashMap<String, String>();
+        german.put(I_CmsExtractionResult.ITEM_CONTENT, "Etwas Inhalt \u00e4\u00f6\u00fc\u00df.");
+        contentItems.put(new Locale("de", "CH"), german);
+        contentItems.put(Locale.FRENCH, null);
+        Map<String, String> fieldMappings = new HashMap<String, String>();
+        fieldMappings.put("mapped_field", "mapped value");
+        CmsExtractionResult result = new CmsExtractionResult(Locale.ENGLISH, contentItems, fieldMappings);
+
+        CmsExtractionResult read = CmsExtractionResult.fromBytes(result.getBytes());
+        assertNotNull(read);
+        assertEquals(Locale.ENGLISH, read.getDefaultLocale());
+        assertEquals(result.getLocales(), read.getLocales());
+        assertEquals("Some content here.", read.getContent());
+        assertEquals("Etwas Inhalt \u00e4\u00f6\u00fc\u00df.", read.getContent(new Locale("de", "CH")));
+        assertTrue(read.getContentItems(Locale.FRENCH).isEmpty());
+        assertEquals(fieldMappings, read.getFieldMappings());
+    }
+
+    /**
+     * Tests the compact format with a unilingual extraction result and a large content.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testUnilingualResult() throws Exception {
+
+        StringBuffer content = new StringBuffer();
+        while (content.length() < 100000) {
+            // more than the 64 KB supported by modified UTF-8
+            content.append("Alkacon OpenCms \u20ac ");
+        }
+        Map<String, String> items = new HashMap<String, String>();
+        items.put(I_CmsExtractionResult.ITEM_AUTHOR, "Alkacon");
+        items.put(I_CmsExtractionResult.ITEM_KEYWORDS, null);
+        CmsExtractionResult result = new CmsExtractionResult(content.toString(), items);
+
+        byte[] bytes = result.getBytes();
+        // the compact format does not use Java serialization
+        assertFalse((bytes[0] == (byte)0xAC) && (bytes[1] == (byte)0xED));
+
+        CmsExtractionResult read = CmsExtractionResult.fromBytes(bytes);
+        assertNotNull(read);
+        assertNull(read.getDefaultLocale());
+        assertTrue(read.getLocales().isEmpty());
+        assertEquals(content.toString(), read.getContent());
+        assertEquals(result.getContentItems(), read.getContentItems());
+        assertTrue(read.getContentItems().containsKey(I_CmsExtractionResult.ITEM_KEYWORDS));
+        assertTrue(read.getFieldMappings().isEmpty());
+        assertSame(bytes, read.getBytes());
+    }
+}
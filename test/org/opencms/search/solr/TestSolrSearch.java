@@ -41,6 +41,7 @@ import org.opencms.report.I_CmsReport;
 import org.opencms.search.CmsSearchIndex;
 import org.opencms.search.CmsSearchResource;
 import org.opencms.search.fields.CmsSearchField;
+import org.opencms.security.I_CmsPrincipal;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
 import org.opencms.util.CmsRequestUtil;
@@ -49,6 +50,7 @@ import org.opencms.xml.content.CmsXmlContentFactory;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Iterator;
@@ -105,6 +107,9 @@ public class TestSolrSearch extends OpenCmsTestCase {
         suite.addTest(new TestSolrSearch("testMultipleSearchRoots"));
         suite.addTest(new TestSolrSearch("testQueryDefaults"));
         suite.addTest(new TestSolrSearch("testQueryParameterStrength"));
+        suite.addTest(new TestSolrSearch("testReadPermissionFilter"));
+        suite.addTest(new TestSolrSearch("testReadPermissionFilterPaging"));
+        suite.addTest(new TestSolrSearch("testResultCache"));
         suite.addTest(new TestSolrSearch("testSortResults"));
         suite.addTest(new TestSolrSearch("testXmlContent"));
         suite.addTest(new TestSolrSearch("testDocumentBoost"));
@@ -923,6 +928,164 @@ public class TestSolrSearch extends OpenCmsTestCase {
 
     }
 
+    /**
+     * Tests that searches are filtered by the read principals stored in the index.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testReadPermissionFilter() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the read permission filter query");
+
+        String folderName = "/aclfilter/";
+        String fileName = folderName + "master.pdf";
+        String guests = OpenCms.getDefaultUsers().getGroupGuests();
+        cms.createResource(folderName, CmsResourceTypeFolder.RESOURCE_TYPE_ID, null, null);
+        cms.chacc(folderName, I_CmsPrincipal.PRINCIPAL_GROUP, guests, "-r");
+        cms.unlockResource(folderName);
+        importTestResource(
+            cms,
+            "org/opencms/search/pdf-test-112.pdf",
+            fileName,
+            CmsResourceTypeBinary.getStaticTypeId(),
+            Collections.<CmsProperty> emptyList());
+        OpenCms.getPublishManager().publishProject(cms, new CmsShellReport(cms.getRequestContext().getLocale()));
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        CmsSolrIndex index = OpenCms.getSearchManager().getIndexSolr(AllTests.SOLR_ONLINE);
+        CmsSolrQuery query = new CmsSolrQuery();
+        query.setText("Testfile Struktur");
+        query.setSearchRoots(cms.getRequestContext().addSiteRoot(folderName));
+
+        // the administrator ignores permissions, so no filter query is added
+        CmsSolrResultList results = index.search(cms, query.clone());
+        assertEquals(1, results.size());
+        assertFalse(
+            Arrays.toString(results.getQuery().getFilterQueries()).contains(CmsSearchField.FIELD_ACL_READ_ALLOWED));
+
+        // the guest group is denied to read the folder and the file inherits this
+        CmsObject guestCms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserGuest());
+        assertFalse(guestCms.existsResource(fileName));
+        CmsSolrQuery guestQuery = query.clone();
+        results = index.search(guestCms, guestQuery);
+        assertEquals(0, results.size());
+        assertTrue(
+            Arrays.toString(results.getQuery().getFilterQueries()).contains(CmsSearchField.FIELD_ACL_READ_ALLOWED));
+        // the filter is not added to the query of the caller, so the query can be used again
+        assertFalse(
+            Arrays.toString(guestQuery.getFilterQueries()).contains(CmsSearchField.FIELD_ACL_READ_ALLOWED));
+
+        // removing the entry of the folder must update the principals of the file
+        cms.lockResource(folderName);
+        cms.rmacc(folderName, I_CmsPrincipal.PRINCIPAL_GROUP, guests);
+        cms.unlockResource(folderName);
+        OpenCms.getPublishManager().publishProject(cms, new CmsShellReport(cms.getRequestContext().getLocale()));
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        int expected = guestCms.existsResource(fileName) ? 1 : 0;
+        assertEquals(expected, index.search(guestCms, query.clone()).size());
+    }
+
+    /**
+     * Tests that a page is filled even if the documents on the page are dropped after the read permission filter.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testReadPermissionFilterPaging() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the paging of searches with the read permission filter");
+
+        String folderName = "/aclpaging/";
+        String guests = OpenCms.getDefaultUsers().getGroupGuests();
+        cms.createResource(folderName, CmsResourceTypeFolder.RESOURCE_TYPE_ID, null, null);
+        cms.chacc(folderName, I_CmsPrincipal.PRINCIPAL_GROUP, guests, "+r+v");
+        cms.unlockResource(folderName);
+        for (String name : new String[] {"a.txt", "b.txt", "c.txt"}) {
+            cms.createResource(
+                folderName + name,
+                CmsResourceTypePlain.getStaticTypeId(),
+                "OpenCms paging".getBytes(),
+                null);
+            if (!"c.txt".equals(name)) {
+                // the guests may still read the file, so the Solr filter does not drop it
+                cms.chacc(folderName + name, I_CmsPrincipal.PRINCIPAL_GROUP, guests, "-v");
+            }
+            cms.unlockResource(folderName + name);
+        }
+        OpenCms.getPublishManager().publishProject(cms, new CmsShellReport(cms.getRequestContext().getLocale()));
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        CmsSolrIndex index = OpenCms.getSearchManager().getIndexSolr(AllTests.SOLR_ONLINE);
+        CmsSolrQuery query = new CmsSolrQuery();
+        query.setSearchRoots(cms.getRequestContext().addSiteRoot(folderName));
+        query.setResourceTypes(CmsResourceTypePlain.getStaticTypeName());
+        Map<String, ORDER> orders = new LinkedHashMap<String, ORDER>();
+        orders.put(CmsSearchField.FIELD_PATH, ORDER.asc);
+        query.addSortFieldOrders(orders);
+        query.setRows(Integer.valueOf(1));
+
+        CmsObject guestCms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserGuest());
+        boolean requireViewPermission = index.isRequireViewPermission();
+        try {
+            // the view permission is only checked after the search, so the first two documents are dropped
+            index.setRequireViewPermission(true);
+            CmsSolrResultList results = index.search(guestCms, query);
+            assertTrue(
+                Arrays.toString(results.getQuery().getFilterQueries()).contains(
+                    CmsSearchField.FIELD_ACL_READ_ALLOWED));
+            assertEquals(1, results.size());
+            assertEquals(cms.getRequestContext().addSiteRoot(folderName + "c.txt"), results.get(0).getRootPath());
+            assertEquals(1, results.getNumFound());
+        } finally {
+            index.setRequireViewPermission(requireViewPermission);
+        }
+    }
+
+    /**
+     * Tests that search results are cached and the cache is invalidated when the index changes.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testResultCache() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the Solr result cache");
+
+        String folderName = "/resultcache/";
+        CmsSolrIndex index = OpenCms.getSearchManager().getIndexSolr(AllTests.SOLR_ONLINE);
+        CmsSolrQuery query = new CmsSolrQuery();
+        query.setText("Testfile Struktur");
+        query.setSearchRoots(cms.getRequestContext().addSiteRoot(folderName));
+        CmsSolrResultList results = index.search(cms, query.clone());
+        assertEquals(0, results.size());
+
+        // the cached result must be a copy that can be modified by the caller
+        CmsSolrResultList cachedResults = index.search(cms, query.clone());
+        assertNotSame(results, cachedResults);
+        assertEquals(0, cachedResults.size());
+
+        cms.createResource(folderName, CmsResourceTypeFolder.RESOURCE_TYPE_ID, null, null);
+        cms.unlockResource(folderName);
+        importTestResource(
+            cms,
+            "org/opencms/search/pdf-test-112.pdf",
+            folderName + "master.pdf",
+            CmsResourceTypeBinary.getStaticTypeId(),
+            Collections.<CmsProperty> emptyList());
+
+        // publishing updates the index, so the cached result must not be used any more
+        OpenCms.getPublishManager().publishProject(cms, new CmsShellReport(cms.getRequestContext().getLocale()));
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        results = index.search(cms, query.clone());
+        assertEquals(1, results.size());
+        results.clear();
+        cachedResults = index.search(cms, query.clone());
+        assertEquals(1, cachedResults.size());
+    }
+
     /**
      * Tests sorting of search results.<p>
      *
@@ -59,6 +59,7 @@ public final class AllTests {
         OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
         //$JUnit-BEGIN$
         suite.addTest(new TestSuite(TestCmsBrowserMatcher.class));
+        suite.addTest(new TestSuite(TestCmsByteRange.class));
         suite.addTest(new TestSuite(TestCmsDateUtil.class));
         suite.addTest(new TestSuite(TestCmsExportFolderMatcher.class));
         suite.addTest(new TestSuite(TestCmsFileUtil.class));
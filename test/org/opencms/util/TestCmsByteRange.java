@@ -0,0 +1,112 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Test case for parsing HTTP "Range" headers with {@link CmsByteRange}.<p>
+ */
+public class TestCmsByteRange extends TestCase {
+
+    /**
+     * Tests that overlapping and adjacent ranges are coalesced.<p>
+     */
+    public void testCoalesce() {
+
+        List<CmsByteRange> ranges = CmsByteRange.parse("bytes=500-599, 0-99, 90-199, 200-249", 1000);
+        assertEquals(Arrays.asList(new CmsByteRange(0, 249), new CmsByteRange(500, 599)), ranges);
+        assertEquals("bytes 0-249/1000", ranges.get(0).getContentRange(1000));
+        assertEquals(250, ranges.get(0).getLength());
+    }
+
+    /**
+     * Tests headers that must be ignored, so the complete content is delivered.<p>
+     */
+    public void testIgnoredHeaders() {
+
+        assertNull(CmsByteRange.parse(null, 1000));
+        assertNull(CmsByteRange.parse("items=0-10", 1000));
+        assertNull(CmsByteRange.parse("bytes=", 1000));
+        assertNull(CmsByteRange.parse("bytes=10", 1000));
+        assertNull(CmsByteRange.parse("bytes=20-10", 1000));
+        assertNull(CmsByteRange.parse("bytes=a-b", 1000));
+        assertNull(CmsByteRange.parse("bytes=--5", 1000));
+        StringBuffer tooMany = new StringBuffer("bytes=0-0");
+        for (int i = 1; i <= CmsByteRange.MAX_RANGES; i++) {
+            tooMany.append(',').append(i * 10).append('-').append(i * 10);
+        }
+        assertNull(CmsByteRange.parse(tooMany.toString(), 1000));
+    }
+
+    /**
+     * Tests single byte ranges.<p>
+     */
+    public void testSingleRange() {
+
+        assertEquals(
+            Collections.singletonList(new CmsByteRange(0, 499)),
+            CmsByteRange.parse("bytes=0-499", 1000));
+        // open range
+        assertEquals(
+            Collections.singletonList(new CmsByteRange(900, 999)),
+            CmsByteRange.parse("bytes=900-", 1000));
+        // end after the content length
+        assertEquals(
+            Collections.singletonList(new CmsByteRange(900, 999)),
+            CmsByteRange.parse("bytes=900-5000", 1000));
+        // suffix range
+        assertEquals(
+            Collections.singletonList(new CmsByteRange(800, 999)),
+            CmsByteRange.parse("bytes=-200", 1000));
+        // suffix range larger than the content
+        assertEquals(
+            Collections.singletonList(new CmsByteRange(0, 999)),
+            CmsByteRange.parse("bytes=-5000", 1000));
+    }
+
+    /**
+     * Tests valid headers that can not be satisfied.<p>
+     */
+    public void testUnsatisfiable() {
+
+        assertTrue(CmsByteRange.parse("bytes=1000-", 1000).isEmpty());
+        assertTrue(CmsByteRange.parse("bytes=2000-3000, -0", 1000).isEmpty());
+        assertTrue(CmsByteRange.parse("bytes=0-10", 0).isEmpty());
+        assertEquals("bytes */1000", CmsByteRange.getUnsatisfiableContentRange(1000));
+        // satisfiable ranges are kept
+        assertEquals(
+            Collections.singletonList(new CmsByteRange(0, 10)),
+            CmsByteRange.parse("bytes=2000-3000, 0-10", 1000));
+    }
+}
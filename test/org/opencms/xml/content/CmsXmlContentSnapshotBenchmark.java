@@ -0,0 +1,163 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.xml.content;
+
+import org.opencms.i18n.CmsEncoder;
+import org.opencms.util.CmsFileUtil;
+import org.opencms.xml.CmsXmlContentDefinition;
+import org.opencms.xml.CmsXmlEntityResolver;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark comparing the lookup of values from an unmarshalled XML content
+ * with the lookup from a {@link CmsXmlContentSnapshot} restored from its binary representation.<p>
+ *
+ * Both benchmarks start from the raw bytes, as they would be read from the VFS or the disk cache,
+ * and read three String values. Contents of about 5 KB and 500 KB are used.<p>
+ *
+ * Run with <code>gradle jmh -PjmhInclude=CmsXmlContentSnapshotBenchmark</code>.<p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CmsXmlContentSnapshotBenchmark {
+
+    /** The schema id. */
+    private static final String SCHEMA_SYSTEM_ID = "http://www.opencms.org/test1.xsd";
+
+    /** The approximate size of the XML content in bytes. */
+    @Param({"5000", "500000"})
+    public int m_size;
+
+    /** The path of the last String value in the content. */
+    private String m_lastPath;
+
+    /** The XML entity resolver. */
+    private CmsXmlEntityResolver m_resolver;
+
+    /** The binary representation of the snapshot. */
+    private byte[] m_snapshot;
+
+    /** The raw XML content. */
+    private byte[] m_xml;
+
+    /**
+     * Creates the XML content and its snapshot.<p>
+     *
+     * @throws Exception in case something goes wrong
+     */
+    @Setup
+    public void setUp() throws Exception {
+
+        m_resolver = new CmsXmlEntityResolver(null);
+        String schema = CmsFileUtil.readFile(
+            "org/opencms/xml/content/xmlcontent-definition-1.xsd",
+            CmsEncoder.ENCODING_UTF_8);
+        CmsXmlContentDefinition definition = CmsXmlContentDefinition.unmarshal(schema, SCHEMA_SYSTEM_ID, m_resolver);
+        CmsXmlEntityResolver.cacheSystemId(
+            SCHEMA_SYSTEM_ID,
+            definition.getSchema().asXML().getBytes(CmsEncoder.ENCODING_UTF_8));
+
+        // about a quarter of the content are String values, the rest are HTML values
+        StringBuffer xml = new StringBuffer(m_size + 1024);
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        xml.append("<Multitests xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" ");
+        xml.append("xsi:noNamespaceSchemaLocation=\"").append(SCHEMA_SYSTEM_ID).append("\">\n");
+        xml.append("<Multitest language=\"en\">\n");
+        int count = 0;
+        while (xml.length() < (m_size / 4)) {
+            count++;
+            xml.append("<String><![CDATA[This is the String value number ").append(count).append("]]></String>\n");
+        }
+        m_lastPath = "String[" + count + "]";
+        count = 0;
+        while (xml.length() < m_size) {
+            count++;
+            xml.append("<Html name=\"Html").append(count - 1).append("\"><links/><content><![CDATA[");
+            xml.append("<h2>Paragraph ").append(count).append("</h2>");
+            xml.append("<p>Lorem ipsum dolor sit amet, consectetur adipisici elit, sed eiusmod tempor incidunt ");
+            xml.append("ut labore et dolore magna aliqua. Ut enim ad minim veniam, quis nostrud exercitation ");
+            xml.append("ullamco laboris nisi ut aliquid ex ea commodi consequat.</p>]]></content></Html>\n");
+        }
+        xml.append("</Multitest>\n</Multitests>\n");
+        m_xml = xml.toString().getBytes(CmsEncoder.ENCODING_UTF_8);
+
+        CmsXmlContent content = CmsXmlContentFactory.unmarshal(null, m_xml, CmsEncoder.ENCODING_UTF_8, m_resolver);
+        m_snapshot = CmsXmlContentSnapshot.create(null, content).toByteArray();
+    }
+
+    /**
+     * Reads the values from the snapshot.<p>
+     *
+     * @return the last value read
+     *
+     * @throws Exception in case something goes wrong
+     */
+    @Benchmark
+    public String snapshot() throws Exception {
+
+        CmsXmlContentSnapshot snapshot = CmsXmlContentSnapshot.fromByteArray(m_snapshot);
+        snapshot.getStringValue("String", Locale.ENGLISH);
+        snapshot.getStringValue("DateTime", Locale.ENGLISH);
+        return snapshot.getStringValue(m_lastPath, Locale.ENGLISH);
+    }
+
+    /**
+     * Reads the values from the unmarshalled XML content.<p>
+     *
+     * @return the last value read
+     *
+     * @throws Exception in case something goes wrong
+     */
+    @Benchmark
+    public String unmarshal() throws Exception {
+
+        CmsXmlContent content = CmsXmlContentFactory.unmarshal(null, m_xml, CmsEncoder.ENCODING_UTF_8, m_resolver);
+        content.getStringValue(null, "String", Locale.ENGLISH);
+        content.getStringValue(null, "DateTime", Locale.ENGLISH);
+        return content.getStringValue(null, m_lastPath, Locale.ENGLISH);
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.xml.content;
+
+import org.opencms.i18n.CmsEncoder;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsFileUtil;
+import org.opencms.xml.CmsXmlContentDefinition;
+import org.opencms.xml.CmsXmlEntityResolver;
+import org.opencms.xml.types.I_CmsXmlContentValue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Tests for the binary XML content snapshots.<p>
+ */
+public class TestCmsXmlContentSnapshot extends OpenCmsTestCase {
+
+    /** The schema id. */
+    private static final String SCHEMA_SYSTEM_ID_1 = "http://www.opencms.org/test1.xsd";
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsXmlContentSnapshot(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that invalid data is detected when reading a snapshot.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testInvalidData() throws Exception {
+
+        byte[] data = CmsXmlContentSnapshot.create(null, createContent()).toByteArray();
+
+        // truncated data
+        try {
+            CmsXmlContentSnapshot.fromByteArray(Arrays.copyOf(data, data.length / 2));
+            fail("Truncated snapshot data not detected");
+        } catch (IOException e) {
+            // expected
+        }
+
+        // wrong magic number
+        byte[] invalid = data.clone();
+        invalid[0] = 0;
+        try {
+            CmsXmlContentSnapshot.fromByteArray(invalid);
+            fail("Invalid snapshot data not detected");
+        } catch (IOException e) {
+            // expected
+        }
+
+        // other format version
+        invalid = data.clone();
+        invalid[4] = CmsXmlContentSnapshot.FORMAT_VERSION + 1;
+        assertNull(CmsXmlContentSnapshot.fromByteArray(invalid));
+    }
+
+    /**
+     * Tests that a snapshot contains the same values as the XML content after a round trip
+     * through the binary representation.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testRoundTrip() throws Exception {
+
+        CmsXmlContent xmlcontent = createContent();
+        // add some more values, including non ASCII characters
+        xmlcontent.addValue(null, "String", Locale.ENGLISH, 1).setStringValue(null, "Grüße aus Köln");
+        xmlcontent.addValue(null, "String", Locale.ENGLISH, 2).setStringValue(null, "");
+        xmlcontent.addLocale(null, Locale.GERMAN);
+
+        CmsXmlContentSnapshot snapshot = CmsXmlContentSnapshot.fromByteArray(
+            CmsXmlContentSnapshot.create(null, xmlcontent).toByteArray());
+
+        assertEquals(xmlcontent.getEncoding(), snapshot.getEncoding());
+        assertEquals(xmlcontent.getLocales().size(), snapshot.getLocales().size());
+        assertTrue(snapshot.hasLocale(Locale.ENGLISH));
+        assertTrue(snapshot.hasLocale(Locale.GERMAN));
+        assertFalse(snapshot.hasLocale(Locale.FRENCH));
+
+        for (Locale locale : xmlcontent.getLocales()) {
+            assertEquals(xmlcontent.getValues(locale).size(), snapshot.getNames(locale).size());
+            for (I_CmsXmlContentValue value : xmlcontent.getValues(locale)) {
+                assertTrue(snapshot.hasValue(value.getPath(), locale));
+                assertEquals(value.getTypeName(), snapshot.getTypeName(value.getPath(), locale));
+                if (snapshot.isLinkValue(value.getPath(), locale)) {
+                    // values with links must be read from the content
+                    assertNull(snapshot.getStringValue(value.getPath(), locale));
+                } else {
+                    assertEquals(value.getStringValue(null), snapshot.getStringValue(value.getPath(), locale));
+                }
+            }
+        }
+
+        // the index of the first value may be omitted
+        assertEquals("Multitest 1", snapshot.getStringValue("String", Locale.ENGLISH));
+        assertEquals("Grüße aus Köln", snapshot.getStringValue("String[2]", Locale.ENGLISH));
+        assertEquals("", snapshot.getStringValue("String[3]", Locale.ENGLISH));
+        assertTrue(snapshot.hasValue("Html", Locale.ENGLISH));
+        assertTrue(snapshot.isLinkValue("Html", Locale.ENGLISH));
+        assertFalse(snapshot.isLinkValue("String", Locale.ENGLISH));
+        assertFalse(snapshot.hasValue("String[4]", Locale.ENGLISH));
+        assertNull(snapshot.getStringValue("String[4]", Locale.ENGLISH));
+        assertNull(snapshot.getStringValue("String", Locale.FRENCH));
+    }
+
+    /**
+     * Creates the XML content used for the tests.<p>
+     *
+     * @return the XML content used for the tests
+     *
+     * @throws Exception in case something goes wrong
+     */
+    private CmsXmlContent createContent() throws Exception {
+
+        CmsXmlEntityResolver resolver = new CmsXmlEntityResolver(null);
+
+        // unmarshal content definition
+        String content = CmsFileUtil.readFile(
+            "org/opencms/xml/content/xmlcontent-definition-1.xsd",
+            CmsEncoder.ENCODING_UTF_8);
+        CmsXmlContentDefinition definition = CmsXmlContentDefinition.unmarshal(content, SCHEMA_SYSTEM_ID_1, resolver);
+        // store content definition in entitiy resolver
+        CmsXmlEntityResolver.cacheSystemId(
+            SCHEMA_SYSTEM_ID_1,
+            definition.getSchema().asXML().getBytes(CmsEncoder.ENCODING_UTF_8));
+
+        // now create the XML content
+        content = CmsFileUtil.readFile("org/opencms/xml/content/xmlcontent-1.xml", CmsEncoder.ENCODING_UTF_8);
+        return CmsXmlContentFactory.unmarshal(content, CmsEncoder.ENCODING_UTF_8, resolver);
+    }
+}
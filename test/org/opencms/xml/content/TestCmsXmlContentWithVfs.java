@@ -140,6 +140,7 @@ public class TestCmsXmlContentWithVfs extends OpenCmsTestCase {
         suite.addTest(new TestCmsXmlContentWithVfs("testAutoXsd"));
         suite.addTest(new TestCmsXmlContentWithVfs("testAddRemoveElements"));
         suite.addTest(new TestCmsXmlContentWithVfs("testContentHandler"));
+        suite.addTest(new TestCmsXmlContentWithVfs("testContentCache"));
         suite.addTest(new TestCmsXmlContentWithVfs("testDefaultOnCreation"));
         suite.addTest(new TestCmsXmlContentWithVfs("testDefaultOnCreationWithNested"));
         suite.addTest(new TestCmsXmlContentWithVfs("testDefaultNested"));
@@ -642,6 +643,44 @@ public class TestCmsXmlContentWithVfs extends OpenCmsTestCase {
         System.out.println(string);
     }
 
+    /**
+     * Tests the cross request cache for unmarshalled XML contents.<p>
+     *
+     * @throws Exception in case something goes wrong
+     */
+    public void testContentCache() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the cross request XML content cache");
+
+        String filename = "/xmlcontent/article_0003.html";
+        CmsFile file = cms.readFile(filename);
+        CmsXmlContent xmlcontent1 = CmsXmlContentFactory.unmarshal(cms, file);
+        CmsXmlContent xmlcontent2 = CmsXmlContentFactory.unmarshal(cms, cms.readFile(filename));
+
+        // every caller must get an own instance that can be modified independently
+        assertNotSame(xmlcontent1, xmlcontent2);
+        assertNotSame(xmlcontent1.getDocument(), xmlcontent2.getDocument());
+        assertEquals(xmlcontent1.toString(), xmlcontent2.toString());
+        xmlcontent1.getValue("Title", Locale.ENGLISH).setStringValue(cms, "Modified title");
+        assertEquals(
+            xmlcontent2.getStringValue(cms, "Title", Locale.ENGLISH),
+            CmsXmlContentFactory.unmarshal(cms, cms.readFile(filename)).getStringValue(cms, "Title", Locale.ENGLISH));
+
+        // contents modified in memory must not be served from the cache
+        file.setContents(xmlcontent1.toString().getBytes(xmlcontent1.getEncoding()));
+        xmlcontent2 = CmsXmlContentFactory.unmarshal(cms, file);
+        assertEquals("Modified title", xmlcontent2.getStringValue(cms, "Title", Locale.ENGLISH));
+
+        // writing the file must invalidate the cached content
+        cms.lockResource(filename);
+        cms.writeFile(file);
+        assertEquals(
+            "Modified title",
+            CmsXmlContentFactory.unmarshal(cms, cms.readFile(filename)).getStringValue(cms, "Title", Locale.ENGLISH));
+        cms.unlockResource(filename);
+    }
+
     /**
      * Test using a different XML content handler then the default handler.<p>
      *
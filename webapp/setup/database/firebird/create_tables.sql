@@ -845,4 +845,7 @@ CREATE INDEX CMS_USERPUBLIST_IDX_01 ON CMS_USER_PUBLISH_LIST (USER_ID);
 CREATE INDEX CMS_USERPUBLIST_IDX_02 ON CMS_USER_PUBLISH_LIST (STRUCTURE_ID);
 
 CREATE TABLE CMS_REWRITES (ID VARCHAR(36) NOT NULL, ALIAS_MODE INTEGER NOT NULL, PATTERN VARCHAR(255) NOT NULL, REPLACEMENT VARCHAR(255) NOT NULL, SITE_ROOT VARCHAR(64) NOT NULL, PRIMARY KEY (ID));
-CREATE INDEX CMS_REWRITES_IDX_01 ON CMS_REWRITES (SITE_ROOT);
\ No newline at end of file
+CREATE INDEX CMS_REWRITES_IDX_01 ON CMS_REWRITES (SITE_ROOT);
+
+CREATE TABLE CMS_CACHE_EVENTS (EVENT_ID VARCHAR(36) NOT NULL, NODE_ID VARCHAR(36) NOT NULL, EVENT_TYPE INTEGER NOT NULL, EVENT_DATA VARCHAR(1000), DATE_CREATED BIGINT NOT NULL, PRIMARY KEY (EVENT_ID));
+CREATE INDEX CMS_CACHE_EVENTS_IDX_01 ON CMS_CACHE_EVENTS (DATE_CREATED);
\ No newline at end of file
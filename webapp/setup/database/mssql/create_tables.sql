@@ -694,4 +694,7 @@ CREATE NONCLUSTERED INDEX CMS_USERPUBLIST_IDX_02 ON CMS_USER_PUBLISH_LIST(STRUCT
 CREATE TABLE CMS_REWRITES (ID NVARCHAR(36) NOT NULL, ALIAS_MODE INT NOT NULL, PATTERN NVARCHAR(255) NOT NULL, REPLACEMENT VARCHAR(255) NOT NULL, SITE_ROOT NVARCHAR(64) NOT NULL, PRIMARY KEY (ID));
 CREATE NONCLUSTERED INDEX CMS_REWRITES_IDX_01 ON CMS_REWRITES (SITE_ROOT);
 
+CREATE TABLE CMS_CACHE_EVENTS (EVENT_ID NVARCHAR(36) NOT NULL, NODE_ID NVARCHAR(36) NOT NULL, EVENT_TYPE INT NOT NULL, EVENT_DATA NVARCHAR(1000), DATE_CREATED BIGINT NOT NULL, PRIMARY KEY (EVENT_ID));
+CREATE NONCLUSTERED INDEX CMS_CACHE_EVENTS_IDX_01 ON CMS_CACHE_EVENTS (DATE_CREATED);
+
 
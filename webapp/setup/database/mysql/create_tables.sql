@@ -524,4 +524,17 @@ CREATE TABLE CMS_REWRITES
   )
 ENGINE = MYISAM CHARACTER SET UTF8;
 
-CREATE INDEX CMS_REWRITES_IDX_01 ON CMS_REWRITES (SITE_ROOT); 
\ No newline at end of file
+CREATE INDEX CMS_REWRITES_IDX_01 ON CMS_REWRITES (SITE_ROOT); 
+
+CREATE TABLE CMS_CACHE_EVENTS
+  (
+     EVENT_ID     VARCHAR(36) NOT NULL,
+     NODE_ID      VARCHAR(36) NOT NULL,
+     EVENT_TYPE   INTEGER NOT NULL,
+     EVENT_DATA   VARCHAR(1000),
+     DATE_CREATED BIGINT NOT NULL,
+     PRIMARY KEY (EVENT_ID)
+  )
+ENGINE = MYISAM CHARACTER SET UTF8;
+
+CREATE INDEX CMS_CACHE_EVENTS_IDX_01 ON CMS_CACHE_EVENTS (DATE_CREATED);
\ No newline at end of file
@@ -153,4 +153,5 @@ DROP TABLE CMS_ALIASES ;
 
 
 
-DROP TABLE CMS_REWRITES;
\ No newline at end of file
+DROP TABLE CMS_REWRITES;
+DROP TABLE CMS_CACHE_EVENTS;
\ No newline at end of file